@@ -0,0 +1,75 @@
+package com.oregonmarkets.common.cassandra;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * CQL of the components that write their own statements rather than going through a Spring Data
+ * repository. Each query is prepared once for the whole application, on first use, so startup does
+ * not depend on Cassandra being reachable. Every request, including the fetch of a further page, is
+ * retried with backoff before its failure is passed on.
+ */
+@Component
+public class CqlStatements {
+
+  /** Retries of a failed request before its error is passed on */
+  public static final int MAX_RETRIES = 3;
+
+  /** Delay before the first retry, growing with each further one */
+  public static final Duration RETRY_BACKOFF = Duration.ofMillis(100);
+
+  private final CqlSession session;
+  private final Map<String, PreparedStatement> prepared = new ConcurrentHashMap<>();
+
+  public CqlStatements(CqlSession session) {
+    this.session = session;
+  }
+
+  public PreparedStatement prepare(String query) {
+    return prepared.computeIfAbsent(query, session::prepare);
+  }
+
+  public BoundStatementBuilder bound(String query) {
+    return prepare(query).boundStatementBuilder();
+  }
+
+  /**
+   * Execute the statement built on subscription, so a failure to prepare or bind it is retried
+   * and reported like a failed request
+   */
+  public Mono<AsyncResultSet> execute(Supplier<? extends Statement<?>> statement) {
+    return retrying(() -> session.executeAsync(statement.get()));
+  }
+
+  public Mono<AsyncResultSet> execute(Statement<?> statement) {
+    return retrying(() -> session.executeAsync(statement));
+  }
+
+  /** Every page of the statement's result, the next being fetched once the previous is emitted */
+  public Flux<AsyncResultSet> pages(Supplier<? extends Statement<?>> statement) {
+    return execute(statement)
+        .expand(page -> page.hasMorePages() ? retrying(page::fetchNextPage) : Mono.empty());
+  }
+
+  /** Every row of the statement's result, page by page */
+  public Flux<Row> rows(Supplier<? extends Statement<?>> statement) {
+    return pages(statement).concatMapIterable(AsyncResultSet::currentPage);
+  }
+
+  private static Mono<AsyncResultSet> retrying(Supplier<CompletionStage<AsyncResultSet>> request) {
+    return Mono.fromCompletionStage(request).retryWhen(Retry.backoff(MAX_RETRIES, RETRY_BACKOFF));
+  }
+}
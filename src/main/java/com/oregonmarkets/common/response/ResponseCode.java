@@ -37,6 +37,7 @@ public enum ResponseCode {
   MARKET_CREATED(2300, "Market created successfully", HttpStatus.CREATED),
   MARKET_UPDATED(2301, "Market updated successfully", HttpStatus.OK),
   MARKET_RESOLVED(2302, "Market resolved successfully", HttpStatus.OK),
+  SETTLEMENT_RETRIEVED(2303, "Settlement progress retrieved successfully", HttpStatus.OK),
 
   // Authentication/User Operations (2400-2499)
   USER_REGISTERED(2400, "User registered successfully", HttpStatus.CREATED),
@@ -56,6 +57,11 @@ public enum ResponseCode {
   ORDER_CANCELLED(2502, "Order cancelled successfully", HttpStatus.OK),
   ORDER_PARTIALLY_FILLED(2503, "Order partially filled", HttpStatus.OK),
   ORDER_FILLED(2504, "Order completely filled", HttpStatus.OK),
+  ORDER_EXPIRED(2505, "Order expired", HttpStatus.OK),
+  ORDERS_BATCH_PROCESSED(2506, "Order batch processed", HttpStatus.OK),
+  QUOTES_REPLACED(2507, "Quotes replaced", HttpStatus.OK),
+  OPEN_ORDERS_RETRIEVED(2508, "Open orders retrieved successfully", HttpStatus.OK),
+  POSITIONS_RETRIEVED(2509, "Positions retrieved successfully", HttpStatus.OK),
 
   // ============================================
   // CLIENT ERRORS (3000-3999) - HTTP 4xx
@@ -116,6 +122,7 @@ public enum ResponseCode {
   DEPOSIT_LIMIT_EXCEEDED(3315, "Deposit limit exceeded", HttpStatus.BAD_REQUEST),
   DAILY_LIMIT_EXCEEDED(3316, "Daily transaction limit exceeded", HttpStatus.BAD_REQUEST),
   PENDING_WITHDRAWAL_EXISTS(3317, "Pending withdrawal already exists", HttpStatus.CONFLICT),
+  INSUFFICIENT_POSITION(3318, "Insufficient shares to sell", HttpStatus.BAD_REQUEST),
   USER_ALREADY_EXISTS(3320, "User already exists", HttpStatus.CONFLICT),
   DUPLICATE_USER(3320, "User already exists", HttpStatus.CONFLICT),
 
@@ -0,0 +1,82 @@
+package com.oregonmarkets.common.response;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streaming alternative to the buffered {@link ApiResponse} envelope for listing endpoints. A
+ * client that asks for {@code application/x-ndjson} gets one JSON document per line and one that
+ * asks for {@code text/event-stream} gets one server-sent event per element. Elements are written
+ * as they are produced and requested only as fast as the client socket drains, so neither the
+ * first byte nor peak memory waits on the whole listing.
+ */
+@Slf4j
+public final class StreamingResponses {
+
+  private static final List<MediaType> STREAMING_TYPES =
+      List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+  private StreamingResponses() {}
+
+  /**
+   * Streaming media type the request names in its {@code Accept} header, if any. Wildcards do not
+   * count, so browsers and existing clients keep the enveloped JSON response.
+   */
+  public static Optional<MediaType> negotiate(ServerRequest request) {
+    for (MediaType accepted : request.headers().accept()) {
+      if (accepted.getQualityValue() == 0) {
+        continue;
+      }
+      for (MediaType streaming : STREAMING_TYPES) {
+        if (streaming.equalsTypeAndSubtype(accepted)) {
+          return Optional.of(streaming);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Stream {@code elements} as {@code mediaType}. The status line is committed with the first
+   * element, so a failure part way through can only cut the stream short; it is logged here.
+   */
+  public static <T> Mono<ServerResponse> stream(
+      MediaType mediaType, Flux<T> elements, Class<T> elementClass) {
+    return ServerResponse.ok()
+        .contentType(mediaType)
+        .body(
+            elements.doOnError(error -> log.error("Error streaming {} response", mediaType, error)),
+            elementClass);
+  }
+
+  /**
+   * Respond with a whole listing: streamed if the client negotiated a streaming media type,
+   * otherwise collected into one enveloped {@link ApiResponse}, with a failure mapped to a response
+   * by {@code errorHandler}.
+   */
+  public static <T> Mono<ServerResponse> respond(
+      ServerRequest request,
+      Flux<T> elements,
+      Class<T> elementClass,
+      Function<Throwable, Mono<ServerResponse>> errorHandler) {
+    return negotiate(request)
+        .map(mediaType -> stream(mediaType, elements, elementClass))
+        .orElseGet(
+            () ->
+                elements
+                    .collectList()
+                    .flatMap(
+                        list -> {
+                          ApiResponse<List<T>> response = ApiResponse.success(list);
+                          return ServerResponse.ok().bodyValue(response);
+                        })
+                    .onErrorResume(errorHandler));
+  }
+}
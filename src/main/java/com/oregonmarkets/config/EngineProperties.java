@@ -0,0 +1,202 @@
+package com.oregonmarkets.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/** Sizing of the in-process matching engine */
+@Component
+@ConfigurationProperties(prefix = "app.engine")
+@Data
+public class EngineProperties {
+
+  /** Number of single-threaded engine shards; 0 uses one per available processor */
+  private int shards = 0;
+
+  /** Command slots per shard ring buffer; must be a power of two */
+  private int ringBufferSize = 65536;
+
+  private WriteBehind writeBehind = new WriteBehind();
+
+  private Journal journal = new Journal();
+
+  private Risk risk = new Risk();
+
+  private Idempotency idempotency = new Idempotency();
+
+  private Positions positions = new Positions();
+
+  private Settlement settlement = new Settlement();
+
+  private MarketClose marketClose = new MarketClose();
+
+  private Suggest suggest = new Suggest();
+
+
+  private Listings listings = new Listings();
+
+  public int resolveShards() {
+    return shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+  }
+
+  /** Asynchronous persistence of engine output to Cassandra */
+  @Data
+  public static class WriteBehind {
+
+    private boolean enabled = true;
+
+    /** How often buffered results are coalesced and flushed */
+    private long flushIntervalMs = 50;
+
+    /** Upper bound on statements grouped into one single-partition UNLOGGED batch */
+    private int maxBatchStatements = 16;
+
+    /** Maximum batches in flight against Cassandra */
+    private int maxConcurrency = 32;
+
+    /** Unflushed results above which new orders are refused until writes catch up */
+    private int maxPending = 100_000;
+  }
+
+  /** Command journal and book snapshots used to recover the engine after a restart */
+  @Data
+  public static class Journal {
+
+    private boolean enabled = false;
+
+    /** Directory holding journal segments and snapshots of every shard */
+    private String directory = "data/engine";
+
+    /** Size of each memory-mapped journal segment */
+    private int segmentSizeMb = 64;
+
+    /** How often books are snapshotted so recovery replays only a short journal tail; 0 disables */
+    private long snapshotIntervalSeconds = 300;
+  }
+
+  /** In-memory pre-trade balance and position checks */
+  @Data
+  public static class Risk {
+
+    private boolean enabled = true;
+
+    /** How often loaded accounts are re-read from Blnk and positions_by_user; 0 disables */
+    private long reconcileIntervalSeconds = 60;
+  }
+
+  /** De-duplication of retried orders by client order ID */
+  @Data
+  public static class Idempotency {
+
+    private boolean enabled = true;
+
+    /** Recent client order IDs each engine shard answers retries for from memory */
+    private int shardCapacity = 65536;
+
+    /** How long Redis remembers a client order ID across nodes and restarts */
+    private long windowSeconds = 86400;
+
+    /** How long a claimed client order ID blocks retries while its order is in flight */
+    private long pendingSeconds = 30;
+
+    public int resolveShardCapacity() {
+      return enabled ? shardCapacity : 0;
+    }
+  }
+
+  /** Position aggregates maintained in memory from the trade stream */
+  @Data
+  public static class Positions {
+
+    private boolean enabled = true;
+
+    /** How often changed positions are written to positions_by_user and positions_by_market */
+    private long flushIntervalMs = 1000;
+
+    /** Independent partitions of the in-memory positions, by user, flushed concurrently */
+    private int userShards = 16;
+
+    /** Positions without fills for this long are dropped from memory once written */
+    private long idleSeconds = 900;
+
+    /** Unapplied fills above which new orders are refused until the aggregator catches up */
+    private int maxPending = 200_000;
+  }
+
+  /** Payout of resolved markets' winning positions through the Blnk ledger */
+  @Data
+  public static class Settlement {
+
+    private boolean enabled = true;
+
+    /** Rows of positions_by_market read per page; progress is checkpointed after each page */
+    private int pageSize = 1000;
+
+    /** Payouts posted to Blnk per bulk request */
+    private int batchSize = 100;
+
+    /** Bulk requests in flight at once */
+    private int concurrency = 4;
+
+    /** Blnk balance, or balance indicator, payouts are drawn from */
+    private String source = "@MarketSettlements";
+
+    private String currency = "USDC";
+
+    /** Blnk precision of amounts in the currency */
+    private long precision = 1_000_000L;
+
+    /** How often unfinished settlements are looked for and resumed */
+    private long resumeIntervalSeconds = 60;
+
+    /**
+     * How long a node's claim on a settlement lasts unless renewed; renewed before each page, so it
+     * must exceed the time taken to settle one page
+     */
+    private long leaseSeconds = 300;
+  }
+
+  /** Closing markets for trading at their close time */
+  @Data
+  public static class MarketClose {
+
+    private boolean enabled = true;
+
+    /** Closes due within this long are held in memory; must exceed the refresh interval */
+    private long windowMinutes = 60;
+
+    /** How often upcoming closes are loaded from markets_by_close_date */
+    private long refreshSeconds = 300;
+
+    /** Closes missed by up to this long, e.g. while every node was down, are still carried out */
+    private long lookbackHours = 24;
+
+    /** How long the node that claimed a close has to carry it out before another node may */
+    private long leaseSeconds = 120;
+  }
+
+  /** Type-ahead suggestions over market titles and category and subcategory names */
+  @Data
+  public static class Suggest {
+
+    /** How long after a change the suggestion trie is rebuilt, taking in every change made meanwhile */
+    private long rebuildDelayMillis = 1000;
+
+    /** Best completions kept per trie node, which is also the most a request can get */
+    private int completionsPerNode = 10;
+  }
+
+  /** Upkeep of the markets_by_category and markets_by_status query tables */
+  @Data
+  public static class Listings {
+
+    /** Whether this node takes part in the periodic repair of the query tables */
+    private boolean repairEnabled = true;
+
+    /** How often the query tables are reconciled with markets_by_id; one node per interval does it */
+    private long repairIntervalMinutes = 60;
+
+    /** Markets checked at once during a repair */
+    private int repairConcurrency = 16;
+  }
+}
@@ -1,5 +1,9 @@
 package com.oregonmarkets.config;
 
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,9 +36,25 @@ public class RedisConfig {
     RedisSerializationContext<String, Object> context =
         RedisSerializationContext.<String, Object>newSerializationContext(
                 new StringRedisSerializer())
-            .value(new GenericJackson2JsonRedisSerializer())
+            .value(valueSerializer())
             .build();
 
     return new ReactiveRedisTemplate<>(connectionFactory, context);
   }
+
+  /**
+   * JSON tagged with each value's class so reads return the type written, with java.time support
+   * for values such as order responses that carry timestamps
+   */
+  static GenericJackson2JsonRedisSerializer valueSerializer() {
+    ObjectMapper mapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    mapper.activateDefaultTyping(
+        mapper.getPolymorphicTypeValidator(),
+        ObjectMapper.DefaultTyping.NON_FINAL,
+        JsonTypeInfo.As.PROPERTY);
+    return new GenericJackson2JsonRedisSerializer(mapper);
+  }
 }
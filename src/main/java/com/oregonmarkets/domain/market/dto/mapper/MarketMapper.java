@@ -3,10 +3,15 @@ package com.oregonmarkets.domain.market.dto.mapper;
 import com.oregonmarkets.domain.market.dto.request.CreateMarketRequest;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
 import com.oregonmarkets.domain.market.dto.response.OutcomeResponse;
+import com.oregonmarkets.domain.market.dto.response.SettlementResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
 import com.oregonmarkets.domain.market.model.Category;
 import com.oregonmarkets.domain.market.model.Market;
 import com.oregonmarkets.domain.market.model.MarketStatus;
 import com.oregonmarkets.domain.market.model.Outcome;
+import com.oregonmarkets.domain.market.model.PricingMode;
+import com.oregonmarkets.domain.market.search.SuggestionTrie;
+import com.oregonmarkets.domain.market.settlement.SettlementProgress;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -50,6 +55,8 @@ public class MarketMapper {
                 .maxOrderSize(request.getMaxOrderSize())
                 .maxPositionSize(request.getMaxPositionSize())
                 .tickSizeE4(request.getTickSizeE4() != null ? request.getTickSizeE4() : 100L)
+                .pricingMode(request.getPricingMode() != null ? request.getPricingMode() : PricingMode.ORDER_BOOK.name())
+                .lmsrLiquidity(request.getLmsrLiquidity())
                 .makerFeeE4(request.getMakerFeeE4() != null ? request.getMakerFeeE4() : 10L)
                 .takerFeeE4(request.getTakerFeeE4() != null ? request.getTakerFeeE4() : 20L)
                 .settlementFeeE4(request.getSettlementFeeE4() != null ? request.getSettlementFeeE4() : 0L)
@@ -145,6 +152,8 @@ public class MarketMapper {
                 .maxOrderSize(market.getMaxOrderSize())
                 .maxPositionSize(market.getMaxPositionSize())
                 .tickSizeE4(market.getTickSizeE4())
+                .pricingMode(market.getPricingMode())
+                .lmsrLiquidity(market.getLmsrLiquidity())
                 .totalVolume(market.getTotalVolume())
                 .volume24h(market.getVolume24h())
                 .totalLiquidity(market.getTotalLiquidity())
@@ -206,6 +215,40 @@ public class MarketMapper {
                 .build();
     }
 
+    /**
+     * Map a settlement's progress to SettlementResponse
+     */
+    public SettlementResponse toSettlementResponse(SettlementProgress progress) {
+        return SettlementResponse.builder()
+                .marketId(progress.marketId())
+                .winningOutcomeId(progress.winningOutcomeId())
+                .status(progress.status())
+                .pages(progress.pages())
+                .positionsScanned(progress.positionsScanned())
+                .payoutsPosted(progress.payoutsPosted())
+                .payoutsFailed(progress.payoutsFailed())
+                .totalPaid(progress.totalPaid())
+                .positionsPerSecond(progress.positionsPerSecond())
+                .payoutsPerSecond(progress.payoutsPerSecond())
+                .lastError(progress.lastError())
+                .startedAt(progress.startedAt())
+                .updatedAt(progress.updatedAt())
+                .completedAt(progress.completedAt())
+                .build();
+    }
+
+    /**
+     * Map a suggestion trie entry to SuggestionResponse
+     */
+    public SuggestionResponse toSuggestionResponse(SuggestionTrie.Entry entry) {
+        return SuggestionResponse.builder()
+                .text(entry.text())
+                .type(entry.type())
+                .id(entry.id())
+                .slug(entry.slug())
+                .build();
+    }
+
     /**
      * Generate URL-friendly slug from title and market ID
      */
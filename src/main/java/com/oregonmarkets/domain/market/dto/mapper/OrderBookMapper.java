@@ -0,0 +1,82 @@
+package com.oregonmarkets.domain.market.dto.mapper;
+
+import com.oregonmarkets.domain.market.dto.response.OrderBookResponse;
+import com.oregonmarkets.domain.market.engine.BookDelta;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.BookLevel;
+import com.oregonmarkets.domain.market.engine.BookSnapshot;
+import com.oregonmarkets.domain.market.engine.OrderBook;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mapper for engine book views and order book DTOs.
+ * A unified binary book is kept in its primary outcome's terms; viewed from the complementary
+ * outcome, its asks are that outcome's bids at {@code 10000 - price} and vice versa.
+ */
+@Component
+public class OrderBookMapper {
+
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String DELTA = "DELTA";
+
+    /**
+     * Map a book snapshot to an OrderBookResponse as seen from the given outcome
+     */
+    public OrderBookResponse toResponse(BookSnapshot snapshot, UUID outcomeId) {
+        return toResponse(SNAPSHOT, snapshot.key(), snapshot.complementOutcomeId(), snapshot.sequence(),
+                snapshot.bids(), snapshot.asks(), outcomeId);
+    }
+
+    /**
+     * Map a book delta to an OrderBookResponse as seen from the given outcome
+     */
+    public OrderBookResponse toResponse(BookDelta delta, UUID outcomeId) {
+        return toResponse(DELTA, delta.key(), delta.complementOutcomeId(), delta.sequence(),
+                delta.bids(), delta.asks(), outcomeId);
+    }
+
+    /**
+     * Empty snapshot of an outcome whose book has not been opened on the engine yet
+     */
+    public OrderBookResponse empty(UUID marketId, UUID outcomeId) {
+        return OrderBookResponse.builder()
+                .type(SNAPSHOT)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .sequence(0L)
+                .bids(List.of())
+                .asks(List.of())
+                .build();
+    }
+
+    private OrderBookResponse toResponse(String type, BookKey key, UUID complementOutcomeId, long sequence,
+                                         List<BookLevel> bids, List<BookLevel> asks, UUID outcomeId) {
+        boolean complement = complementOutcomeId != null && complementOutcomeId.equals(outcomeId);
+        return OrderBookResponse.builder()
+                .type(type)
+                .marketId(key.marketId())
+                .outcomeId(complement ? complementOutcomeId : key.outcomeId())
+                .sequence(sequence)
+                .bids(toLevels(complement ? asks : bids, complement))
+                .asks(toLevels(complement ? bids : asks, complement))
+                .build();
+    }
+
+    private static List<OrderBookResponse.Level> toLevels(List<BookLevel> levels, boolean complement) {
+        List<OrderBookResponse.Level> mapped = new ArrayList<>(levels.size());
+        for (BookLevel level : levels) {
+            long priceE4 = complement ? OrderBook.MAX_PRICE_E4 - level.priceE4() : level.priceE4();
+            mapped.add(OrderBookResponse.Level.builder()
+                    .price(priceE4 / 100.0)
+                    .priceE4(priceE4)
+                    .quantity(Quantities.fromMicros(level.quantity()))
+                    .build());
+        }
+        return mapped;
+    }
+}
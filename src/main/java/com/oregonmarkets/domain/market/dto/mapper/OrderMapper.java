@@ -0,0 +1,102 @@
+package com.oregonmarkets.domain.market.dto.mapper;
+
+import com.oregonmarkets.domain.market.dto.request.PlaceOrderRequest;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import com.oregonmarkets.domain.market.model.OpenOrder;
+import com.oregonmarkets.domain.market.model.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Mapper for Order entities and DTOs
+ */
+@Component
+public class OrderMapper {
+
+    /**
+     * Map PlaceOrderRequest to a new Order entity
+     */
+    public Order toEntity(PlaceOrderRequest request, UUID userId, String marketTitle, String outcomeName) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(request.getMarketId())
+                .marketTitle(marketTitle)
+                .outcomeId(request.getOutcomeId())
+                .outcomeName(outcomeName)
+                .side(request.getSide())
+                .orderType(request.getOrderType())
+                .priceE4(request.getPriceE4())
+                .quantity(request.getQuantity())
+                .timeInForce(request.getTimeInForce())
+                .expiresAt(request.getExpiresAt())
+                .clientOrderId(request.getClientOrderId())
+                .build();
+    }
+
+    /**
+     * Map Order entity to OrderResponse
+     */
+    public OrderResponse toResponse(Order order) {
+        return OrderResponse.builder()
+                .orderId(order.getOrderId())
+                .userId(order.getUserId())
+                .marketId(order.getMarketId())
+                .marketTitle(order.getMarketTitle())
+                .outcomeId(order.getOutcomeId())
+                .outcomeName(order.getOutcomeName())
+                .side(order.getSide())
+                .orderType(order.getOrderType())
+                .price(order.getPriceE4() != null ? order.getPriceE4() / 100.0 : null)
+                .priceE4(order.getPriceE4())
+                .quantity(order.getQuantity())
+                .filledQuantity(order.getFilledQuantity())
+                .remainingQuantity(order.getRemainingQuantity())
+                .status(order.getStatus())
+                .statusReason(order.getStatusReason())
+                .timeInForce(order.getTimeInForce())
+                .totalCost(order.getTotalCost())
+                .filledCost(order.getFilledCost())
+                .averageFillPrice(order.getAverageFillPriceE4() != null ? order.getAverageFillPriceE4() / 100.0 : null)
+                .averageFillPriceE4(order.getAverageFillPriceE4())
+                .feesPaid(order.getFeesPaid())
+                .makerFeeE4(order.getMakerFeeE4())
+                .takerFeeE4(order.getTakerFeeE4())
+                .clientOrderId(order.getClientOrderId())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .expiresAt(order.getExpiresAt())
+                .filledAt(order.getFilledAt())
+                .cancelledAt(order.getCancelledAt())
+                .version(order.getVersion())
+                .build();
+    }
+
+    /**
+     * Map an OpenOrder row to OrderResponse; fill cost and fees are not kept on open order rows
+     */
+    public OrderResponse toResponse(OpenOrder order) {
+        return OrderResponse.builder()
+                .orderId(order.getOrderId())
+                .userId(order.getUserId())
+                .marketId(order.getMarketId())
+                .marketTitle(order.getMarketTitle())
+                .outcomeId(order.getOutcomeId())
+                .outcomeName(order.getOutcomeName())
+                .side(order.getSide())
+                .orderType(order.getOrderType())
+                .price(order.getPriceE4() != null ? order.getPriceE4() / 100.0 : null)
+                .priceE4(order.getPriceE4())
+                .quantity(order.getQuantity())
+                .filledQuantity(order.getFilledQuantity())
+                .remainingQuantity(order.getRemainingQuantity())
+                .status(order.getStatus())
+                .timeInForce(order.getTimeInForce())
+                .clientOrderId(order.getClientOrderId())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .expiresAt(order.getExpiresAt())
+                .build();
+    }
+}
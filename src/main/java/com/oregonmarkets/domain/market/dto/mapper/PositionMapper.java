@@ -0,0 +1,50 @@
+package com.oregonmarkets.domain.market.dto.mapper;
+
+import com.oregonmarkets.domain.market.dto.response.PositionResponse;
+import com.oregonmarkets.domain.market.model.Position;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper for Position entities and DTOs
+ */
+@Component
+public class PositionMapper {
+
+    /**
+     * Map Position entity to PositionResponse
+     */
+    public PositionResponse toResponse(Position position) {
+        return PositionResponse.builder()
+                .userId(position.getUserId())
+                .marketId(position.getMarketId())
+                .marketTitle(position.getMarketTitle())
+                .marketStatus(position.getMarketStatus())
+                .outcomeId(position.getOutcomeId())
+                .outcomeName(position.getOutcomeName())
+                .quantity(position.getQuantity())
+                .availableQuantity(position.getAvailableQuantity())
+                .lockedQuantity(position.getLockedQuantity())
+                .averageEntryPrice(position.getAverageEntryPriceE4() != null ? position.getAverageEntryPriceE4() / 100.0 : null)
+                .averageEntryPriceE4(position.getAverageEntryPriceE4())
+                .totalCost(position.getTotalCost())
+                .realizedPnl(position.getRealizedPnl())
+                .unrealizedPnl(position.getUnrealizedPnl())
+                .currentPrice(position.getCurrentPriceE4() != null ? position.getCurrentPriceE4() / 100.0 : null)
+                .currentPriceE4(position.getCurrentPriceE4())
+                .currentValue(position.getCurrentValue())
+                .totalTrades(position.getTotalTrades())
+                .totalBought(position.getTotalBought())
+                .totalSold(position.getTotalSold())
+                .totalFeesPaid(position.getTotalFeesPaid())
+                .isWinner(position.getIsWinner())
+                .payoutAmount(position.getPayoutAmount())
+                .payoutStatus(position.getPayoutStatus())
+                .paidAt(position.getPaidAt())
+                .firstTradeAt(position.getFirstTradeAt())
+                .lastTradeAt(position.getLastTradeAt())
+                .createdAt(position.getCreatedAt())
+                .updatedAt(position.getUpdatedAt())
+                .version(position.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.oregonmarkets.domain.market.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request DTO for placing several orders of one market in a single engine command
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderRequest {
+
+    @NotNull(message = "Market ID is required")
+    private UUID marketId;
+
+    @Size(max = 100, message = "A batch cannot exceed 100 orders")
+    @Valid
+    private List<PlaceOrderRequest> orders; // Each order's market ID may be omitted, it defaults to the batch's
+}
@@ -80,6 +80,13 @@ public class CreateMarketRequest {
 
     private Long tickSizeE4;
 
+    // Pricing
+    @Pattern(regexp = "ORDER_BOOK|LMSR", message = "Invalid pricing mode")
+    private String pricingMode;
+
+    @DecimalMin(value = "1", message = "LMSR liquidity must be at least 1")
+    private BigDecimal lmsrLiquidity;
+
     // Fee configuration
     private Long makerFeeE4;
 
@@ -0,0 +1,30 @@
+package com.oregonmarkets.domain.market.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Request DTO for modifying a resting order
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModifyOrderRequest {
+
+    @NotNull(message = "Market ID is required")
+    private UUID marketId;
+
+    @Min(value = 0, message = "Price must be non-negative")
+    @Max(value = 10000, message = "Price cannot exceed 10000 (100.00%)")
+    private Long priceE4; // New limit price, unchanged when null
+
+    @DecimalMin(value = "0.01", message = "Quantity must be at least 0.01")
+    private BigDecimal quantity; // New total quantity, unchanged when null
+}
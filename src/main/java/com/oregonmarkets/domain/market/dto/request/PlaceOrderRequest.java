@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -41,8 +42,11 @@ public class PlaceOrderRequest {
     @DecimalMin(value = "0.01", message = "Quantity must be at least 0.01")
     private BigDecimal quantity;
 
-    @Pattern(regexp = "GTC|IOC|FOK|DAY", message = "Invalid time in force")
-    private String timeInForce; // Good Till Cancel, Immediate Or Cancel, Fill Or Kill, Day
+    @Pattern(regexp = "GTC|IOC|FOK|DAY|GTD", message = "Invalid time in force")
+    private String timeInForce; // Good Till Cancel, Immediate Or Cancel, Fill Or Kill, Day, Good Till Date
+
+    @Future(message = "Expiry must be in the future")
+    private Instant expiresAt; // Required for GTD, defaults to the end of the day for DAY
 
     private String clientOrderId; // Optional user-provided order ID
 }
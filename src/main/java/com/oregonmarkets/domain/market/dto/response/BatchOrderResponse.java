@@ -0,0 +1,43 @@
+package com.oregonmarkets.domain.market.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response DTO for a batch or mass-quote order request
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderResponse {
+
+    private UUID marketId;
+
+    private List<OrderResponse> cancelled; // Orders replaced by a mass quote
+
+    private List<Result> results; // One per requested order, in request order
+
+    private int placed;
+    private int rejected;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+
+        private int index;
+        private int code;
+        private String message;
+        private OrderResponse order;
+    }
+}
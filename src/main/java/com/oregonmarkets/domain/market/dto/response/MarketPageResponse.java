@@ -0,0 +1,25 @@
+package com.oregonmarkets.domain.market.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for one page of a market listing
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MarketPageResponse {
+
+    private List<MarketResponse> markets;
+    private Integer limit;
+    private Boolean hasMore;
+    private String nextCursor; // Opaque; pass back as ?cursor= for the next page, absent on the last one
+}
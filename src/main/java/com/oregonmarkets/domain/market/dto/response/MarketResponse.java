@@ -66,6 +66,8 @@ public class MarketResponse {
     private BigDecimal maxOrderSize;
     private BigDecimal maxPositionSize;
     private Long tickSizeE4;
+    private String pricingMode;
+    private BigDecimal lmsrLiquidity;
 
     // Financial Data
     private BigDecimal totalVolume;
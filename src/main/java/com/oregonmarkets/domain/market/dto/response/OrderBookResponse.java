@@ -0,0 +1,44 @@
+package com.oregonmarkets.domain.market.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response DTO for an aggregated order book snapshot or one incremental change to it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderBookResponse {
+
+    private String type; // SNAPSHOT or DELTA
+
+    private UUID marketId;
+    private UUID outcomeId;
+
+    private long sequence; // Deltas apply to the snapshot with the previous sequence
+
+    private List<Level> bids; // Best price first in a snapshot
+    private List<Level> asks;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Level {
+
+        private Double price; // Converted from E4
+        private Long priceE4;
+        private BigDecimal quantity; // Zero in a delta removes the level
+    }
+}
@@ -0,0 +1,48 @@
+package com.oregonmarkets.domain.market.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Response DTO for the payout progress of a resolved market
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SettlementResponse {
+
+    private UUID marketId;
+    private UUID winningOutcomeId;
+    private String status; // RUNNING, COMPLETED
+
+    // Progress
+    private Long pages;
+    private Long positionsScanned;
+    private Long payoutsPosted;
+    private Long payoutsFailed; // Winners without a ledger balance
+    private BigDecimal totalPaid;
+    private String lastError;
+
+    // Throughput of the run in progress on the serving node
+    private Double positionsPerSecond;
+    private Double payoutsPerSecond;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant updatedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
+    private Instant completedAt;
+}
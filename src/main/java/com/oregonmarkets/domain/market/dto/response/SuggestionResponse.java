@@ -0,0 +1,25 @@
+package com.oregonmarkets.domain.market.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Response DTO for one type-ahead suggestion
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SuggestionResponse {
+
+    private String text;
+    private String type; // MARKET, CATEGORY or SUBCATEGORY
+    private UUID id; // Market, category or subcategory ID depending on type
+    private String slug;
+}
@@ -0,0 +1,22 @@
+package com.oregonmarkets.domain.market.engine;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch command, executed by the owning shard without any other command in between.
+ * Holds the result of the optional cancel-all that preceded the batch and one result per order,
+ * in submission order.
+ */
+@Getter
+public class BatchResult {
+
+    private final MatchResult cancelled;
+    private final List<MatchResult> results;
+
+    BatchResult(MatchResult cancelled, List<MatchResult> results) {
+        this.cancelled = cancelled;
+        this.results = results;
+    }
+}
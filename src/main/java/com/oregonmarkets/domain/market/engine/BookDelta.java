@@ -0,0 +1,15 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Price levels of one book changed by a single engine command.
+ * Each level carries its new aggregate quantity rather than the difference, so a delta can be
+ * applied to a {@link BookSnapshot} by simple replacement. Sequences of a book are consecutive.
+ *
+ * @param complementOutcomeId other outcome of a unified binary book, or null
+ */
+public record BookDelta(BookKey key, UUID complementOutcomeId, long sequence,
+                        List<BookLevel> bids, List<BookLevel> asks) {
+}
@@ -0,0 +1,9 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.UUID;
+
+/**
+ * Identifies the order book of one market outcome
+ */
+public record BookKey(UUID marketId, UUID outcomeId) {
+}
@@ -0,0 +1,10 @@
+package com.oregonmarkets.domain.market.engine;
+
+/**
+ * Aggregated quantity resting at one price of one book side
+ *
+ * @param priceE4  price in the book's terms, in basis points
+ * @param quantity total resting quantity in micro-shares; zero in a delta means the level emptied
+ */
+public record BookLevel(long priceE4, long quantity) {
+}
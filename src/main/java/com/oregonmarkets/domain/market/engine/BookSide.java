@@ -0,0 +1,212 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * One side (bids or asks) of an order book.
+ * Levels are array slots indexed by priceE4 / tickSizeE4; every slot holds an intrusive
+ * FIFO queue of resting orders plus the aggregate quantity resting at that price. Levels whose
+ * aggregate changed are remembered until the owning book drains them into a {@link BookDelta}.
+ */
+final class BookSide {
+
+    private final boolean bids;
+    private final int levelCount;
+    private final RestingOrder[] heads;
+    private final RestingOrder[] tails;
+    private final long[] depth;
+    private final OrderBook book;
+
+    /** Levels changed since the last drain, in the order they first changed */
+    private final int[] changed;
+    private final boolean[] isChanged;
+    private int changedCount;
+
+    private int best;
+    private int orderCount;
+
+    BookSide(boolean bids, int levelCount, OrderBook book) {
+        this.bids = bids;
+        this.levelCount = levelCount;
+        this.heads = new RestingOrder[levelCount];
+        this.tails = new RestingOrder[levelCount];
+        this.depth = new long[levelCount];
+        this.book = book;
+        this.changed = new int[levelCount];
+        this.isChanged = new boolean[levelCount];
+        this.best = emptyBest();
+    }
+
+    /**
+     * Best level index, or -1 for bids / levelCount for asks when the side is empty
+     */
+    int best() {
+        return best;
+    }
+
+    boolean isEmpty() {
+        return orderCount == 0;
+    }
+
+    int orderCount() {
+        return orderCount;
+    }
+
+    RestingOrder head(int level) {
+        return heads[level];
+    }
+
+    long depth(int level) {
+        return depth[level];
+    }
+
+    /**
+     * Whether a price level on this side can trade against an incoming order limited at {@code limitLevel}
+     */
+    boolean crosses(int level, int limitLevel) {
+        return bids ? level >= limitLevel : level <= limitLevel;
+    }
+
+    /**
+     * Append an order at the back of its price level queue
+     */
+    void add(RestingOrder order) {
+        int level = order.level;
+        RestingOrder tail = tails[level];
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            heads[level] = order;
+        } else {
+            tail.next = order;
+        }
+        tails[level] = order;
+        depth[level] += order.remaining;
+        orderCount++;
+        changed(level);
+
+        if (bids ? level > best : level < best) {
+            best = level;
+        }
+    }
+
+    /**
+     * Unlink an order from its price level queue
+     */
+    void remove(RestingOrder order) {
+        int level = order.level;
+        if (order.prev == null) {
+            heads[level] = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tails[level] = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        order.prev = null;
+        order.next = null;
+        depth[level] -= order.remaining;
+        orderCount--;
+        changed(level);
+
+        if (heads[level] == null && level == best) {
+            best = nextNonEmpty(level);
+        }
+    }
+
+    /**
+     * Account for a partial fill or size reduction of a resting order
+     */
+    void reduce(RestingOrder order, long quantity) {
+        order.remaining -= quantity;
+        depth[order.level] -= quantity;
+        changed(order.level);
+    }
+
+    /**
+     * Total quantity a taker of {@code userId} could fill from the best level up to and including
+     * {@code limitLevel}. The user's own orders are left out, since self-trade prevention cancels
+     * them instead of filling against them.
+     */
+    long depthThrough(int limitLevel, long stopAt, UUID userId) {
+        long total = 0;
+        int step = bids ? -1 : 1;
+        for (int level = best; level >= 0 && level < levelCount && total < stopAt
+                && (bids ? level >= limitLevel : level <= limitLevel); level += step) {
+            for (RestingOrder order = heads[level]; order != null && total < stopAt; order = order.next) {
+                if (!order.userId.equals(userId)) {
+                    total += order.remaining;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Visit every resting order level by level, each level in time priority
+     */
+    void forEach(Consumer<RestingOrder> action) {
+        for (int level = 0; level < levelCount; level++) {
+            for (RestingOrder order = heads[level]; order != null; order = order.next) {
+                action.accept(order);
+            }
+        }
+    }
+
+    /**
+     * Aggregate levels from the best price outwards, stopping after {@code maxLevels} non-empty ones
+     */
+    void collectDepth(int maxLevels, List<BookLevel> out) {
+        int step = bids ? -1 : 1;
+        for (int level = best; level >= 0 && level < levelCount && out.size() < maxLevels; level += step) {
+            if (heads[level] != null) {
+                out.add(new BookLevel(book.priceOf(level), depth[level]));
+            }
+        }
+    }
+
+    /**
+     * Move the current aggregate of every changed level into {@code out} and forget the changes
+     */
+    void drainChanges(List<BookLevel> out) {
+        for (int i = 0; i < changedCount; i++) {
+            int level = changed[i];
+            isChanged[level] = false;
+            out.add(new BookLevel(book.priceOf(level), depth[level]));
+        }
+        changedCount = 0;
+    }
+
+    private void changed(int level) {
+        if (!isChanged[level]) {
+            isChanged[level] = true;
+            changed[changedCount++] = level;
+            book.changed();
+        }
+    }
+
+    private int nextNonEmpty(int from) {
+        if (bids) {
+            for (int level = from - 1; level >= 0; level--) {
+                if (heads[level] != null) {
+                    return level;
+                }
+            }
+        } else {
+            for (int level = from + 1; level < levelCount; level++) {
+                if (heads[level] != null) {
+                    return level;
+                }
+            }
+        }
+        return emptyBest();
+    }
+
+    private int emptyBest() {
+        return bids ? -1 : levelCount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Aggregated (L2) view of an order book as of a book sequence number.
+ * Levels are listed best price first. Applying every {@link BookDelta} with a higher sequence, in
+ * order, keeps the view identical to the live book.
+ *
+ * @param complementOutcomeId other outcome of a unified binary book, or null
+ */
+public record BookSnapshot(BookKey key, UUID complementOutcomeId, long sequence,
+                           List<BookLevel> bids, List<BookLevel> asks) {
+}
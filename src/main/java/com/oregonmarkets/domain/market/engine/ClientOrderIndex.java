@@ -0,0 +1,115 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A shard's most recent orders by (user ID, client order ID), with the result each one got.
+ * A retried order is answered from here without reaching the book. Only the last
+ * {@code capacity} orders are kept, oldest evicted first. A Bloom filter sits in front of the
+ * table, so the common case of a client order ID never seen before is answered from a few bit
+ * tests without building a key or probing the map. The filter keeps two generations of
+ * {@code capacity} insertions each, and the older one is cleared when the newer one fills, so
+ * its false positive rate stays bounded however long the shard runs. Shard-confined: not
+ * thread-safe.
+ */
+final class ClientOrderIndex {
+
+    /** Bits per entry of each generation; with {@link #HASHES} probes this gives about 1% false positives */
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASHES = 7;
+
+    private final int capacity;
+    private final Map<Key, MatchResult> results;
+    private final long mask;
+    private long[] current;
+    private long[] previous;
+    private int currentEntries;
+
+    ClientOrderIndex(int capacity) {
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<>(capacity * 4 / 3 + 1) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MatchResult> eldest) {
+                return size() > ClientOrderIndex.this.capacity;
+            }
+        };
+        long bits = Math.max(64L, Long.highestOneBit((long) capacity * BITS_PER_ENTRY - 1) << 1);
+        this.mask = bits - 1;
+        this.current = new long[(int) (bits >>> 6)];
+        this.previous = new long[current.length];
+    }
+
+    /**
+     * Result of an earlier order with the same user and client order ID, or null
+     */
+    MatchResult find(UUID userId, String clientOrderId) {
+        if (clientOrderId == null || userId == null) {
+            return null;
+        }
+        long hash = hash(userId, clientOrderId);
+        if (!mightContain(current, hash) && !mightContain(previous, hash)) {
+            return null;
+        }
+        return results.get(new Key(userId, clientOrderId));
+    }
+
+    /**
+     * Remember the result of an order that reached the book; {@code result} must be detached
+     */
+    void record(UUID userId, String clientOrderId, MatchResult result) {
+        if (clientOrderId == null || userId == null) {
+            return;
+        }
+        if (currentEntries == capacity) {
+            long[] cleared = previous;
+            Arrays.fill(cleared, 0L);
+            previous = current;
+            current = cleared;
+            currentEntries = 0;
+        }
+        long hash = hash(userId, clientOrderId);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            current[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        currentEntries++;
+        results.put(new Key(userId, clientOrderId), result);
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    private boolean mightContain(long[] bits, long hash) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1L;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(UUID userId, String clientOrderId) {
+        long h = userId.getMostSignificantBits() * 0x9E3779B97F4A7C15L;
+        h ^= Long.rotateLeft(userId.getLeastSignificantBits() * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= clientOrderId.hashCode() * 0x165667B19E3779F9L;
+        // Murmur3 finalizer spreads the combined bits over the whole word
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Key(UUID userId, String clientOrderId) {
+    }
+}
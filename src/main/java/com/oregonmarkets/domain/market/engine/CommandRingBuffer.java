@@ -0,0 +1,88 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of pre-allocated {@link EngineCommand} slots.
+ * Producers claim a sequence with a CAS, fill the slot and publish it; the consumer reads slots
+ * strictly in sequence order, so commands for a shard execute in the order they were claimed.
+ */
+final class CommandRingBuffer {
+
+    private final EngineCommand[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    /** Next sequence to hand out to a producer */
+    private final AtomicLong claimed = new AtomicLong();
+    /** Next sequence the consumer will read; everything below it is free for reuse */
+    private final AtomicLong consumed = new AtomicLong();
+
+    CommandRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new EngineCommand[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new EngineCommand();
+            published.set(i, -1L);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claim the next slot
+     *
+     * @return the claimed sequence, or -1 if the ring is full
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length) {
+                return -1L;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    EngineCommand slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Make a filled slot visible to the consumer
+     */
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Next published command in sequence order, or null if the consumer has caught up
+     */
+    EngineCommand peek() {
+        long sequence = consumed.get();
+        int index = (int) sequence & mask;
+        return published.get(index) == sequence ? slots[index] : null;
+    }
+
+    /**
+     * Release the slot returned by the last {@link #peek()} back to producers
+     */
+    void advance() {
+        long sequence = consumed.get();
+        slots[(int) sequence & mask].clear();
+        consumed.set(sequence + 1);
+    }
+
+    int size() {
+        return (int) (claimed.get() - consumed.get());
+    }
+}
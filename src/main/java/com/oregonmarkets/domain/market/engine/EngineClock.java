@@ -0,0 +1,92 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Clock of an engine shard, advanced explicitly once per command.
+ * Every command sees its own microsecond-precision instant that is journaled with it, so replaying
+ * the journal reproduces the exact timestamps of the original run. Only touched by the shard thread.
+ */
+final class EngineClock extends Clock {
+
+    private final Clock source;
+    private Instant now;
+
+    EngineClock(Clock source) {
+        this.source = source;
+        this.now = source.instant().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Advance to the source clock's current time, or one microsecond past the last instant if the
+     * source has not moved past it. No two ticks share an instant, since it becomes the write
+     * timestamp of the orders a command touches and Cassandra settles equal timestamps by value.
+     */
+    Instant tick() {
+        Instant next = source.instant().truncatedTo(ChronoUnit.MICROS);
+        Instant after = now.plus(1, ChronoUnit.MICROS);
+        now = next.isAfter(after) ? next : after;
+        return now;
+    }
+
+    /**
+     * Whether the source clock has moved past the last instant handed out, so a tick would not
+     * have to run ahead of it
+     */
+    boolean hasAdvanced() {
+        return source.instant().truncatedTo(ChronoUnit.MICROS).isAfter(now);
+    }
+
+    void set(Instant instant) {
+        now = instant;
+    }
+
+    @Override
+    public Instant instant() {
+        return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    /**
+     * A view of this clock in another zone; it reads the same instant as the engine clock, so it
+     * follows every tick
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return ZoneOffset.UTC.equals(zone) ? this : new ZonedView(this, zone);
+    }
+
+    private static final class ZonedView extends Clock {
+
+        private final EngineClock clock;
+        private final ZoneId zone;
+
+        ZonedView(EngineClock clock, ZoneId zone) {
+            this.clock = clock;
+            this.zone = zone;
+        }
+
+        @Override
+        public Instant instant() {
+            return clock.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return clock.withZone(zone);
+        }
+    }
+}
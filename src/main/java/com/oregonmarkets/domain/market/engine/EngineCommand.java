@@ -0,0 +1,65 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import reactor.core.publisher.MonoSink;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Pre-allocated ring buffer slot describing one engine command.
+ * Producers fill a claimed slot and publish it; the owning shard executes it, completes the
+ * sink and clears the slot for reuse.
+ */
+final class EngineCommand {
+
+    enum Type {
+        OPEN_BOOK,
+        PLACE,
+        CANCEL,
+        CANCEL_ALL,
+        CLOSE_MARKET,
+        MODIFY,
+        BATCH,
+        SNAPSHOT,
+        DEPTH
+    }
+
+    Type type;
+    Market market;
+    Order order;
+    List<Order> orders;
+    boolean replace;
+    UUID marketId;
+    UUID outcomeId;
+    UUID complementOutcomeId;
+    UUID orderId;
+    UUID userId;
+    Long priceE4;
+    BigDecimal quantity;
+    int depthLevels;
+    MonoSink<MatchResult> sink;
+    MonoSink<BatchResult> batchSink;
+    MonoSink<BookSnapshot> depthSink;
+
+    void clear() {
+        type = null;
+        market = null;
+        order = null;
+        orders = null;
+        replace = false;
+        marketId = null;
+        outcomeId = null;
+        complementOutcomeId = null;
+        orderId = null;
+        userId = null;
+        priceE4 = null;
+        quantity = null;
+        depthLevels = 0;
+        sink = null;
+        batchSink = null;
+        depthSink = null;
+    }
+}
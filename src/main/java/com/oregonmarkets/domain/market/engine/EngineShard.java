@@ -0,0 +1,529 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.engine.journal.CommandJournal;
+import com.oregonmarkets.domain.market.engine.journal.JournalRecord;
+import com.oregonmarkets.domain.market.engine.journal.SnapshotStore;
+import com.oregonmarkets.domain.market.engine.risk.RiskLedger;
+import com.oregonmarkets.domain.market.engine.risk.RiskRejection;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.PricingMode;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.MonoSink;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-threaded event loop that owns one {@link MatchingEngine}.
+ * Every book assigned to the shard is mutated only by this thread, so matching runs without
+ * locks; producers hand work over through the shard's {@link CommandRingBuffer}. When journaling
+ * is enabled each command is appended to the shard's {@link CommandJournal} before it executes,
+ * and the books are rebuilt on startup from the latest snapshot plus the journal tail. Between
+ * commands, and before each one, the shard fires the engine's order expiry timers. With a
+ * {@link RiskLedger}, new orders and modifications must pass its balance check before they are
+ * journaled, and every result is reported back to it, including those replayed on recovery;
+ * a command that fails after its check gives the reservation back.
+ * An order that repeats a recent order's client order ID gets that order's original result
+ * back, ahead of the risk check and journal, and is not published again.
+ */
+@Slf4j
+final class EngineShard implements Runnable {
+
+    private static final int SPIN_TRIES = 1_000;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int id;
+    private final MatchingEngine engine;
+    private final EngineClock clock;
+    private final CommandRingBuffer ring;
+    private final List<MatchResultListener> listeners;
+    private final RiskLedger risk;
+    /** Recent orders by client order ID, or null when duplicates are not detected */
+    private final ClientOrderIndex clientOrders;
+    private CommandJournal journal;
+    private SnapshotStore snapshots;
+    private long snapshotSequence;
+
+    private volatile boolean running;
+    private volatile boolean sleeping;
+    private Thread thread;
+
+    /**
+     * @param clientOrderCapacity recent client order IDs remembered for duplicate detection; 0 disables it
+     */
+    EngineShard(int id, MatchingEngine engine, EngineClock clock, CommandRingBuffer ring,
+                List<MatchResultListener> listeners, RiskLedger risk, int clientOrderCapacity) {
+        this.id = id;
+        this.engine = engine;
+        this.clock = clock;
+        this.ring = ring;
+        this.listeners = listeners;
+        this.risk = risk;
+        this.clientOrders = clientOrderCapacity > 0 ? new ClientOrderIndex(clientOrderCapacity) : null;
+    }
+
+    /**
+     * Attach durable storage and rebuild the books from it; must run before {@link #start()}
+     *
+     * @return number of journal records replayed on top of the snapshot
+     */
+    long recover(CommandJournal journal, SnapshotStore snapshots) throws IOException {
+        this.journal = journal;
+        this.snapshots = snapshots;
+        long covered = snapshots.restoreLatest(engine);
+        snapshotSequence = covered;
+        if (covered == 0) {
+            engine.restoreTradeIds(journal.getTradeIdPrefix(), 0);
+        }
+        if (risk != null) {
+            for (OrderBook book : engine.getBooks()) {
+                book.forEachRestingOrder(risk::track);
+            }
+        }
+        long replayed = journal.replay(covered + 1, this::apply);
+        clock.tick();
+        return replayed;
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this, "engine-shard-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null && (thread == null || !thread.isAlive())) {
+            snapshot();
+            journal.close();
+        }
+    }
+
+    CommandRingBuffer ring() {
+        return ring;
+    }
+
+    /**
+     * Wake the shard if it parked while idle; called by producers after publishing
+     */
+    void signal() {
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running) {
+            EngineCommand command = ring.peek();
+            if (command != null) {
+                execute(command);
+                ring.advance();
+                idle = 0;
+            } else {
+                // Only once real time has moved on, so idle spinning does not run the clock ahead
+                if (engine.getPendingExpiryCount() > 0 && clock.hasAdvanced()) {
+                    expireDue(clock.tick());
+                }
+                if (idle < SPIN_TRIES) {
+                    idle++;
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    if (ring.peek() == null && running) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+        drainOnShutdown();
+    }
+
+    private void execute(EngineCommand command) {
+        if (command.type == EngineCommand.Type.BATCH) {
+            executeBatch(command);
+            return;
+        }
+        if (command.type == EngineCommand.Type.DEPTH) {
+            executeDepth(command);
+            return;
+        }
+        MonoSink<MatchResult> sink = command.sink;
+        try {
+            if (command.type == EngineCommand.Type.SNAPSHOT) {
+                snapshot();
+                sink.success();
+                return;
+            }
+            if (command.type == EngineCommand.Type.PLACE) {
+                MatchResult original = findDuplicate(command.order);
+                if (original != null) {
+                    sink.success(original.detached());
+                    return;
+                }
+            }
+            Instant now = clock.tick();
+            // Orders due by now must not trade with this command
+            expireDue(now);
+            MatchResult refused = checkRisk(command, now);
+            if (refused != null) {
+                MatchResult detached = refused.detached();
+                publish(detached);
+                sink.success(detached);
+                return;
+            }
+            long micros = micros(now);
+            if (journal != null) {
+                journal(command, micros);
+            }
+            MatchResult result = switch (command.type) {
+                case OPEN_BOOK -> {
+                    if (command.complementOutcomeId != null) {
+                        engine.openBinaryBook(command.market, command.outcomeId, command.complementOutcomeId);
+                    } else {
+                        engine.openBook(command.market, command.outcomeId);
+                    }
+                    yield null;
+                }
+                case PLACE -> engine.place(command.order);
+                case CANCEL -> engine.cancel(command.orderId, command.userId);
+                case CANCEL_ALL -> engine.cancelAll(command.userId, command.marketId);
+                case CLOSE_MARKET -> engine.closeMarket(command.marketId);
+                case MODIFY -> engine.modify(command.orderId, command.userId, command.priceE4, command.quantity);
+                case BATCH, SNAPSHOT, DEPTH -> throw new IllegalStateException(command.type + " commands are handled above");
+            };
+            if (result == null) {
+                sink.success();
+            } else {
+                track(result);
+                MatchResult detached = result.detached();
+                if (command.type == EngineCommand.Type.PLACE) {
+                    remember(command.order, detached);
+                }
+                publish(detached);
+                sink.success(detached);
+            }
+        } catch (RuntimeException e) {
+            log.error("Engine shard {} failed to execute {} command", id, command.type, e);
+            if (command.type == EngineCommand.Type.PLACE) {
+                release(command.order.getOrderId());
+            } else if (command.type == EngineCommand.Type.MODIFY) {
+                release(command.orderId);
+            }
+            sink.error(e);
+        }
+    }
+
+    /**
+     * Run an optional cancel-all and a list of placements back to back, so the book never shows
+     * another command's effect part way through. The batch is journaled as its individual
+     * commands, which replay to the same state since nothing ran in between. Each placement is
+     * risk checked after the cancel-all has released the reservations of the orders it replaces.
+     */
+    private void executeBatch(EngineCommand command) {
+        MonoSink<BatchResult> sink = command.batchSink;
+        try {
+            Instant now = clock.tick();
+            expireDue(now);
+            long micros = micros(now);
+            MatchResult cancelled = null;
+            if (command.replace) {
+                if (journal != null) {
+                    journal.appendCancelAll(command.userId, command.marketId, micros);
+                }
+                MatchResult result = engine.cancelAll(command.userId, command.marketId);
+                track(result);
+                cancelled = result.detached();
+                publish(cancelled);
+            }
+            List<MatchResult> results = new ArrayList<>(command.orders.size());
+            for (Order order : command.orders) {
+                MatchResult original = findDuplicate(order);
+                if (original != null) {
+                    results.add(original.detached());
+                    continue;
+                }
+                MatchResult result = refuse(order, now);
+                if (result == null) {
+                    if (journal != null) {
+                        journal.appendPlace(order, micros);
+                    }
+                    result = engine.place(order);
+                }
+                track(result);
+                MatchResult detached = result.detached();
+                remember(order, detached);
+                publish(detached);
+                results.add(detached);
+            }
+            sink.success(new BatchResult(cancelled, results));
+        } catch (RuntimeException e) {
+            log.error("Engine shard {} failed to execute batch of {} orders", id, command.orders.size(), e);
+            for (Order order : command.orders) {
+                release(order.getOrderId());
+            }
+            sink.error(e);
+        }
+    }
+
+    /**
+     * Read a book's aggregated levels between commands; completes empty if the book is not open.
+     * Reads leave the book untouched, so they are not journaled.
+     */
+    private void executeDepth(EngineCommand command) {
+        MonoSink<BookSnapshot> sink = command.depthSink;
+        try {
+            OrderBook book = engine.getBook(command.marketId, command.outcomeId);
+            if (book == null) {
+                sink.success();
+            } else {
+                sink.success(book.snapshot(command.depthLevels));
+            }
+        } catch (RuntimeException e) {
+            log.error("Engine shard {} failed to read book depth", id, e);
+            sink.error(e);
+        }
+    }
+
+    /**
+     * Fire expiry timers due by {@code now}, journaling the expiry ahead of publishing it
+     */
+    private void expireDue(Instant now) {
+        MatchResult result;
+        try {
+            result = engine.expire(now);
+            if (result == null) {
+                return;
+            }
+            if (journal != null) {
+                journal.appendExpire(micros(now));
+            }
+            track(result);
+        } catch (RuntimeException e) {
+            log.error("Engine shard {} failed to expire orders", id, e);
+            return;
+        }
+        publish(result.detached());
+    }
+
+    // ==================== Duplicates ====================
+
+    private MatchResult findDuplicate(Order order) {
+        return clientOrders == null ? null : clientOrders.find(order.getUserId(), order.getClientOrderId());
+    }
+
+    /**
+     * Remember an order's result against its client order ID. Refusals are not remembered: they
+     * left no trace, so a retry is simply checked again.
+     */
+    private void remember(Order order, MatchResult result) {
+        if (clientOrders != null && !result.isRejected()) {
+            clientOrders.record(order.getUserId(), order.getClientOrderId(), result);
+        }
+    }
+
+    // ==================== Risk ====================
+
+    /**
+     * Reserve balance for a new order or modification ahead of journaling it
+     *
+     * @return the refusal to report instead of executing the command, or null to go ahead
+     */
+    private MatchResult checkRisk(EngineCommand command, Instant now) {
+        if (risk == null) {
+            return null;
+        }
+        if (command.type == EngineCommand.Type.PLACE) {
+            return refuse(command.order, now);
+        }
+        if (command.type == EngineCommand.Type.MODIFY) {
+            RestingOrder resting = engine.getRestingOrder(command.orderId);
+            if (resting == null || (command.userId != null && !command.userId.equals(resting.getUserId()))) {
+                return null;
+            }
+            RiskRejection rejection = risk.reserveModify(resting, command.priceE4, command.quantity);
+            // The resting order itself stays live and unchanged
+            return rejection == null ? null : MatchResult.of(resting.getOrder(), rejection.code());
+        }
+        return null;
+    }
+
+    private MatchResult refuse(Order order, Instant now) {
+        if (risk == null) {
+            return null;
+        }
+        RiskRejection rejection = risk.reserve(order, engine.getBook(order.getMarketId(), order.getOutcomeId()));
+        return rejection == null ? null : MatchingEngine.reject(order, rejection.code(), rejection.reason(), now);
+    }
+
+    /**
+     * Undo the reservation of an order whose command failed, such as on a journal write error:
+     * an order left resting keeps a reservation for what it still needs, any other loses it
+     */
+    private void release(UUID orderId) {
+        if (risk == null || orderId == null) {
+            return;
+        }
+        RestingOrder resting = engine.getRestingOrder(orderId);
+        if (resting != null) {
+            risk.track(resting);
+        } else {
+            risk.release(orderId);
+        }
+    }
+
+    /**
+     * Report an executed command to the risk ledger, on the live path and on replay alike
+     */
+    private void track(MatchResult result) {
+        if (risk != null && result != null) {
+            risk.apply(result);
+        }
+    }
+
+    private static long micros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    // ==================== Journal ====================
+
+    /**
+     * Write-ahead the command, so that everything the shard executed is replayed after a crash
+     */
+    private void journal(EngineCommand command, long micros) {
+        switch (command.type) {
+            case OPEN_BOOK -> {
+                Market market = command.market;
+                journal.appendOpenBook(market.getMarketId(), command.outcomeId, command.complementOutcomeId,
+                        orZero(market.getTickSizeE4()), orZero(market.getMakerFeeE4()), orZero(market.getTakerFeeE4()),
+                        LmsrMarketMaker.liquidityMicros(market), micros);
+            }
+            case PLACE -> journal.appendPlace(command.order, micros);
+            case CANCEL -> journal.appendCancel(command.orderId, command.userId, micros);
+            case CANCEL_ALL -> journal.appendCancelAll(command.userId, command.marketId, micros);
+            case CLOSE_MARKET -> journal.appendCloseMarket(command.marketId, micros);
+            case MODIFY -> journal.appendModify(command.orderId, command.userId, command.priceE4,
+                    command.quantity == null ? -1L : Quantities.toMicros(command.quantity), micros);
+            case BATCH, SNAPSHOT, DEPTH -> {
+            }
+        }
+    }
+
+    /**
+     * Re-execute a journaled command at its original time; results go to the risk ledger but are not published again
+     */
+    private void apply(JournalRecord record) {
+        clock.set(Instant.EPOCH.plus(record.getTimestampMicros(), ChronoUnit.MICROS));
+        try {
+            MatchResult result = switch (record.getType()) {
+                case OPEN_BOOK -> {
+                    Market market = Market.builder()
+                            .marketId(record.getMarketId())
+                            .tickSizeE4(record.getTickSizeE4())
+                            .makerFeeE4(record.getMakerFeeE4())
+                            .takerFeeE4(record.getTakerFeeE4())
+                            .build();
+                    if (record.getLiquidityMicros() > 0) {
+                        market.setPricingMode(PricingMode.LMSR.name());
+                        market.setLmsrLiquidity(Quantities.fromMicros(record.getLiquidityMicros()));
+                    }
+                    if (record.getComplementOutcomeId() != null) {
+                        engine.openBinaryBook(market, record.getOutcomeId(), record.getComplementOutcomeId());
+                    } else {
+                        engine.openBook(market, record.getOutcomeId());
+                    }
+                    yield null;
+                }
+                case PLACE -> engine.place(Order.builder()
+                        .orderId(record.getOrderId())
+                        .userId(record.getUserId())
+                        .marketId(record.getMarketId())
+                        .outcomeId(record.getOutcomeId())
+                        .side(record.getSide())
+                        .orderType(record.getOrderType())
+                        .timeInForce(record.getTimeInForce())
+                        .priceE4(record.getPriceE4())
+                        .quantity(record.getQuantityMicros() < 0 ? null : Quantities.fromMicros(record.getQuantityMicros()))
+                        .expiresAt(record.getExpiresAtMicros() == 0
+                                ? null : Instant.EPOCH.plus(record.getExpiresAtMicros(), ChronoUnit.MICROS))
+                        .build());
+                case CANCEL -> engine.cancel(record.getOrderId(), record.getUserId());
+                case CANCEL_ALL -> engine.cancelAll(record.getUserId(), record.getMarketId());
+                case CLOSE_MARKET -> engine.closeMarket(record.getMarketId());
+                case MODIFY -> engine.modify(record.getOrderId(), record.getUserId(), record.getPriceE4(),
+                        record.getQuantityMicros() < 0 ? null : Quantities.fromMicros(record.getQuantityMicros()));
+                case EXPIRE -> engine.expire(clock.instant());
+            };
+            track(result);
+        } catch (RuntimeException e) {
+            log.warn("Engine shard {} failed to replay journal record {}", id, record.getSequence(), e);
+        }
+    }
+
+    /**
+     * Snapshot the books at the current journal position and drop the segments it covers
+     */
+    private void snapshot() {
+        if (journal == null || journal.getLastSequence() == snapshotSequence) {
+            return;
+        }
+        long sequence = journal.getLastSequence();
+        try {
+            journal.force();
+            snapshots.write(engine, sequence);
+            snapshotSequence = sequence;
+            journal.truncateBefore(sequence + 1);
+        } catch (IOException e) {
+            log.error("Engine shard {} failed to snapshot at journal sequence {}", id, sequence, e);
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    private void publish(MatchResult result) {
+        for (int i = 0; i < listeners.size(); i++) {
+            try {
+                listeners.get(i).onResult(result);
+            } catch (RuntimeException e) {
+                log.error("Engine shard {} listener failed", id, e);
+            }
+        }
+    }
+
+    private void drainOnShutdown() {
+        EngineCommand command;
+        while ((command = ring.peek()) != null) {
+            BusinessException error = new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "Matching engine is shutting down");
+            if (command.batchSink != null) {
+                command.batchSink.error(error);
+            } else if (command.depthSink != null) {
+                command.depthSink.error(error);
+            } else {
+                command.sink.error(error);
+            }
+            ring.advance();
+        }
+    }
+}
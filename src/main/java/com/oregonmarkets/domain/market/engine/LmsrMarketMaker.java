@@ -0,0 +1,211 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.PricingMode;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Logarithmic market scoring rule market maker quoting every outcome of one market.
+ * With liquidity b and q_i the shares of outcome i the maker has sold, the cost function is
+ * C(q) = b ln Σ exp(q_i / b) and outcome i trades at exp(q_i / b) / Σ exp(q_j / b), so prices
+ * always sum to one and the maker loses at most b ln n. The sum is kept relative to a shift at
+ * least as large as every exponent (log-sum-exp), and trading Δ shares of one outcome costs
+ * b ln(1 + p_i (exp(Δ / b) - 1)) and changes only that outcome's term, so quoting, sizing and
+ * executing a trade are O(1) whatever the number of outcomes. The sum is rebuilt from the
+ * inventories every {@value #REBUILD_INTERVAL} trades, or sooner when a trade cancels most of it,
+ * to keep rounding drift bounded. Not thread-safe: owned by one {@link MatchingEngine}.
+ */
+final class LmsrMarketMaker {
+
+    static final int REBUILD_INTERVAL = 4096;
+    /** Rebuild when one update shrinks the sum below this fraction of its previous value */
+    private static final double CANCELLATION_GUARD = 1e-6;
+
+    private final long liquidityMicros;
+    private UUID[] outcomeIds = new UUID[4];
+    /** Net micro-shares of each outcome sold by the maker */
+    private long[] inventory = new long[4];
+    private int count;
+    private double shift;
+    private double sum;
+    private int updates;
+
+    /**
+     * @param liquidityMicros liquidity parameter b in micro-shares
+     */
+    LmsrMarketMaker(long liquidityMicros) {
+        if (liquidityMicros <= 0) {
+            throw new IllegalArgumentException("LMSR liquidity must be positive");
+        }
+        this.liquidityMicros = liquidityMicros;
+    }
+
+    /**
+     * Liquidity parameter b of a market priced by LMSR in micro-shares, or 0 if the market
+     * trades on its order book
+     */
+    static long liquidityMicros(Market market) {
+        BigDecimal liquidity = market.getLmsrLiquidity();
+        if (!PricingMode.LMSR.name().equals(market.getPricingMode()) || liquidity == null) {
+            return 0L;
+        }
+        return Math.max(0L, Quantities.toMicros(liquidity));
+    }
+
+    long getLiquidityMicros() {
+        return liquidityMicros;
+    }
+
+    int outcomeCount() {
+        return count;
+    }
+
+    UUID outcomeId(int outcome) {
+        return outcomeIds[outcome];
+    }
+
+    long inventory(int outcome) {
+        return inventory[outcome];
+    }
+
+    /**
+     * Quote a new outcome with nothing sold yet
+     *
+     * @return index of the outcome
+     */
+    int addOutcome(UUID outcomeId) {
+        if (count == outcomeIds.length) {
+            outcomeIds = Arrays.copyOf(outcomeIds, count * 2);
+            inventory = Arrays.copyOf(inventory, count * 2);
+        }
+        outcomeIds[count] = outcomeId;
+        inventory[count] = 0L;
+        count++;
+        rebuild();
+        return count - 1;
+    }
+
+    /**
+     * Set an outcome's inventory when restoring from a snapshot
+     */
+    void restore(int outcome, long inventoryMicros) {
+        inventory[outcome] = inventoryMicros;
+        rebuild();
+    }
+
+    /**
+     * Marginal price of an outcome, between 0 and 1
+     */
+    double price(int outcome) {
+        return Math.exp(exponent(outcome) - shift) / sum;
+    }
+
+    /**
+     * Marginal price in basis points, kept strictly inside the tradable range
+     */
+    long priceE4(int outcome) {
+        long priceE4 = Math.round(price(outcome) * OrderBook.MAX_PRICE_E4);
+        return Math.min(OrderBook.MAX_PRICE_E4 - 1, Math.max(1L, priceE4));
+    }
+
+    /**
+     * Cash for the maker to sell {@code deltaMicros} shares of an outcome, or to buy them back
+     * when negative, in micro-USDC rounded in the maker's favour. A purchase always costs at
+     * least one micro-USDC, even when the outcome's price is too small for a double to hold.
+     *
+     * @return positive when the trader pays, negative when the trader receives
+     */
+    long cost(int outcome, long deltaMicros) {
+        double p = price(outcome);
+        double d = (double) deltaMicros / liquidityMicros;
+        double growth = d > 1.0
+                // ln(1 + p (e^d - 1)) rewritten to keep e^d from overflowing
+                ? d + Math.log(p + (1.0 - p) * Math.exp(-d))
+                : Math.log1p(p * Math.expm1(d));
+        long cost = (long) Math.ceil(liquidityMicros * growth);
+        return deltaMicros > 0 ? Math.max(1L, cost) : cost;
+    }
+
+    /**
+     * Most micro-shares a buyer can take before the outcome's price reaches the limit
+     */
+    long maxBuy(int outcome, long limitE4) {
+        double gap = logit(limitE4) - logit(outcome);
+        return gap <= 0 ? 0L : (long) Math.floor(liquidityMicros * gap);
+    }
+
+    /**
+     * Most micro-shares a seller can hand back before the outcome's price falls to the limit
+     */
+    long maxSell(int outcome, long limitE4) {
+        double gap = logit(outcome) - logit(limitE4);
+        return gap <= 0 ? 0L : (long) Math.floor(liquidityMicros * gap);
+    }
+
+    /**
+     * Record a trade: the maker sold {@code deltaMicros} shares of the outcome, or bought them
+     * back when negative
+     */
+    void apply(int outcome, long deltaMicros) {
+        double before = Math.exp(exponent(outcome) - shift);
+        inventory[outcome] = Math.addExact(inventory[outcome], deltaMicros);
+        double exponent = exponent(outcome);
+        double previous = sum;
+        if (exponent > shift) {
+            sum = (sum - before) * Math.exp(shift - exponent) + 1.0;
+            shift = exponent;
+        } else {
+            sum += Math.exp(exponent - shift) - before;
+        }
+        if (++updates >= REBUILD_INTERVAL || !(sum > previous * CANCELLATION_GUARD)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recompute the shift and sum from the inventories. Terms are added smallest first, which
+     * is both the most accurate order and independent of the order outcomes were added in, so a
+     * maker restored from a snapshot prices exactly like the one that wrote it.
+     */
+    void rebuild() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, exponent(i));
+        }
+        double[] terms = new double[count];
+        for (int i = 0; i < count; i++) {
+            terms[i] = Math.exp(exponent(i) - max);
+        }
+        Arrays.sort(terms);
+        double total = 0.0;
+        for (double term : terms) {
+            total += term;
+        }
+        shift = count == 0 ? 0.0 : max;
+        sum = count == 0 ? 1.0 : total;
+        updates = 0;
+    }
+
+    private double exponent(int outcome) {
+        return (double) inventory[outcome] / liquidityMicros;
+    }
+
+    /**
+     * ln(p / (1 - p)) of an outcome's price, taken from the sum without forming 1 - p
+     */
+    private double logit(int outcome) {
+        double own = Math.exp(exponent(outcome) - shift);
+        double others = sum - own;
+        if (!(others > 0.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (exponent(outcome) - shift) - Math.log(others);
+    }
+
+    private static double logit(long priceE4) {
+        return Math.log((double) priceE4 / (OrderBook.MAX_PRICE_E4 - priceE4));
+    }
+}
@@ -0,0 +1,67 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.Trade;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a single engine command.
+ * Carries the command's order in its post-match state, the trades it produced, every
+ * resting order whose state changed as a side effect, the resulting book level changes and,
+ * for markets priced by a market maker, the new quote of every outcome.
+ */
+@Getter
+public class MatchResult {
+
+    private final Order order;
+    private final List<Trade> trades = new ArrayList<>();
+    private final List<Order> updatedOrders = new ArrayList<>();
+    private final List<BookDelta> bookDeltas = new ArrayList<>(1);
+    private final List<OutcomeQuote> quotes = new ArrayList<>(0);
+    private ResponseCode code;
+
+    MatchResult(Order order) {
+        this.order = order;
+    }
+
+    static MatchResult of(Order order, ResponseCode code) {
+        MatchResult result = new MatchResult(order);
+        result.code = code;
+        return result;
+    }
+
+    void setCode(ResponseCode code) {
+        this.code = code;
+    }
+
+    /**
+     * Copy whose orders no longer alias the engine's live state, safe to hand to other threads
+     */
+    MatchResult detached() {
+        MatchResult copy = new MatchResult(order == null ? null : order.toBuilder().build());
+        copy.trades.addAll(trades);
+        for (Order updated : updatedOrders) {
+            copy.updatedOrders.add(updated.toBuilder().build());
+        }
+        copy.bookDeltas.addAll(bookDeltas);
+        copy.quotes.addAll(quotes);
+        copy.code = code;
+        return copy;
+    }
+
+    /**
+     * Whether the engine refused the command without touching the book
+     */
+    public boolean isRejected() {
+        return !code.isSuccess();
+    }
+
+    public boolean isFilled() {
+        return order != null && OrderStatus.FILLED.name().equals(order.getStatus());
+    }
+}
@@ -0,0 +1,19 @@
+package com.oregonmarkets.domain.market.engine;
+
+/**
+ * Downstream consumer of engine output.
+ * Called on the shard thread right after each command executes, in execution order, with a
+ * result that no longer aliases live book state. Implementations must hand off and return
+ * immediately; anything slow belongs on their own threads.
+ */
+public interface MatchResultListener {
+
+    void onResult(MatchResult result);
+
+    /**
+     * Whether the listener has fallen so far behind that new orders should be refused
+     */
+    default boolean isBackedUp() {
+        return false;
+    }
+}
@@ -0,0 +1,836 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.OrderType;
+import com.oregonmarkets.domain.market.model.TimeInForce;
+import com.oregonmarkets.domain.market.model.Trade;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Price-time priority matching engine.
+ * Owns the order books of a set of market outcomes and matches incoming orders against them
+ * entirely in memory. Binary markets can share one unified book across both outcomes, where
+ * a buy of each outcome crossing mints a share pair and two crossing sells merge one. Markets
+ * priced by LMSR trade every order against an {@link LmsrMarketMaker} instead, up to the
+ * order's limit price, and nothing rests on their books. Every command's result carries a
+ * {@link BookDelta} per book whose levels it changed. Not thread-safe: every call must come
+ * from the single thread that owns this engine instance.
+ */
+public class MatchingEngine {
+
+    private final Clock clock;
+    private long tradeIdPrefix;
+    private final Map<BookKey, OrderBook> books = new HashMap<>();
+    /** Unified binary books keyed by their complementary outcome */
+    private final Map<BookKey, OrderBook> complementBooks = new HashMap<>();
+    private final OrderIndex orderIndex = new OrderIndex();
+    private final Map<UUID, RestingOrder> ordersByUser = new HashMap<>();
+    /** Books with level changes not yet drained into a delta */
+    private final List<OrderBook> changedBooks = new ArrayList<>();
+    /** Market makers of LMSR markets by market ID */
+    private final Map<UUID, LmsrMarketMaker> makers = new HashMap<>();
+    private final TimingWheel timers;
+    private final Consumer<RestingOrder> expireAction = this::expire;
+    private MatchResult expiring;
+    private Instant expiringAt;
+    /** Fill totals of the order being matched, in micro-units */
+    private long takerFilled;
+    private long takerCost;
+    private long takerFees;
+
+    private long tradeSequence;
+
+    /**
+     * @param engineId distinguishes trade IDs generated by engines running side by side
+     * @param clock    source of execution timestamps
+     */
+    public MatchingEngine(int engineId, Clock clock) {
+        this.clock = clock;
+        this.tradeIdPrefix = (clock.millis() << 16) | (engineId & 0xFFFF);
+        this.timers = new TimingWheel(clock.millis());
+    }
+
+    // ==================== Books ====================
+
+    /**
+     * Open the book of a market outcome; a no-op if it is already open. The first outcome opened
+     * for an LMSR market creates its market maker, and every outcome opened after joins it.
+     */
+    public OrderBook openBook(Market market, UUID outcomeId) {
+        OrderBook open = getBook(market.getMarketId(), outcomeId);
+        if (open != null) {
+            return open;
+        }
+        OrderBook book = new OrderBook(market, outcomeId);
+        book.changeLog = changedBooks;
+        long liquidity = LmsrMarketMaker.liquidityMicros(market);
+        if (liquidity > 0) {
+            book.maker = makers.computeIfAbsent(market.getMarketId(), id -> new LmsrMarketMaker(liquidity));
+            book.makerOutcome = book.maker.addOutcome(outcomeId);
+        }
+        books.put(book.getKey(), book);
+        return book;
+    }
+
+    /**
+     * Open one unified book for both outcomes of a binary market; a no-op if it is already open
+     *
+     * @param outcomeId           outcome whose prices the book is kept in, usually YES
+     * @param complementOutcomeId the other outcome, priced at {@code 10000 - price}
+     */
+    public OrderBook openBinaryBook(Market market, UUID outcomeId, UUID complementOutcomeId) {
+        OrderBook open = getBook(market.getMarketId(), outcomeId);
+        if (open != null) {
+            return open;
+        }
+        OrderBook book = new OrderBook(market, outcomeId, complementOutcomeId);
+        book.changeLog = changedBooks;
+        books.put(book.getKey(), book);
+        complementBooks.put(new BookKey(market.getMarketId(), complementOutcomeId), book);
+        return book;
+    }
+
+    /**
+     * Book that orders on the given outcome trade in; the unified book for either side of a binary market
+     */
+    public OrderBook getBook(UUID marketId, UUID outcomeId) {
+        BookKey key = new BookKey(marketId, outcomeId);
+        OrderBook book = books.get(key);
+        return book != null ? book : complementBooks.get(key);
+    }
+
+    public Collection<OrderBook> getBooks() {
+        return Collections.unmodifiableCollection(books.values());
+    }
+
+    public int getRestingOrderCount() {
+        return orderIndex.size();
+    }
+
+    /**
+     * Live order with the given ID, or null if it is not resting on this engine
+     */
+    RestingOrder getRestingOrder(UUID orderId) {
+        return orderIndex.get(orderId);
+    }
+
+    /**
+     * Resting orders with an armed expiry timer
+     */
+    public int getPendingExpiryCount() {
+        return timers.size();
+    }
+
+    // ==================== Recovery ====================
+
+    public long getTradeIdPrefix() {
+        return tradeIdPrefix;
+    }
+
+    /**
+     * Restore how many shares of an outcome its market maker has sold
+     */
+    public void restoreMakerInventory(UUID marketId, UUID outcomeId, long inventoryMicros) {
+        OrderBook book = books.get(new BookKey(marketId, outcomeId));
+        if (book == null || book.maker == null) {
+            throw new IllegalStateException("No market maker quotes outcome " + outcomeId + " of market " + marketId);
+        }
+        book.maker.restore(book.makerOutcome, inventoryMicros);
+    }
+
+    /**
+     * Recompute every market maker's prices from its inventories, the state a restore starts from.
+     * Called when snapshotting, so the live engine and one recovered from the snapshot price the
+     * journal tail identically.
+     */
+    public void rebuildMarketMakers() {
+        for (LmsrMarketMaker maker : makers.values()) {
+            maker.rebuild();
+        }
+    }
+
+    public long getTradeSequence() {
+        return tradeSequence;
+    }
+
+    /**
+     * Continue trade ID generation from a recovered state so replayed trades keep their IDs
+     */
+    public void restoreTradeIds(long prefix, long sequence) {
+        this.tradeIdPrefix = prefix;
+        this.tradeSequence = sequence;
+    }
+
+    /**
+     * Put a recovered order back at the tail of its price level without matching it.
+     * Only for rebuilding books from a snapshot, with orders supplied in time priority.
+     *
+     * @param remaining unfilled quantity in micro-shares
+     */
+    public void restoreRestingOrder(Order order, long remaining) {
+        OrderBook book = getBook(order.getMarketId(), order.getOutcomeId());
+        OrderSide side = parse(OrderSide.class, order.getSide(), null);
+        boolean complement = book != null && book.isComplement(order.getOutcomeId());
+        int level = book == null || order.getPriceE4() == null ? -1 : book.levelOf(order.getPriceE4(), complement);
+        if (level < 0 || side == null || remaining <= 0 || orderIndex.containsKey(order.getOrderId())) {
+            throw new IllegalStateException("Cannot restore order " + order.getOrderId());
+        }
+        RestingOrder resting = new RestingOrder(order, bookSide(side, complement), complement, level,
+                book.priceOf(level), remaining);
+        resting.filled = amount(order.getFilledQuantity());
+        resting.filledCost = amount(order.getFilledCost());
+        resting.feesPaid = amount(order.getFeesPaid());
+        resting.book = book;
+        book.side(side).add(resting);
+        index(resting);
+        // Restored levels are part of the starting state, not a change to stream
+        drainChanges(null);
+    }
+
+    // ==================== Commands ====================
+
+    /**
+     * Match an incoming order and rest any remainder allowed by its time in force
+     */
+    public MatchResult place(Order order) {
+        Instant now = clock.instant();
+        OrderBook book = getBook(order.getMarketId(), order.getOutcomeId());
+        if (book == null) {
+            return reject(order, ResponseCode.MARKET_CLOSED, "Market outcome is not open for trading", now);
+        }
+        if (order.getOrderId() == null || order.getUserId() == null) {
+            return reject(order, ResponseCode.MISSING_REQUIRED_FIELD, "Order and user IDs are required", now);
+        }
+        if (orderIndex.containsKey(order.getOrderId())) {
+            return reject(order, ResponseCode.DUPLICATE_ORDER, "Order ID is already live", now);
+        }
+
+        OrderSide side = parse(OrderSide.class, order.getSide(), null);
+        OrderType type = parse(OrderType.class, order.getOrderType(), OrderType.LIMIT);
+        TimeInForce tif = parse(TimeInForce.class, order.getTimeInForce(), TimeInForce.GTC);
+        if (side == null || type == null || tif == null) {
+            return reject(order, ResponseCode.INVALID_INPUT, "Invalid side, order type or time in force", now);
+        }
+        if (tif == TimeInForce.DAY && order.getExpiresAt() == null) {
+            order.setExpiresAt(endOfDay(now));
+        }
+        if (tif == TimeInForce.GTD && order.getExpiresAt() == null) {
+            return reject(order, ResponseCode.MISSING_REQUIRED_FIELD, "Good till date orders require an expiry", now);
+        }
+        if (order.getExpiresAt() != null && !order.getExpiresAt().isAfter(now)) {
+            return reject(order, ResponseCode.INVALID_INPUT, "Expiry must be in the future", now);
+        }
+
+        long quantity = order.getQuantity() == null ? -1L : Quantities.toMicros(order.getQuantity());
+        if (quantity <= 0) {
+            return reject(order, ResponseCode.INVALID_AMOUNT, "Quantity must be positive", now);
+        }
+
+        boolean complement = book.isComplement(order.getOutcomeId());
+        OrderSide bookSide = bookSide(side, complement);
+        int limitLevel = limitLevel(book, type, bookSide, complement, order.getPriceE4());
+        if (limitLevel < 0) {
+            return reject(order, ResponseCode.INVALID_PRICE,
+                    "Price must be on a " + book.getTickSizeE4() + " tick strictly between 0 and 10000", now);
+        }
+
+        initialize(order, book, tif, now);
+        MatchResult result = new MatchResult(order);
+        if (book.maker != null) {
+            executeAgainstMaker(book, order, side, type, tif, quantity, now, result);
+        } else {
+            execute(book, order, bookSide, complement, type, tif, limitLevel, quantity, now, result);
+        }
+        return drainChanges(result);
+    }
+
+    /**
+     * Remove a resting order from its book
+     *
+     * @param userId owner of the order, or null to skip the ownership check
+     */
+    public MatchResult cancel(UUID orderId, UUID userId) {
+        RestingOrder resting = orderIndex.get(orderId);
+        if (resting == null || (userId != null && !userId.equals(resting.userId))) {
+            return MatchResult.of(null, ResponseCode.ORDER_NOT_FOUND);
+        }
+        Instant now = clock.instant();
+        unrest(resting);
+        markCancelled(resting.order, "Cancelled by user", now);
+        return drainChanges(MatchResult.of(resting.order, ResponseCode.ORDER_CANCELLED));
+    }
+
+    /**
+     * Cancel every resting order a user has in a market, across all of its outcomes
+     *
+     * @return result listing the cancelled orders; never rejected, even when nothing was resting
+     */
+    public MatchResult cancelAll(UUID userId, UUID marketId) {
+        MatchResult result = MatchResult.of(null, ResponseCode.ORDER_CANCELLED);
+        Instant now = clock.instant();
+        RestingOrder resting = ordersByUser.get(userId);
+        while (resting != null) {
+            RestingOrder next = resting.userNext;
+            if (marketId.equals(resting.book.getMarketId())) {
+                unrest(resting);
+                markCancelled(resting.order, "Cancelled by user", now);
+                result.getUpdatedOrders().add(resting.order);
+            }
+            resting = next;
+        }
+        return drainChanges(result);
+    }
+
+    /**
+     * Close every book of a market: cancel all of its resting orders and drop the books and the
+     * market maker, so orders arriving afterwards are rejected as the market not being open.
+     * Opening a book for the market again starts it empty.
+     *
+     * @return result listing the cancelled orders; never rejected, even when no book was open
+     */
+    public MatchResult closeMarket(UUID marketId) {
+        MatchResult result = MatchResult.of(null, ResponseCode.ORDER_CANCELLED);
+        Instant now = clock.instant();
+        List<OrderBook> closing = new ArrayList<>();
+        for (OrderBook book : books.values()) {
+            if (marketId.equals(book.getMarketId())) {
+                closing.add(book);
+            }
+        }
+        List<RestingOrder> resting = new ArrayList<>();
+        for (OrderBook book : closing) {
+            book.forEachRestingOrder(resting::add);
+            for (RestingOrder order : resting) {
+                unrest(order);
+                markCancelled(order.order, "Market closed", now);
+                result.getUpdatedOrders().add(order.order);
+            }
+            resting.clear();
+            books.remove(book.getKey());
+            if (book.isUnified()) {
+                complementBooks.remove(new BookKey(marketId, book.getComplementOutcomeId()));
+            }
+        }
+        makers.remove(marketId);
+        return drainChanges(result);
+    }
+
+    /**
+     * Expire every resting order whose expiry is at or before {@code now}
+     *
+     * @return result listing the expired orders, or null if none were due
+     */
+    public MatchResult expire(Instant now) {
+        expiringAt = now;
+        timers.advance(now.toEpochMilli(), expireAction);
+        MatchResult result = expiring;
+        expiring = null;
+        expiringAt = null;
+        return result == null ? null : drainChanges(result);
+    }
+
+    private void expire(RestingOrder resting) {
+        if (expiring == null) {
+            expiring = MatchResult.of(null, ResponseCode.ORDER_EXPIRED);
+        }
+        unrest(resting);
+        Order order = resting.order;
+        order.setStatus(OrderStatus.EXPIRED.name());
+        order.setStatusReason("Order expired");
+        order.setUpdatedAt(expiringAt);
+        expiring.getUpdatedOrders().add(order);
+    }
+
+    /**
+     * Cancel/replace a resting order with a new limit price and/or total quantity.
+     * The replacement loses its time priority and may match immediately.
+     *
+     * @param newPriceE4  new limit price, or null to keep the current one
+     * @param newQuantity new total order quantity, or null to keep the current one
+     */
+    public MatchResult modify(UUID orderId, UUID userId, Long newPriceE4, BigDecimal newQuantity) {
+        RestingOrder resting = orderIndex.get(orderId);
+        if (resting == null || (userId != null && !userId.equals(resting.userId))) {
+            return MatchResult.of(null, ResponseCode.ORDER_NOT_FOUND);
+        }
+        Instant now = clock.instant();
+        Order order = resting.order;
+        OrderBook book = resting.book;
+
+        long priceE4 = newPriceE4 != null ? newPriceE4 : order.getPriceE4();
+        int limitLevel = book.levelOf(priceE4, resting.complement);
+        if (limitLevel < 0) {
+            return MatchResult.of(order, ResponseCode.INVALID_PRICE);
+        }
+        long filled = resting.filled;
+        long total = newQuantity != null ? Quantities.toMicros(newQuantity) : filled + resting.remaining;
+        if (total <= filled) {
+            return MatchResult.of(order, ResponseCode.INVALID_AMOUNT);
+        }
+
+        unrest(resting);
+        order.setPriceE4(priceE4);
+        order.setQuantity(Quantities.fromMicros(total));
+        order.setRemainingQuantity(Quantities.fromMicros(total - filled));
+        order.setUpdatedAt(now);
+
+        MatchResult result = new MatchResult(order);
+        takerFilled = resting.filled;
+        takerCost = resting.filledCost;
+        takerFees = resting.feesPaid;
+        TimeInForce tif = parse(TimeInForce.class, order.getTimeInForce(), TimeInForce.GTC);
+        execute(book, order, resting.side, resting.complement, OrderType.LIMIT, tif, limitLevel, total - filled, now,
+                result);
+        return drainChanges(result);
+    }
+
+    // ==================== Matching ====================
+
+    /**
+     * @param side       side of the order in the book's terms
+     * @param complement whether the order is on the complementary outcome of a unified book
+     */
+    private void execute(OrderBook book, Order order, OrderSide side, boolean complement, OrderType type,
+                         TimeInForce tif, int limitLevel, long quantity, Instant now, MatchResult result) {
+        BookSide opposite = book.opposite(side);
+
+        if (tif == TimeInForce.FOK && opposite.depthThrough(limitLevel, quantity, order.getUserId()) < quantity) {
+            markCancelled(order, "Fill or kill order could not be filled completely", now);
+            result.setCode(ResponseCode.ORDER_CANCELLED);
+            return;
+        }
+
+        long remaining = match(book, order, side, complement, opposite, limitLevel, quantity, now, result);
+
+        if (remaining > 0) {
+            boolean rests = type == OrderType.LIMIT
+                    && (tif == TimeInForce.GTC || tif == TimeInForce.DAY || tif == TimeInForce.GTD);
+            if (rests) {
+                RestingOrder resting = new RestingOrder(order, side, complement, limitLevel, book.priceOf(limitLevel),
+                        remaining);
+                resting.filled = takerFilled;
+                resting.filledCost = takerCost;
+                resting.feesPaid = takerFees;
+                resting.book = book;
+                book.side(side).add(resting);
+                index(resting);
+            } else {
+                markCancelled(order, "Unfilled remainder cancelled", now);
+            }
+        }
+
+        if (OrderStatus.FILLED.name().equals(order.getStatus())) {
+            result.setCode(ResponseCode.ORDER_FILLED);
+        } else if (!result.getTrades().isEmpty()) {
+            result.setCode(ResponseCode.ORDER_PARTIALLY_FILLED);
+        } else if (OrderStatus.CANCELLED.name().equals(order.getStatus())) {
+            result.setCode(ResponseCode.ORDER_CANCELLED);
+        } else {
+            result.setCode(ResponseCode.ORDER_PLACED);
+        }
+    }
+
+    /**
+     * Trade an order with its market's market maker, as far as the maker's price stays within
+     * the order's limit. The maker is always the counterparty, so the remainder is cancelled
+     * rather than rested.
+     */
+    private void executeAgainstMaker(OrderBook book, Order order, OrderSide side, OrderType type, TimeInForce tif,
+                                     long quantity, Instant now, MatchResult result) {
+        LmsrMarketMaker maker = book.maker;
+        int outcome = book.makerOutcome;
+        boolean buys = side == OrderSide.BUY;
+        long available;
+        if (type == OrderType.MARKET) {
+            available = quantity;
+        } else {
+            available = buys ? maker.maxBuy(outcome, order.getPriceE4()) : maker.maxSell(outcome, order.getPriceE4());
+        }
+        long fill = Math.min(quantity, available);
+
+        if (tif == TimeInForce.FOK && fill < quantity) {
+            markCancelled(order, "Fill or kill order could not be filled completely", now);
+            result.setCode(ResponseCode.ORDER_CANCELLED);
+            return;
+        }
+
+        if (fill > 0) {
+            long cash = maker.cost(outcome, buys ? fill : -fill);
+            maker.apply(outcome, buys ? fill : -fill);
+            long value = Math.absExact(cash);
+            long fee = Micros.fee(value, book.getTakerFeeE4());
+            BigDecimal feeDecimal = Micros.toDecimal(fee);
+            Trade trade = Trade.builder()
+                    .marketId(book.getMarketId())
+                    .executedAt(now)
+                    .tradeId(new UUID(tradeIdPrefix, ++tradeSequence))
+                    .outcomeId(order.getOutcomeId())
+                    .outcomeName(order.getOutcomeName())
+                    .buyerOrderId(buys ? order.getOrderId() : null)
+                    .buyerUserId(buys ? order.getUserId() : null)
+                    .sellerOrderId(buys ? null : order.getOrderId())
+                    .sellerUserId(buys ? null : order.getUserId())
+                    .priceE4(Micros.averagePriceE4(value, fill))
+                    .quantity(Micros.toDecimal(fill))
+                    .totalValue(Micros.toDecimal(value))
+                    .buyerFee(buys ? feeDecimal : BigDecimal.ZERO)
+                    .sellerFee(buys ? BigDecimal.ZERO : feeDecimal)
+                    .platformFee(feeDecimal)
+                    .makerSide(buys ? OrderSide.SELL.name() : OrderSide.BUY.name())
+                    .takerSide(side.name())
+                    .takerUserId(order.getUserId())
+                    .settlementStatus("PENDING")
+                    .createdAt(now)
+                    .quantityMicros(fill)
+                    .valueMicros(value)
+                    .buyerFeeMicros(buys ? fee : 0L)
+                    .sellerFeeMicros(buys ? 0L : fee)
+                    .build();
+            result.getTrades().add(trade);
+            fillTaker(order, fill, value, fee, quantity - fill, now);
+            for (int i = 0; i < maker.outcomeCount(); i++) {
+                result.getQuotes().add(new OutcomeQuote(book.getMarketId(), maker.outcomeId(i), maker.priceE4(i), now));
+            }
+        }
+        if (fill < quantity) {
+            markCancelled(order, "Unfilled remainder cancelled at the market maker's price", now);
+        }
+
+        if (OrderStatus.FILLED.name().equals(order.getStatus())) {
+            result.setCode(ResponseCode.ORDER_FILLED);
+        } else if (fill > 0) {
+            result.setCode(ResponseCode.ORDER_PARTIALLY_FILLED);
+        } else {
+            result.setCode(ResponseCode.ORDER_CANCELLED);
+        }
+    }
+
+    /**
+     * Walk the opposite side from its best level while it crosses the taker's limit
+     *
+     * @return taker quantity left unfilled
+     */
+    private long match(OrderBook book, Order taker, OrderSide takerSide, boolean takerComplement, BookSide opposite,
+                       int limitLevel, long quantity, Instant now, MatchResult result) {
+        long remaining = quantity;
+        while (remaining > 0 && !opposite.isEmpty() && opposite.crosses(opposite.best(), limitLevel)) {
+            RestingOrder maker = opposite.head(opposite.best());
+
+            if (maker.userId.equals(taker.getUserId())) {
+                // Self-trade prevention: the older resting order is cancelled
+                unrest(maker);
+                markCancelled(maker.order, "Self-trade prevented", now);
+                result.getUpdatedOrders().add(maker.order);
+                continue;
+            }
+
+            long fill = Math.min(remaining, maker.remaining);
+            remaining -= fill;
+            opposite.reduce(maker, fill);
+
+            if (takerComplement == maker.complement) {
+                long priceE4 = ownPrice(maker.priceE4, takerComplement);
+                long value = Micros.value(fill, priceE4);
+                long takerFee = Micros.fee(value, book.getTakerFeeE4());
+                long makerFee = Micros.fee(value, book.getMakerFeeE4());
+                result.getTrades().add(trade(book, taker, takerSide, takerComplement, maker, fill, priceE4, value,
+                        takerFee, makerFee, now));
+                fillTaker(taker, fill, value, takerFee, remaining, now);
+                fillMaker(maker, fill, value, makerFee, now);
+            } else {
+                long takerPriceE4 = ownPrice(maker.priceE4, takerComplement);
+                long takerValue = Micros.value(fill, takerPriceE4);
+                long takerFee = Micros.fee(takerValue, book.getTakerFeeE4());
+                long makerPriceE4 = ownPrice(maker.priceE4, maker.complement);
+                long makerValue = Micros.value(fill, makerPriceE4);
+                long makerFee = Micros.fee(makerValue, book.getMakerFeeE4());
+                result.getTrades().add(leg(book, taker, ownSide(takerSide, takerComplement), true, maker.userId,
+                        taker.getUserId(), fill, takerPriceE4, takerValue, takerFee, now));
+                result.getTrades().add(leg(book, maker.order, ownSide(maker.side, maker.complement), false,
+                        maker.userId, taker.getUserId(), fill, makerPriceE4, makerValue, makerFee, now));
+                fillTaker(taker, fill, takerValue, takerFee, remaining, now);
+                fillMaker(maker, fill, makerValue, makerFee, now);
+            }
+            result.getUpdatedOrders().add(maker.order);
+
+            if (maker.remaining == 0) {
+                opposite.remove(maker);
+                deindex(maker);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Trade between two orders on the same outcome, at the maker's price in that outcome's terms
+     */
+    private Trade trade(OrderBook book, Order taker, OrderSide takerSide, boolean complement, RestingOrder maker,
+                        long fill, long priceE4, long value, long takerFee, long makerFee, Instant now) {
+        OrderSide ownTakerSide = ownSide(takerSide, complement);
+        boolean takerBuys = ownTakerSide == OrderSide.BUY;
+        Order buyer = takerBuys ? taker : maker.order;
+        Order seller = takerBuys ? maker.order : taker;
+
+        return Trade.builder()
+                .marketId(book.getMarketId())
+                .executedAt(now)
+                .tradeId(new UUID(tradeIdPrefix, ++tradeSequence))
+                .outcomeId(taker.getOutcomeId())
+                .outcomeName(taker.getOutcomeName())
+                .buyerOrderId(buyer.getOrderId())
+                .buyerUserId(buyer.getUserId())
+                .sellerOrderId(seller.getOrderId())
+                .sellerUserId(seller.getUserId())
+                .priceE4(priceE4)
+                .quantity(Micros.toDecimal(fill))
+                .totalValue(Micros.toDecimal(value))
+                .buyerFee(Micros.toDecimal(takerBuys ? takerFee : makerFee))
+                .sellerFee(Micros.toDecimal(takerBuys ? makerFee : takerFee))
+                .platformFee(Micros.toDecimal(Micros.add(takerFee, makerFee)))
+                .makerSide(ownSide(maker.side, complement).name())
+                .takerSide(ownTakerSide.name())
+                .makerUserId(maker.userId)
+                .takerUserId(taker.getUserId())
+                .settlementStatus("PENDING")
+                .createdAt(now)
+                .quantityMicros(fill)
+                .valueMicros(value)
+                .buyerFeeMicros(takerBuys ? takerFee : makerFee)
+                .sellerFeeMicros(takerBuys ? makerFee : takerFee)
+                .build();
+    }
+
+    /**
+     * One order's half of a mint or merge across a unified binary book.
+     * Two buys of complementary outcomes together pay 10000 for a newly minted share pair, and
+     * two sells together redeem a pair; each side trades its own outcome at its own price, so the
+     * leg has no counterparty order on that outcome.
+     */
+    private Trade leg(OrderBook book, Order order, OrderSide side, boolean taker, UUID makerUserId, UUID takerUserId,
+                      long fill, long priceE4, long value, long fee, Instant now) {
+        boolean buys = side == OrderSide.BUY;
+        BigDecimal feeDecimal = Micros.toDecimal(fee);
+
+        return Trade.builder()
+                .marketId(book.getMarketId())
+                .executedAt(now)
+                .tradeId(new UUID(tradeIdPrefix, ++tradeSequence))
+                .outcomeId(order.getOutcomeId())
+                .outcomeName(order.getOutcomeName())
+                .buyerOrderId(buys ? order.getOrderId() : null)
+                .buyerUserId(buys ? order.getUserId() : null)
+                .sellerOrderId(buys ? null : order.getOrderId())
+                .sellerUserId(buys ? null : order.getUserId())
+                .priceE4(priceE4)
+                .quantity(Micros.toDecimal(fill))
+                .totalValue(Micros.toDecimal(value))
+                .buyerFee(buys ? feeDecimal : BigDecimal.ZERO)
+                .sellerFee(buys ? BigDecimal.ZERO : feeDecimal)
+                .platformFee(feeDecimal)
+                .makerSide(taker ? null : side.name())
+                .takerSide(taker ? side.name() : null)
+                .makerUserId(makerUserId)
+                .takerUserId(takerUserId)
+                .settlementStatus("PENDING")
+                .createdAt(now)
+                .quantityMicros(fill)
+                .valueMicros(value)
+                .buyerFeeMicros(buys ? fee : 0L)
+                .sellerFeeMicros(buys ? 0L : fee)
+                .build();
+    }
+
+    /**
+     * Attach one delta per book the command changed, advancing those books' sequences
+     *
+     * @param result result to attach the deltas to, or null to drop them
+     */
+    private MatchResult drainChanges(MatchResult result) {
+        for (int i = 0; i < changedBooks.size(); i++) {
+            BookDelta delta = changedBooks.get(i).drainChanges();
+            if (result != null) {
+                result.getBookDeltas().add(delta);
+            }
+        }
+        changedBooks.clear();
+        return result;
+    }
+
+    // ==================== Order state ====================
+
+    private void initialize(Order order, OrderBook book, TimeInForce tif, Instant now) {
+        order.setTimeInForce(tif.name());
+        order.setStatus(OrderStatus.OPEN.name());
+        order.setFilledQuantity(BigDecimal.ZERO);
+        order.setRemainingQuantity(order.getQuantity());
+        order.setFilledCost(BigDecimal.ZERO);
+        order.setFeesPaid(BigDecimal.ZERO);
+        order.setMakerFeeE4(book.getMakerFeeE4());
+        order.setTakerFeeE4(book.getTakerFeeE4());
+        takerFilled = 0L;
+        takerCost = 0L;
+        takerFees = 0L;
+        if (order.getCreatedAt() == null) {
+            order.setCreatedAt(now);
+        }
+        order.setUpdatedAt(now);
+    }
+
+    private void fillTaker(Order order, long fill, long value, long fee, long remaining, Instant now) {
+        takerFilled = Micros.add(takerFilled, fill);
+        takerCost = Micros.add(takerCost, value);
+        takerFees = Micros.add(takerFees, fee);
+        applyFill(order, takerFilled, takerCost, takerFees, remaining, now);
+    }
+
+    private static void fillMaker(RestingOrder maker, long fill, long value, long fee, Instant now) {
+        maker.filled = Micros.add(maker.filled, fill);
+        maker.filledCost = Micros.add(maker.filledCost, value);
+        maker.feesPaid = Micros.add(maker.feesPaid, fee);
+        applyFill(maker.order, maker.filled, maker.filledCost, maker.feesPaid, maker.remaining, now);
+    }
+
+    /**
+     * Write an order's fill totals, kept in micro-units by the engine, through to the order
+     */
+    private static void applyFill(Order order, long filled, long filledCost, long feesPaid, long remaining,
+                                  Instant now) {
+        order.setFilledQuantity(Micros.toDecimal(filled));
+        order.setRemainingQuantity(Micros.toDecimal(remaining));
+        order.setFilledCost(Micros.toDecimal(filledCost));
+        order.setFeesPaid(Micros.toDecimal(feesPaid));
+        order.setAverageFillPriceE4(Micros.averagePriceE4(filledCost, filled));
+        order.setUpdatedAt(now);
+        if (remaining == 0) {
+            order.setStatus(OrderStatus.FILLED.name());
+            order.setFilledAt(now);
+        } else {
+            order.setStatus(OrderStatus.PARTIALLY_FILLED.name());
+        }
+    }
+
+    private static void markCancelled(Order order, String reason, Instant now) {
+        order.setStatus(OrderStatus.CANCELLED.name());
+        order.setStatusReason(reason);
+        order.setCancelledAt(now);
+        order.setUpdatedAt(now);
+    }
+
+    /**
+     * Refuse an order without touching any book
+     */
+    static MatchResult reject(Order order, ResponseCode code, String reason, Instant now) {
+        order.setStatus(OrderStatus.REJECTED.name());
+        order.setStatusReason(reason);
+        order.setUpdatedAt(now);
+        return MatchResult.of(order, code);
+    }
+
+    private void unrest(RestingOrder resting) {
+        resting.book.side(resting.side).remove(resting);
+        deindex(resting);
+    }
+
+    private void index(RestingOrder resting) {
+        orderIndex.put(resting);
+        if (resting.order.getExpiresAt() != null) {
+            timers.schedule(resting, deadlineMillis(resting.order.getExpiresAt()));
+        }
+        RestingOrder head = ordersByUser.put(resting.userId, resting);
+        resting.userNext = head;
+        if (head != null) {
+            head.userPrev = resting;
+        }
+    }
+
+    private void deindex(RestingOrder resting) {
+        orderIndex.remove(resting.orderId);
+        timers.cancel(resting);
+        if (resting.userPrev != null) {
+            resting.userPrev.userNext = resting.userNext;
+        } else if (resting.userNext != null) {
+            ordersByUser.put(resting.userId, resting.userNext);
+        } else {
+            ordersByUser.remove(resting.userId);
+        }
+        if (resting.userNext != null) {
+            resting.userNext.userPrev = resting.userPrev;
+        }
+        resting.userPrev = null;
+        resting.userNext = null;
+    }
+
+    // ==================== Helpers ====================
+
+    private static int limitLevel(OrderBook book, OrderType type, OrderSide bookSide, boolean complement,
+                                  Long priceE4) {
+        if (type == OrderType.MARKET) {
+            return bookSide == OrderSide.BUY ? book.levelCount() - 1 : 0;
+        }
+        return priceE4 == null ? -1 : book.levelOf(priceE4, complement);
+    }
+
+    /**
+     * Side an order takes in its book: buying the complementary outcome is selling the primary one
+     */
+    private static OrderSide bookSide(OrderSide side, boolean complement) {
+        if (!complement || side == null) {
+            return side;
+        }
+        return side == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY;
+    }
+
+    private static OrderSide ownSide(OrderSide bookSide, boolean complement) {
+        return bookSide(bookSide, complement);
+    }
+
+    private static long ownPrice(long bookPriceE4, boolean complement) {
+        return complement ? OrderBook.MAX_PRICE_E4 - bookPriceE4 : bookPriceE4;
+    }
+
+    private static long amount(BigDecimal value) {
+        return value == null ? 0L : Quantities.toMicros(value);
+    }
+
+    /**
+     * Default expiry of a DAY order: the next midnight UTC
+     */
+    private static Instant endOfDay(Instant now) {
+        return now.atOffset(ZoneOffset.UTC).toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Millisecond the expiry timer fires at, rounded up so an order never expires before its expiry
+     */
+    private static long deadlineMillis(Instant expiresAt) {
+        long millis = expiresAt.toEpochMilli();
+        return expiresAt.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, E defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic on {@code long} amounts with six decimals: micro-shares for quantities
+ * and micro-USDC for cash. Prices and fee rates are basis points (E4).
+ * Used on the engine's hot path instead of BigDecimal, which only appears at the API and
+ * persistence edges through {@link Quantities}. Every operation checks for overflow and throws
+ * {@link ArithmeticException} rather than wrapping; results that need rounding round half away
+ * from zero, as {@link RoundingMode#HALF_UP} does.
+ */
+public final class Micros {
+
+    static final long E4 = 10_000L;
+
+    private Micros() {
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Cash value of a quantity at a price: {@code quantity * priceE4 / 10000}
+     */
+    public static long value(long quantityMicros, long priceE4) {
+        return timesE4(quantityMicros, priceE4);
+    }
+
+    /**
+     * Fee charged on a cash value at a rate in basis points
+     */
+    public static long fee(long valueMicros, long feeE4) {
+        return feeE4 == 0 ? 0L : timesE4(valueMicros, feeE4);
+    }
+
+    /**
+     * Average price in basis points of a fill: {@code value * 10000 / quantity}
+     */
+    public static long averagePriceE4(long valueMicros, long quantityMicros) {
+        if (quantityMicros == 0) {
+            throw new ArithmeticException("Average price of a zero quantity");
+        }
+        long whole = valueMicros / quantityMicros;
+        long rest = valueMicros % quantityMicros;
+        long scaled;
+        try {
+            scaled = Math.multiplyExact(rest, E4);
+        } catch (ArithmeticException e) {
+            // Only for quantities above ~922 million shares
+            return BigDecimal.valueOf(valueMicros).multiply(BigDecimal.valueOf(E4))
+                    .divide(BigDecimal.valueOf(quantityMicros), 0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return Math.addExact(Math.multiplyExact(whole, E4), roundedDivide(scaled, quantityMicros));
+    }
+
+    public static BigDecimal toDecimal(long micros) {
+        return Quantities.fromMicros(micros);
+    }
+
+    /**
+     * {@code micros * rateE4 / 10000}; splitting off the whole part first keeps the intermediate
+     * product in range for any result that itself fits a long
+     */
+    private static long timesE4(long micros, long rateE4) {
+        long whole = Math.multiplyExact(micros / E4, rateE4);
+        long fraction = Math.multiplyExact(micros % E4, rateE4);
+        return Math.addExact(whole, roundedDivide(fraction, E4));
+    }
+
+    /**
+     * Quotient rounded half away from zero
+     */
+    private static long roundedDivide(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = Math.absExact(numerator % denominator);
+        if (remainder < Math.absExact(denominator) - remainder) {
+            return quotient;
+        }
+        return (numerator < 0) == (denominator < 0) ? quotient + 1 : quotient - 1;
+    }
+}
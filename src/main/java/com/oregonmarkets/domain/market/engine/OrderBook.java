@@ -0,0 +1,236 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.OrderSide;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * In-memory limit order book for a single market outcome.
+ * Prices live in the bounded 0..10000 basis point domain, so levels are plain array slots
+ * indexed by priceE4 / tickSizeE4 instead of a sorted map. Not thread-safe: a book is only
+ * ever mutated by the {@link MatchingEngine} that owns it.
+ *
+ * <p>A binary market keeps one unified book for both outcomes. Prices and sides are expressed
+ * in terms of the primary outcome, and orders on the complementary outcome rest on the opposite
+ * side at {@code 10000 - price}: buying NO at 40% is liquidity for selling YES at 60%.
+ *
+ * <p>Every engine command that changes the book's aggregated levels advances its sequence by one
+ * and yields a {@link BookDelta}, so market data consumers can follow the book from a
+ * {@link BookSnapshot} without ever reading it in full again.
+ */
+public class OrderBook {
+
+    public static final long MAX_PRICE_E4 = 10_000L;
+    private static final long DEFAULT_TICK_SIZE_E4 = 100L;
+
+    private final BookKey key;
+    private final UUID complementOutcomeId;
+    private final long tickSizeE4;
+    private final int levelCount;
+    private final long makerFeeE4;
+    private final long takerFeeE4;
+    private final BookSide bids;
+    private final BookSide asks;
+
+    private long sequence;
+    private boolean changed;
+    /** Engine-owned list this book joins when its first level changes after a drain */
+    List<OrderBook> changeLog;
+    /** Market maker orders trade against instead of the book, or null */
+    LmsrMarketMaker maker;
+    /** Index of this book's outcome in {@link #maker} */
+    int makerOutcome = -1;
+
+    OrderBook(Market market, UUID outcomeId) {
+        this(market, outcomeId, null);
+    }
+
+    OrderBook(Market market, UUID outcomeId, UUID complementOutcomeId) {
+        this.key = new BookKey(market.getMarketId(), outcomeId);
+        this.complementOutcomeId = complementOutcomeId;
+        this.tickSizeE4 = resolveTickSize(market.getTickSizeE4());
+        this.levelCount = (int) (MAX_PRICE_E4 / tickSizeE4) + 1;
+        this.makerFeeE4 = market.getMakerFeeE4() != null ? market.getMakerFeeE4() : 0L;
+        this.takerFeeE4 = market.getTakerFeeE4() != null ? market.getTakerFeeE4() : 0L;
+        this.bids = new BookSide(true, levelCount, this);
+        this.asks = new BookSide(false, levelCount, this);
+    }
+
+    public BookKey getKey() {
+        return key;
+    }
+
+    public UUID getMarketId() {
+        return key.marketId();
+    }
+
+    public UUID getOutcomeId() {
+        return key.outcomeId();
+    }
+
+    /**
+     * Other outcome of a unified binary book, or null for a single-outcome book
+     */
+    public UUID getComplementOutcomeId() {
+        return complementOutcomeId;
+    }
+
+    public boolean isUnified() {
+        return complementOutcomeId != null;
+    }
+
+    /**
+     * Whether orders on the given outcome trade against this book in complementary terms
+     */
+    boolean isComplement(UUID outcomeId) {
+        return complementOutcomeId != null && complementOutcomeId.equals(outcomeId);
+    }
+
+    public long getTickSizeE4() {
+        return tickSizeE4;
+    }
+
+    public long getMakerFeeE4() {
+        return makerFeeE4;
+    }
+
+    public long getTakerFeeE4() {
+        return takerFeeE4;
+    }
+
+    /**
+     * LMSR liquidity of the market maker quoting this outcome in micro-shares, or 0 when orders
+     * trade on the book
+     */
+    public long getMakerLiquidity() {
+        return maker == null ? 0L : maker.getLiquidityMicros();
+    }
+
+    /**
+     * Net micro-shares of this outcome the market maker has sold
+     */
+    public long getMakerInventory() {
+        return maker == null ? 0L : maker.inventory(makerOutcome);
+    }
+
+    /**
+     * Best bid in basis points, or null when there are no bids
+     */
+    public Long getBestBidE4() {
+        return bids.isEmpty() ? null : priceOf(bids.best());
+    }
+
+    /**
+     * Best ask in basis points, or null when there are no asks
+     */
+    public Long getBestAskE4() {
+        return asks.isEmpty() ? null : priceOf(asks.best());
+    }
+
+    /**
+     * Aggregate resting quantity (micro-shares) at a price on one side
+     */
+    public long getDepth(OrderSide side, long priceE4) {
+        int level = levelOf(priceE4);
+        return level < 0 ? 0L : side(side).depth(level);
+    }
+
+    public int getOrderCount() {
+        return bids.orderCount() + asks.orderCount();
+    }
+
+    /**
+     * Sequence of the last delta this book produced; 0 until its levels first change
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Aggregated levels of both sides, at most {@code maxLevels} per side, as of the current sequence
+     */
+    public BookSnapshot snapshot(int maxLevels) {
+        List<BookLevel> bidLevels = new ArrayList<>(Math.min(maxLevels, 64));
+        List<BookLevel> askLevels = new ArrayList<>(Math.min(maxLevels, 64));
+        bids.collectDepth(maxLevels, bidLevels);
+        asks.collectDepth(maxLevels, askLevels);
+        return new BookSnapshot(key, complementOutcomeId, sequence, bidLevels, askLevels);
+    }
+
+    /**
+     * Visit every resting order, bids then asks, each price level in time priority.
+     * Re-adding orders in this order reproduces the book's queues exactly.
+     */
+    public void forEachRestingOrder(Consumer<RestingOrder> action) {
+        bids.forEach(action);
+        asks.forEach(action);
+    }
+
+    /**
+     * Levels changed since the last drain as the next delta in sequence
+     */
+    BookDelta drainChanges() {
+        List<BookLevel> bidLevels = new ArrayList<>();
+        List<BookLevel> askLevels = new ArrayList<>();
+        bids.drainChanges(bidLevels);
+        asks.drainChanges(askLevels);
+        changed = false;
+        return new BookDelta(key, complementOutcomeId, ++sequence, bidLevels, askLevels);
+    }
+
+    /**
+     * Called by a side the first time one of its levels changes after a drain
+     */
+    void changed() {
+        if (!changed) {
+            changed = true;
+            if (changeLog != null) {
+                changeLog.add(this);
+            }
+        }
+    }
+
+    int levelCount() {
+        return levelCount;
+    }
+
+    BookSide side(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    BookSide opposite(OrderSide side) {
+        return side == OrderSide.BUY ? asks : bids;
+    }
+
+    long priceOf(int level) {
+        return level * tickSizeE4;
+    }
+
+    /**
+     * Map a limit price onto its level index, or -1 if the price is off-tick or outside (0, 10000)
+     */
+    int levelOf(long priceE4) {
+        if (priceE4 <= 0 || priceE4 >= MAX_PRICE_E4 || priceE4 % tickSizeE4 != 0) {
+            return -1;
+        }
+        return (int) (priceE4 / tickSizeE4);
+    }
+
+    /**
+     * Level of a limit price quoted on the given outcome, or -1 if it is not a valid price
+     */
+    int levelOf(long priceE4, boolean complement) {
+        return levelOf(complement ? MAX_PRICE_E4 - priceE4 : priceE4);
+    }
+
+    private static long resolveTickSize(Long tickSizeE4) {
+        if (tickSizeE4 == null || tickSizeE4 <= 0 || tickSizeE4 > MAX_PRICE_E4) {
+            return DEFAULT_TICK_SIZE_E4;
+        }
+        return tickSizeE4;
+    }
+}
@@ -0,0 +1,149 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.UUID;
+
+/**
+ * Open-addressing hash index from order ID to resting order node.
+ * Keys are stored as the two raw longs of the UUID in parallel arrays with linear probing and
+ * backward-shift deletion, so lookups, inserts and removals are constant time, allocate nothing
+ * and never leave tombstones behind. Not thread-safe, like the engine that owns it.
+ */
+final class OrderIndex {
+
+    private static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private long[] msbs;
+    private long[] lsbs;
+    private RestingOrder[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    OrderIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    OrderIndex(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 16)) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    RestingOrder get(UUID orderId) {
+        return get(orderId.getMostSignificantBits(), orderId.getLeastSignificantBits());
+    }
+
+    RestingOrder get(long msb, long lsb) {
+        for (int i = slot(msb, lsb); ; i = (i + 1) & mask) {
+            RestingOrder value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return value;
+            }
+        }
+    }
+
+    boolean containsKey(UUID orderId) {
+        return get(orderId) != null;
+    }
+
+    /**
+     * Index a resting order by its order ID, replacing any previous mapping
+     */
+    void put(RestingOrder order) {
+        long msb = order.orderId.getMostSignificantBits();
+        long lsb = order.orderId.getLeastSignificantBits();
+        int i = slot(msb, lsb);
+        while (values[i] != null) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                values[i] = order;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        values[i] = order;
+        if (++size >= resizeAt) {
+            rehash(values.length << 1);
+        }
+    }
+
+    RestingOrder remove(UUID orderId) {
+        long msb = orderId.getMostSignificantBits();
+        long lsb = orderId.getLeastSignificantBits();
+        for (int i = slot(msb, lsb); ; i = (i + 1) & mask) {
+            RestingOrder value = values[i];
+            if (value == null) {
+                return null;
+            }
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                shiftBack(i);
+                size--;
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Close the gap at {@code hole} by moving back later entries of the same probe chain
+     */
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            RestingOrder value = values[i];
+            if (value == null) {
+                break;
+            }
+            int home = slot(msbs[i], lsbs[i]);
+            // Move the entry if its home slot is not cyclically within (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                msbs[hole] = msbs[i];
+                lsbs[hole] = lsbs[i];
+                values[hole] = value;
+                hole = i;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private int slot(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        values = new RestingOrder[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity >>> 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        RestingOrder[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            RestingOrder value = oldValues[j];
+            if (value != null) {
+                int i = slot(oldMsbs[j], oldLsbs[j]);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                msbs[i] = oldMsbs[j];
+                lsbs[i] = oldLsbs[j];
+                values[i] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.oregonmarkets.domain.market.engine.journal.CommandJournal;
+import com.oregonmarkets.domain.market.engine.journal.SnapshotStore;
+import com.oregonmarkets.domain.market.engine.risk.RiskLedger;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer front door of the matching engine.
+ * Markets are sharded by ID onto a fixed set of {@link EngineShard} event loops, each with its own
+ * engine and ring buffer, so a market's books are only ever touched by one thread. Callers get a
+ * {@link Mono} that completes with the command's result once the owning shard has executed it.
+ * With journaling enabled, each shard recovers its books from disk before accepting commands and
+ * is snapshotted periodically and on shutdown.
+ */
+@Slf4j
+@Component
+public class OrderSequencer {
+
+    private final EngineShard[] shards;
+    private final List<MatchResultListener> listeners;
+    private final EngineProperties.Journal journal;
+    private final MatchingEngine[] engines;
+    private volatile boolean accepting;
+    private Disposable snapshotTicker;
+
+    /** Recent client order IDs each shard remembers when not configured */
+    static final int DEFAULT_CLIENT_ORDER_CAPACITY = 65_536;
+
+    @Autowired
+    public OrderSequencer(EngineProperties properties, List<MatchResultListener> listeners, RiskLedger risk) {
+        this(properties.resolveShards(), properties.getRingBufferSize(), Clock.systemUTC(), listeners,
+                properties.getJournal(), risk, properties.getIdempotency().resolveShardCapacity());
+    }
+
+    /**
+     * Unjournaled sequencer outside of Spring, for tests and the replay harness
+     */
+    public OrderSequencer(int shardCount, int ringBufferSize, Clock clock, List<MatchResultListener> listeners) {
+        this(shardCount, ringBufferSize, clock, listeners, null, null);
+    }
+
+    /**
+     * @param risk pre-trade check run on each shard before orders are journaled, or null to skip it
+     */
+    OrderSequencer(int shardCount, int ringBufferSize, Clock clock, List<MatchResultListener> listeners,
+                   EngineProperties.Journal journal, RiskLedger risk) {
+        this(shardCount, ringBufferSize, clock, listeners, journal, risk, DEFAULT_CLIENT_ORDER_CAPACITY);
+    }
+
+    private OrderSequencer(int shardCount, int ringBufferSize, Clock clock, List<MatchResultListener> listeners,
+                           EngineProperties.Journal journal, RiskLedger risk, int clientOrderCapacity) {
+        this.shards = new EngineShard[shardCount];
+        this.engines = new MatchingEngine[shardCount];
+        this.listeners = List.copyOf(listeners);
+        this.journal = journal;
+        for (int i = 0; i < shardCount; i++) {
+            EngineClock engineClock = new EngineClock(clock);
+            engines[i] = new MatchingEngine(i, engineClock);
+            shards[i] = new EngineShard(i, engines[i], engineClock, new CommandRingBuffer(ringBufferSize),
+                    this.listeners, risk, clientOrderCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (isJournaled()) {
+            recover();
+        }
+        for (EngineShard shard : shards) {
+            shard.start();
+        }
+        accepting = true;
+        if (isJournaled() && journal.getSnapshotIntervalSeconds() > 0) {
+            long interval = journal.getSnapshotIntervalSeconds();
+            snapshotTicker = Schedulers.parallel().schedulePeriodically(
+                    () -> snapshot().subscribe(null, e -> log.error("Engine snapshot failed", e)),
+                    interval, interval, TimeUnit.SECONDS);
+        }
+        log.info("Started {} matching engine shards", shards.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        accepting = false;
+        if (snapshotTicker != null) {
+            snapshotTicker.dispose();
+        }
+        for (EngineShard shard : shards) {
+            shard.stop();
+        }
+        log.info("Stopped matching engine shards");
+    }
+
+    /**
+     * Rebuild every shard from its latest snapshot and journal before any command is accepted
+     */
+    private void recover() {
+        long started = System.nanoTime();
+        Path directory = Path.of(journal.getDirectory());
+        int segmentBytes = Math.toIntExact(journal.getSegmentSizeMb() * 1024L * 1024L);
+        long replayed = 0;
+        for (int i = 0; i < shards.length; i++) {
+            try {
+                CommandJournal commands = CommandJournal.open(directory, i, segmentBytes, engines[i].getTradeIdPrefix());
+                replayed += shards[i].recover(commands, new SnapshotStore(directory, i));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to recover matching engine shard " + i + " from " + directory, e);
+            }
+        }
+        long restingOrders = 0;
+        for (MatchingEngine engine : engines) {
+            restingOrders += engine.getRestingOrderCount();
+        }
+        log.info("Recovered {} resting orders from {} replayed journal records in {} ms", restingOrders, replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private boolean isJournaled() {
+        return journal != null && journal.isEnabled();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Shard that owns every book of the given market
+     */
+    int shardOf(UUID marketId) {
+        return Math.floorMod(marketId.hashCode(), shards.length);
+    }
+
+    // ==================== Commands ====================
+
+    /**
+     * Open the book of a market outcome on its owning shard
+     */
+    public Mono<Void> openBook(Market market, UUID outcomeId) {
+        return submit(market.getMarketId(), command -> {
+            command.type = EngineCommand.Type.OPEN_BOOK;
+            command.market = market;
+            command.outcomeId = outcomeId;
+        }).then();
+    }
+
+    /**
+     * Open one unified book for both outcomes of a binary market on its owning shard
+     */
+    public Mono<Void> openBinaryBook(Market market, UUID outcomeId, UUID complementOutcomeId) {
+        return submit(market.getMarketId(), command -> {
+            command.type = EngineCommand.Type.OPEN_BOOK;
+            command.market = market;
+            command.outcomeId = outcomeId;
+            command.complementOutcomeId = complementOutcomeId;
+        }).then();
+    }
+
+    /**
+     * Match an order; the order must not be touched by the caller after submission
+     */
+    public Mono<MatchResult> place(Order order) {
+        if (isBackedUp()) {
+            return overloaded();
+        }
+        return submit(order.getMarketId(), command -> {
+            command.type = EngineCommand.Type.PLACE;
+            command.order = order;
+        });
+    }
+
+    public Mono<MatchResult> cancel(UUID marketId, UUID orderId, UUID userId) {
+        return submit(marketId, command -> {
+            command.type = EngineCommand.Type.CANCEL;
+            command.orderId = orderId;
+            command.userId = userId;
+        });
+    }
+
+    /**
+     * Cancel every resting order of a user in a market in one command
+     */
+    public Mono<MatchResult> cancelAll(UUID marketId, UUID userId) {
+        return submit(marketId, command -> {
+            command.type = EngineCommand.Type.CANCEL_ALL;
+            command.marketId = marketId;
+            command.userId = userId;
+        });
+    }
+
+    /**
+     * Close every book of a market, cancelling all of its resting orders in one command.
+     * Orders sent to the market afterwards are rejected until a book is opened for it again.
+     */
+    public Mono<MatchResult> closeMarket(UUID marketId) {
+        return submit(marketId, command -> {
+            command.type = EngineCommand.Type.CLOSE_MARKET;
+            command.marketId = marketId;
+        });
+    }
+
+    public Mono<MatchResult> modify(UUID marketId, UUID orderId, UUID userId, Long priceE4, BigDecimal quantity) {
+        if (isBackedUp()) {
+            return overloaded();
+        }
+        return submit(marketId, command -> {
+            command.type = EngineCommand.Type.MODIFY;
+            command.orderId = orderId;
+            command.userId = userId;
+            command.priceE4 = priceE4;
+            command.quantity = quantity;
+        });
+    }
+
+    /**
+     * Match a list of orders of one market as a single command, optionally after cancelling all of
+     * the user's resting orders in that market (a mass-quote replace). No other command runs on the
+     * market's books between the cancel and the last placement. Orders must not be touched by the
+     * caller after submission.
+     */
+    public Mono<BatchResult> placeBatch(UUID marketId, UUID userId, List<Order> orders, boolean replace) {
+        if (isBackedUp()) {
+            return overloaded();
+        }
+        return submit(shards[shardOf(marketId)], command -> {
+            command.type = EngineCommand.Type.BATCH;
+            command.marketId = marketId;
+            command.userId = userId;
+            command.orders = List.copyOf(orders);
+            command.replace = replace;
+        }, (command, sink) -> command.batchSink = sink);
+    }
+
+    /**
+     * Aggregated levels of the book an outcome trades in, read on its owning shard between commands.
+     * Always admitted, since it does not add to the book. Completes empty if the book is not open.
+     *
+     * @param levels maximum number of price levels per side
+     */
+    public Mono<BookSnapshot> depth(UUID marketId, UUID outcomeId, int levels) {
+        return submit(shards[shardOf(marketId)], command -> {
+            command.type = EngineCommand.Type.DEPTH;
+            command.marketId = marketId;
+            command.outcomeId = outcomeId;
+            command.depthLevels = levels;
+        }, (command, sink) -> command.depthSink = sink);
+    }
+
+    /**
+     * Snapshot every shard's books on its own thread, between commands
+     */
+    Mono<Void> snapshot() {
+        return Flux.fromArray(shards)
+                .flatMap(shard -> submit(shard, command -> command.type = EngineCommand.Type.SNAPSHOT))
+                .then();
+    }
+
+    private Mono<MatchResult> submit(UUID marketId, Consumer<EngineCommand> writer) {
+        return submit(shards[shardOf(marketId)], writer);
+    }
+
+    private Mono<MatchResult> submit(EngineShard shard, Consumer<EngineCommand> writer) {
+        return submit(shard, writer, (command, sink) -> command.sink = sink);
+    }
+
+    private <T> Mono<T> submit(EngineShard shard, Consumer<EngineCommand> writer,
+                               BiConsumer<EngineCommand, MonoSink<T>> completion) {
+        return Mono.<T>create(sink -> {
+                    CommandRingBuffer ring = shard.ring();
+                    long sequence = accepting ? ring.tryClaim() : -1L;
+                    if (sequence < 0) {
+                        sink.error(overloadedError());
+                        return;
+                    }
+                    EngineCommand command = ring.slot(sequence);
+                    writer.accept(command);
+                    completion.accept(command, sink);
+                    ring.publish(sequence);
+                    shard.signal();
+                })
+                // Keep downstream work off the shard thread
+                .publishOn(Schedulers.parallel());
+    }
+
+    /**
+     * Cancels are always admitted since they only shrink the book; new risk waits for
+     * downstream stages to catch up
+     */
+    private boolean isBackedUp() {
+        for (int i = 0; i < listeners.size(); i++) {
+            if (listeners.get(i).isBackedUp()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> Mono<T> overloaded() {
+        return Mono.error(overloadedError());
+    }
+
+    private static BusinessException overloadedError() {
+        return new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "Matching engine is overloaded, please retry");
+    }
+}
@@ -0,0 +1,12 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Price an automated market maker quotes for an outcome after a trade
+ *
+ * @param priceE4 marginal price of the next share, in basis points
+ */
+public record OutcomeQuote(UUID marketId, UUID outcomeId, long priceE4, Instant quotedAt) {
+}
@@ -0,0 +1,30 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between API quantities and the engine's micro-share units
+ */
+public final class Quantities {
+
+    public static final int SCALE = 6;
+
+    private Quantities() {
+    }
+
+    /**
+     * Convert to micro-shares, truncating beyond six decimals; -1 if the value does not fit a long
+     */
+    public static long toMicros(BigDecimal quantity) {
+        try {
+            return quantity.movePointRight(SCALE).setScale(0, RoundingMode.DOWN).longValueExact();
+        } catch (ArithmeticException e) {
+            return -1L;
+        }
+    }
+
+    public static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, SCALE);
+    }
+}
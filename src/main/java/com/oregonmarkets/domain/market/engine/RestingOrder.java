@@ -0,0 +1,89 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+
+import java.util.UUID;
+
+/**
+ * Node of the in-memory order book.
+ * Each resting order sits in the FIFO queue of its price level; quantities are kept in
+ * micro-shares so the book never touches BigDecimal while walking levels. Side and price are in
+ * the book's terms, which differ from the order's own for the complementary outcome of a
+ * unified binary book.
+ */
+public final class RestingOrder {
+
+    final Order order;
+    final UUID orderId;
+    final UUID userId;
+    final OrderSide side;
+    /** Whether the order is on the complementary outcome of a unified binary book */
+    final boolean complement;
+
+    int level;
+    long priceE4;
+    long remaining;
+
+    /** Fill totals in micro-shares and micro-USDC, written through to the order after each fill */
+    long filled;
+    long filledCost;
+    long feesPaid;
+
+    OrderBook book;
+    RestingOrder prev;
+    RestingOrder next;
+
+    /** Links in the owner's list of resting orders on the same engine */
+    RestingOrder userPrev;
+    RestingOrder userNext;
+
+    /** Expiry timer links in the engine's {@link TimingWheel} */
+    long expiresAtMillis;
+    int timerSlot = TimingWheel.UNSCHEDULED;
+    RestingOrder timerPrev;
+    RestingOrder timerNext;
+
+    RestingOrder(Order order, OrderSide side, boolean complement, int level, long priceE4, long remaining) {
+        this.order = order;
+        this.orderId = order.getOrderId();
+        this.userId = order.getUserId();
+        this.side = side;
+        this.complement = complement;
+        this.level = level;
+        this.priceE4 = priceE4;
+        this.remaining = remaining;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public OrderSide getSide() {
+        return side;
+    }
+
+    public boolean isComplement() {
+        return complement;
+    }
+
+    public long getPriceE4() {
+        return priceE4;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public OrderBook getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,207 @@
+package com.oregonmarkets.domain.market.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed hierarchical timing wheel holding the expiry timers of resting orders.
+ * Four levels of 256 slots with a one millisecond tick cover about 49 days; later deadlines
+ * park in the top level's furthest slot and are re-placed when it comes round. Timers are
+ * intrusive links on {@link RestingOrder}, so scheduling and cancelling are O(1) and allocation
+ * free. Deadlines already due when scheduled go to an overdue list drained by the next advance.
+ * Stretches with nothing due are skipped level by level instead of tick by tick.
+ * Not thread-safe: owned by one {@link MatchingEngine}.
+ */
+final class TimingWheel {
+
+    static final int UNSCHEDULED = -1;
+    private static final int OVERDUE = -2;
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final RestingOrder[] slots = new RestingOrder[LEVELS * SLOTS];
+    private final int[] levelCounts = new int[LEVELS];
+    private RestingOrder overdue;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param startMillis epoch milliseconds the wheel starts turning from
+     */
+    TimingWheel(long startMillis) {
+        this.currentTick = startMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Arm the order's timer to fire at {@code deadlineMillis}
+     */
+    void schedule(RestingOrder order, long deadlineMillis) {
+        order.expiresAtMillis = deadlineMillis;
+        place(order);
+        size++;
+    }
+
+    /**
+     * Disarm the order's timer; a no-op if it is not armed
+     */
+    void cancel(RestingOrder order) {
+        if (order.timerSlot == UNSCHEDULED) {
+            return;
+        }
+        unlink(order);
+        size--;
+    }
+
+    /**
+     * Turn the wheel to {@code toMillis}, firing every timer whose deadline is at or before it.
+     * Fired timers are disarmed before the action sees them. Moving backwards only fires overdue
+     * timers up to that time, which is what replaying an older journal needs.
+     */
+    void advance(long toMillis, Consumer<RestingOrder> action) {
+        if (overdue != null) {
+            fireOverdue(toMillis, action);
+        }
+        while (currentTick < toMillis) {
+            int level = lowestOccupiedLevel();
+            if (level < 0) {
+                currentTick = toMillis;
+                return;
+            }
+            if (level > 0) {
+                // Nothing can fire before the next cascade of that level
+                long lastQuietTick = currentTick | ((1L << (SLOT_BITS * level)) - 1);
+                if (lastQuietTick >= toMillis) {
+                    currentTick = toMillis;
+                    return;
+                }
+                currentTick = lastQuietTick;
+            }
+            currentTick++;
+            if ((currentTick & MASK) == 0) {
+                cascade(1);
+            }
+            int slot = (int) (currentTick & MASK);
+            RestingOrder order = slots[slot];
+            slots[slot] = null;
+            fireAll(order, action);
+            if (overdue != null) {
+                fireOverdue(currentTick, action);
+            }
+        }
+    }
+
+    private int lowestOccupiedLevel() {
+        for (int level = 0; level < LEVELS; level++) {
+            if (levelCounts[level] > 0) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    private void fireOverdue(long toMillis, Consumer<RestingOrder> action) {
+        RestingOrder order = overdue;
+        while (order != null) {
+            RestingOrder next = order.timerNext;
+            if (order.expiresAtMillis <= toMillis) {
+                unlink(order);
+                size--;
+                action.accept(order);
+            }
+            order = next;
+        }
+    }
+
+    private void fireAll(RestingOrder order, Consumer<RestingOrder> action) {
+        while (order != null) {
+            RestingOrder next = order.timerNext;
+            detach(order);
+            levelCounts[0]--;
+            size--;
+            action.accept(order);
+            order = next;
+        }
+    }
+
+    /**
+     * Re-place the timers of the slot the wheel just reached at {@code level} onto lower levels
+     */
+    private void cascade(int level) {
+        int index = (int) ((currentTick >>> (SLOT_BITS * level)) & MASK);
+        if (index == 0 && level + 1 < LEVELS) {
+            cascade(level + 1);
+        }
+        int slot = level * SLOTS + index;
+        RestingOrder order = slots[slot];
+        slots[slot] = null;
+        while (order != null) {
+            RestingOrder next = order.timerNext;
+            detach(order);
+            levelCounts[level]--;
+            place(order);
+            order = next;
+        }
+    }
+
+    private void place(RestingOrder order) {
+        long deadline = order.expiresAtMillis;
+        if (deadline <= currentTick) {
+            link(order, OVERDUE);
+            return;
+        }
+        long delta = deadline - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                link(order, level * SLOTS + (int) ((deadline >>> (SLOT_BITS * level)) & MASK));
+                return;
+            }
+        }
+        int top = LEVELS - 1;
+        link(order, top * SLOTS + (int) (((currentTick >>> (SLOT_BITS * top)) - 1) & MASK));
+    }
+
+    private void link(RestingOrder order, int slot) {
+        RestingOrder head = slot == OVERDUE ? overdue : slots[slot];
+        order.timerSlot = slot;
+        order.timerPrev = null;
+        order.timerNext = head;
+        if (head != null) {
+            head.timerPrev = order;
+        }
+        if (slot == OVERDUE) {
+            overdue = order;
+        } else {
+            slots[slot] = order;
+            levelCounts[slot / SLOTS]++;
+        }
+    }
+
+    private void unlink(RestingOrder order) {
+        if (order.timerPrev != null) {
+            order.timerPrev.timerNext = order.timerNext;
+        } else if (order.timerSlot == OVERDUE) {
+            overdue = order.timerNext;
+        } else {
+            slots[order.timerSlot] = order.timerNext;
+        }
+        if (order.timerSlot != OVERDUE) {
+            levelCounts[order.timerSlot / SLOTS]--;
+        }
+        if (order.timerNext != null) {
+            order.timerNext.timerPrev = order.timerPrev;
+        }
+        detach(order);
+    }
+
+    private static void detach(RestingOrder order) {
+        order.timerSlot = UNSCHEDULED;
+        order.timerPrev = null;
+        order.timerNext = null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.oregonmarkets.domain.market.engine.feed;
+
+import com.oregonmarkets.domain.market.engine.BookDelta;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.MatchResultListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fan-out of book level deltas to market data subscribers, keyed by the outcome they follow.
+ * Every subscriber gets its own bounded queue, filled on the shard thread that produced the
+ * delta; a subscriber that falls a full queue behind is disconnected instead of slowing the
+ * shard or the other subscribers, and has to start again from a fresh snapshot. Books without
+ * subscribers cost nothing beyond a map lookup per delta.
+ */
+@Slf4j
+@Component
+public class BookFeed implements MatchResultListener {
+
+    /** Deltas a subscriber may fall behind by before it is dropped */
+    static final int SUBSCRIBER_BUFFER = 1024;
+
+    private final Map<BookKey, Set<Sinks.Many<BookDelta>>> subscribers = new ConcurrentHashMap<>();
+
+    @Override
+    public void onResult(MatchResult result) {
+        List<BookDelta> deltas = result.getBookDeltas();
+        for (int i = 0; i < deltas.size(); i++) {
+            BookDelta delta = deltas.get(i);
+            emit(delta.key(), delta);
+            if (delta.complementOutcomeId() != null) {
+                // Subscribers of the other outcome of a unified book follow the same deltas
+                emit(new BookKey(delta.key().marketId(), delta.complementOutcomeId()), delta);
+            }
+        }
+    }
+
+    /**
+     * Start buffering deltas of the book with the given key, beginning with the first one produced
+     * after this call returns. A snapshot read afterwards is therefore covered by the deltas that
+     * follow it. The registration must be closed once its deltas are no longer consumed.
+     */
+    public Registration register(BookKey key) {
+        Sinks.Many<BookDelta> sink = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<BookDelta>get(SUBSCRIBER_BUFFER).get());
+        // Added under the map's lock, so it cannot land in a set the last close is removing
+        subscribers.compute(key, (k, sinks) -> {
+            Set<Sinks.Many<BookDelta>> added = sinks != null ? sinks : ConcurrentHashMap.newKeySet();
+            added.add(sink);
+            return added;
+        });
+        return new Registration(key, sink);
+    }
+
+    int getSubscriberCount(BookKey key) {
+        Set<Sinks.Many<BookDelta>> sinks = subscribers.get(key);
+        return sinks == null ? 0 : sinks.size();
+    }
+
+    private void emit(BookKey key, BookDelta delta) {
+        Set<Sinks.Many<BookDelta>> sinks = subscribers.get(key);
+        if (sinks == null) {
+            return;
+        }
+        for (Sinks.Many<BookDelta> sink : sinks) {
+            if (sink.tryEmitNext(delta) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                log.warn("Dropping slow subscriber of book {}", key);
+                sink.tryEmitError(new IllegalStateException("Subscriber fell too far behind the order book"));
+                unsubscribe(key, sink);
+            }
+        }
+    }
+
+    private void unsubscribe(BookKey key, Sinks.Many<BookDelta> sink) {
+        subscribers.computeIfPresent(key, (k, sinks) -> {
+            sinks.remove(sink);
+            return sinks.isEmpty() ? null : sinks;
+        });
+    }
+
+    /**
+     * One subscriber's buffered view of a book's deltas
+     */
+    public final class Registration implements AutoCloseable {
+
+        private final BookKey key;
+        private final Sinks.Many<BookDelta> sink;
+
+        private Registration(BookKey key, Sinks.Many<BookDelta> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+
+        /**
+         * Buffered and subsequent deltas; may be subscribed to only once
+         */
+        public Flux<BookDelta> deltas() {
+            return sink.asFlux();
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(key, sink);
+        }
+    }
+}
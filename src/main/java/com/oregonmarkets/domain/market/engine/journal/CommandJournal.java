@@ -0,0 +1,411 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.model.Order;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the commands sequenced by one engine shard.
+ * Records have a fixed size and are written into memory-mapped segment files, so an append is a
+ * copy into the page cache with no system call; a process crash loses nothing the shard has
+ * executed. Every record is checksummed and carries its sequence, and replay stops at the
+ * first torn or missing record. Written and read only by the owning shard's thread.
+ */
+@Slf4j
+public final class CommandJournal implements Closeable {
+
+    private final Path directory;
+    private final int shard;
+    private final int recordsPerSegment;
+    private final long tradeIdPrefix;
+    private final List<Segment> segments;
+
+    private final byte[] scratchBytes = new byte[JournalFormat.RECORD_SIZE];
+    private final ByteBuffer scratch = ByteBuffer.wrap(scratchBytes).order(ByteOrder.LITTLE_ENDIAN);
+    private final JournalRecord scratchRecord = new JournalRecord();
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer active;
+    private long lastSequence;
+
+    private CommandJournal(Path directory, int shard, int segmentBytes, long tradeIdPrefix, List<Segment> segments,
+                           long lastSequence) {
+        this.directory = directory;
+        this.shard = shard;
+        this.recordsPerSegment = (segmentBytes - JournalFormat.HEADER_SIZE) / JournalFormat.RECORD_SIZE;
+        this.tradeIdPrefix = tradeIdPrefix;
+        this.segments = segments;
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Open the journal of a shard, validating existing segments and positioning after the last intact record
+     *
+     * @param tradeIdPrefix trade ID prefix to record when the journal is new
+     */
+    public static CommandJournal open(Path directory, int shard, int segmentBytes, long tradeIdPrefix)
+            throws IOException {
+        if (segmentBytes < JournalFormat.HEADER_SIZE + JournalFormat.RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal segment size too small: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(p -> isSegment(p, shard)).toList()) {
+                segments.add(Segment.scan(path, shard));
+            }
+        }
+        segments.sort(Comparator.comparingLong(segment -> segment.firstSequence));
+
+        long lastSequence = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (lastSequence != 0 && segment.firstSequence != lastSequence + 1) {
+                throw new IOException("Journal gap before " + segment.path + ": expected sequence " + (lastSequence + 1));
+            }
+            if (segment.torn && i < segments.size() - 1) {
+                throw new IOException("Journal segment " + segment.path + " is corrupt before the end of the journal");
+            }
+            lastSequence = segment.firstSequence + segment.recordCount - 1;
+        }
+
+        long prefix = segments.isEmpty() ? tradeIdPrefix : segments.get(0).tradeIdPrefix;
+        CommandJournal journal = new CommandJournal(directory, shard, segmentBytes, prefix, segments, lastSequence);
+        if (!segments.isEmpty()) {
+            journal.mapActive(segments.get(segments.size() - 1));
+        }
+        return journal;
+    }
+
+    /**
+     * Trade ID prefix of the engine run that started this journal
+     */
+    public long getTradeIdPrefix() {
+        return tradeIdPrefix;
+    }
+
+    /**
+     * Sequence of the last record written, or 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    // ==================== Appends ====================
+
+    /**
+     * @param complementOutcomeId other outcome of a unified binary book, or null for a single-outcome book
+     * @param liquidityMicros     LMSR liquidity of the market's market maker, or 0 for an order book market
+     */
+    public long appendOpenBook(UUID marketId, UUID outcomeId, UUID complementOutcomeId, long tickSizeE4,
+                               long makerFeeE4, long takerFeeE4, long liquidityMicros, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.OPEN_BOOK, timestampMicros);
+        record.marketId = marketId;
+        record.outcomeId = outcomeId;
+        record.complementOutcomeId = complementOutcomeId;
+        record.tickSizeE4 = tickSizeE4;
+        record.makerFeeE4 = makerFeeE4;
+        record.takerFeeE4 = takerFeeE4;
+        record.liquidityMicros = liquidityMicros;
+        return write(record);
+    }
+
+    public long appendPlace(Order order, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.PLACE, timestampMicros);
+        record.orderId = order.getOrderId();
+        record.userId = order.getUserId();
+        record.marketId = order.getMarketId();
+        record.outcomeId = order.getOutcomeId();
+        record.side = order.getSide();
+        record.orderType = order.getOrderType();
+        record.timeInForce = order.getTimeInForce();
+        record.priceE4 = order.getPriceE4();
+        record.quantityMicros = order.getQuantity() == null ? -1L : Quantities.toMicros(order.getQuantity());
+        record.expiresAtMicros = order.getExpiresAt() == null
+                ? 0L : ChronoUnit.MICROS.between(Instant.EPOCH, order.getExpiresAt());
+        return write(record);
+    }
+
+    public long appendCancel(UUID orderId, UUID userId, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.CANCEL, timestampMicros);
+        record.orderId = orderId;
+        record.userId = userId;
+        return write(record);
+    }
+
+    public long appendCancelAll(UUID userId, UUID marketId, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.CANCEL_ALL, timestampMicros);
+        record.userId = userId;
+        record.marketId = marketId;
+        return write(record);
+    }
+
+    /**
+     * Record that the shard closed every book of a market
+     */
+    public long appendCloseMarket(UUID marketId, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.CLOSE_MARKET, timestampMicros);
+        record.marketId = marketId;
+        return write(record);
+    }
+
+    /**
+     * Record that the shard expired every order due at the record's timestamp
+     */
+    public long appendExpire(long timestampMicros) {
+        return write(begin(JournalRecord.Type.EXPIRE, timestampMicros));
+    }
+
+    /**
+     * @param quantityMicros new total quantity in micro-shares, or -1 to keep the current one
+     */
+    public long appendModify(UUID orderId, UUID userId, Long priceE4, long quantityMicros, long timestampMicros) {
+        JournalRecord record = begin(JournalRecord.Type.MODIFY, timestampMicros);
+        record.orderId = orderId;
+        record.userId = userId;
+        record.priceE4 = priceE4;
+        record.quantityMicros = quantityMicros;
+        return write(record);
+    }
+
+    private JournalRecord begin(JournalRecord.Type type, long timestampMicros) {
+        JournalRecord record = scratchRecord;
+        record.type = type;
+        record.timestampMicros = timestampMicros;
+        record.orderId = null;
+        record.userId = null;
+        record.marketId = null;
+        record.outcomeId = null;
+        record.complementOutcomeId = null;
+        record.expiresAtMicros = 0L;
+        record.side = null;
+        record.orderType = null;
+        record.timeInForce = null;
+        record.priceE4 = null;
+        record.quantityMicros = -1L;
+        record.tickSizeE4 = 0L;
+        record.makerFeeE4 = 0L;
+        record.takerFeeE4 = 0L;
+        record.liquidityMicros = 0L;
+        return record;
+    }
+
+    private long write(JournalRecord record) {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.recordCount == recordsPerSegment) {
+            segment = roll(lastSequence + 1);
+        }
+        record.sequence = lastSequence + 1;
+        JournalFormat.encode(scratch, record);
+        crc.reset();
+        crc.update(scratchBytes, 4, JournalFormat.RECORD_SIZE - 4);
+        scratch.putInt(0, (int) crc.getValue());
+        active.put(JournalFormat.HEADER_SIZE + segment.recordCount * JournalFormat.RECORD_SIZE, scratchBytes);
+        segment.recordCount++;
+        lastSequence = record.sequence;
+        return lastSequence;
+    }
+
+    // ==================== Replay & maintenance ====================
+
+    /**
+     * Feed every intact record from {@code fromSequence} onwards to the handler, in order
+     *
+     * @return number of records replayed
+     */
+    public long replay(long fromSequence, Consumer<JournalRecord> handler) throws IOException {
+        JournalRecord record = new JournalRecord();
+        long replayed = 0;
+        for (Segment segment : segments) {
+            long segmentLast = segment.firstSequence + segment.recordCount - 1;
+            if (segmentLast < fromSequence) {
+                continue;
+            }
+            ByteBuffer buffer = Segment.map(segment.path, FileChannel.MapMode.READ_ONLY);
+            int first = (int) Math.max(0, fromSequence - segment.firstSequence);
+            for (int i = first; i < segment.recordCount; i++) {
+                JournalFormat.decode(buffer, JournalFormat.HEADER_SIZE + i * JournalFormat.RECORD_SIZE, record);
+                handler.accept(record);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Delete closed segments holding only records below {@code sequence}, e.g. once a snapshot covers them
+     */
+    public void truncateBefore(long sequence) throws IOException {
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            if (oldest.firstSequence + oldest.recordCount > sequence) {
+                break;
+            }
+            Files.deleteIfExists(oldest.path);
+            segments.remove(0);
+            log.debug("Deleted journal segment {}", oldest.path);
+        }
+    }
+
+    /**
+     * Flush written records to the storage device
+     */
+    public void force() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+        active = null;
+    }
+
+    private Segment roll(long firstSequence) {
+        force();
+        Path path = directory.resolve(String.format("%s%020d.journal", prefix(shard), firstSequence));
+        try {
+            ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, JournalFormat.MAGIC);
+            header.putInt(4, JournalFormat.VERSION);
+            header.putInt(8, shard);
+            header.putInt(12, JournalFormat.RECORD_SIZE);
+            header.putLong(16, firstSequence);
+            header.putLong(24, tradeIdPrefix);
+            CRC32C headerCrc = new CRC32C();
+            headerCrc.update(header.array(), 0, JournalFormat.HEADER_SIZE - 4);
+            header.putInt(JournalFormat.HEADER_SIZE - 4, (int) headerCrc.getValue());
+
+            long size = JournalFormat.HEADER_SIZE + (long) recordsPerSegment * JournalFormat.RECORD_SIZE;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.write(header, 0);
+                channel.truncate(size);
+                if (channel.size() < size) {
+                    channel.write(ByteBuffer.allocate(1), size - 1);
+                }
+            }
+            Segment segment = new Segment(path, firstSequence, tradeIdPrefix, 0, false);
+            segments.add(segment);
+            mapActive(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new JournalException("Failed to create journal segment " + path, e);
+        }
+    }
+
+    private void mapActive(Segment segment) {
+        try {
+            active = Segment.map(segment.path, FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new JournalException("Failed to map journal segment " + segment.path, e);
+        }
+    }
+
+    private static boolean isSegment(Path path, int shard) {
+        String name = path.getFileName().toString();
+        return name.startsWith(prefix(shard)) && name.endsWith(".journal");
+    }
+
+    private static String prefix(int shard) {
+        return "shard-" + shard + "-";
+    }
+
+    /**
+     * Metadata of one segment file
+     */
+    private static final class Segment {
+
+        final Path path;
+        final long firstSequence;
+        final long tradeIdPrefix;
+        int recordCount;
+        /** Whether scanning stopped at an invalid record before the end of the file */
+        final boolean torn;
+
+        Segment(Path path, long firstSequence, long tradeIdPrefix, int recordCount, boolean torn) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.tradeIdPrefix = tradeIdPrefix;
+            this.recordCount = recordCount;
+            this.torn = torn;
+        }
+
+        static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+            StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                    ? new StandardOpenOption[]{StandardOpenOption.READ}
+                    : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+            try (FileChannel channel = FileChannel.open(path, options)) {
+                MappedByteBuffer buffer = channel.map(mode, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return buffer;
+            }
+        }
+
+        static Segment scan(Path path, int shard) throws IOException {
+            ByteBuffer buffer = map(path, FileChannel.MapMode.READ_ONLY);
+            if (buffer.capacity() < JournalFormat.HEADER_SIZE) {
+                throw new IOException("Journal segment " + path + " is too short");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, JournalFormat.HEADER_SIZE - 4));
+            if (buffer.getInt(0) != JournalFormat.MAGIC
+                    || (int) crc.getValue() != buffer.getInt(JournalFormat.HEADER_SIZE - 4)) {
+                throw new IOException("Journal segment " + path + " has an invalid header");
+            }
+            if (buffer.getInt(4) != JournalFormat.VERSION || buffer.getInt(12) != JournalFormat.RECORD_SIZE) {
+                throw new IOException("Journal segment " + path + " uses unsupported format version " + buffer.getInt(4));
+            }
+            if (buffer.getInt(8) != shard) {
+                throw new IOException("Journal segment " + path + " belongs to shard " + buffer.getInt(8));
+            }
+            long firstSequence = buffer.getLong(16);
+            long tradeIdPrefix = buffer.getLong(24);
+
+            int capacity = (buffer.capacity() - JournalFormat.HEADER_SIZE) / JournalFormat.RECORD_SIZE;
+            int count = 0;
+            while (count < capacity) {
+                int offset = JournalFormat.HEADER_SIZE + count * JournalFormat.RECORD_SIZE;
+                if (!JournalFormat.isKnownType(buffer.get(offset + 4))
+                        || buffer.getLong(offset + 8) != firstSequence + count) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(offset + 4, JournalFormat.RECORD_SIZE - 4));
+                if ((int) crc.getValue() != buffer.getInt(offset)) {
+                    break;
+                }
+                count++;
+            }
+            boolean torn = count < capacity && buffer.get(JournalFormat.HEADER_SIZE + count * JournalFormat.RECORD_SIZE + 4) != 0;
+            if (torn) {
+                log.warn("Journal segment {} ends with a torn record after sequence {}", path, firstSequence + count - 1);
+            }
+            return new Segment(path, firstSequence, tradeIdPrefix, count, torn);
+        }
+    }
+}
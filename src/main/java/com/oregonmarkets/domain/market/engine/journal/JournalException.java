@@ -0,0 +1,11 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+/**
+ * Unrecoverable failure writing the command journal
+ */
+public class JournalException extends RuntimeException {
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,139 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import com.oregonmarkets.domain.market.model.OrderSide;
+import com.oregonmarkets.domain.market.model.OrderType;
+import com.oregonmarkets.domain.market.model.TimeInForce;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Binary layout of journal segments.
+ *
+ * <pre>
+ * Segment header (64 bytes)
+ *   0  int   magic "OMJL"
+ *   4  int   format version
+ *   8  int   shard
+ *  12  int   record size
+ *  16  long  sequence of the first record
+ *  24  long  trade ID prefix of the engine that wrote the journal
+ *  32  ...   reserved
+ *  60  int   CRC32C of bytes 0..59
+ *
+ * Record (160 bytes, little endian)
+ *   0  int   CRC32C of bytes 4..159
+ *   4  byte  type (0 marks the end of the written region)
+ *   5  byte  side, 6 byte order type, 7 byte time in force
+ *   8  long  sequence
+ *  16  long  timestamp, epoch microseconds
+ *  24  uuid  order ID      40 uuid user ID
+ *  56  uuid  market ID     72 uuid outcome ID
+ *  88  long  price (Long.MIN_VALUE when absent)
+ *  96  long  quantity in micro-shares (-1 when absent)
+ * 104  long  tick size     112 long maker fee     120 long taker fee
+ * 128  uuid  complementary outcome ID of a unified binary book
+ * 144  long  order expiry, epoch microseconds (0 when it does not expire)
+ * 152  long  LMSR liquidity in micro-shares (0 for an order book market)
+ * </pre>
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x4F4D4A4C;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 160;
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final byte INVALID_ENUM = -1;
+
+    private JournalFormat() {
+    }
+
+    static void encode(ByteBuffer buffer, JournalRecord record) {
+        buffer.clear();
+        buffer.putInt(0, 0);
+        buffer.put(4, (byte) (record.type.ordinal() + 1));
+        buffer.put(5, code(OrderSide.class, record.side));
+        buffer.put(6, code(OrderType.class, record.orderType));
+        buffer.put(7, code(TimeInForce.class, record.timeInForce));
+        buffer.putLong(8, record.sequence);
+        buffer.putLong(16, record.timestampMicros);
+        putUuid(buffer, 24, record.orderId);
+        putUuid(buffer, 40, record.userId);
+        putUuid(buffer, 56, record.marketId);
+        putUuid(buffer, 72, record.outcomeId);
+        buffer.putLong(88, record.priceE4 == null ? NO_PRICE : record.priceE4);
+        buffer.putLong(96, record.quantityMicros);
+        buffer.putLong(104, record.tickSizeE4);
+        buffer.putLong(112, record.makerFeeE4);
+        buffer.putLong(120, record.takerFeeE4);
+        putUuid(buffer, 128, record.complementOutcomeId);
+        buffer.putLong(144, record.expiresAtMicros);
+        buffer.putLong(152, record.liquidityMicros);
+    }
+
+    /**
+     * Decode a record whose checksum has already been verified
+     */
+    static void decode(ByteBuffer buffer, int offset, JournalRecord record) {
+        record.type = JournalRecord.Type.values()[buffer.get(offset + 4) - 1];
+        record.side = name(OrderSide.class, buffer.get(offset + 5));
+        record.orderType = name(OrderType.class, buffer.get(offset + 6));
+        record.timeInForce = name(TimeInForce.class, buffer.get(offset + 7));
+        record.sequence = buffer.getLong(offset + 8);
+        record.timestampMicros = buffer.getLong(offset + 16);
+        record.orderId = getUuid(buffer, offset + 24);
+        record.userId = getUuid(buffer, offset + 40);
+        record.marketId = getUuid(buffer, offset + 56);
+        record.outcomeId = getUuid(buffer, offset + 72);
+        long price = buffer.getLong(offset + 88);
+        record.priceE4 = price == NO_PRICE ? null : price;
+        record.quantityMicros = buffer.getLong(offset + 96);
+        record.tickSizeE4 = buffer.getLong(offset + 104);
+        record.makerFeeE4 = buffer.getLong(offset + 112);
+        record.takerFeeE4 = buffer.getLong(offset + 120);
+        record.complementOutcomeId = getUuid(buffer, offset + 128);
+        record.expiresAtMicros = buffer.getLong(offset + 144);
+        record.liquidityMicros = buffer.getLong(offset + 152);
+    }
+
+    static boolean isKnownType(byte type) {
+        return type > 0 && type <= JournalRecord.Type.values().length;
+    }
+
+    private static void putUuid(ByteBuffer buffer, int offset, UUID uuid) {
+        buffer.putLong(offset, uuid == null ? 0L : uuid.getMostSignificantBits());
+        buffer.putLong(offset + 8, uuid == null ? 0L : uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer, int offset) {
+        long msb = buffer.getLong(offset);
+        long lsb = buffer.getLong(offset + 8);
+        return msb == 0L && lsb == 0L ? null : new UUID(msb, lsb);
+    }
+
+    /**
+     * 0 for null, ordinal + 1 for a known constant, -1 for anything else so replay rejects it again
+     */
+    private static <E extends Enum<E>> byte code(Class<E> type, String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return (byte) (Enum.valueOf(type, value).ordinal() + 1);
+        } catch (IllegalArgumentException e) {
+            return INVALID_ENUM;
+        }
+    }
+
+    private static <E extends Enum<E>> String name(Class<E> type, byte code) {
+        if (code == 0) {
+            return null;
+        }
+        if (code == INVALID_ENUM) {
+            return "INVALID";
+        }
+        return type.getEnumConstants()[code - 1].name();
+    }
+}
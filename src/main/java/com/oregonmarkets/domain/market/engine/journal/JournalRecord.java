@@ -0,0 +1,47 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Decoded view of one journal record.
+ * Replay reuses a single instance for every record, so handlers must copy anything they keep.
+ */
+@Getter
+public final class JournalRecord {
+
+    public enum Type {
+        OPEN_BOOK,
+        PLACE,
+        CANCEL,
+        CANCEL_ALL,
+        MODIFY,
+        EXPIRE,
+        CLOSE_MARKET
+    }
+
+    Type type;
+    long sequence;
+    long timestampMicros;
+    UUID orderId;
+    UUID userId;
+    UUID marketId;
+    UUID outcomeId;
+    String side;
+    String orderType;
+    String timeInForce;
+    /** Limit price, or null when absent */
+    Long priceE4;
+    /** Quantity in micro-shares, or -1 when absent */
+    long quantityMicros;
+    long tickSizeE4;
+    long makerFeeE4;
+    long takerFeeE4;
+    /** Other outcome of a unified binary book, or null */
+    UUID complementOutcomeId;
+    /** Order expiry in epoch microseconds, or 0 when the order does not expire */
+    long expiresAtMicros;
+    /** LMSR liquidity of the market's market maker in micro-shares, or 0 for an order book market */
+    long liquidityMicros;
+}
@@ -0,0 +1,357 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import com.oregonmarkets.domain.market.engine.MatchingEngine;
+import com.oregonmarkets.domain.market.engine.OrderBook;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.engine.RestingOrder;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.PricingMode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time snapshots of a shard's books.
+ * A snapshot records every book and every resting order in time priority, and the inventory
+ * of every outcome an LMSR market maker quotes, together with the journal sequence it covers,
+ * so recovery loads it and replays only the journal tail. Files are
+ * written to a temporary name, synced and atomically renamed, and end with a CRC32C of their
+ * contents; a damaged snapshot is skipped in favour of the previous one.
+ */
+@Slf4j
+public final class SnapshotStore {
+
+    private static final int MAGIC = 0x4F4D5353;
+    private static final int VERSION = 3;
+    /** Adds unified binary books, and each order's own outcome and price in its outcome's terms */
+    private static final int UNIFIED_VERSION = 2;
+    /** Adds market maker liquidity and inventory */
+    private static final int MAKER_VERSION = 3;
+    /** Oldest version still restored; restore reads each older layout as it was written */
+    private static final int MIN_VERSION = 1;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private final Path directory;
+    private final int shard;
+
+    public SnapshotStore(Path directory, int shard) {
+        this.directory = directory;
+        this.shard = shard;
+    }
+
+    /**
+     * Write a snapshot of the engine as of journal sequence {@code lastSequence}
+     */
+    public Path write(MatchingEngine engine, long lastSequence) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d.snapshot", prefix(), lastSequence));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        // Restored market makers start from a full rebuild, so the live ones must price from one too
+        engine.rebuildMarketMakers();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(shard);
+            out.writeLong(lastSequence);
+            out.writeLong(engine.getTradeIdPrefix());
+            out.writeLong(engine.getTradeSequence());
+            out.writeInt(engine.getBooks().size());
+            for (OrderBook book : engine.getBooks()) {
+                writeBook(out, book);
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        deleteOlderSnapshots();
+        return target;
+    }
+
+    /**
+     * Restore the newest intact snapshot into an empty engine
+     *
+     * @return journal sequence covered by the restored snapshot, or 0 if there is none
+     */
+    public long restoreLatest(MatchingEngine engine) throws IOException {
+        for (Path path : snapshots()) {
+            if (!isIntact(path)) {
+                log.warn("Skipping damaged engine snapshot {}", path);
+                continue;
+            }
+            return restore(path, engine);
+        }
+        return 0L;
+    }
+
+    // ==================== Encoding ====================
+
+    private static void writeBook(DataOutputStream out, OrderBook book) throws IOException {
+        writeUuid(out, book.getMarketId());
+        writeUuid(out, book.getOutcomeId());
+        out.writeBoolean(book.isUnified());
+        if (book.isUnified()) {
+            writeUuid(out, book.getComplementOutcomeId());
+        }
+        out.writeLong(book.getTickSizeE4());
+        out.writeLong(book.getMakerFeeE4());
+        out.writeLong(book.getTakerFeeE4());
+        out.writeLong(book.getMakerLiquidity());
+        if (book.getMakerLiquidity() > 0) {
+            out.writeLong(book.getMakerInventory());
+        }
+        out.writeInt(book.getOrderCount());
+
+        IOException[] failure = new IOException[1];
+        book.forEachRestingOrder(resting -> {
+            if (failure[0] == null) {
+                try {
+                    writeOrder(out, resting);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private static void writeOrder(DataOutputStream out, RestingOrder resting) throws IOException {
+        Order order = resting.getOrder();
+        writeUuid(out, order.getOrderId());
+        writeUuid(out, order.getUserId());
+        writeUuid(out, order.getOutcomeId());
+        out.writeUTF(order.getSide());
+        out.writeUTF(order.getOrderType());
+        out.writeUTF(order.getTimeInForce());
+        out.writeUTF(order.getStatus());
+        out.writeLong(order.getPriceE4());
+        out.writeLong(resting.getRemaining());
+        writeNullableDecimal(out, order.getQuantity());
+        writeNullableDecimal(out, order.getFilledQuantity());
+        writeNullableDecimal(out, order.getRemainingQuantity());
+        writeNullableDecimal(out, order.getFilledCost());
+        writeNullableDecimal(out, order.getFeesPaid());
+        writeNullableLong(out, order.getAverageFillPriceE4());
+        writeNullableLong(out, micros(order.getCreatedAt()));
+        writeNullableLong(out, micros(order.getUpdatedAt()));
+        writeNullableLong(out, micros(order.getExpiresAt()));
+        writeNullableString(out, order.getClientOrderId());
+        writeNullableString(out, order.getMarketTitle());
+        writeNullableString(out, order.getOutcomeName());
+    }
+
+    private static long restore(Path path, MatchingEngine engine) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            in.readInt();
+            int version = in.readInt();
+            in.readInt();
+            long lastSequence = in.readLong();
+            engine.restoreTradeIds(in.readLong(), in.readLong());
+            int bookCount = in.readInt();
+            long orders = 0;
+            for (int b = 0; b < bookCount; b++) {
+                Market market = Market.builder()
+                        .marketId(readUuid(in))
+                        .build();
+                UUID outcomeId = readUuid(in);
+                UUID complementOutcomeId = version >= UNIFIED_VERSION && in.readBoolean() ? readUuid(in) : null;
+                market.setTickSizeE4(in.readLong());
+                market.setMakerFeeE4(in.readLong());
+                market.setTakerFeeE4(in.readLong());
+                long liquidity = version >= MAKER_VERSION ? in.readLong() : 0L;
+                if (liquidity > 0) {
+                    market.setPricingMode(PricingMode.LMSR.name());
+                    market.setLmsrLiquidity(Quantities.fromMicros(liquidity));
+                }
+                if (complementOutcomeId != null) {
+                    engine.openBinaryBook(market, outcomeId, complementOutcomeId);
+                } else {
+                    engine.openBook(market, outcomeId);
+                }
+                if (liquidity > 0) {
+                    engine.restoreMakerInventory(market.getMarketId(), outcomeId, in.readLong());
+                }
+
+                int orderCount = in.readInt();
+                for (int i = 0; i < orderCount; i++) {
+                    readOrder(in, version, market, outcomeId, engine);
+                }
+                orders += orderCount;
+            }
+            log.info("Restored snapshot {} with {} books and {} resting orders", path.getFileName(), bookCount, orders);
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Read one resting order. Before unified books an order's outcome was its book's, and the
+     * price recorded was the book's, which for a plain book is the order's own.
+     */
+    private static void readOrder(DataInputStream in, int version, Market market, UUID bookOutcomeId,
+                                  MatchingEngine engine) throws IOException {
+        Order order = Order.builder()
+                .orderId(readUuid(in))
+                .userId(readUuid(in))
+                .marketId(market.getMarketId())
+                .outcomeId(version >= UNIFIED_VERSION ? readUuid(in) : bookOutcomeId)
+                .side(in.readUTF())
+                .orderType(in.readUTF())
+                .timeInForce(in.readUTF())
+                .status(in.readUTF())
+                .makerFeeE4(market.getMakerFeeE4())
+                .takerFeeE4(market.getTakerFeeE4())
+                .build();
+        order.setPriceE4(in.readLong());
+        long remaining = in.readLong();
+        order.setQuantity(readNullableDecimal(in));
+        order.setFilledQuantity(readNullableDecimal(in));
+        order.setRemainingQuantity(readNullableDecimal(in));
+        order.setFilledCost(readNullableDecimal(in));
+        order.setFeesPaid(readNullableDecimal(in));
+        order.setAverageFillPriceE4(readNullableLong(in));
+        order.setCreatedAt(instant(readNullableLong(in)));
+        order.setUpdatedAt(instant(readNullableLong(in)));
+        order.setExpiresAt(instant(readNullableLong(in)));
+        order.setClientOrderId(readNullableString(in));
+        order.setMarketTitle(readNullableString(in));
+        order.setOutcomeName(readNullableString(in));
+        engine.restoreRestingOrder(order, remaining);
+    }
+
+    // ==================== Files ====================
+
+    private boolean isIntact(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < Long.BYTES) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(raw, crc);
+            DataInputStream in = new DataInputStream(checked);
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != MAGIC || version < MIN_VERSION || version > VERSION || in.readInt() != shard) {
+                return false;
+            }
+            long remaining = size - Long.BYTES - 3 * Integer.BYTES;
+            byte[] chunk = new byte[1 << 16];
+            while (remaining > 0) {
+                int read = checked.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            long expected = crc.getValue();
+            return new DataInputStream(raw).readLong() == expected;
+        }
+    }
+
+    /**
+     * Snapshot files of this shard, newest first
+     */
+    private List<Path> snapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> snapshots = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(prefix()))
+                    .filter(path -> path.getFileName().toString().endsWith(".snapshot"))
+                    .toList());
+            snapshots.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+            return snapshots;
+        }
+    }
+
+    private void deleteOlderSnapshots() throws IOException {
+        List<Path> snapshots = snapshots();
+        for (int i = SNAPSHOTS_KEPT; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private String prefix() {
+        return "shard-" + shard + "-";
+    }
+
+    // ==================== Primitives ====================
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeNullableString(out, value == null ? null : value.toString());
+    }
+
+    private static BigDecimal readNullableDecimal(DataInputStream in) throws IOException {
+        String value = readNullableString(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static Long micros(Instant instant) {
+        return instant == null ? null : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(Long micros) {
+        return micros == null ? null : Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.oregonmarkets.domain.market.engine.persistence;
+
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.OutcomeQuote;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.Trade;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Engine output collected during one flush window.
+ * Order states and market maker quotes are coalesced so only the latest state of each order
+ * and the latest price of each outcome are written; trades are immutable and kept as they are.
+ */
+final class WriteBehindBuffer {
+
+    private final Map<UUID, Order> orders = new LinkedHashMap<>();
+    private final List<Trade> trades = new ArrayList<>();
+    private final Map<BookKey, OutcomeQuote> quotes = new LinkedHashMap<>();
+    private final Map<UUID, String> marketTitles = new HashMap<>();
+    private int resultCount;
+
+    /**
+     * Add a result; results of the same market must arrive in execution order
+     */
+    void add(MatchResult result) {
+        resultCount++;
+        trades.addAll(result.getTrades());
+        if (result.getOrder() != null) {
+            put(result.getOrder());
+        }
+        for (Order order : result.getUpdatedOrders()) {
+            put(order);
+        }
+        for (OutcomeQuote quote : result.getQuotes()) {
+            quotes.put(new BookKey(quote.marketId(), quote.outcomeId()), quote);
+        }
+    }
+
+    boolean isEmpty() {
+        return resultCount == 0;
+    }
+
+    int resultCount() {
+        return resultCount;
+    }
+
+    Collection<Order> orders() {
+        return orders.values();
+    }
+
+    List<Trade> trades() {
+        return trades;
+    }
+
+    Collection<OutcomeQuote> quotes() {
+        return quotes.values();
+    }
+
+    String marketTitle(UUID marketId) {
+        return marketTitles.get(marketId);
+    }
+
+    private void put(Order order) {
+        orders.put(order.getOrderId(), order);
+        if (order.getMarketTitle() != null) {
+            marketTitles.putIfAbsent(order.getMarketId(), order.getMarketTitle());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.oregonmarkets.domain.market.engine.persistence;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.domain.market.engine.OutcomeQuote;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.Trade;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Prepared upserts for the denormalized order and trade tables and for the outcome prices quoted
+ * by market makers.
+ * Order rows carry the order's update time as their write timestamp, so a retried or
+ * reordered write can never overwrite a newer state. Null values are left unset rather than
+ * bound as null to avoid writing tombstones. A live order is upserted into open_orders_by_user
+ * and deleted from it, at the same timestamp rule, once it is filled, cancelled or expired. An
+ * order that ended in the command that placed it never rested and has no row there, so it is
+ * not deleted either; the engine gives every command its own instant, so such an order is one
+ * last updated when it was created.
+ */
+final class WriteBehindStatements {
+
+    static final String ORDERS_BY_USER = "INSERT INTO orders_by_user (user_id, created_at, order_id, market_id, "
+            + "market_title, outcome_id, outcome_name, side, order_type, price_e4, size, filled_size, status, "
+            + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    static final String ORDERS_BY_MARKET = "INSERT INTO orders_by_market (market_id, created_at, order_id, user_id, "
+            + "outcome_id, outcome_name, side, order_type, price_e4, size, filled_size, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    static final String ORDERS_BY_ID = "INSERT INTO orders_by_id (order_id, user_id, market_id, outcome_id, side, "
+            + "order_type, price_e4, size, filled_size, status, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    static final String OPEN_ORDERS_BY_USER = "INSERT INTO open_orders_by_user (user_id, market_id, order_id, "
+            + "created_at, market_title, outcome_id, outcome_name, side, order_type, price_e4, quantity, "
+            + "filled_quantity, remaining_quantity, status, time_in_force, expires_at, client_order_id, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    static final String CLOSE_OPEN_ORDER = "DELETE FROM open_orders_by_user USING TIMESTAMP ? "
+            + "WHERE user_id = ? AND market_id = ? AND order_id = ?";
+
+    static final String TRADES_BY_MARKET = "INSERT INTO trades_by_market (market_id, executed_at, trade_id, "
+            + "buy_order_id, sell_order_id, buy_user_id, sell_user_id, outcome_id, outcome_name, price_e4, size, fee) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String TRADES_BY_USER = "INSERT INTO trades_by_user (user_id, executed_at, trade_id, market_id, "
+            + "market_title, outcome_id, outcome_name, side, price_e4, size, fee) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String OUTCOME_PRICES = "UPDATE outcomes USING TIMESTAMP ? SET current_price_e4 = ?, updated_at = ? "
+            + "WHERE market_id = ? AND outcome_id = ?";
+
+    private final PreparedStatement ordersByUser;
+    private final PreparedStatement ordersByMarket;
+    private final PreparedStatement ordersById;
+    private final PreparedStatement openOrdersByUser;
+    private final PreparedStatement closeOpenOrder;
+    private final PreparedStatement tradesByMarket;
+    private final PreparedStatement tradesByUser;
+    private final PreparedStatement outcomePrices;
+
+    WriteBehindStatements(CqlStatements cql) {
+        this.ordersByUser = cql.prepare(ORDERS_BY_USER);
+        this.ordersByMarket = cql.prepare(ORDERS_BY_MARKET);
+        this.ordersById = cql.prepare(ORDERS_BY_ID);
+        this.openOrdersByUser = cql.prepare(OPEN_ORDERS_BY_USER);
+        this.closeOpenOrder = cql.prepare(CLOSE_OPEN_ORDER);
+        this.tradesByMarket = cql.prepare(TRADES_BY_MARKET);
+        this.tradesByUser = cql.prepare(TRADES_BY_USER);
+        this.outcomePrices = cql.prepare(OUTCOME_PRICES);
+    }
+
+    /**
+     * Turn a buffer into statements, grouping rows of the same partition into UNLOGGED batches
+     * of at most {@code maxBatchStatements}; rows alone in their partition are sent unbatched
+     */
+    List<Statement<?>> toStatements(WriteBehindBuffer buffer, int maxBatchStatements) {
+        Map<PartitionKey, List<BatchableStatement<?>>> partitions = new LinkedHashMap<>();
+
+        for (Order order : buffer.orders()) {
+            long timestamp = micros(order.getUpdatedAt());
+            add(partitions, "orders_by_user", order.getUserId(), bind(ordersByUser,
+                    order.getUserId(), order.getCreatedAt(), order.getOrderId(), order.getMarketId(),
+                    order.getMarketTitle(), order.getOutcomeId(), order.getOutcomeName(), order.getSide(),
+                    order.getOrderType(), order.getPriceE4(), order.getQuantity(), order.getFilledQuantity(),
+                    order.getStatus(), order.getUpdatedAt(), timestamp));
+            add(partitions, "orders_by_market", order.getMarketId(), bind(ordersByMarket,
+                    order.getMarketId(), order.getCreatedAt(), order.getOrderId(), order.getUserId(),
+                    order.getOutcomeId(), order.getOutcomeName(), order.getSide(), order.getOrderType(),
+                    order.getPriceE4(), order.getQuantity(), order.getFilledQuantity(), order.getStatus(), timestamp));
+            add(partitions, "orders_by_id", order.getOrderId(), bind(ordersById,
+                    order.getOrderId(), order.getUserId(), order.getMarketId(), order.getOutcomeId(),
+                    order.getSide(), order.getOrderType(), order.getPriceE4(), order.getQuantity(),
+                    order.getFilledQuantity(), order.getStatus(), order.getCreatedAt(), order.getUpdatedAt(),
+                    timestamp));
+            if (isOpen(order)) {
+                add(partitions, "open_orders_by_user", order.getUserId(), bind(openOrdersByUser,
+                        order.getUserId(), order.getMarketId(), order.getOrderId(), order.getCreatedAt(),
+                        order.getMarketTitle(), order.getOutcomeId(), order.getOutcomeName(), order.getSide(),
+                        order.getOrderType(), order.getPriceE4(), order.getQuantity(), order.getFilledQuantity(),
+                        order.getRemainingQuantity(), order.getStatus(), order.getTimeInForce(), order.getExpiresAt(),
+                        order.getClientOrderId(), order.getUpdatedAt(), timestamp));
+            } else if (hasRested(order)) {
+                add(partitions, "open_orders_by_user", order.getUserId(), bind(closeOpenOrder,
+                        timestamp, order.getUserId(), order.getMarketId(), order.getOrderId()));
+            }
+        }
+
+        for (Trade trade : buffer.trades()) {
+            String marketTitle = buffer.marketTitle(trade.getMarketId());
+            add(partitions, "trades_by_market", trade.getMarketId(), bind(tradesByMarket,
+                    trade.getMarketId(), trade.getExecutedAt(), trade.getTradeId(), trade.getBuyerOrderId(),
+                    trade.getSellerOrderId(), trade.getBuyerUserId(), trade.getSellerUserId(), trade.getOutcomeId(),
+                    trade.getOutcomeName(), trade.getPriceE4(), trade.getQuantity(), trade.getPlatformFee()));
+            // Mint and merge legs of a unified binary book have only one side
+            if (trade.getBuyerUserId() != null) {
+                add(partitions, "trades_by_user", trade.getBuyerUserId(),
+                        tradeByUser(trade, trade.getBuyerUserId(), OrderSide.BUY, trade.getBuyerFee(), marketTitle));
+            }
+            if (trade.getSellerUserId() != null) {
+                add(partitions, "trades_by_user", trade.getSellerUserId(),
+                        tradeByUser(trade, trade.getSellerUserId(), OrderSide.SELL, trade.getSellerFee(), marketTitle));
+            }
+        }
+
+        for (OutcomeQuote quote : buffer.quotes()) {
+            add(partitions, "outcomes", quote.marketId(), bind(outcomePrices,
+                    micros(quote.quotedAt()), quote.priceE4(), quote.quotedAt(), quote.marketId(), quote.outcomeId()));
+        }
+
+        List<Statement<?>> statements = new ArrayList<>();
+        for (List<BatchableStatement<?>> rows : partitions.values()) {
+            for (int from = 0; from < rows.size(); from += maxBatchStatements) {
+                List<BatchableStatement<?>> chunk = rows.subList(from, Math.min(rows.size(), from + maxBatchStatements));
+                statements.add(chunk.size() == 1
+                        ? chunk.get(0)
+                        : BatchStatement.newInstance(DefaultBatchType.UNLOGGED, chunk));
+            }
+        }
+        return statements;
+    }
+
+    private BoundStatement tradeByUser(Trade trade, UUID userId, OrderSide side, BigDecimal fee, String marketTitle) {
+        return bind(tradesByUser, userId, trade.getExecutedAt(), trade.getTradeId(), trade.getMarketId(), marketTitle,
+                trade.getOutcomeId(), trade.getOutcomeName(), side.name(), trade.getPriceE4(), trade.getQuantity(), fee);
+    }
+
+    private static boolean isOpen(Order order) {
+        return OrderStatus.OPEN.name().equals(order.getStatus())
+                || OrderStatus.PARTIALLY_FILLED.name().equals(order.getStatus());
+    }
+
+    /**
+     * Whether a closed order outlived the command that placed it, and so was upserted while it rested
+     */
+    private static boolean hasRested(Order order) {
+        return order.getCreatedAt() == null || !order.getCreatedAt().equals(order.getUpdatedAt());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static BoundStatement bind(PreparedStatement statement, Object... values) {
+        BoundStatementBuilder builder = statement.boundStatementBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                builder = builder.set(i, values[i], (Class) values[i].getClass());
+            }
+        }
+        return builder.build();
+    }
+
+    private static void add(Map<PartitionKey, List<BatchableStatement<?>>> partitions, String table, UUID key,
+                            BatchableStatement<?> statement) {
+        partitions.computeIfAbsent(new PartitionKey(table, key), k -> new ArrayList<>()).add(statement);
+    }
+
+    private static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private record PartitionKey(String table, UUID key) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.oregonmarkets.domain.market.engine.persistence;
+
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.MatchResultListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence of engine output to the denormalized Cassandra tables.
+ * Shards hand results over without waiting; every flush window the buffered results are
+ * coalesced, grouped into single-partition UNLOGGED batches and written with bounded
+ * concurrency. Once too many results are waiting, the sequencer stops admitting new orders
+ * until writes catch up, so matching itself never waits on Cassandra.
+ */
+@Slf4j
+@Component
+public class WriteBehindWriter implements MatchResultListener {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final CqlStatements cql;
+    private final EngineProperties.WriteBehind config;
+
+    private final Queue<MatchResult> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong failedStatements = new AtomicLong();
+
+    private Scheduler scheduler;
+    private Disposable ticker;
+
+    public WriteBehindWriter(CqlStatements cql, EngineProperties properties) {
+        this.cql = cql;
+        this.config = properties.getWriteBehind();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.warn("Write-behind persistence is disabled; engine output will not reach Cassandra");
+            return;
+        }
+        scheduler = Schedulers.newSingle("write-behind");
+        ticker = scheduler.schedulePeriodically(this::tick,
+                config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.dispose();
+        // Let an in-flight flush finish, then write whatever is left
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        while (!queue.isEmpty() || flushing.get()) {
+            if (System.nanoTime() > deadline) {
+                log.error("Write-behind shutdown timed out with {} results unflushed", pending.get());
+                break;
+            }
+            if (flushing.compareAndSet(false, true)) {
+                flush().doFinally(signal -> flushing.set(false)).block(SHUTDOWN_TIMEOUT);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        scheduler.dispose();
+    }
+
+    @Override
+    public void onResult(MatchResult result) {
+        if (!config.isEnabled() || result.isRejected()) {
+            return;
+        }
+        queue.offer(result);
+        pending.incrementAndGet();
+    }
+
+    @Override
+    public boolean isBackedUp() {
+        return pending.get() >= config.getMaxPending();
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getFailedStatementCount() {
+        return failedStatements.get();
+    }
+
+    private void tick() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        flush()
+                .doFinally(signal -> flushing.set(false))
+                .subscribe(null, error -> log.error("Write-behind flush failed", error));
+    }
+
+    /**
+     * Drain the queue and write it out; completes once every statement has been written or given up on
+     */
+    Mono<Void> flush() {
+        WriteBehindBuffer buffer = new WriteBehindBuffer();
+        MatchResult result;
+        while ((result = queue.poll()) != null) {
+            buffer.add(result);
+        }
+        if (buffer.isEmpty()) {
+            return Mono.empty();
+        }
+
+        int drained = buffer.resultCount();
+        return Mono.fromCallable(() -> new WriteBehindStatements(cql).toStatements(buffer, config.getMaxBatchStatements()))
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(this::execute, config.getMaxConcurrency())
+                .then()
+                // Before completion is signalled, so callers waiting on the flush see the new count
+                .doOnTerminate(() -> pending.addAndGet(-drained))
+                .doOnCancel(() -> pending.addAndGet(-drained));
+    }
+
+    private Mono<Void> execute(Statement<?> statement) {
+        return cql.execute(statement)
+                .then()
+                .onErrorResume(error -> {
+                    failedStatements.incrementAndGet();
+                    log.error("Dropping write-behind statement after {} retries", CqlStatements.MAX_RETRIES, error);
+                    return Mono.empty();
+                });
+    }
+}
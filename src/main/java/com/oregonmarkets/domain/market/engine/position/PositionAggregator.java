@@ -0,0 +1,608 @@
+package com.oregonmarkets.domain.market.engine.position;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.MatchResultListener;
+import com.oregonmarkets.domain.market.engine.OutcomeQuote;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.model.Position;
+import com.oregonmarkets.domain.market.model.Trade;
+import com.oregonmarkets.domain.market.repository.PositionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains position aggregates and their mark-to-market valuation from the engine's output,
+ * writes them to positions_by_user and positions_by_market, and serves portfolios from memory.
+ * Shards only queue each trade's fills and each outcome's latest price; every flush window the
+ * fills are applied incrementally to the positions held in memory, and each position that
+ * changed is written once, however many fills it took. Positions are partitioned by user into
+ * independent shards, each with its own queue and maps, that are flushed concurrently.
+ * Each shard keeps a reverse index from an outcome to the positions held in it, so a price move
+ * revalues only the holders of that outcome rather than every position. Outcomes are marked at
+ * the price an automated market maker quotes after a trade, or else at the last trade price.
+ * A position seen for the first time is read from positions_by_user before its fills are
+ * applied; a user's first portfolio read loads all of their positions, after which portfolio
+ * reads are answered from memory until the user's positions go idle and are dropped.
+ */
+@Slf4j
+@Component
+public class PositionAggregator implements MatchResultListener {
+
+    static final String POSITIONS_BY_USER = "INSERT INTO positions_by_user (user_id, market_id, outcome_id, "
+            + "market_title, outcome_name, quantity, average_entry_price_e4, total_cost, realized_pnl, total_trades, "
+            + "total_bought, total_sold, total_fees_paid, first_trade_at, last_trade_at, created_at, updated_at, "
+            + "current_price_e4, current_value, unrealized_pnl) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    static final String POSITIONS_BY_MARKET = "INSERT INTO positions_by_market (market_id, user_id, outcome_id, "
+            + "shares, average_price_e4) VALUES (?, ?, ?, ?, ?) USING TIMESTAMP ?";
+
+    private static final int LOAD_CONCURRENCY = 16;
+    private static final int WRITE_CONCURRENCY = 16;
+    private static final int MAX_BATCH_STATEMENTS = 16;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final CqlStatements cql;
+    private final PositionRepository positionRepository;
+    private final EngineProperties.Positions config;
+    private final UserShard[] shards;
+
+    /** Latest price of every outcome seen since startup */
+    private final Map<BookKey, Long> marks = new ConcurrentHashMap<>();
+    /** Outcomes whose price moved since the last flush, with their latest price */
+    private final Map<BookKey, Long> moved = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong failedStatements = new AtomicLong();
+
+    private Scheduler scheduler;
+    private Disposable ticker;
+
+    public PositionAggregator(CqlStatements cql, PositionRepository positionRepository, EngineProperties properties) {
+        this.cql = cql;
+        this.positionRepository = positionRepository;
+        this.config = properties.getPositions();
+        this.shards = new UserShard[Math.max(1, config.getUserShards())];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new UserShard();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.warn("Position aggregation is disabled; positions_by_user will not follow trades");
+            return;
+        }
+        scheduler = Schedulers.newSingle("positions");
+        ticker = scheduler.schedulePeriodically(this::tick,
+                config.getFlushIntervalMs(), config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.dispose();
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        while (pending.get() > 0 || flushing.get()) {
+            if (System.nanoTime() > deadline) {
+                log.error("Position aggregator shutdown timed out with {} fills unapplied", pending.get());
+                break;
+            }
+            if (flushing.compareAndSet(false, true)) {
+                flush().doFinally(signal -> flushing.set(false)).block(SHUTDOWN_TIMEOUT);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        scheduler.dispose();
+    }
+
+    @Override
+    public void onResult(MatchResult result) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        String marketTitle = result.getOrder() == null ? null : result.getOrder().getMarketTitle();
+        for (Trade trade : result.getTrades()) {
+            long quantity = trade.getQuantityMicros() > 0 ? trade.getQuantityMicros() : micros(trade.getQuantity());
+            long value = trade.getQuantityMicros() > 0 ? trade.getValueMicros() : micros(trade.getTotalValue());
+            if (trade.getBuyerUserId() != null) {
+                offer(new Fill(trade.getBuyerUserId(), new BookKey(trade.getMarketId(), trade.getOutcomeId()),
+                        trade.getOutcomeName(), marketTitle, true, quantity, value,
+                        fee(trade.getBuyerFeeMicros(), trade.getBuyerFee()), trade.getExecutedAt()));
+            }
+            if (trade.getSellerUserId() != null) {
+                offer(new Fill(trade.getSellerUserId(), new BookKey(trade.getMarketId(), trade.getOutcomeId()),
+                        trade.getOutcomeName(), marketTitle, false, quantity, value,
+                        fee(trade.getSellerFeeMicros(), trade.getSellerFee()), trade.getExecutedAt()));
+            }
+            if (trade.getPriceE4() != null) {
+                mark(new BookKey(trade.getMarketId(), trade.getOutcomeId()), trade.getPriceE4());
+            }
+        }
+        // A market maker's quotes supersede its trade prices, and cover outcomes that did not trade
+        for (OutcomeQuote quote : result.getQuotes()) {
+            mark(new BookKey(quote.marketId(), quote.outcomeId()), quote.priceE4());
+        }
+    }
+
+    @Override
+    public boolean isBackedUp() {
+        return pending.get() >= config.getMaxPending();
+    }
+
+    /**
+     * A user's positions valued at the latest prices: from memory once the user's portfolio is
+     * loaded, otherwise from positions_by_user, after which the portfolio is kept in memory
+     */
+    public Mono<List<Position>> getPositions(UUID userId) {
+        UserShard shard = shardOf(userId);
+        Portfolio portfolio = shard.portfolios.get(userId);
+        if (portfolio != null && portfolio.complete()) {
+            return Mono.just(portfolio.positions());
+        }
+        return positionRepository.findByUserId(userId)
+                .collectList()
+                .map(persisted -> {
+                    if (config.isEnabled()) {
+                        shard.adoptions.offer(new Adoption(userId, persisted));
+                    }
+                    Map<BookKey, Position> merged = new LinkedHashMap<>();
+                    for (Position position : persisted) {
+                        merged.put(new BookKey(position.getMarketId(), position.getOutcomeId()), revalue(position));
+                    }
+                    // Positions already in memory are newer than their rows
+                    Portfolio current = shard.portfolios.get(userId);
+                    if (current != null) {
+                        for (Position position : current.positions()) {
+                            merged.put(new BookKey(position.getMarketId(), position.getOutcomeId()), position);
+                        }
+                    }
+                    return List.copyOf(merged.values());
+                });
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getFailedStatementCount() {
+        return failedStatements.get();
+    }
+
+    /**
+     * Positions currently held in memory
+     */
+    public int getPositionCount() {
+        int count = 0;
+        for (UserShard shard : shards) {
+            for (Portfolio portfolio : shard.portfolios.values()) {
+                count += portfolio.positions().size();
+            }
+        }
+        return count;
+    }
+
+    private UserShard shardOf(UUID userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    private void offer(Fill fill) {
+        shardOf(fill.userId()).fills.offer(fill);
+        pending.incrementAndGet();
+    }
+
+    private void mark(BookKey book, long priceE4) {
+        Long previous = marks.put(book, priceE4);
+        if (previous == null || previous != priceE4) {
+            moved.put(book, priceE4);
+        }
+    }
+
+    /**
+     * A persisted position valued at its outcome's latest price
+     */
+    private Position revalue(Position position) {
+        Long priceE4 = marks.get(new BookKey(position.getMarketId(), position.getOutcomeId()));
+        if (priceE4 == null || priceE4.equals(position.getCurrentPriceE4())) {
+            return position;
+        }
+        PositionState state = PositionState.from(position, Instant.now());
+        state.mark(priceE4);
+        Position valued = state.toPosition();
+        valued.setMarketStatus(position.getMarketStatus());
+        return valued;
+    }
+
+    private void tick() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        flush()
+                .doFinally(signal -> flushing.set(false))
+                .subscribe(null, error -> log.error("Position flush failed", error));
+    }
+
+    /**
+     * Apply every queued fill and price move and write the positions that changed; completes
+     * once all user shards are written or their writes given up on
+     */
+    Mono<Void> flush() {
+        Map<BookKey, Long> prices = new HashMap<>();
+        for (BookKey book : List.copyOf(moved.keySet())) {
+            Long priceE4 = moved.remove(book);
+            if (priceE4 != null) {
+                prices.put(book, priceE4);
+            }
+        }
+        return Flux.fromArray(shards)
+                .flatMap(shard -> flush(shard, prices), shards.length)
+                .then();
+    }
+
+    private Mono<Void> flush(UserShard shard, Map<BookKey, Long> prices) {
+        List<Fill> fills = new ArrayList<>();
+        Fill fill;
+        while ((fill = shard.fills.poll()) != null) {
+            fills.add(fill);
+        }
+        Set<UUID> changedUsers = new HashSet<>();
+        Adoption adoption;
+        while ((adoption = shard.adoptions.poll()) != null) {
+            adopt(shard, adoption);
+            changedUsers.add(adoption.userId());
+        }
+        Set<PositionKey> unknown = new LinkedHashSet<>();
+        for (Fill queued : fills) {
+            Holdings holdings = shard.users.get(queued.userId());
+            // Once all of a user's positions are loaded, an unknown one is new
+            if (holdings == null || (!holdings.complete && !holdings.positions.containsKey(queued.book()))) {
+                unknown.add(new PositionKey(queued.userId(), queued.book()));
+            }
+        }
+
+        return Flux.fromIterable(unknown)
+                .flatMap(this::load, LOAD_CONCURRENCY)
+                .collectList()
+                .map(loaded -> apply(shard, loaded, fills, prices, changedUsers))
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(write -> execute(write.statement()).doOnNext(written -> {
+                    if (!written) {
+                        // Written again in full next time, before the position can be evicted
+                        shard.failed.addAll(write.positions());
+                    }
+                }), WRITE_CONCURRENCY)
+                .then()
+                .doOnTerminate(() -> pending.addAndGet(-fills.size()))
+                .doOnCancel(() -> pending.addAndGet(-fills.size()));
+    }
+
+    /**
+     * The persisted position, or a new one if there is none or it cannot be read
+     */
+    private Mono<PositionState> load(PositionKey key) {
+        UUID marketId = key.book().marketId();
+        UUID outcomeId = key.book().outcomeId();
+        return positionRepository.findByUserIdAndMarketIdAndOutcomeId(key.userId(), marketId, outcomeId)
+                .map(position -> PositionState.from(position, Instant.now()))
+                .switchIfEmpty(Mono.fromSupplier(() -> new PositionState(key.userId(), marketId, outcomeId)))
+                .onErrorResume(error -> {
+                    log.error("Failed to load position of user {} in market {}; aggregating from zero",
+                            key.userId(), marketId, error);
+                    return Mono.just(new PositionState(key.userId(), marketId, outcomeId));
+                });
+    }
+
+    /**
+     * Take in a user's persisted positions for portfolio reads, keeping any already in memory
+     */
+    private void adopt(UserShard shard, Adoption adoption) {
+        Holdings holdings = shard.users.computeIfAbsent(adoption.userId(), k -> new Holdings());
+        for (Position position : adoption.positions()) {
+            BookKey book = new BookKey(position.getMarketId(), position.getOutcomeId());
+            if (!holdings.positions.containsKey(book)) {
+                PositionState state = PositionState.from(position, Instant.now());
+                add(shard, holdings, state);
+                Long priceE4 = marks.get(book);
+                if (priceE4 != null && state.mark(priceE4)) {
+                    shard.dirty.add(state);
+                }
+            }
+        }
+        holdings.complete = true;
+        holdings.touchedAt = System.nanoTime();
+    }
+
+    /**
+     * Apply fills and price moves, publish the portfolios they changed and turn the changed
+     * positions into writes, evicting idle users
+     */
+    private List<Write> apply(UserShard shard, List<PositionState> loaded, List<Fill> fills,
+                              Map<BookKey, Long> prices, Set<UUID> changedUsers) {
+        long now = System.nanoTime();
+        for (PositionState state : loaded) {
+            Holdings holdings = shard.users.computeIfAbsent(state.userId, k -> new Holdings());
+            if (!holdings.positions.containsKey(state.book)) {
+                add(shard, holdings, state);
+            }
+        }
+        PositionState retry;
+        while ((retry = shard.failed.poll()) != null) {
+            shard.dirty.add(retry);
+        }
+
+        for (Fill fill : fills) {
+            Holdings holdings = shard.users.computeIfAbsent(fill.userId(), k -> new Holdings());
+            PositionState state = holdings.positions.get(fill.book());
+            if (state == null) {
+                state = new PositionState(fill.userId(), fill.book().marketId(), fill.book().outcomeId());
+                add(shard, holdings, state);
+            }
+            if (fill.marketTitle() != null) {
+                state.marketTitle = fill.marketTitle();
+            }
+            if (fill.outcomeName() != null) {
+                state.outcomeName = fill.outcomeName();
+            }
+            state.apply(fill.buy(), fill.quantity(), fill.value(), fill.fee(), fill.executedAt());
+            if (state.markPriceE4 == null) {
+                Long priceE4 = marks.get(fill.book());
+                if (priceE4 != null) {
+                    state.mark(priceE4);
+                }
+            }
+            holdings.touchedAt = now;
+            shard.dirty.add(state);
+        }
+
+        // Only the holders of an outcome that moved are revalued
+        for (Map.Entry<BookKey, Long> price : prices.entrySet()) {
+            Set<PositionState> holders = shard.holders.get(price.getKey());
+            if (holders != null) {
+                for (PositionState state : holders) {
+                    if (state.quantity == 0) {
+                        // A flat position is worth nothing at any price; not worth a write
+                        state.markPriceE4 = price.getValue();
+                    } else if (state.mark(price.getValue())) {
+                        shard.dirty.add(state);
+                    }
+                }
+            }
+        }
+
+        List<Write> writes = write(shard.dirty);
+        for (PositionState state : shard.dirty) {
+            changedUsers.add(state.userId);
+        }
+        shard.dirty.clear();
+        for (UUID userId : changedUsers) {
+            publish(shard, userId);
+        }
+        evictIdle(shard, now);
+        return writes;
+    }
+
+    private List<Write> write(Set<PositionState> dirty) {
+        Map<UUID, List<PositionState>> byUser = new HashMap<>();
+        List<Write> writes = new ArrayList<>();
+        for (PositionState state : dirty) {
+            state.dirty = false;
+            state.pendingTimestamp = state.nextWriteTimestamp();
+            byUser.computeIfAbsent(state.userId, k -> new ArrayList<>()).add(state);
+            writes.add(new Write(byMarket(state, state.pendingTimestamp), List.of(state)));
+        }
+        for (List<PositionState> positions : byUser.values()) {
+            for (int from = 0; from < positions.size(); from += MAX_BATCH_STATEMENTS) {
+                List<PositionState> chunk = positions.subList(from, Math.min(positions.size(), from + MAX_BATCH_STATEMENTS));
+                List<BatchableStatement<?>> rows = new ArrayList<>(chunk.size());
+                for (PositionState state : chunk) {
+                    rows.add(byUser(state, state.pendingTimestamp));
+                }
+                writes.add(new Write(rows.size() == 1
+                        ? rows.get(0)
+                        : BatchStatement.newInstance(DefaultBatchType.UNLOGGED, rows), chunk));
+            }
+        }
+        return writes;
+    }
+
+    private static void add(UserShard shard, Holdings holdings, PositionState state) {
+        holdings.positions.put(state.book, state);
+        shard.holders.computeIfAbsent(state.book, k -> new HashSet<>()).add(state);
+    }
+
+    /**
+     * Replace the user's published portfolio with a snapshot of their positions
+     */
+    private static void publish(UserShard shard, UUID userId) {
+        Holdings holdings = shard.users.get(userId);
+        if (holdings == null) {
+            return;
+        }
+        List<Position> positions = new ArrayList<>(holdings.positions.size());
+        for (PositionState state : holdings.positions.values()) {
+            positions.add(state.toPosition());
+        }
+        shard.portfolios.put(userId, new Portfolio(List.copyOf(positions), holdings.complete));
+    }
+
+    /**
+     * Drop users with no fills or portfolio loads for the idle period, at most a few times per period
+     */
+    private void evictIdle(UserShard shard, long now) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(config.getIdleSeconds());
+        if (now - shard.sweptAt < idleNanos / 4) {
+            return;
+        }
+        shard.sweptAt = now;
+        var users = shard.users.entrySet().iterator();
+        while (users.hasNext()) {
+            Map.Entry<UUID, Holdings> user = users.next();
+            Holdings holdings = user.getValue();
+            if (now - holdings.touchedAt <= idleNanos || holdings.positions.values().stream().anyMatch(s -> s.dirty)) {
+                continue;
+            }
+            for (PositionState state : holdings.positions.values()) {
+                Set<PositionState> holders = shard.holders.get(state.book);
+                if (holders != null && holders.remove(state) && holders.isEmpty()) {
+                    shard.holders.remove(state.book);
+                }
+            }
+            users.remove();
+            shard.portfolios.remove(user.getKey());
+        }
+    }
+
+    private BatchableStatement<?> byUser(PositionState state, long timestamp) {
+        Position position = state.toPosition();
+        BoundStatementBuilder builder = bind(cql.prepare(POSITIONS_BY_USER), position.getUserId(), position.getMarketId(),
+                position.getOutcomeId(), position.getMarketTitle(), position.getOutcomeName(), position.getQuantity(),
+                position.getAverageEntryPriceE4(), position.getTotalCost(), position.getRealizedPnl(),
+                position.getTotalTrades(), position.getTotalBought(), position.getTotalSold(),
+                position.getTotalFeesPaid(), position.getFirstTradeAt(), position.getLastTradeAt(),
+                position.getCreatedAt(), position.getUpdatedAt(), position.getCurrentPriceE4(),
+                position.getCurrentValue(), position.getUnrealizedPnl(), timestamp);
+        if (position.getAverageEntryPriceE4() == null) {
+            // A flat position has no entry price; clear the one it had
+            builder = builder.setToNull(6);
+        }
+        return builder.build();
+    }
+
+    private BatchableStatement<?> byMarket(PositionState state, long timestamp) {
+        Long averagePrice = state.averageEntryPriceE4();
+        BoundStatementBuilder builder = bind(cql.prepare(POSITIONS_BY_MARKET), state.marketId, state.userId, state.outcomeId,
+                Quantities.fromMicros(state.quantity), averagePrice, timestamp);
+        if (averagePrice == null) {
+            builder = builder.setToNull(4);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return whether the statement was written
+     */
+    private Mono<Boolean> execute(Statement<?> statement) {
+        return cql.execute(statement)
+                .thenReturn(true)
+                .onErrorResume(error -> {
+                    failedStatements.incrementAndGet();
+                    log.error("Position statement failed after {} retries", CqlStatements.MAX_RETRIES, error);
+                    return Mono.just(false);
+                });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static BoundStatementBuilder bind(PreparedStatement statement, Object... values) {
+        BoundStatementBuilder builder = statement.boundStatementBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                builder = builder.set(i, values[i], (Class) values[i].getClass());
+            }
+        }
+        return builder;
+    }
+
+    private static long fee(long micros, BigDecimal decimal) {
+        return micros != 0 || decimal == null ? micros : micros(decimal);
+    }
+
+    private static long micros(BigDecimal amount) {
+        return amount == null ? 0L : Quantities.toMicros(amount);
+    }
+
+    /**
+     * One user's side of a trade
+     */
+    private record Fill(UUID userId, BookKey book, String outcomeName, String marketTitle, boolean buy,
+                        long quantity, long value, long fee, Instant executedAt) {
+    }
+
+    private record PositionKey(UUID userId, BookKey book) {
+    }
+
+    /**
+     * A user's persisted positions, read for a portfolio request, to be held in memory
+     */
+    private record Adoption(UUID userId, List<Position> positions) {
+    }
+
+    /**
+     * Published snapshot of a user's positions
+     *
+     * @param complete whether these are all of the user's positions, or only those traded since they were loaded
+     */
+    private record Portfolio(List<Position> positions, boolean complete) {
+    }
+
+    private record Write(Statement<?> statement, List<PositionState> positions) {
+    }
+
+    /**
+     * One user's positions in memory
+     */
+    private static final class Holdings {
+
+        final Map<BookKey, PositionState> positions = new HashMap<>();
+        /** Whether every persisted position of the user has been loaded */
+        boolean complete;
+        long touchedAt;
+    }
+
+    /**
+     * Fills queued by the engine shards and the positions they apply to, for one slice of users.
+     * Everything but the queues and the published portfolios is only touched by the slice's flush.
+     */
+    private static final class UserShard {
+
+        final Queue<Fill> fills = new ConcurrentLinkedQueue<>();
+        final Queue<Adoption> adoptions = new ConcurrentLinkedQueue<>();
+        final Queue<PositionState> failed = new ConcurrentLinkedQueue<>();
+        final Map<UUID, Holdings> users = new HashMap<>();
+        /** Reverse index from an outcome to the positions held in it */
+        final Map<BookKey, Set<PositionState>> holders = new HashMap<>();
+        final Set<PositionState> dirty = new LinkedHashSet<>();
+        final Map<UUID, Portfolio> portfolios = new ConcurrentHashMap<>();
+        long sweptAt;
+    }
+}
@@ -0,0 +1,218 @@
+package com.oregonmarkets.domain.market.engine.position;
+
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.Micros;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.model.Position;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Running aggregate of one user's position in one outcome, in micro-units.
+ * Cost basis follows the average cost method: adding to a position adds the fill's value to the
+ * basis, reducing it releases the closed share of the basis and books the difference to the
+ * fill's value as realized P&L. A fill larger than the position closes it and opens the rest on
+ * the other side at the fill price. Fees are accumulated separately and not netted into P&L.
+ * The position is valued at the last price marked for its outcome: unrealized P&L is the
+ * difference between that value and the cost basis. Only touched by the thread flushing its
+ * user shard.
+ */
+final class PositionState {
+
+    final UUID userId;
+    final UUID marketId;
+    final UUID outcomeId;
+    final BookKey book;
+    String marketTitle;
+    String outcomeName;
+
+    /** Net shares, negative when short */
+    long quantity;
+    /** Entry value of the shares still held, always positive */
+    long costBasis;
+    long realizedPnl;
+    long bought;
+    long sold;
+    long fees;
+    long trades;
+    Instant firstTradeAt;
+    Instant lastTradeAt;
+    Instant createdAt;
+    /** Price the position is valued at, or null before the outcome has one */
+    Long markPriceE4;
+
+    /** Changed since it was last written */
+    boolean dirty;
+    /** Write timestamp of the last write, in microseconds; each write must use a larger one */
+    long writtenAt;
+    /** Write timestamp of the write in progress */
+    long pendingTimestamp;
+    /** Nanotime of the last fill, for eviction */
+    long touchedAt;
+
+    PositionState(UUID userId, UUID marketId, UUID outcomeId) {
+        this.userId = userId;
+        this.marketId = marketId;
+        this.outcomeId = outcomeId;
+        this.book = new BookKey(marketId, outcomeId);
+    }
+
+    /**
+     * Continue from a persisted position. Writes made after its last trade, such as revaluations,
+     * used timestamps past the trade's time that the row does not record, so the next write starts
+     * from the time of loading instead.
+     */
+    static PositionState from(Position position, Instant loadedAt) {
+        PositionState state = new PositionState(position.getUserId(), position.getMarketId(), position.getOutcomeId());
+        state.marketTitle = position.getMarketTitle();
+        state.outcomeName = position.getOutcomeName();
+        state.quantity = micros(position.getQuantity());
+        state.costBasis = micros(position.getTotalCost());
+        state.realizedPnl = micros(position.getRealizedPnl());
+        state.bought = micros(position.getTotalBought());
+        state.sold = micros(position.getTotalSold());
+        state.fees = micros(position.getTotalFeesPaid());
+        state.trades = position.getTotalTrades() == null ? 0L : position.getTotalTrades();
+        state.firstTradeAt = position.getFirstTradeAt();
+        state.lastTradeAt = position.getLastTradeAt();
+        state.createdAt = position.getCreatedAt();
+        state.markPriceE4 = position.getCurrentPriceE4();
+        state.writtenAt = Math.max(micros(loadedAt), state.lastTradeAt == null ? 0L : micros(state.lastTradeAt));
+        return state;
+    }
+
+    /**
+     * Apply one fill of {@code fillQuantity} shares worth {@code value}
+     */
+    void apply(boolean buy, long fillQuantity, long value, long fee, Instant at) {
+        long signed = buy ? fillQuantity : -fillQuantity;
+        if (quantity == 0 || (quantity > 0) == buy) {
+            quantity = Micros.add(quantity, signed);
+            costBasis = Micros.add(costBasis, value);
+        } else {
+            long held = Math.abs(quantity);
+            long closing = Math.min(fillQuantity, held);
+            long closedBasis = closing == held ? costBasis : prorate(costBasis, closing, held);
+            long closedValue = closing == fillQuantity ? value : prorate(value, closing, fillQuantity);
+            long pnl = quantity > 0 ? Micros.subtract(closedValue, closedBasis) : Micros.subtract(closedBasis, closedValue);
+            realizedPnl = Micros.add(realizedPnl, pnl);
+            costBasis = Micros.subtract(costBasis, closedBasis);
+            quantity = Micros.add(quantity, buy ? closing : -closing);
+            if (closing < fillQuantity) {
+                // Flipped through flat: the rest opens a position on the other side
+                quantity = buy ? fillQuantity - closing : closing - fillQuantity;
+                costBasis = Micros.subtract(value, closedValue);
+            }
+        }
+        if (buy) {
+            bought = Micros.add(bought, fillQuantity);
+        } else {
+            sold = Micros.add(sold, fillQuantity);
+        }
+        fees = Micros.add(fees, fee);
+        trades++;
+        if (firstTradeAt == null) {
+            firstTradeAt = at;
+        }
+        if (createdAt == null) {
+            createdAt = at;
+        }
+        lastTradeAt = at;
+        dirty = true;
+    }
+
+    /**
+     * Value the position at a new price of its outcome
+     *
+     * @return whether the price changed
+     */
+    boolean mark(long priceE4) {
+        if (markPriceE4 != null && markPriceE4 == priceE4) {
+            return false;
+        }
+        markPriceE4 = priceE4;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Current value of the shares held at the mark price, negative when short
+     */
+    long currentValue() {
+        return markPriceE4 == null ? 0L : Micros.value(quantity, markPriceE4);
+    }
+
+    long unrealizedPnl() {
+        if (markPriceE4 == null || quantity == 0) {
+            return 0L;
+        }
+        long value = currentValue();
+        return quantity > 0 ? Micros.subtract(value, costBasis) : Micros.add(value, costBasis);
+    }
+
+    /**
+     * Average entry price of the shares held, or null when flat
+     */
+    Long averageEntryPriceE4() {
+        return quantity == 0 ? null : Micros.averagePriceE4(costBasis, Math.abs(quantity));
+    }
+
+    /**
+     * Claim the write timestamp for the next write: the last fill's time, moved past the previous write
+     */
+    long nextWriteTimestamp() {
+        writtenAt = Math.max(writtenAt + 1, micros(lastTradeAt));
+        return writtenAt;
+    }
+
+    Position toPosition() {
+        return Position.builder()
+                .userId(userId)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .marketTitle(marketTitle)
+                .outcomeName(outcomeName)
+                .quantity(Micros.toDecimal(quantity))
+                .averageEntryPriceE4(averageEntryPriceE4())
+                .totalCost(Micros.toDecimal(costBasis))
+                .realizedPnl(Micros.toDecimal(realizedPnl))
+                .unrealizedPnl(markPriceE4 == null ? null : Micros.toDecimal(unrealizedPnl()))
+                .currentPriceE4(markPriceE4)
+                .currentValue(markPriceE4 == null ? null : Micros.toDecimal(currentValue()))
+                .totalTrades(trades)
+                .totalBought(Micros.toDecimal(bought))
+                .totalSold(Micros.toDecimal(sold))
+                .totalFeesPaid(Micros.toDecimal(fees))
+                .firstTradeAt(firstTradeAt)
+                .lastTradeAt(lastTradeAt)
+                .createdAt(createdAt)
+                .updatedAt(lastTradeAt)
+                .build();
+    }
+
+    /**
+     * {@code amount * part / whole} rounded half away from zero
+     */
+    private static long prorate(long amount, long part, long whole) {
+        try {
+            long product = Math.multiplyExact(amount, part);
+            long quotient = product / whole;
+            long remainder = Math.abs(product % whole);
+            return remainder * 2 >= whole ? quotient + Long.signum(product) : quotient;
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(part))
+                    .divide(BigDecimal.valueOf(whole), 0, RoundingMode.HALF_UP).longValueExact();
+        }
+    }
+
+    private static long micros(BigDecimal amount) {
+        return amount == null ? 0L : Quantities.toMicros(amount);
+    }
+
+    private static long micros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+}
@@ -0,0 +1,24 @@
+package com.oregonmarkets.domain.market.engine.risk;
+
+import com.oregonmarkets.domain.market.engine.BookKey;
+
+/**
+ * Funds held by one open order: cash and the shares it would buy, or the shares it would sell.
+ * Amounts are only changed under the owning account's lock.
+ */
+final class Reservation {
+
+    final RiskAccount account;
+    /** Outcome the order trades, in the order's own terms */
+    final BookKey outcome;
+    final boolean buy;
+
+    long cash;
+    long shares;
+
+    Reservation(RiskAccount account, BookKey outcome, boolean buy) {
+        this.account = account;
+        this.outcome = outcome;
+        this.buy = buy;
+    }
+}
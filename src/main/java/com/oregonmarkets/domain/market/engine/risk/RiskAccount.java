@@ -0,0 +1,192 @@
+package com.oregonmarkets.domain.market.engine.risk;
+
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.Micros;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One user's cash and share holdings as seen by the pre-trade check, in micro-USDC and
+ * micro-shares. Each balance is the last value read from its system of record plus the net
+ * effect of trades the engine executed since, which those systems do not reflect yet; open
+ * orders hold reservations against both. Trades in shares are kept with their execution time
+ * until a reconciled positions_by_user row shows, through its last_trade_at, that it includes
+ * them. Shards of different markets share an account, so every method locks it, but the lock is
+ * uncontended for all but the most active users.
+ */
+final class RiskAccount {
+
+    private final UUID userId;
+
+    private boolean loaded;
+    private long settledCash;
+    private long pendingCash;
+    private long reservedCash;
+    private final Map<BookKey, Holding> holdings = new HashMap<>();
+
+    RiskAccount(UUID userId) {
+        this.userId = userId;
+    }
+
+    UUID getUserId() {
+        return userId;
+    }
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized long availableCash() {
+        return settledCash + pendingCash - reservedCash;
+    }
+
+    synchronized long availableShares(BookKey outcome) {
+        Holding holding = holdings.get(outcome);
+        return holding == null ? 0L : holding.settled + holding.pending - holding.locked;
+    }
+
+    /**
+     * Replace the balances read from Blnk and positions_by_user; reservations are kept, and so are
+     * pending trade effects, except trades in shares executed no later than the row's last trade
+     */
+    synchronized void reconcile(long cash, Map<BookKey, Settled> shares) {
+        settledCash = cash;
+        for (Holding holding : holdings.values()) {
+            holding.settled = 0L;
+        }
+        shares.forEach((outcome, settled) -> {
+            Holding holding = holding(outcome);
+            holding.settled = settled.quantity();
+            if (settled.lastTradeAt() != null) {
+                holding.drop(settled.lastTradeAt().toEpochMilli());
+            }
+        });
+        loaded = true;
+    }
+
+    /**
+     * Reserve cash for a buy if it fits the available balance and the position limit
+     *
+     * @param maxPosition largest holding allowed in the outcome, or -1 for no limit
+     * @return null once reserved, otherwise why the order is refused
+     */
+    synchronized RiskRejection reserveBuy(Reservation reservation, long cash, long shares, long maxPosition) {
+        Holding holding = holding(reservation.outcome);
+        long extraCash = cash - reservation.cash;
+        long extraShares = shares - reservation.shares;
+        if (maxPosition >= 0 && holding.settled + holding.pending + holding.buying + extraShares > maxPosition) {
+            return RiskLedger.POSITION_LIMIT;
+        }
+        if (extraCash > settledCash + pendingCash - reservedCash) {
+            return RiskLedger.NO_CASH;
+        }
+        reservedCash += extraCash;
+        holding.buying += extraShares;
+        reservation.cash = cash;
+        reservation.shares = shares;
+        return null;
+    }
+
+    /**
+     * Lock shares for a sell if the account holds enough that are not already locked
+     *
+     * @return null once locked, otherwise why the order is refused
+     */
+    synchronized RiskRejection reserveSell(Reservation reservation, long shares) {
+        Holding holding = holding(reservation.outcome);
+        long extraShares = shares - reservation.shares;
+        if (extraShares > holding.settled + holding.pending - holding.locked) {
+            return RiskLedger.NO_SHARES;
+        }
+        holding.locked += extraShares;
+        reservation.shares = shares;
+        return null;
+    }
+
+    /**
+     * Move a reservation to the given amounts without checking them against the balances, for
+     * orders the engine has already accepted
+     */
+    synchronized void adjust(Reservation reservation, long cash, long shares) {
+        Holding holding = holding(reservation.outcome);
+        if (reservation.buy) {
+            reservedCash += cash - reservation.cash;
+            holding.buying += shares - reservation.shares;
+        } else {
+            holding.locked += shares - reservation.shares;
+        }
+        reservation.cash = cash;
+        reservation.shares = shares;
+    }
+
+    /**
+     * Apply one side of an executed trade
+     *
+     * @param cash       cash received, negative when paid
+     * @param shares     shares received, negative when delivered
+     * @param executedAt when the trade executed, or null if positions_by_user will not reflect it
+     */
+    synchronized void settle(BookKey outcome, long cash, long shares, Instant executedAt) {
+        pendingCash = Micros.add(pendingCash, cash);
+        Holding holding = holding(outcome);
+        holding.pending = Micros.add(holding.pending, shares);
+        if (executedAt != null) {
+            holding.track(executedAt.toEpochMilli(), shares);
+        }
+    }
+
+    private Holding holding(BookKey outcome) {
+        return holdings.computeIfAbsent(outcome, key -> new Holding());
+    }
+
+    private static final class Holding {
+        long settled;
+        long pending;
+        /** Shares locked by resting sells */
+        long locked;
+        /** Shares resting buys would add, counted against the position limit */
+        long buying;
+        /** Trades counted in pending by execution time, oldest first, one entry per millisecond */
+        private final ArrayDeque<PendingTrades> trades = new ArrayDeque<>();
+
+        void track(long executedAtMillis, long shares) {
+            PendingTrades last = trades.peekLast();
+            if (last != null && last.executedAtMillis == executedAtMillis) {
+                last.shares = Micros.add(last.shares, shares);
+            } else {
+                trades.addLast(new PendingTrades(executedAtMillis, shares));
+            }
+        }
+
+        /**
+         * Take trades executed no later than the given time out of pending; positions_by_user
+         * keeps milliseconds, so a trade flushed after others of the same millisecond goes
+         * uncounted until the next reconcile reads it from the row
+         */
+        void drop(long lastTradeAtMillis) {
+            while (!trades.isEmpty() && trades.peekFirst().executedAtMillis <= lastTradeAtMillis) {
+                pending = Micros.subtract(pending, trades.pollFirst().shares);
+            }
+        }
+    }
+
+    private static final class PendingTrades {
+        final long executedAtMillis;
+        long shares;
+
+        PendingTrades(long executedAtMillis, long shares) {
+            this.executedAtMillis = executedAtMillis;
+            this.shares = shares;
+        }
+    }
+
+    /**
+     * One positions_by_user row: the shares held and when the newest trade it includes executed
+     */
+    record Settled(long quantity, Instant lastTradeAt) {
+    }
+}
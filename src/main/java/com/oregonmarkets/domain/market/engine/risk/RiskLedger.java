@@ -0,0 +1,448 @@
+package com.oregonmarkets.domain.market.engine.risk;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.Micros;
+import com.oregonmarkets.domain.market.engine.OrderBook;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.engine.RestingOrder;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.OrderType;
+import com.oregonmarkets.domain.market.model.Position;
+import com.oregonmarkets.domain.market.model.Trade;
+import com.oregonmarkets.domain.market.repository.PositionRepository;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.blnk.BlnkClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-trade risk checks against per-user balances held in memory next to the engine shards.
+ * An account is loaded from Blnk and positions_by_user before the user's first order, after which
+ * accepting an order only reserves its worst-case cost (buys) or locks its shares (sells) under
+ * the account's lock. Shards report every command's result back, so reservations shrink as orders
+ * fill and disappear when they leave the book, and executed trades move cash and shares between
+ * accounts straight away. Loaded accounts are periodically reconciled with their systems of
+ * record off the trading path.
+ */
+@Slf4j
+@Component
+public class RiskLedger {
+
+    static final RiskRejection NO_CASH = new RiskRejection(ResponseCode.INSUFFICIENT_BALANCE,
+            "Insufficient available balance for this order");
+    static final RiskRejection NO_SHARES = new RiskRejection(ResponseCode.INSUFFICIENT_POSITION,
+            "Insufficient available shares to sell");
+    static final RiskRejection POSITION_LIMIT = new RiskRejection(ResponseCode.POSITION_LIMIT_EXCEEDED,
+            "Order would exceed the market's maximum position size");
+    private static final RiskRejection TOO_LARGE = new RiskRejection(ResponseCode.MAXIMUM_ORDER_SIZE,
+            "Order quantity exceeds the market's maximum order size");
+    private static final RiskRejection TOO_SMALL = new RiskRejection(ResponseCode.MINIMUM_ORDER_SIZE,
+            "Order quantity is below the market's minimum order size");
+    private static final RiskRejection NOT_LOADED = new RiskRejection(ResponseCode.SERVICE_UNAVAILABLE,
+            "Account balance is not loaded yet, please retry");
+
+    private static final long E4 = 10_000L;
+    private static final int RECONCILE_CONCURRENCY = 8;
+
+    private final UserRepository userRepository;
+    private final PositionRepository positionRepository;
+    private final BlnkClient blnkClient;
+    private final EngineProperties.Risk config;
+    /** Whether fills reach positions_by_user, so reconciled rows can stand in for pending trades */
+    private final boolean positionsFollowTrades;
+
+    private final Map<UUID, RiskAccount> accounts = new ConcurrentHashMap<>();
+    private final Map<UUID, Mono<Void>> loading = new ConcurrentHashMap<>();
+    private final Map<UUID, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<UUID, MarketLimits> limits = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private Disposable reconciler;
+
+    public RiskLedger(UserRepository userRepository, PositionRepository positionRepository, BlnkClient blnkClient,
+                      EngineProperties properties) {
+        this.userRepository = userRepository;
+        this.positionRepository = positionRepository;
+        this.blnkClient = blnkClient;
+        this.config = properties.getRisk();
+        this.positionsFollowTrades = properties.getPositions().isEnabled();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.warn("Pre-trade risk checks are disabled; orders are accepted without balance checks");
+            return;
+        }
+        long interval = config.getReconcileIntervalSeconds();
+        if (interval > 0) {
+            reconciler = Schedulers.parallel().schedulePeriodically(this::tick, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Register the order size and position limits of a market; orders in markets never
+     * registered are only checked against balances
+     */
+    public void setLimits(Market market) {
+        limits.put(market.getMarketId(), new MarketLimits(
+                micros(market.getMinOrderSize()),
+                micros(market.getMaxOrderSize()),
+                micros(market.getMaxPositionSize())));
+    }
+
+    /**
+     * Make sure the user's account is in memory; completes immediately once it has been loaded
+     */
+    public Mono<Void> load(UUID userId) {
+        if (!config.isEnabled()) {
+            return Mono.empty();
+        }
+        RiskAccount account = accounts.computeIfAbsent(userId, RiskAccount::new);
+        if (account.isLoaded()) {
+            return Mono.empty();
+        }
+        return loading.computeIfAbsent(userId, id -> fetch(account)
+                .onErrorMap(error -> new BusinessException(
+                        ResponseCode.SERVICE_UNAVAILABLE,
+                        "Account balance is temporarily unavailable, please retry"
+                ))
+                .doFinally(signal -> loading.remove(id))
+                .cache());
+    }
+
+    // ==================== Shard thread ====================
+
+    /**
+     * Check a new order and reserve what it could cost. Orders the engine will reject anyway
+     * (missing fields, unknown side, an ID already live) pass through unreserved.
+     *
+     * @return null once reserved, otherwise why the order is refused
+     */
+    public RiskRejection reserve(Order order, OrderBook book) {
+        if (!config.isEnabled() || book == null || order.getOrderId() == null || order.getUserId() == null
+                || reservations.containsKey(order.getOrderId())) {
+            return null;
+        }
+        OrderSide side = side(order);
+        long quantity = order.getQuantity() == null ? -1L : Quantities.toMicros(order.getQuantity());
+        boolean market = OrderType.MARKET.name().equals(order.getOrderType());
+        if (side == null || quantity <= 0 || (!market && (order.getPriceE4() == null || order.getPriceE4() <= 0
+                || order.getPriceE4() >= OrderBook.MAX_PRICE_E4))) {
+            return null;
+        }
+        MarketLimits marketLimits = limits.get(order.getMarketId());
+        RiskRejection sized = checkSize(marketLimits, quantity);
+        if (sized != null) {
+            return sized;
+        }
+        RiskAccount account = accounts.get(order.getUserId());
+        if (account == null || !account.isLoaded()) {
+            return NOT_LOADED;
+        }
+
+        boolean buy = side == OrderSide.BUY;
+        Reservation reservation = new Reservation(account, new BookKey(order.getMarketId(), order.getOutcomeId()), buy);
+        long priceE4 = market ? OrderBook.MAX_PRICE_E4 : order.getPriceE4();
+        RiskRejection rejection = reserve(reservation, quantity, priceE4, Math.max(book.getMakerFeeE4(),
+                book.getTakerFeeE4()), marketLimits);
+        if (rejection == null) {
+            reservations.put(order.getOrderId(), reservation);
+        }
+        return rejection;
+    }
+
+    /**
+     * Check a cancel/replace against the reservation the order already holds, topping it up if the
+     * new price or quantity needs more
+     *
+     * @return null once reserved, otherwise why the modification is refused
+     */
+    public RiskRejection reserveModify(RestingOrder resting, Long newPriceE4, BigDecimal newQuantity) {
+        Reservation reservation = config.isEnabled() ? reservations.get(resting.getOrderId()) : null;
+        if (reservation == null) {
+            return null;
+        }
+        Order order = resting.getOrder();
+        long remaining = resting.getRemaining();
+        if (newQuantity != null) {
+            long total = Quantities.toMicros(newQuantity);
+            RiskRejection sized = checkSize(limits.get(order.getMarketId()), total);
+            if (sized != null) {
+                return sized;
+            }
+            remaining = total - amount(order.getFilledQuantity());
+        }
+        if (remaining <= 0 || (newPriceE4 != null && (newPriceE4 <= 0 || newPriceE4 >= OrderBook.MAX_PRICE_E4))) {
+            return null;
+        }
+        long priceE4 = newPriceE4 != null ? newPriceE4 : order.getPriceE4();
+        return reserve(reservation, remaining, priceE4, feeE4(order), limits.get(order.getMarketId()));
+    }
+
+    /**
+     * Bring balances and reservations in line with an executed command: trades move cash and
+     * shares, and every order the command touched keeps a reservation for what is still resting
+     */
+    public void apply(MatchResult result) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        List<Trade> trades = result.getTrades();
+        for (int i = 0; i < trades.size(); i++) {
+            settle(trades.get(i));
+        }
+        Order order = result.getOrder();
+        // A duplicate ID belongs to the live order, whose reservation must stay
+        if (order != null && result.getCode() != ResponseCode.DUPLICATE_ORDER) {
+            sync(order, remaining(order));
+        }
+        List<Order> updated = result.getUpdatedOrders();
+        for (int i = 0; i < updated.size(); i++) {
+            sync(updated.get(i), remaining(updated.get(i)));
+        }
+    }
+
+    /**
+     * Drop the reservation of an order whose command failed before the engine took it, such as
+     * when it could not be journaled
+     */
+    public void release(UUID orderId) {
+        Reservation reservation = reservations.remove(orderId);
+        if (reservation != null) {
+            reservation.account.adjust(reservation, 0L, 0L);
+        }
+    }
+
+    /**
+     * Reserve for an order restored from a snapshot, which was accepted before the restart
+     */
+    public void track(RestingOrder resting) {
+        if (config.isEnabled()) {
+            sync(resting.getOrder(), resting.getRemaining());
+        }
+    }
+
+    // ==================== Reservations ====================
+
+    private static RiskRejection reserve(Reservation reservation, long quantity, long priceE4, long feeE4,
+                                         MarketLimits marketLimits) {
+        if (!reservation.buy) {
+            return reservation.account.reserveSell(reservation, quantity);
+        }
+        long cash = cost(quantity, priceE4, feeE4);
+        if (cash == Long.MAX_VALUE) {
+            return TOO_LARGE;
+        }
+        long maxPosition = marketLimits == null ? -1L : marketLimits.maxPosition();
+        return reservation.account.reserveBuy(reservation, cash, quantity, maxPosition);
+    }
+
+    private void sync(Order order, long remaining) {
+        UUID orderId = order.getOrderId();
+        if (orderId == null) {
+            return;
+        }
+        Reservation reservation = reservations.get(orderId);
+        if (!isLive(order) || remaining <= 0) {
+            if (reservation != null) {
+                reservations.remove(orderId);
+                reservation.account.adjust(reservation, 0L, 0L);
+            }
+            return;
+        }
+        if (reservation == null) {
+            // Accepted without a check: replayed from the journal before the account was loaded
+            RiskAccount account = accounts.computeIfAbsent(order.getUserId(), RiskAccount::new);
+            reservation = new Reservation(account, new BookKey(order.getMarketId(), order.getOutcomeId()),
+                    OrderSide.BUY.name().equals(order.getSide()));
+            reservations.put(orderId, reservation);
+        }
+        long cash = reservation.buy ? cost(remaining, order.getPriceE4(), feeE4(order)) : 0L;
+        reservation.account.adjust(reservation, cash, remaining);
+    }
+
+    private void settle(Trade trade) {
+        BookKey outcome = new BookKey(trade.getMarketId(), trade.getOutcomeId());
+        boolean engineAmounts = trade.getQuantityMicros() > 0;
+        long quantity = engineAmounts ? trade.getQuantityMicros() : amount(trade.getQuantity());
+        long value = engineAmounts ? trade.getValueMicros() : amount(trade.getTotalValue());
+        Instant executedAt = positionsFollowTrades ? trade.getExecutedAt() : null;
+        if (trade.getBuyerUserId() != null) {
+            long fee = engineAmounts ? trade.getBuyerFeeMicros() : amount(trade.getBuyerFee());
+            account(trade.getBuyerUserId()).settle(outcome, -Micros.add(value, fee), quantity, executedAt);
+        }
+        if (trade.getSellerUserId() != null) {
+            long fee = engineAmounts ? trade.getSellerFeeMicros() : amount(trade.getSellerFee());
+            account(trade.getSellerUserId()).settle(outcome, Micros.subtract(value, fee), -quantity, executedAt);
+        }
+    }
+
+    private RiskAccount account(UUID userId) {
+        return accounts.computeIfAbsent(userId, RiskAccount::new);
+    }
+
+    RiskAccount getAccount(UUID userId) {
+        return accounts.get(userId);
+    }
+
+    // ==================== Reconciliation ====================
+
+    private void tick() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        reconcile()
+                .doFinally(signal -> reconciling.set(false))
+                .subscribe(null, error -> log.error("Risk ledger reconciliation failed", error));
+    }
+
+    /**
+     * Re-read every loaded account; an account that cannot be read keeps its current balances
+     */
+    Mono<Void> reconcile() {
+        return Flux.fromIterable(accounts.values())
+                .filter(RiskAccount::isLoaded)
+                .flatMap(account -> fetch(account).onErrorResume(error -> {
+                    log.warn("Failed to reconcile risk account of user {}", account.getUserId(), error);
+                    return Mono.empty();
+                }), RECONCILE_CONCURRENCY)
+                .then();
+    }
+
+    private Mono<Void> fetch(RiskAccount account) {
+        UUID userId = account.getUserId();
+        Mono<Long> cash = userRepository.findById(userId)
+                .flatMap(user -> user.getBlnkBalanceId() == null
+                        ? Mono.just(0L)
+                        : blnkClient.getBalance(user.getBlnkBalanceId()).map(RiskLedger::balanceMicros))
+                .defaultIfEmpty(0L);
+        Mono<Map<BookKey, RiskAccount.Settled>> shares = positionRepository.findByUserId(userId)
+                .filter(position -> position.getQuantity() != null)
+                .collectMap(position -> new BookKey(position.getMarketId(), position.getOutcomeId()),
+                        position -> new RiskAccount.Settled(positionMicros(position), position.getLastTradeAt()));
+        return Mono.zip(cash, shares)
+                .doOnNext(balances -> account.reconcile(balances.getT1(), balances.getT2()))
+                .then();
+    }
+
+    // ==================== Helpers ====================
+
+    private static RiskRejection checkSize(MarketLimits marketLimits, long quantity) {
+        if (marketLimits == null) {
+            return null;
+        }
+        if (marketLimits.maxOrder() >= 0 && quantity > marketLimits.maxOrder()) {
+            return TOO_LARGE;
+        }
+        if (marketLimits.minOrder() >= 0 && quantity < marketLimits.minOrder()) {
+            return TOO_SMALL;
+        }
+        return null;
+    }
+
+    /**
+     * Worst-case cash for buying at a limit price including fees, rounded up;
+     * {@link Long#MAX_VALUE} if it does not fit a long
+     */
+    static long cost(long quantity, long priceE4, long feeE4) {
+        try {
+            long notional = ceilDiv(Math.multiplyExact(quantity, priceE4));
+            return Math.addExact(notional, ceilDiv(Math.multiplyExact(notional, feeE4)));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long ceilDiv(long valueE4) {
+        return -Math.floorDiv(-valueE4, E4);
+    }
+
+    private static long remaining(Order order) {
+        return amount(order.getRemainingQuantity());
+    }
+
+    private static long amount(BigDecimal value) {
+        return value == null ? 0L : Quantities.toMicros(value);
+    }
+
+    private static boolean isLive(Order order) {
+        return OrderStatus.OPEN.name().equals(order.getStatus())
+                || OrderStatus.PARTIALLY_FILLED.name().equals(order.getStatus());
+    }
+
+    private static long feeE4(Order order) {
+        long maker = order.getMakerFeeE4() == null ? 0L : order.getMakerFeeE4();
+        long taker = order.getTakerFeeE4() == null ? 0L : order.getTakerFeeE4();
+        return Math.max(maker, taker);
+    }
+
+    private static OrderSide side(Order order) {
+        if (OrderSide.BUY.name().equals(order.getSide())) {
+            return OrderSide.BUY;
+        }
+        return OrderSide.SELL.name().equals(order.getSide()) ? OrderSide.SELL : null;
+    }
+
+    private static long micros(BigDecimal quantity) {
+        return quantity == null ? -1L : Quantities.toMicros(quantity);
+    }
+
+    private static long positionMicros(Position position) {
+        return Quantities.toMicros(position.getQuantity());
+    }
+
+    /**
+     * Blnk keeps balances in minor units; {@code precision} is the number of minor units per unit
+     */
+    static long balanceMicros(Map<String, Object> balance) {
+        Object amount = balance.get("balance");
+        if (amount == null) {
+            return 0L;
+        }
+        BigDecimal value = new BigDecimal(amount.toString());
+        if (balance.get("precision") instanceof Number precision && precision.doubleValue() > 0) {
+            value = value.divide(BigDecimal.valueOf(precision.doubleValue()), Quantities.SCALE, RoundingMode.DOWN);
+        }
+        return Quantities.toMicros(value);
+    }
+
+    /**
+     * Order size and position limits of a market in micro-shares, -1 where the market sets none
+     */
+    private record MarketLimits(long minOrder, long maxOrder, long maxPosition) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.oregonmarkets.domain.market.engine.risk;
+
+import com.oregonmarkets.common.response.ResponseCode;
+
+/**
+ * Reason the pre-trade check refused an order
+ */
+public record RiskRejection(ResponseCode code, String reason) {
+}
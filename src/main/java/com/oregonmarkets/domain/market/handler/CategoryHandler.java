@@ -2,6 +2,7 @@ package com.oregonmarkets.domain.market.handler;
 
 import com.oregonmarkets.common.response.ApiResponse;
 import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.common.response.StreamingResponses;
 import com.oregonmarkets.domain.market.dto.mapper.CategoryMapper;
 import com.oregonmarkets.domain.market.dto.mapper.SubcategoryMapper;
 import com.oregonmarkets.domain.market.dto.request.CreateCategoryRequest;
@@ -20,7 +21,8 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
 /**
- * Functional handler for category API endpoints
+ * Functional handler for category API endpoints. Listings stream element by element when the client
+ * accepts NDJSON or server-sent events (see {@link StreamingResponses}).
  */
 @Slf4j
 @Component
@@ -35,14 +37,9 @@ public class CategoryHandler {
      * GET /api/v1/categories - Get all categories
      */
     public Mono<ServerResponse> getAllCategories(ServerRequest request) {
-        return categoryService.getAllCategories()
-                .map(categoryMapper::toResponse)
-                .collectList()
-                .flatMap(categories -> {
-                    ApiResponse<java.util.List<CategoryResponse>> response = ApiResponse.success(categories);
-                    return ServerResponse.ok().bodyValue(response);
-                })
-                .onErrorResume(this::handleError);
+        return StreamingResponses.respond(request,
+                categoryService.getAllCategories().map(categoryMapper::toResponse),
+                CategoryResponse.class, this::handleError);
     }
 
     /**
@@ -90,14 +87,9 @@ public class CategoryHandler {
         try {
             UUID categoryId = UUID.fromString(categoryIdStr);
 
-            return categoryService.getSubcategories(categoryId)
-                    .map(subcategoryMapper::toResponse)
-                    .collectList()
-                    .flatMap(subcategories -> {
-                        ApiResponse<java.util.List<SubcategoryResponse>> response = ApiResponse.success(subcategories);
-                        return ServerResponse.ok().bodyValue(response);
-                    })
-                    .onErrorResume(this::handleError);
+            return StreamingResponses.respond(request,
+                    categoryService.getSubcategories(categoryId).map(subcategoryMapper::toResponse),
+                    SubcategoryResponse.class, this::handleError);
         } catch (IllegalArgumentException e) {
             return handleError(new IllegalArgumentException("Invalid category ID format"));
         }
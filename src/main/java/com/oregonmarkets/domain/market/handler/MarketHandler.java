@@ -2,28 +2,44 @@ package com.oregonmarkets.domain.market.handler;
 
 import com.oregonmarkets.common.response.ApiResponse;
 import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.common.response.StreamingResponses;
 import com.oregonmarkets.domain.market.dto.request.CreateMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.ResolveMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.UpdateMarketRequest;
+import com.oregonmarkets.domain.market.dto.response.MarketPageResponse;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
+import com.oregonmarkets.domain.market.dto.response.OutcomeResponse;
+import com.oregonmarkets.domain.market.dto.response.SettlementResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
 import com.oregonmarkets.domain.market.service.MarketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
- * Functional handler for market API endpoints
+ * Functional handler for market API endpoints. Listings answer with an enveloped JSON list or page
+ * by default, or stream element by element when the client accepts NDJSON or server-sent events
+ * (see {@link StreamingResponses}).
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MarketHandler {
 
+    /** Markets per page when a listing does not ask for a limit */
+    static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Suggestions returned when a type-ahead request does not ask for a limit */
+    static final int DEFAULT_SUGGESTIONS = 10;
+
     private final MarketService marketService;
 
     /**
@@ -79,33 +95,23 @@ public class MarketHandler {
     }
 
     /**
-     * GET /api/v1/markets - Get all markets
+     * GET /api/v1/markets?limit={limit}&cursor={cursor} - Get one page of all markets
      */
     public Mono<ServerResponse> getAllMarkets(ServerRequest request) {
-        return marketService.getAllMarkets()
-                .collectList()
-                .flatMap(markets -> {
-                    ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                    return ServerResponse.ok().bodyValue(response);
-                })
-                .onErrorResume(this::handleError);
+        return respondWithPage(request, marketService::getAllMarkets, marketService::getAllMarkets);
     }
 
     /**
-     * GET /api/v1/markets?category={categoryId} - Get markets by category
+     * GET /api/v1/markets?category={categoryId}&limit={limit}&cursor={cursor} - Get one page of markets by category
      */
     public Mono<ServerResponse> getMarketsByCategory(ServerRequest request) {
         return request.queryParam("category")
                 .map(categoryIdStr -> {
                     try {
                         UUID categoryId = UUID.fromString(categoryIdStr);
-                        return marketService.getMarketsByCategory(categoryId)
-                                .collectList()
-                                .flatMap(markets -> {
-                                    ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                                    return ServerResponse.ok().bodyValue(response);
-                                })
-                                .onErrorResume(this::handleError);
+                        return respondWithPage(request,
+                                (limit, cursor) -> marketService.getMarketsByCategory(categoryId, limit, cursor),
+                                () -> marketService.getMarketsByCategory(categoryId));
                     } catch (IllegalArgumentException e) {
                         return handleError(new IllegalArgumentException("Invalid category ID format"));
                     }
@@ -114,19 +120,13 @@ public class MarketHandler {
     }
 
     /**
-     * GET /api/v1/markets?status={status} - Get markets by status
+     * GET /api/v1/markets?status={status}&limit={limit}&cursor={cursor} - Get one page of markets by status
      */
     public Mono<ServerResponse> getMarketsByStatus(ServerRequest request) {
         return request.queryParam("status")
-                .map(status ->
-                    marketService.getMarketsByStatus(status)
-                            .collectList()
-                            .flatMap(markets -> {
-                                ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                                return ServerResponse.ok().bodyValue(response);
-                            })
-                            .onErrorResume(this::handleError)
-                )
+                .map(status -> respondWithPage(request,
+                        (limit, cursor) -> marketService.getMarketsByStatus(status, limit, cursor),
+                        () -> marketService.getMarketsByStatus(status)))
                 .orElseGet(() -> getAllMarkets(request));
     }
 
@@ -134,26 +134,14 @@ public class MarketHandler {
      * GET /api/v1/markets/featured - Get featured markets
      */
     public Mono<ServerResponse> getFeaturedMarkets(ServerRequest request) {
-        return marketService.getFeaturedMarkets()
-                .collectList()
-                .flatMap(markets -> {
-                    ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                    return ServerResponse.ok().bodyValue(response);
-                })
-                .onErrorResume(this::handleError);
+        return StreamingResponses.respond(request, marketService.getFeaturedMarkets(), MarketResponse.class, this::handleError);
     }
 
     /**
      * GET /api/v1/markets/trending - Get trending markets
      */
     public Mono<ServerResponse> getTrendingMarkets(ServerRequest request) {
-        return marketService.getTrendingMarkets()
-                .collectList()
-                .flatMap(markets -> {
-                    ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                    return ServerResponse.ok().bodyValue(response);
-                })
-                .onErrorResume(this::handleError);
+        return StreamingResponses.respond(request, marketService.getTrendingMarkets(), MarketResponse.class, this::handleError);
     }
 
     /**
@@ -302,11 +290,27 @@ public class MarketHandler {
         try {
             UUID marketId = UUID.fromString(marketIdStr);
 
-            return marketService.getMarketOutcomes(marketId)
-                    .collectList()
-                    .flatMap(outcomes -> {
-                        ApiResponse<java.util.List<com.oregonmarkets.domain.market.dto.response.OutcomeResponse>> response =
-                                ApiResponse.success(outcomes);
+            return StreamingResponses.respond(request, marketService.getMarketOutcomes(marketId), OutcomeResponse.class, this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid market ID format"));
+        }
+    }
+
+    /**
+     * GET /api/v1/markets/{marketId}/settlement - Get the payout progress of a resolved market
+     */
+    public Mono<ServerResponse> getSettlement(ServerRequest request) {
+        String marketIdStr = request.pathVariable("marketId");
+
+        try {
+            UUID marketId = UUID.fromString(marketIdStr);
+
+            return marketService.getSettlement(marketId)
+                    .flatMap(settlement -> {
+                        ApiResponse<SettlementResponse> response = ApiResponse.success(
+                                ResponseCode.SETTLEMENT_RETRIEVED,
+                                settlement
+                        );
                         return ServerResponse.ok().bodyValue(response);
                     })
                     .onErrorResume(this::handleError);
@@ -320,15 +324,7 @@ public class MarketHandler {
      */
     public Mono<ServerResponse> searchMarkets(ServerRequest request) {
         return request.queryParam("q")
-                .map(query ->
-                    marketService.searchMarkets(query)
-                            .collectList()
-                            .flatMap(markets -> {
-                                ApiResponse<java.util.List<MarketResponse>> response = ApiResponse.success(markets);
-                                return ServerResponse.ok().bodyValue(response);
-                            })
-                            .onErrorResume(this::handleError)
-                )
+                .map(query -> StreamingResponses.respond(request, marketService.searchMarkets(query), MarketResponse.class, this::handleError))
                 .orElseGet(() ->
                     ServerResponse.badRequest()
                             .bodyValue(ApiResponse.error(
@@ -338,6 +334,57 @@ public class MarketHandler {
                 );
     }
 
+    /**
+     * GET /api/v1/markets/suggest?q={prefix}&limit={limit} - Type-ahead suggestions
+     */
+    public Mono<ServerResponse> suggest(ServerRequest request) {
+        return request.queryParam("q")
+                .map(prefix -> {
+                    int limit;
+                    try {
+                        limit = request.queryParam("limit").map(Integer::parseInt).orElse(DEFAULT_SUGGESTIONS);
+                    } catch (NumberFormatException e) {
+                        return handleError(new IllegalArgumentException("Invalid limit format"));
+                    }
+                    return StreamingResponses.respond(request, marketService.suggest(prefix, limit), SuggestionResponse.class, this::handleError);
+                })
+                .orElseGet(() ->
+                    ServerResponse.badRequest()
+                            .bodyValue(ApiResponse.error(
+                                    ResponseCode.MISSING_REQUIRED_FIELD,
+                                    "Suggest query parameter 'q' is required"
+                            ))
+                );
+    }
+
+    // ==================== Listings ====================
+
+    /**
+     * Respond with the page of a listing selected by the {@code limit} and {@code cursor} query parameters.
+     * A streaming client gets {@code all} instead: the driver fetches pages as the client reads, so
+     * cursors are only needed by clients that buffer.
+     */
+    private Mono<ServerResponse> respondWithPage(ServerRequest request,
+                                                 BiFunction<Integer, String, Mono<MarketPageResponse>> listing,
+                                                 Supplier<Flux<MarketResponse>> all) {
+        var streaming = StreamingResponses.negotiate(request);
+        if (streaming.isPresent()) {
+            return StreamingResponses.stream(streaming.get(), all.get(), MarketResponse.class);
+        }
+        int limit;
+        try {
+            limit = request.queryParam("limit").map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            return handleError(new IllegalArgumentException("Invalid limit format"));
+        }
+        return listing.apply(limit, request.queryParam("cursor").orElse(null))
+                .flatMap(page -> {
+                    ApiResponse<MarketPageResponse> response = ApiResponse.success(page);
+                    return ServerResponse.ok().bodyValue(response);
+                })
+                .onErrorResume(this::handleError);
+    }
+
     // ==================== Error Handling ====================
 
     private Mono<ServerResponse> handleError(Throwable error) {
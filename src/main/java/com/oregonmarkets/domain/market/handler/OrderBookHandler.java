@@ -0,0 +1,106 @@
+package com.oregonmarkets.domain.market.handler;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ApiResponse;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.dto.response.OrderBookResponse;
+import com.oregonmarkets.domain.market.service.OrderBookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Functional handler for order book market data endpoints
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderBookHandler {
+
+    private final OrderBookService orderBookService;
+
+    /**
+     * GET /api/v1/markets/{marketId}/outcomes/{outcomeId}/book?depth={levels} - Aggregated order book
+     */
+    public Mono<ServerResponse> getOrderBook(ServerRequest request) {
+        try {
+            UUID marketId = UUID.fromString(request.pathVariable("marketId"));
+            UUID outcomeId = UUID.fromString(request.pathVariable("outcomeId"));
+            int depth = request.queryParam("depth").map(Integer::parseInt).orElse(0);
+
+            return orderBookService.getOrderBook(marketId, outcomeId, depth)
+                    .flatMap(book -> {
+                        ApiResponse<OrderBookResponse> response = ApiResponse.success(ResponseCode.SUCCESS, book);
+                        return ServerResponse.ok().bodyValue(response);
+                    })
+                    .onErrorResume(this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid market ID, outcome ID or depth format"));
+        }
+    }
+
+    /**
+     * GET /api/v1/markets/{marketId}/outcomes/{outcomeId}/book/stream?afterSequence={sequence} -
+     * Server-sent events carrying a snapshot (unless the client is already at the current
+     * sequence) followed by one delta per book change
+     */
+    public Mono<ServerResponse> streamOrderBook(ServerRequest request) {
+        try {
+            UUID marketId = UUID.fromString(request.pathVariable("marketId"));
+            UUID outcomeId = UUID.fromString(request.pathVariable("outcomeId"));
+            Long afterSequence = request.queryParam("afterSequence").map(Long::parseLong).orElse(null);
+
+            Flux<ServerSentEvent<OrderBookResponse>> events = orderBookService
+                    .streamOrderBook(marketId, outcomeId, afterSequence)
+                    .map(update -> ServerSentEvent.builder(update)
+                            .id(Long.toString(update.getSequence()))
+                            .event(update.getType().toLowerCase(Locale.ROOT))
+                            .build());
+
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(BodyInserters.fromServerSentEvents(events));
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid market ID, outcome ID or sequence format"));
+        }
+    }
+
+    // ==================== Error Handling ====================
+
+    private Mono<ServerResponse> handleError(Throwable error) {
+        log.error("Error handling request", error);
+
+        if (error instanceof BusinessException be) {
+            ApiResponse<Void> response = ApiResponse.error(be.getResponseCode(), be.getMessage());
+            return ServerResponse
+                    .status(be.getResponseCode().getHttpStatus())
+                    .bodyValue(response);
+        }
+
+        if (error instanceof IllegalArgumentException) {
+            ApiResponse<Void> response = ApiResponse.error(
+                    ResponseCode.INVALID_INPUT,
+                    error.getMessage()
+            );
+            return ServerResponse.badRequest().bodyValue(response);
+        }
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ResponseCode.INTERNAL_SERVER_ERROR,
+                "An unexpected error occurred"
+        );
+        return ServerResponse
+                .status(500)
+                .bodyValue(response);
+    }
+}
@@ -0,0 +1,215 @@
+package com.oregonmarkets.domain.market.handler;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ApiResponse;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.dto.request.BatchOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.ModifyOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.PlaceOrderRequest;
+import com.oregonmarkets.domain.market.dto.response.BatchOrderResponse;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.service.OrderService;
+import com.oregonmarkets.domain.user.service.CurrentUserResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Functional handler for order API endpoints
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderHandler {
+
+    private final OrderService orderService;
+    private final CurrentUserResolver currentUser;
+
+    /**
+     * POST /api/v1/orders - Place an order
+     */
+    public Mono<ServerResponse> placeOrder(ServerRequest request) {
+        return currentUser.resolve(request)
+                .flatMap(userId -> request.bodyToMono(PlaceOrderRequest.class)
+                        .flatMap(req -> orderService.placeOrder(req, userId)))
+                .flatMap(this::respond)
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * POST /api/v1/orders/batch - Place several orders of one market in a single round trip
+     */
+    public Mono<ServerResponse> placeOrders(ServerRequest request) {
+        return currentUser.resolve(request)
+                .flatMap(userId -> request.bodyToMono(BatchOrderRequest.class)
+                        .flatMap(req -> orderService.placeOrders(req, userId)))
+                .flatMap(batch -> respond(ResponseCode.ORDERS_BATCH_PROCESSED, batch))
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * POST /api/v1/orders/mass-quote - Atomically replace the user's resting orders in a market
+     */
+    public Mono<ServerResponse> replaceQuotes(ServerRequest request) {
+        return currentUser.resolve(request)
+                .flatMap(userId -> request.bodyToMono(BatchOrderRequest.class)
+                        .flatMap(req -> orderService.replaceQuotes(req, userId)))
+                .flatMap(batch -> respond(ResponseCode.QUOTES_REPLACED, batch))
+                .onErrorResume(this::handleError);
+    }
+
+    /**
+     * PUT /api/v1/orders/{orderId} - Modify a resting order
+     */
+    public Mono<ServerResponse> modifyOrder(ServerRequest request) {
+        try {
+            UUID orderId = UUID.fromString(request.pathVariable("orderId"));
+
+            return currentUser.resolve(request)
+                    .flatMap(userId -> request.bodyToMono(ModifyOrderRequest.class)
+                            .flatMap(req -> orderService.modifyOrder(orderId, req, userId)))
+                    .flatMap(this::respond)
+                    .onErrorResume(this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid order ID format"));
+        }
+    }
+
+    /**
+     * DELETE /api/v1/orders/{orderId}?marketId={marketId} - Cancel a resting order
+     */
+    public Mono<ServerResponse> cancelOrder(ServerRequest request) {
+        try {
+            UUID orderId = UUID.fromString(request.pathVariable("orderId"));
+            UUID marketId = request.queryParam("marketId")
+                    .map(UUID::fromString)
+                    .orElseThrow(() -> new BusinessException(
+                            ResponseCode.MISSING_REQUIRED_FIELD,
+                            "Query parameter 'marketId' is required"
+                    ));
+
+            return currentUser.resolve(request)
+                    .flatMap(userId -> orderService.cancelOrder(marketId, orderId, userId))
+                    .flatMap(this::respond)
+                    .onErrorResume(this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid order or market ID format"));
+        } catch (BusinessException e) {
+            return handleError(e);
+        }
+    }
+
+    /**
+     * DELETE /api/v1/orders?marketId={marketId} - Cancel all of the user's orders in a market
+     */
+    public Mono<ServerResponse> cancelAllOrders(ServerRequest request) {
+        try {
+            UUID marketId = request.queryParam("marketId")
+                    .map(UUID::fromString)
+                    .orElseThrow(() -> new BusinessException(
+                            ResponseCode.MISSING_REQUIRED_FIELD,
+                            "Query parameter 'marketId' is required"
+                    ));
+
+            return currentUser.resolve(request)
+                    .flatMapMany(userId -> orderService.cancelAllOrders(marketId, userId))
+                    .collectList()
+                    .flatMap(orders -> {
+                        ApiResponse<List<OrderResponse>> response = ApiResponse.success(
+                                ResponseCode.ORDER_CANCELLED,
+                                orders
+                        );
+                        return ServerResponse.ok().bodyValue(response);
+                    })
+                    .onErrorResume(this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid market ID format"));
+        } catch (BusinessException e) {
+            return handleError(e);
+        }
+    }
+
+    /**
+     * GET /api/v1/orders/open?marketId={marketId} - List the user's open orders, optionally in one market
+     */
+    public Mono<ServerResponse> getOpenOrders(ServerRequest request) {
+        try {
+            UUID marketId = request.queryParam("marketId").map(UUID::fromString).orElse(null);
+
+            return currentUser.resolve(request)
+                    .flatMapMany(userId -> orderService.getOpenOrders(userId, marketId))
+                    .collectList()
+                    .flatMap(orders -> {
+                        ApiResponse<List<OrderResponse>> response = ApiResponse.success(
+                                ResponseCode.OPEN_ORDERS_RETRIEVED,
+                                orders
+                        );
+                        return ServerResponse.ok().bodyValue(response);
+                    })
+                    .onErrorResume(this::handleError);
+        } catch (IllegalArgumentException e) {
+            return handleError(new IllegalArgumentException("Invalid market ID format"));
+        }
+    }
+
+    // ==================== Helper Methods ====================
+
+    private Mono<ServerResponse> respond(OrderResponse order) {
+        ApiResponse<OrderResponse> response = ApiResponse.success(responseCode(order.getStatus()), order);
+        return ServerResponse.ok().bodyValue(response);
+    }
+
+    private Mono<ServerResponse> respond(ResponseCode code, BatchOrderResponse batch) {
+        ApiResponse<BatchOrderResponse> response = ApiResponse.success(code, batch);
+        return ServerResponse.ok().bodyValue(response);
+    }
+
+    private static ResponseCode responseCode(String status) {
+        if (OrderStatus.FILLED.name().equals(status)) {
+            return ResponseCode.ORDER_FILLED;
+        }
+        if (OrderStatus.PARTIALLY_FILLED.name().equals(status)) {
+            return ResponseCode.ORDER_PARTIALLY_FILLED;
+        }
+        if (OrderStatus.CANCELLED.name().equals(status)) {
+            return ResponseCode.ORDER_CANCELLED;
+        }
+        return ResponseCode.ORDER_PLACED;
+    }
+
+    // ==================== Error Handling ====================
+
+    private Mono<ServerResponse> handleError(Throwable error) {
+        log.error("Error handling request", error);
+
+        if (error instanceof BusinessException be) {
+            ApiResponse<Void> response = ApiResponse.error(be.getResponseCode(), be.getMessage());
+            return ServerResponse
+                    .status(be.getResponseCode().getHttpStatus())
+                    .bodyValue(response);
+        }
+
+        if (error instanceof IllegalArgumentException) {
+            ApiResponse<Void> response = ApiResponse.error(
+                    ResponseCode.INVALID_INPUT,
+                    error.getMessage()
+            );
+            return ServerResponse.badRequest().bodyValue(response);
+        }
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ResponseCode.INTERNAL_SERVER_ERROR,
+                "An unexpected error occurred"
+        );
+        return ServerResponse
+                .status(500)
+                .bodyValue(response);
+    }
+}
@@ -0,0 +1,66 @@
+package com.oregonmarkets.domain.market.handler;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ApiResponse;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.dto.response.PositionResponse;
+import com.oregonmarkets.domain.market.service.PositionService;
+import com.oregonmarkets.domain.user.service.CurrentUserResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Functional handler for position API endpoints
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PositionHandler {
+
+    private final PositionService positionService;
+    private final CurrentUserResolver currentUser;
+
+    /**
+     * GET /api/v1/positions - List the user's positions with their current valuation
+     */
+    public Mono<ServerResponse> getPositions(ServerRequest request) {
+        return currentUser.resolve(request)
+                .flatMapMany(positionService::getPositions)
+                .collectList()
+                .flatMap(positions -> {
+                    ApiResponse<List<PositionResponse>> response = ApiResponse.success(
+                            ResponseCode.POSITIONS_RETRIEVED,
+                            positions
+                    );
+                    return ServerResponse.ok().bodyValue(response);
+                })
+                .onErrorResume(this::handleError);
+    }
+
+    // ==================== Error Handling ====================
+
+    private Mono<ServerResponse> handleError(Throwable error) {
+        log.error("Error handling request", error);
+
+        if (error instanceof BusinessException be) {
+            ApiResponse<Void> response = ApiResponse.error(be.getResponseCode(), be.getMessage());
+            return ServerResponse
+                    .status(be.getResponseCode().getHttpStatus())
+                    .bodyValue(response);
+        }
+
+        ApiResponse<Void> response = ApiResponse.error(
+                ResponseCode.INTERNAL_SERVER_ERROR,
+                "An unexpected error occurred"
+        );
+        return ServerResponse
+                .status(500)
+                .bodyValue(response);
+    }
+}
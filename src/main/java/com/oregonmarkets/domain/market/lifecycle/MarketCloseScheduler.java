@@ -0,0 +1,332 @@
+package com.oregonmarkets.domain.market.lifecycle;
+
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.listing.MarketListingTables;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import com.oregonmarkets.domain.market.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Closes markets for trading at their {@code marketClose} time.
+ * Each node holds the closes due within the next window in an in-memory queue ordered by time,
+ * with a single timer armed for the earliest one. The queue is loaded from the
+ * markets_by_close_date partitions the window spans and reloaded periodically; markets created
+ * or rescheduled on this node are queued straight away. When a close falls due, the node claims
+ * a Redis lease on it, and only the holder moves the market to CLOSED and records the new
+ * status in markets_by_close_date and the listing tables. Every node then closes its own engine
+ * books of the market, cancelling their resting orders in one command. If the holder fails before
+ * recording the close, a later reload finds it still due and another node carries it out once the
+ * lease has lapsed.
+ */
+@Slf4j
+@Component
+public class MarketCloseScheduler {
+
+    static final String LEASE_PREFIX = "markets:close:";
+
+    static final String SELECT_CLOSES = "SELECT market_id, market_close, status FROM markets_by_close_date "
+            + "WHERE close_date = ? AND market_close >= ? AND market_close < ?";
+
+    static final String SAVE_CLOSE = "INSERT INTO markets_by_close_date (close_date, market_close, market_id, "
+            + "title, status, category_name, category_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    static final String DELETE_CLOSE = "DELETE FROM markets_by_close_date WHERE close_date = ? "
+            + "AND market_close = ? AND market_id = ?";
+
+    private final CqlStatements cql;
+    private final MarketRepository marketRepository;
+    private final OrderService orderService;
+    private final MarketListingTables listingTables;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final EngineProperties.MarketClose config;
+
+    /** Identifies this node as the holder of the leases it claims */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** Pending closes in time order, and each market's entry; only touched on the scheduler's thread */
+    private final NavigableSet<Deadline> deadlines = new TreeSet<>();
+    private final Map<UUID, Deadline> byMarket = new HashMap<>();
+
+    private Scheduler scheduler;
+    private Disposable refresher;
+    private Disposable timer;
+    private Deadline armed;
+
+    public MarketCloseScheduler(CqlStatements cql, MarketRepository marketRepository, OrderService orderService,
+                                MarketListingTables listingTables, ReactiveRedisTemplate<String, Object> redisTemplate,
+                                EngineProperties properties) {
+        this.cql = cql;
+        this.marketRepository = marketRepository;
+        this.orderService = orderService;
+        this.listingTables = listingTables;
+        this.redisTemplate = redisTemplate;
+        this.config = properties.getMarketClose();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.warn("Automatic market close is disabled; markets stay open until closed by hand");
+            return;
+        }
+        scheduler = Schedulers.newSingle("market-close");
+        // First pass right away carries out closes that fell due while the node was down
+        refresher = scheduler.schedulePeriodically(this::refresh, 0, config.getRefreshSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Record a created or changed market's close time in markets_by_close_date in the background,
+     * and queue or drop its close on this node
+     *
+     * @param previousClose close time the market had before the change, or null if it is new
+     */
+    public void track(Market market, Instant previousClose) {
+        UUID marketId = market.getMarketId();
+        Instant close = market.getMarketClose();
+        Mono<Void> remove = previousClose == null || previousClose.equals(close)
+                ? Mono.empty()
+                : execute(() -> cql.bound(DELETE_CLOSE)
+                        .setLocalDate(0, closeDate(previousClose))
+                        .setInstant(1, previousClose)
+                        .setUuid(2, marketId));
+        Mono<Void> save = close == null ? Mono.empty() : save(market);
+        remove.then(save)
+                .subscribe(null, error -> log.error("Failed to record close time of market {}", marketId, error));
+
+        if (scheduler != null) {
+            boolean closes = close != null && isTrading(market.getStatus());
+            scheduler.schedule(() -> {
+                if (closes) {
+                    enqueue(marketId, close, Instant.now().plus(Duration.ofMinutes(config.getWindowMinutes())));
+                } else {
+                    dequeue(marketId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop trading in a market on this node straight away, e.g. when it is closed by hand
+     */
+    public void halt(UUID marketId) {
+        orderService.haltMarket(marketId).count()
+                .subscribe(cancelled -> log.info("Halted market {}, cancelling {} resting orders", marketId, cancelled),
+                        error -> log.error("Failed to halt market {}", marketId, error));
+    }
+
+    /**
+     * Queue the closes due between the lookback and the end of the window, reading only the
+     * markets_by_close_date partitions of the days they span
+     */
+    void refresh() {
+        Instant now = Instant.now();
+        Instant from = now.minus(Duration.ofHours(config.getLookbackHours()));
+        Instant until = now.plus(Duration.ofMinutes(config.getWindowMinutes()));
+        Flux.fromIterable(closeDates(from, until))
+                .concatMap(date -> rows(date, from, until))
+                .filter(row -> isTrading(row.getString("status")))
+                .publishOn(scheduler)
+                .doOnNext(row -> enqueue(row.getUuid("market_id"), row.getInstant("market_close"), until))
+                .count()
+                .subscribe(count -> log.debug("Loaded {} upcoming market closes, {} queued", count, deadlines.size()),
+                        error -> log.warn("Failed to load upcoming market closes: {}", error.getMessage()));
+    }
+
+    /**
+     * Close a market whose close time has come, unless it has since been moved later. Only the
+     * holder of the close's lease changes the market; the books are closed on every node.
+     *
+     * @return the number of resting orders cancelled on this node, or empty if the market was not due
+     */
+    Mono<Long> close(UUID marketId) {
+        return marketRepository.findById(marketId)
+                .filter(market -> market.getMarketClose() != null && !market.getMarketClose().isAfter(Instant.now()))
+                .flatMap(market -> !isTrading(market.getStatus())
+                        ? Mono.just(market)
+                        : acquire(marketId, market.getMarketClose())
+                        .flatMap(held -> held ? transition(market) : Mono.just(market)))
+                .flatMap(market -> orderService.haltMarket(marketId).count())
+                .doOnNext(cancelled -> log.info("Closed books of market {} at its close time, cancelling {} resting orders",
+                        marketId, cancelled));
+    }
+
+    private Mono<Market> transition(Market market) {
+        String previousStatus = market.getStatus();
+        market.setStatus(MarketStatus.CLOSED.name());
+        market.setUpdatedAt(Instant.now());
+        market.setVersion(market.getVersion() + 1);
+        return marketRepository.save(market)
+                .flatMap(saved -> save(saved).then(listingTables.record(saved, previousStatus)).thenReturn(saved))
+                .doOnNext(saved -> log.info("Market {} closed for trading at {}", saved.getMarketId(),
+                        saved.getMarketClose()));
+    }
+
+    /**
+     * Claim a close for this node; a close moved to a new time gets a new lease. When Redis is
+     * unavailable the close is left to a later reload rather than risk two nodes carrying it out.
+     */
+    private Mono<Boolean> acquire(UUID marketId, Instant close) {
+        if (redisTemplate == null) {
+            return Mono.just(true);
+        }
+        return redisTemplate.opsForValue()
+                .setIfAbsent(LEASE_PREFIX + marketId + ":" + close.toEpochMilli(), nodeId,
+                        Duration.ofSeconds(config.getLeaseSeconds()))
+                .onErrorResume(e -> {
+                    log.warn("Could not claim the close of market {} in Redis: {}", marketId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    // ==================== Timer ====================
+
+    /**
+     * Queue a market's close, replacing any it had; closes past the horizon wait for a later reload
+     */
+    private void enqueue(UUID marketId, Instant close, Instant horizon) {
+        if (close.isAfter(horizon)) {
+            dequeue(marketId);
+            return;
+        }
+        Deadline deadline = new Deadline(close.toEpochMilli(), marketId);
+        Deadline previous = byMarket.put(marketId, deadline);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+        deadlines.add(deadline);
+        arm();
+    }
+
+    private void dequeue(UUID marketId) {
+        Deadline deadline = byMarket.remove(marketId);
+        if (deadline != null) {
+            deadlines.remove(deadline);
+            arm();
+        }
+    }
+
+    /**
+     * Point the timer at the earliest close, re-arming it only when that changed
+     */
+    private void arm() {
+        Deadline first = deadlines.isEmpty() ? null : deadlines.first();
+        if (first == null ? armed == null : first.equals(armed)) {
+            return;
+        }
+        if (timer != null) {
+            timer.dispose();
+        }
+        armed = first;
+        timer = first == null ? null : scheduler.schedule(this::fire,
+                Math.max(0L, first.atMillis() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+        armed = null;
+        timer = null;
+        long now = System.currentTimeMillis();
+        while (!deadlines.isEmpty() && deadlines.first().atMillis() <= now) {
+            Deadline due = deadlines.pollFirst();
+            byMarket.remove(due.marketId());
+            close(due.marketId())
+                    .subscribe(null, error -> log.error("Failed to close market {}", due.marketId(), error));
+        }
+        arm();
+    }
+
+    // ==================== Storage ====================
+
+    private Mono<Void> save(Market market) {
+        Instant close = market.getMarketClose();
+        return execute(() -> cql.bound(SAVE_CLOSE)
+                .setLocalDate(0, closeDate(close))
+                .setInstant(1, close)
+                .setUuid(2, market.getMarketId())
+                .setString(3, market.getTitle())
+                .setString(4, market.getStatus())
+                .setString(5, market.getCategoryName())
+                .setUuid(6, market.getCategoryId()));
+    }
+
+    /**
+     * Rows of one close date partition within the range, page by page
+     */
+    private Flux<Row> rows(LocalDate date, Instant from, Instant until) {
+        return cql.rows(() -> cql.bound(SELECT_CLOSES)
+                .setLocalDate(0, date)
+                .setInstant(1, from)
+                .setInstant(2, until)
+                .build());
+    }
+
+    private Mono<Void> execute(Supplier<BoundStatementBuilder> statement) {
+        return cql.execute(() -> statement.get().build()).then();
+    }
+
+    private static List<LocalDate> closeDates(Instant from, Instant until) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = closeDate(from); !date.isAfter(closeDate(until)); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    private static LocalDate closeDate(Instant close) {
+        return close.atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    /**
+     * Statuses a market still has to be closed from
+     */
+    private static boolean isTrading(String status) {
+        return MarketStatus.OPEN.name().equals(status) || MarketStatus.SUSPENDED.name().equals(status);
+    }
+
+    /**
+     * One market's pending close, ordered by time then market
+     */
+    private record Deadline(long atMillis, UUID marketId) implements Comparable<Deadline> {
+
+        @Override
+        public int compareTo(Deadline other) {
+            int byTime = Long.compare(atMillis, other.atMillis);
+            return byTime != 0 ? byTime : marketId.compareTo(other.marketId);
+        }
+    }
+}
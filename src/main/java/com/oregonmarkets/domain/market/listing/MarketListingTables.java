@@ -0,0 +1,366 @@
+package com.oregonmarkets.domain.market.listing;
+
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Writes and reads the markets_by_category and markets_by_status query tables, so that listings
+ * by category or status read their own partitions instead of filtering markets_by_id.
+ * Every saved change of a market is written to both tables in one logged batch. When the status
+ * changed, the same batch deletes the rows under the old status. If that batch is lost after the
+ * market itself was saved, the periodic repair catches up: it upserts the rows of every market in
+ * markets_by_id, then drops rows in markets_by_status, and their markets_by_category twins, whose
+ * market is gone or has moved to another status. One node per interval runs the repair, under a
+ * Redis lease, and the first run after startup backfills tables that predate this class.
+ */
+@Slf4j
+@Component
+public class MarketListingTables {
+
+    static final String REPAIR_LEASE = "markets:listings:repair";
+
+    static final String SAVE_BY_CATEGORY = "INSERT INTO markets_by_category (category_id, status, created_at, "
+            + "market_id, title, description, category_name, market_type, market_close, resolution_time, "
+            + "total_volume, total_liquidity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String SAVE_BY_STATUS = "INSERT INTO markets_by_status (status, created_at, market_id, title, "
+            + "category_id, category_name, market_type, market_close, total_volume) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String DELETE_BY_CATEGORY = "DELETE FROM markets_by_category WHERE category_id = ? AND status = ? "
+            + "AND created_at = ? AND market_id = ?";
+
+    static final String DELETE_BY_STATUS = "DELETE FROM markets_by_status WHERE status = ? AND created_at = ? "
+            + "AND market_id = ?";
+
+    static final String SELECT_BY_CATEGORY = "SELECT market_id FROM markets_by_category "
+            + "WHERE category_id = ? AND status = ?";
+
+    static final String SELECT_BY_STATUS = "SELECT market_id, created_at, category_id FROM markets_by_status "
+            + "WHERE status = ?";
+
+    /** Markets read per page of markets_by_id during a repair */
+    static final int REPAIR_PAGE_SIZE = 500;
+
+    /** Partitions of a category in the order its listing walks them: live markets first */
+    static final List<String> STATUSES = Arrays.stream(MarketStatus.values()).map(Enum::name).toList();
+
+    private final CqlStatements cql;
+    private final MarketRepository marketRepository;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final EngineProperties.Listings config;
+
+    /** Identifies this node as the holder of the repair lease */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Scheduler scheduler;
+    private Disposable repairer;
+
+    /**
+     * A market as listed in a query table partition
+     *
+     * @param status status of the partition the row was read from
+     */
+    public record Listing(UUID marketId, String status) {
+    }
+
+    /**
+     * One page of listings
+     *
+     * @param next opaque position of the next page, or null after the last one
+     */
+    public record Page(List<Listing> listings, ByteBuffer next) {
+    }
+
+    public MarketListingTables(CqlStatements cql, MarketRepository marketRepository,
+                               ReactiveRedisTemplate<String, Object> redisTemplate, EngineProperties properties) {
+        this.cql = cql;
+        this.marketRepository = marketRepository;
+        this.redisTemplate = redisTemplate;
+        this.config = properties.getListings();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isRepairEnabled()) {
+            log.warn("Repair of the market query tables is disabled on this node");
+            return;
+        }
+        scheduler = Schedulers.newSingle("market-listing-repair");
+        repairer = scheduler.schedulePeriodically(this::runRepair, 0, config.getRepairIntervalMinutes(),
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (repairer != null) {
+            repairer.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Write a saved market's rows, moving them from the partitions of its previous status if that
+     * changed. Failures are logged rather than returned, since the market itself is already saved;
+     * the repair puts the rows right.
+     *
+     * @param previousStatus status the market had before the change, or null if it is new
+     */
+    public Mono<Void> record(Market market, String previousStatus) {
+        if (market.getCreatedAt() == null) {
+            log.warn("Market {} has no creation time and cannot be listed by category or status", market.getMarketId());
+            return Mono.empty();
+        }
+        return cql.execute(() -> {
+            BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED);
+            if (previousStatus != null && !previousStatus.equals(market.getStatus())) {
+                batch.addStatement(deleteByStatus(previousStatus, market.getCreatedAt(), market.getMarketId()).build());
+                if (market.getCategoryId() != null) {
+                    batch.addStatement(deleteByCategory(market.getCategoryId(), previousStatus, market.getCreatedAt(),
+                            market.getMarketId()).build());
+                }
+            }
+            batch.addStatement(cql.bound(SAVE_BY_STATUS)
+                    .setString(0, market.getStatus())
+                    .setInstant(1, market.getCreatedAt())
+                    .setUuid(2, market.getMarketId())
+                    .setString(3, market.getTitle())
+                    .setUuid(4, market.getCategoryId())
+                    .setString(5, market.getCategoryName())
+                    .setString(6, market.getMarketType())
+                    .setInstant(7, market.getMarketClose())
+                    .setBigDecimal(8, market.getTotalVolume())
+                    .build());
+            if (market.getCategoryId() != null) {
+                batch.addStatement(cql.bound(SAVE_BY_CATEGORY)
+                        .setUuid(0, market.getCategoryId())
+                        .setString(1, market.getStatus())
+                        .setInstant(2, market.getCreatedAt())
+                        .setUuid(3, market.getMarketId())
+                        .setString(4, market.getTitle())
+                        .setString(5, market.getDescription())
+                        .setString(6, market.getCategoryName())
+                        .setString(7, market.getMarketType())
+                        .setInstant(8, market.getMarketClose())
+                        .setInstant(9, market.getResolutionTime())
+                        .setBigDecimal(10, market.getTotalVolume())
+                        .setBigDecimal(11, market.getTotalLiquidity())
+                        .build());
+            }
+            return batch.build();
+        }).then().onErrorResume(error -> {
+            log.error("Failed to list market {} by category and status; the next repair will", market.getMarketId(), error);
+            return Mono.empty();
+        });
+    }
+
+    // ==================== Reads ====================
+
+    /**
+     * Every market listed under a status, newest first
+     */
+    public Flux<Listing> findByStatus(String status) {
+        return rows(() -> cql.bound(SELECT_BY_STATUS).setString(0, status))
+                .map(row -> new Listing(row.getUuid("market_id"), status));
+    }
+
+    /**
+     * Every market listed under a category, one status partition after another, each newest first
+     */
+    public Flux<Listing> findByCategory(UUID categoryId) {
+        return Flux.fromIterable(STATUSES)
+                .concatMap(status -> rows(() -> cql.bound(SELECT_BY_CATEGORY).setUuid(0, categoryId).setString(1, status))
+                        .map(row -> new Listing(row.getUuid("market_id"), status)));
+    }
+
+    /**
+     * One page of the markets listed under a status
+     *
+     * @param position {@link Page#next()} of the previous page, or null for the first page
+     */
+    public Mono<Page> pageByStatus(String status, int limit, ByteBuffer position) {
+        return page(List.of(status), partition -> cql.bound(SELECT_BY_STATUS).setString(0, partition), limit, position);
+    }
+
+    /**
+     * One page of the markets listed under a category, in the order of {@link #findByCategory}
+     *
+     * @param position {@link Page#next()} of the previous page, or null for the first page
+     */
+    public Mono<Page> pageByCategory(UUID categoryId, int limit, ByteBuffer position) {
+        return page(STATUSES, partition -> cql.bound(SELECT_BY_CATEGORY).setUuid(0, categoryId).setString(1, partition),
+                limit, position);
+    }
+
+    /**
+     * Read a page across the given status partitions in order. A position is the index of the
+     * partition to go on with, followed by the driver's paging state within it, if any.
+     */
+    private Mono<Page> page(List<String> statuses, Function<String, BoundStatementBuilder> query, int limit,
+                            ByteBuffer position) {
+        int partition = 0;
+        ByteBuffer pagingState = null;
+        if (position != null && position.hasRemaining()) {
+            ByteBuffer read = position.duplicate();
+            partition = read.get();
+            if (partition < 0 || partition >= statuses.size()) {
+                return Mono.error(new BusinessException(ResponseCode.INVALID_INPUT, "Invalid cursor"));
+            }
+            pagingState = read.hasRemaining() ? read.slice() : null;
+        }
+        return fill(statuses, query, limit, partition, pagingState, new ArrayList<>());
+    }
+
+    private Mono<Page> fill(List<String> statuses, Function<String, BoundStatementBuilder> query, int limit,
+                            int partition, ByteBuffer pagingState, List<Listing> listings) {
+        String status = statuses.get(partition);
+        return cql.execute(() -> query.apply(status)
+                        .setPageSize(limit - listings.size())
+                        .setPagingState(pagingState)
+                        .build())
+                .flatMap(page -> {
+                    page.currentPage().forEach(row -> listings.add(new Listing(row.getUuid("market_id"), status)));
+                    ByteBuffer next = page.hasMorePages() ? page.getExecutionInfo().getPagingState() : null;
+                    if (next != null) {
+                        return listings.size() < limit
+                                ? fill(statuses, query, limit, partition, next, listings)
+                                : Mono.just(new Page(listings, position(partition, next)));
+                    }
+                    if (partition + 1 == statuses.size()) {
+                        return Mono.just(new Page(listings, null));
+                    }
+                    return listings.size() < limit
+                            ? fill(statuses, query, limit, partition + 1, null, listings)
+                            : Mono.just(new Page(listings, position(partition + 1, null)));
+                });
+    }
+
+    private static ByteBuffer position(int partition, ByteBuffer pagingState) {
+        ByteBuffer position = ByteBuffer.allocate(1 + (pagingState != null ? pagingState.remaining() : 0));
+        position.put((byte) partition);
+        if (pagingState != null) {
+            position.put(pagingState.duplicate());
+        }
+        return position.flip();
+    }
+
+    // ==================== Repair ====================
+
+    private void runRepair() {
+        acquireRepair()
+                .filter(Boolean::booleanValue)
+                .flatMap(held -> repair())
+                .subscribe(fixed -> log.info("Repaired market query tables, {} stale rows removed", fixed),
+                        error -> log.error("Failed to repair market query tables", error));
+    }
+
+    /**
+     * Upsert the rows of every market, then remove rows left under a status their market no longer has
+     *
+     * @return the number of stale rows removed
+     */
+    Mono<Long> repair() {
+        Mono<Long> upserted = marketRepository.findAllBy(CassandraPageRequest.first(REPAIR_PAGE_SIZE))
+                .expand(slice -> slice.hasNext() ? marketRepository.findAllBy(slice.nextPageable()) : Mono.empty())
+                .flatMapIterable(Slice::getContent)
+                .flatMap(market -> record(market, null), config.getRepairConcurrency())
+                .count();
+        Mono<Long> removed = Flux.fromIterable(STATUSES)
+                .concatMap(status -> rows(() -> cql.bound(SELECT_BY_STATUS).setString(0, status))
+                        .flatMap(row -> marketRepository.findById(row.getUuid("market_id"))
+                                        .map(Market::getStatus)
+                                        .defaultIfEmpty("")
+                                        .filter(current -> !current.equals(status))
+                                        .flatMap(current -> remove(status, row)),
+                                config.getRepairConcurrency()))
+                .count();
+        return upserted.then(removed);
+    }
+
+    private Mono<Boolean> remove(String status, Row row) {
+        UUID marketId = row.getUuid("market_id");
+        Instant createdAt = row.getInstant("created_at");
+        UUID categoryId = row.getUuid("category_id");
+        return cql.execute(() -> {
+            BatchStatementBuilder batch = BatchStatement.builder(DefaultBatchType.LOGGED)
+                    .addStatement(deleteByStatus(status, createdAt, marketId).build());
+            if (categoryId != null) {
+                batch.addStatement(deleteByCategory(categoryId, status, createdAt, marketId).build());
+            }
+            return batch.build();
+        }).thenReturn(true)
+                .doOnNext(removed -> log.debug("Removed stale {} listing of market {}", status, marketId));
+    }
+
+    /**
+     * Claim this interval's repair for this node. When Redis is unavailable the repair is skipped
+     * rather than run by every node at once.
+     */
+    private Mono<Boolean> acquireRepair() {
+        if (redisTemplate == null) {
+            return Mono.just(true);
+        }
+        return redisTemplate.opsForValue()
+                .setIfAbsent(REPAIR_LEASE, nodeId, Duration.ofMinutes(config.getRepairIntervalMinutes()))
+                .onErrorResume(e -> {
+                    log.warn("Could not claim the market query table repair in Redis: {}", e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    // ==================== Storage ====================
+
+    private BoundStatementBuilder deleteByStatus(String status, Instant createdAt, UUID marketId) {
+        return cql.bound(DELETE_BY_STATUS)
+                .setString(0, status)
+                .setInstant(1, createdAt)
+                .setUuid(2, marketId);
+    }
+
+    private BoundStatementBuilder deleteByCategory(UUID categoryId, String status, Instant createdAt, UUID marketId) {
+        return cql.bound(DELETE_BY_CATEGORY)
+                .setUuid(0, categoryId)
+                .setString(1, status)
+                .setInstant(2, createdAt)
+                .setUuid(3, marketId);
+    }
+
+    /**
+     * Rows of one partition, page by page
+     */
+    private Flux<Row> rows(Supplier<BoundStatementBuilder> query) {
+        return cql.rows(() -> query.get().build());
+    }
+}
@@ -116,6 +116,13 @@ public class Market {
     @Column("tick_size_e4")
     private Long tickSizeE4; // Minimum price increment (e.g., 100 = 1%)
 
+    // Pricing
+    @Column("pricing_mode")
+    private String pricingMode; // ORDER_BOOK or LMSR
+
+    @Column("lmsr_liquidity")
+    private BigDecimal lmsrLiquidity; // LMSR liquidity parameter b, in shares
+
     // Financial Data
     @Column("total_volume")
     private BigDecimal totalVolume;
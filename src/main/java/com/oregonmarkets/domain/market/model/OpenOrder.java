@@ -0,0 +1,84 @@
+package com.oregonmarkets.domain.market.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.Column;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Open order entity
+ * Table: open_orders_by_user
+ * An order that is still OPEN or PARTIALLY_FILLED; the engine's write-behind stage removes the
+ * row once the order is filled, cancelled or expired
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("open_orders_by_user")
+public class OpenOrder {
+
+    @PrimaryKeyColumn(name = "user_id", ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private UUID userId;
+
+    @PrimaryKeyColumn(name = "market_id", ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private UUID marketId;
+
+    @PrimaryKeyColumn(name = "order_id", ordinal = 2, type = PrimaryKeyType.CLUSTERED)
+    private UUID orderId;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    // Market and Outcome (Denormalized)
+    @Column("market_title")
+    private String marketTitle;
+
+    @Column("outcome_id")
+    private UUID outcomeId;
+
+    @Column("outcome_name")
+    private String outcomeName;
+
+    // Order Details
+    @Column("side")
+    private String side;
+
+    @Column("order_type")
+    private String orderType;
+
+    @Column("price_e4")
+    private Long priceE4;
+
+    @Column("quantity")
+    private BigDecimal quantity;
+
+    @Column("filled_quantity")
+    private BigDecimal filledQuantity;
+
+    @Column("remaining_quantity")
+    private BigDecimal remainingQuantity;
+
+    @Column("status")
+    private String status; // OPEN or PARTIALLY_FILLED
+
+    @Column("time_in_force")
+    private String timeInForce;
+
+    @Column("expires_at")
+    private Instant expiresAt;
+
+    @Column("client_order_id")
+    private String clientOrderId;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+}
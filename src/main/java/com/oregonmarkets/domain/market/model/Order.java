@@ -19,7 +19,7 @@ import java.util.UUID;
  * Represents a single order placed by a user
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Table("orders_by_user")
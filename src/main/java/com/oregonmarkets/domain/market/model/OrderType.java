@@ -0,0 +1,12 @@
+package com.oregonmarkets.domain.market.model;
+
+/**
+ * Order type enumeration
+ */
+public enum OrderType {
+  /** Limit order - executes at the given price or better */
+  LIMIT,
+
+  /** Market order - executes against the best available prices, never rests */
+  MARKET
+}
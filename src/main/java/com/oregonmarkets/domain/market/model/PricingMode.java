@@ -0,0 +1,12 @@
+package com.oregonmarkets.domain.market.model;
+
+/**
+ * How a market's outcomes are priced and traded
+ */
+public enum PricingMode {
+  /** Orders match each other on a limit order book */
+  ORDER_BOOK,
+
+  /** Orders trade against an LMSR automated market maker that always quotes every outcome */
+  LMSR
+}
@@ -0,0 +1,21 @@
+package com.oregonmarkets.domain.market.model;
+
+/**
+ * Order time in force enumeration
+ */
+public enum TimeInForce {
+  /** Good till cancelled - rests on the book until filled or cancelled */
+  GTC,
+
+  /** Immediate or cancel - fills what it can, remainder is cancelled */
+  IOC,
+
+  /** Fill or kill - fills completely or not at all */
+  FOK,
+
+  /** Day order - rests on the book until the end of the trading day */
+  DAY,
+
+  /** Good till date - rests on the book until its expiry time */
+  GTD
+}
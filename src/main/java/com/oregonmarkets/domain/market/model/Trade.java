@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.Column;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
@@ -110,4 +111,18 @@ public class Trade {
     // Metadata
     @Column("created_at")
     private Instant createdAt;
+
+    // Amounts in micro-units as computed by the matching engine, so in-process consumers need
+    // not convert the decimals back; zero on trades read from the database
+    @Transient
+    private long quantityMicros;
+
+    @Transient
+    private long valueMicros;
+
+    @Transient
+    private long buyerFeeMicros;
+
+    @Transient
+    private long sellerFeeMicros;
 }
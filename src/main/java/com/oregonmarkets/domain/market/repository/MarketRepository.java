@@ -3,6 +3,8 @@ package com.oregonmarkets.domain.market.repository;
 import com.oregonmarkets.domain.market.model.Market;
 import org.springframework.data.cassandra.repository.Query;
 import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -10,20 +12,17 @@ import reactor.core.publisher.Mono;
 import java.util.UUID;
 
 /**
- * Repository for Market entity (markets_by_id table)
+ * Repository for Market entity (markets_by_id table).
+ * Listings by category or status are read from their query tables through MarketListingTables.
  */
 @Repository
 public interface MarketRepository extends ReactiveCassandraRepository<Market, UUID> {
 
     /**
-     * Find markets by status
+     * One page of all markets, resumed from the paging state of the page request
      */
-    Flux<Market> findByStatus(String status);
-
-    /**
-     * Find markets by category
-     */
-    Flux<Market> findByCategoryId(UUID categoryId);
+    @Query("SELECT * FROM markets_by_id")
+    Mono<Slice<Market>> findAllBy(Pageable pageable);
 
     /**
      * Find featured markets
@@ -44,10 +43,4 @@ public interface MarketRepository extends ReactiveCassandraRepository<Market, UU
      * Find markets by creator
      */
     Flux<Market> findByCreatorId(UUID creatorId);
-
-    /**
-     * Custom query to find open markets by category
-     */
-    @Query("SELECT * FROM markets_by_id WHERE category_id = ?0 AND status = 'OPEN' ALLOW FILTERING")
-    Flux<Market> findOpenMarketsByCategory(UUID categoryId);
 }
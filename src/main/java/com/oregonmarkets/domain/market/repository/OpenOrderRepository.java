@@ -0,0 +1,30 @@
+package com.oregonmarkets.domain.market.repository;
+
+import com.oregonmarkets.domain.market.model.OpenOrder;
+import org.springframework.data.cassandra.repository.Query;
+import org.springframework.data.cassandra.repository.ReactiveCassandraRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Repository for OpenOrder entity (open_orders_by_user table).
+ * Holds only live orders, so reads cost in proportion to a user's open orders rather than
+ * their whole order history; rows are written by the engine's write-behind stage only.
+ */
+@Repository
+public interface OpenOrderRepository extends ReactiveCassandraRepository<OpenOrder, UUID> {
+
+    /**
+     * Find all of a user's open orders
+     */
+    @Query("SELECT * FROM open_orders_by_user WHERE user_id = ?0")
+    Flux<OpenOrder> findByUserId(UUID userId);
+
+    /**
+     * Find a user's open orders in one market
+     */
+    @Query("SELECT * FROM open_orders_by_user WHERE user_id = ?0 AND market_id = ?1")
+    Flux<OpenOrder> findByUserIdAndMarketId(UUID userId, UUID marketId);
+}
@@ -34,17 +34,12 @@ public interface OrderRepository extends ReactiveCassandraRepository<Order, UUID
     Flux<Order> findByUserIdAndMarketId(UUID userId, UUID marketId);
 
     /**
-     * Find user's orders by status
+     * Find user's orders by status; scans the user's whole order history, so live orders are
+     * read from {@link OpenOrderRepository} instead
      */
     @Query("SELECT * FROM orders_by_user WHERE user_id = ?0 AND status = ?1 ALLOW FILTERING")
     Flux<Order> findByUserIdAndStatus(UUID userId, String status);
 
-    /**
-     * Find user's open orders
-     */
-    @Query("SELECT * FROM orders_by_user WHERE user_id = ?0 AND status IN ('OPEN', 'PARTIALLY_FILLED') ALLOW FILTERING")
-    Flux<Order> findOpenOrdersByUserId(UUID userId);
-
     /**
      * Find user's orders within date range
      */
@@ -35,6 +35,7 @@ public class MarketRouter {
                 .andRoute(GET("/featured"), handler::getFeaturedMarkets)
                 .andRoute(GET("/trending"), handler::getTrendingMarkets)
                 .andRoute(GET("/search"), handler::searchMarkets)
+                .andRoute(GET("/suggest"), handler::suggest)
                 .andRoute(GET("/slug/{slug}"), handler::getMarketBySlug)
                 .andRoute(GET("/{marketId}"), handler::getMarketById)
                 .andRoute(PUT("/{marketId}").and(accept(MediaType.APPLICATION_JSON)), handler::updateMarket)
@@ -44,6 +45,7 @@ public class MarketRouter {
                 .andRoute(POST("/{marketId}/suspend"), handler::suspendMarket)
                 .andRoute(POST("/{marketId}/reopen"), handler::reopenMarket)
                 .andRoute(GET("/{marketId}/outcomes"), handler::getMarketOutcomes)
+                .andRoute(GET("/{marketId}/settlement"), handler::getSettlement)
         );
     }
 }
@@ -0,0 +1,28 @@
+package com.oregonmarkets.domain.market.router;
+
+import com.oregonmarkets.domain.market.handler.OrderBookHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+
+/**
+ * Router configuration for order book market data endpoints
+ */
+@Configuration
+public class OrderBookRouter {
+
+    private static final String BASE_PATH = "/api/v1/markets/{marketId}/outcomes/{outcomeId}/book";
+
+    @Bean
+    public RouterFunction<ServerResponse> orderBookRoutes(OrderBookHandler handler) {
+        return RouterFunctions.nest(path(BASE_PATH),
+            RouterFunctions
+                .route(GET(""), handler::getOrderBook)
+                .andRoute(GET("/stream"), handler::streamOrderBook)
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package com.oregonmarkets.domain.market.router;
+
+import com.oregonmarkets.domain.market.handler.OrderHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+
+/**
+ * Router configuration for order API endpoints
+ */
+@Configuration
+public class OrderRouter {
+
+    private static final String BASE_PATH = "/api/v1/orders";
+
+    @Bean
+    public RouterFunction<ServerResponse> orderRoutes(OrderHandler handler) {
+        return RouterFunctions.nest(path(BASE_PATH),
+            RouterFunctions
+                .route(GET("/open"), handler::getOpenOrders)
+                .andRoute(POST("").and(accept(MediaType.APPLICATION_JSON)), handler::placeOrder)
+                .andRoute(POST("/batch").and(accept(MediaType.APPLICATION_JSON)), handler::placeOrders)
+                .andRoute(POST("/mass-quote").and(accept(MediaType.APPLICATION_JSON)), handler::replaceQuotes)
+                .andRoute(PUT("/{orderId}").and(accept(MediaType.APPLICATION_JSON)), handler::modifyOrder)
+                .andRoute(DELETE(""), handler::cancelAllOrders)
+                .andRoute(DELETE("/{orderId}"), handler::cancelOrder)
+        );
+    }
+}
@@ -0,0 +1,27 @@
+package com.oregonmarkets.domain.market.router;
+
+import com.oregonmarkets.domain.market.handler.PositionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+
+/**
+ * Router configuration for position API endpoints
+ */
+@Configuration
+public class PositionRouter {
+
+    private static final String BASE_PATH = "/api/v1/positions";
+
+    @Bean
+    public RouterFunction<ServerResponse> positionRoutes(PositionHandler handler) {
+        return RouterFunctions.nest(path(BASE_PATH),
+            RouterFunctions
+                .route(GET(""), handler::getPositions)
+        );
+    }
+}
@@ -0,0 +1,203 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the in-memory market search index and suggestions in step with markets_by_id without
+ * rereading it.
+ *
+ * <p>The table is scanned once, page by page, when the node starts, and each market is passed to
+ * both. After that every market saved through this node is applied here right away and announced on
+ * a Redis channel; the other nodes read just that market by id and apply it. Category and
+ * subcategory changes are announced the same way and make each node reread those small tables. A
+ * node whose subscription drops may miss announcements, so once it has subscribed again it scans
+ * the table one more time to catch up.
+ */
+@Slf4j
+@Component
+public class MarketChangeFeed {
+
+    static final String CHANNEL = "markets:changed";
+
+    /** Announced in place of a market id when a category or subcategory changed */
+    static final String CATEGORIES = "CATEGORIES";
+
+    /** Markets read per page while scanning */
+    static final int SCAN_PAGE_SIZE = 500;
+
+    static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+    static final Duration MAX_RETRY_BACKOFF = Duration.ofMinutes(1);
+
+    private final MarketRepository marketRepository;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final MarketSearchIndex searchIndex;
+    private final MarketSuggester suggester;
+
+    /** Tells this node's announcements apart from those of other nodes */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    private Disposable listener;
+
+    public MarketChangeFeed(MarketRepository marketRepository, ReactiveRedisTemplate<String, Object> redisTemplate,
+                            MarketSearchIndex searchIndex, MarketSuggester suggester) {
+        this.marketRepository = marketRepository;
+        this.redisTemplate = redisTemplate;
+        this.searchIndex = searchIndex;
+        this.suggester = suggester;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Subscribe first so nothing saved while the scan runs is missed
+        if (redisTemplate != null) {
+            listener = listen();
+        }
+        scan();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listener != null) {
+            listener.dispose();
+        }
+    }
+
+    /**
+     * Apply a market saved through this node and announce it to the others in the background
+     */
+    public void marketChanged(Market market) {
+        apply(market);
+        announce(market.getMarketId().toString());
+    }
+
+    /**
+     * Reread the categories on this node and have the others do the same, in the background
+     */
+    public void categoriesChanged() {
+        reloadCategories().subscribe();
+        announce(CATEGORIES);
+    }
+
+    /**
+     * Start a scan of markets_by_id unless one is already running. A failed scan is retried until
+     * it completes, search falling back to the table in the meantime.
+     */
+    void scan() {
+        if (!scanning.compareAndSet(false, true)) {
+            return;
+        }
+        boolean first = !searchIndex.isReady();
+        marketRepository.findAllBy(CassandraPageRequest.first(SCAN_PAGE_SIZE))
+                .expand(slice -> slice.hasNext() ? marketRepository.findAllBy(slice.nextPageable()) : Mono.empty())
+                .flatMapIterable(Slice::getContent)
+                .doOnNext(this::apply)
+                .count()
+                .flatMap(count -> suggester.reloadCategories().thenReturn(count))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, RETRY_BACKOFF).maxBackoff(MAX_RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> log.warn("Scan of markets_by_id failed, retrying: {}",
+                                signal.failure().getMessage())))
+                .doOnNext(count -> {
+                    searchIndex.markReady();
+                    suggester.markReady();
+                })
+                .doFinally(signal -> scanning.set(false))
+                .subscribe(count -> log.info(first
+                                ? "Market search index and suggestions built from {} markets"
+                                : "Market search index and suggestions caught up from {} markets", count),
+                        error -> log.error("Failed to scan markets_by_id", error));
+    }
+
+    /**
+     * Follow the other nodes' announcements, subscribing again with backoff whenever the
+     * subscription fails, and scanning once a new subscription is in place
+     */
+    private Disposable listen() {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        return redisTemplate.listenToChannelLater(CHANNEL)
+                .doOnNext(messages -> {
+                    if (subscribed.getAndSet(true)) {
+                        scan();
+                    }
+                })
+                .<Message<String, Object>>flatMapMany(messages -> messages)
+                .concatMap(message -> receive(String.valueOf(message.getMessage())))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, RETRY_BACKOFF).maxBackoff(MAX_RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> log.warn("Lost subscription to market changes, resubscribing: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    /**
+     * Read and apply the market named in another node's announcement, or reread the categories
+     */
+    Mono<Void> receive(String announcement) {
+        String[] parts = announcement.split(" ", 2);
+        if (parts.length != 2) {
+            log.warn("Ignoring malformed market change announcement: {}", announcement);
+            return Mono.empty();
+        }
+        if (parts[0].equals(nodeId)) {
+            return Mono.empty();
+        }
+        if (parts[1].equals(CATEGORIES)) {
+            return reloadCategories();
+        }
+        UUID marketId;
+        try {
+            marketId = UUID.fromString(parts[1]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed market change announcement: {}", announcement);
+            return Mono.empty();
+        }
+        return marketRepository.findById(marketId)
+                .doOnNext(this::apply)
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
+                .onErrorResume(e -> {
+                    log.warn("Failed to read changed market {}; its search entries stay as they were: {}",
+                            marketId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void apply(Market market) {
+        searchIndex.index(market);
+        suggester.update(market);
+    }
+
+    private Mono<Void> reloadCategories() {
+        return suggester.reloadCategories()
+                .onErrorResume(e -> {
+                    log.warn("Failed to reread categories; suggestions keep the previous ones: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void announce(String change) {
+        if (redisTemplate == null) {
+            return;
+        }
+        redisTemplate.convertAndSend(CHANNEL, nodeId + " " + change)
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
+                .subscribe(null, error -> log.warn("Failed to announce change {}; other nodes keep their previous "
+                        + "entries until they resubscribe: {}", change, error.getMessage()));
+    }
+}
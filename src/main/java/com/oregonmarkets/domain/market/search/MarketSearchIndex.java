@@ -0,0 +1,219 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.domain.market.model.Market;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the searchable text of every market: title, description, tags and
+ * search keywords.
+ *
+ * <p>Text is folded to lower case without diacritics and split on anything that is not a letter or
+ * digit. Each term keeps a posting of market id to field-weighted term frequency, and matches are
+ * ranked with BM25 over those weighted frequencies. The last query term is also matched as a prefix
+ * through the sorted term dictionary, so results follow the search box as the user types.
+ *
+ * <p>{@link MarketChangeFeed} fills the index from a scan of {@code markets_by_id} at startup and
+ * then passes on every market saved on any node. Entries are replaced only by newer versions, so
+ * the scan can overlap with edits. Until the first scan finishes {@link #isReady()} is false and
+ * callers should fall back to reading the table.
+ */
+@Component
+public class MarketSearchIndex {
+
+    /** Dictionary terms a trailing prefix may expand to */
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /** Score share of a prefix expansion relative to an exact term match */
+    static final double PREFIX_WEIGHT = 0.5;
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    static final float TITLE_WEIGHT = 3f;
+    static final float TAG_WEIGHT = 2f;
+    static final float KEYWORD_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** term -> market id -> weighted term frequency, sorted so prefixes are a range */
+    private final TreeMap<String, Map<UUID, Float>> postings = new TreeMap<>();
+    private final Map<UUID, Document> documents = new HashMap<>();
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    private record Document(long version, float length, Set<String> terms) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Called once the startup scan has indexed every market
+     */
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Add a market or replace its previous entry. An entry with a higher version is kept.
+     */
+    public void index(Market market) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, market.getTitle(), TITLE_WEIGHT);
+        addField(frequencies, market.getDescription(), DESCRIPTION_WEIGHT);
+        addFields(frequencies, market.getTags(), TAG_WEIGHT);
+        addFields(frequencies, market.getSearchKeywords(), KEYWORD_WEIGHT);
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+        long version = market.getVersion() != null ? market.getVersion() : 0L;
+        UUID marketId = market.getMarketId();
+
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.get(marketId);
+            if (previous != null) {
+                if (previous.version() > version) {
+                    return;
+                }
+                unindex(marketId, previous);
+            }
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(marketId, frequency));
+            documents.put(marketId, new Document(version, length, frequencies.keySet()));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matching markets for {@code query}, best first
+     */
+    public List<UUID> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String prefix = tokens.get(tokens.size() - 1);
+
+        Map<UUID, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = totalLength / documents.size();
+            for (String token : new LinkedHashSet<>(tokens)) {
+                accumulate(scores, postings.get(token), 1.0, averageLength);
+            }
+            int expansions = 0;
+            for (Map.Entry<String, Map<UUID, Float>> entry
+                    : postings.subMap(prefix, false, prefix + Character.MAX_VALUE, false).entrySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(scores, entry.getValue(), PREFIX_WEIGHT, averageLength);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(scores, limit);
+    }
+
+    /**
+     * Add the BM25 contribution of one term to the score of every market it occurs in
+     */
+    private void accumulate(Map<UUID, Double> scores, Map<UUID, Float> posting, double weight, double averageLength) {
+        if (posting == null) {
+            return;
+        }
+        int count = documents.size();
+        int frequency = posting.size();
+        double idf = Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+        posting.forEach((marketId, termFrequency) -> {
+            double norm = K1 * (1 - B + B * documents.get(marketId).length() / averageLength);
+            double score = weight * idf * termFrequency * (K1 + 1) / (termFrequency + norm);
+            scores.merge(marketId, score, Double::sum);
+        });
+    }
+
+    private void unindex(UUID marketId, Document document) {
+        for (String term : document.terms()) {
+            Map<UUID, Float> posting = postings.get(term);
+            posting.remove(marketId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        documents.remove(marketId);
+        totalLength -= document.length();
+    }
+
+    private static List<UUID> top(Map<UUID, Double> scores, int limit) {
+        Comparator<Map.Entry<UUID, Double>> byScore = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<UUID, Double>> best = new PriorityQueue<>(byScore);
+        for (Map.Entry<UUID, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<UUID> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().getKey());
+        }
+        return ranked.reversed();
+    }
+
+    private static void addFields(Map<String, Float> frequencies, List<String> values, float weight) {
+        if (values != null) {
+            values.forEach(value -> addField(frequencies, value, weight));
+        }
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Lower-cased, accent-free runs of letters and digits
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,193 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Category;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.model.Subcategory;
+import com.oregonmarkets.domain.market.repository.CategoryRepository;
+import com.oregonmarkets.domain.market.repository.SubcategoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Type-ahead suggestions over market titles, category names and subcategory names.
+ *
+ * <p>Suggestions come from a {@link SuggestionTrie} built from what this class holds in memory: the
+ * listed markets passed on by {@link MarketChangeFeed}, which shares its startup scan and change
+ * announcements with the search index, and the category tables, reread whenever a category or
+ * subcategory changes. Changes are folded in by rebuilding the trie in memory shortly after they
+ * arrive, many changes in one rebuild, and the new trie is swapped in whole.
+ *
+ * <p>A market is weighted by {@code log(1 + volume24h) + displayPriority}; a category or subcategory
+ * by the log of the combined 24h volume of its markets. Cancelled and resolved markets are left out.
+ */
+@Slf4j
+@Component
+public class MarketSuggester {
+
+    public static final String MARKET = "MARKET";
+    public static final String CATEGORY = "CATEGORY";
+    public static final String SUBCATEGORY = "SUBCATEGORY";
+
+    private final CategoryRepository categoryRepository;
+    private final SubcategoryRepository subcategoryRepository;
+    private final EngineProperties.Suggest config;
+
+    /** What a listed market contributes to the trie */
+    private record Listing(String title, String slug, UUID categoryId, UUID subcategoryId, double volume,
+                           int priority) {
+    }
+
+    private final Map<UUID, Listing> listings = new ConcurrentHashMap<>();
+    private volatile List<Category> categories = List.of();
+    private volatile List<Subcategory> subcategories = List.of();
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+
+    private Scheduler scheduler;
+
+    public MarketSuggester(CategoryRepository categoryRepository, SubcategoryRepository subcategoryRepository,
+                           EngineProperties properties) {
+        this.categoryRepository = categoryRepository;
+        this.subcategoryRepository = subcategoryRepository;
+        this.config = properties.getSuggest();
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Schedulers.newSingle("market-suggest");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Best completions of {@code prefix}, best first; at most the configured completions per node
+     */
+    public List<SuggestionTrie.Entry> suggest(String prefix, int limit) {
+        return trie.complete(prefix, Math.min(limit, config.getCompletionsPerNode()));
+    }
+
+    /**
+     * Take in a created or changed market
+     */
+    void update(Market market) {
+        if (isListed(market)) {
+            listings.put(market.getMarketId(), new Listing(market.getTitle(), market.getSlug(),
+                    market.getCategoryId(), market.getSubcategoryId(), volume(market),
+                    market.getDisplayPriority() != null ? market.getDisplayPriority() : 0));
+        } else {
+            listings.remove(market.getMarketId());
+        }
+        requestRebuild();
+    }
+
+    /**
+     * Reread the category and subcategory tables, which are small enough to read whole
+     */
+    Mono<Void> reloadCategories() {
+        return categoryRepository.findAll().collectList()
+                .zipWith(subcategoryRepository.findAll().collectList())
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(200)))
+                .doOnNext(tables -> {
+                    categories = tables.getT1();
+                    subcategories = tables.getT2();
+                    requestRebuild();
+                })
+                .then();
+    }
+
+    /**
+     * Called once the startup scan has passed on every market; the first trie is built then
+     */
+    void markReady() {
+        ready = true;
+        requestRebuild();
+    }
+
+    /**
+     * Rebuild after the configured delay unless a rebuild is already due, so a burst of changes
+     * costs one rebuild
+     */
+    private void requestRebuild() {
+        if (ready && rebuildPending.compareAndSet(false, true)) {
+            scheduler.schedule(this::rebuild, config.getRebuildDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild() {
+        // Cleared first, so a change arriving during the build schedules another
+        rebuildPending.set(false);
+        try {
+            SuggestionTrie built = build();
+            trie = built;
+            log.debug("Suggestion trie rebuilt with {} entries", built.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild suggestion trie; keeping the previous one", e);
+        }
+    }
+
+    SuggestionTrie build() {
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(config.getCompletionsPerNode());
+        Map<UUID, Double> categoryVolume = new HashMap<>();
+        Map<UUID, Double> subcategoryVolume = new HashMap<>();
+
+        listings.forEach((marketId, listing) -> {
+            builder.add(listing.title(), MARKET, marketId, listing.slug(),
+                    Math.log1p(listing.volume()) + listing.priority());
+            if (listing.categoryId() != null) {
+                categoryVolume.merge(listing.categoryId(), listing.volume(), Double::sum);
+            }
+            if (listing.subcategoryId() != null) {
+                subcategoryVolume.merge(listing.subcategoryId(), listing.volume(), Double::sum);
+            }
+        });
+        for (Category category : categories) {
+            if (!Boolean.FALSE.equals(category.getEnabled())) {
+                builder.add(category.getName(), CATEGORY, category.getCategoryId(), category.getSlug(),
+                        Math.log1p(categoryVolume.getOrDefault(category.getCategoryId(), 0.0)));
+            }
+        }
+        for (Subcategory subcategory : subcategories) {
+            if (!Boolean.FALSE.equals(subcategory.getEnabled())) {
+                builder.add(subcategory.getName(), SUBCATEGORY, subcategory.getSubcategoryId(),
+                        subcategory.getSlug(),
+                        Math.log1p(subcategoryVolume.getOrDefault(subcategory.getSubcategoryId(), 0.0)));
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isListed(Market market) {
+        return !MarketStatus.CANCELLED.name().equals(market.getStatus())
+                && !MarketStatus.RESOLVED.name().equals(market.getStatus());
+    }
+
+    private static double volume(Market market) {
+        BigDecimal volume = market.getVolume24h();
+        return volume != null && volume.signum() > 0 ? volume.doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,209 @@
+package com.oregonmarkets.domain.market.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable radix trie of suggestion keys for type-ahead.
+ *
+ * <p>Keys are suggestion texts folded the same way as the search index and joined by single
+ * spaces. Chains of single-child nodes are collapsed into one edge label, so there are fewer nodes
+ * than keys plus branch points. Every node keeps the indexes of its best {@code k} completions by
+ * weight, computed bottom-up when the trie is built, so a lookup walks the prefix and reads that
+ * node's list: the cost depends on the prefix length, not on how many keys share it.
+ */
+public final class SuggestionTrie {
+
+    /**
+     * A completion and what it points to
+     *
+     * @param type   MARKET, CATEGORY or SUBCATEGORY
+     * @param weight higher ranks first
+     */
+    public record Entry(String text, String type, UUID id, String slug, double weight) {
+    }
+
+    private static final Comparator<Entry> BEST_FIRST =
+            Comparator.comparingDouble(Entry::weight).reversed().thenComparing(Entry::text);
+
+    private static final int[] NONE = new int[0];
+    private static final Node[] LEAF = new Node[0];
+    private static final char[] NO_CHARS = new char[0];
+
+    public static final SuggestionTrie EMPTY = new Builder(0).build();
+
+    private final Entry[] entries;
+    private final Node root;
+
+    private static final class Node {
+        String label;
+        /** Children sorted by the first character of their label */
+        Node[] children = LEAF;
+        char[] firstChars = NO_CHARS;
+        /** Best completions under this node, best first */
+        int[] top = NONE;
+        /** Entries whose key ends here; only used while building */
+        List<Integer> terminals;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int at = Arrays.binarySearch(firstChars, first);
+            return at >= 0 ? children[at] : null;
+        }
+
+        void addChild(Node child) {
+            int at = -Arrays.binarySearch(firstChars, child.label.charAt(0)) - 1;
+            Node[] grownChildren = new Node[children.length + 1];
+            char[] grownFirst = new char[firstChars.length + 1];
+            System.arraycopy(children, 0, grownChildren, 0, at);
+            System.arraycopy(firstChars, 0, grownFirst, 0, at);
+            grownChildren[at] = child;
+            grownFirst[at] = child.label.charAt(0);
+            System.arraycopy(children, at, grownChildren, at + 1, children.length - at);
+            System.arraycopy(firstChars, at, grownFirst, at + 1, firstChars.length - at);
+            children = grownChildren;
+            firstChars = grownFirst;
+        }
+
+        void replaceChild(Node child) {
+            children[Arrays.binarySearch(firstChars, child.label.charAt(0))] = child;
+        }
+    }
+
+    private SuggestionTrie(Entry[] entries, Node root) {
+        this.entries = entries;
+        this.root = root;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Best completions of {@code prefix}, best first
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        String key = key(prefix);
+        Node node = root;
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.child(key.charAt(at));
+            if (child == null) {
+                return List.of();
+            }
+            int matched = Math.min(child.label.length(), key.length() - at);
+            if (!child.label.regionMatches(0, key, at, matched)) {
+                return List.of();
+            }
+            at += matched;
+            node = child;
+        }
+        int count = Math.min(limit, node.top.length);
+        List<Entry> completions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            completions.add(entries[node.top[i]]);
+        }
+        return completions;
+    }
+
+    /**
+     * Folded form of a suggestion text or typed prefix
+     */
+    static String key(String text) {
+        return String.join(" ", MarketSearchIndex.tokenize(text));
+    }
+
+    /**
+     * Collects entries and builds the trie once; not thread-safe
+     */
+    public static final class Builder {
+
+        private final int completionsPerNode;
+        private final List<Entry> entries = new ArrayList<>();
+        private final Node root = new Node("");
+
+        public Builder(int completionsPerNode) {
+            this.completionsPerNode = completionsPerNode;
+        }
+
+        public Builder add(String text, String type, UUID id, String slug, double weight) {
+            String key = key(text);
+            if (key.isEmpty()) {
+                return this;
+            }
+            entries.add(new Entry(text, type, id, slug, weight));
+            insert(key, entries.size() - 1);
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            Entry[] built = entries.toArray(new Entry[0]);
+            rank(root, built);
+            return new SuggestionTrie(built, root);
+        }
+
+        private void insert(String key, int entry) {
+            Node node = root;
+            int at = 0;
+            while (at < key.length()) {
+                Node child = node.child(key.charAt(at));
+                if (child == null) {
+                    child = new Node(key.substring(at));
+                    node.addChild(child);
+                    node = child;
+                    break;
+                }
+                int common = commonPrefix(child.label, key, at);
+                if (common < child.label.length()) {
+                    // Split the edge where the key leaves it
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.addChild(child);
+                    node.replaceChild(split);
+                    child = split;
+                }
+                at += common;
+                node = child;
+            }
+            if (node.terminals == null) {
+                node.terminals = new ArrayList<>(1);
+            }
+            node.terminals.add(entry);
+        }
+
+        /**
+         * Fill each node's best completions from its own entries and its children's lists
+         */
+        private void rank(Node node, Entry[] built) {
+            List<Integer> candidates = node.terminals != null ? node.terminals : new ArrayList<>();
+            for (Node child : node.children) {
+                rank(child, built);
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+            }
+            candidates.sort((a, b) -> BEST_FIRST.compare(built[a], built[b]));
+            int count = Math.min(completionsPerNode, candidates.size());
+            node.top = count == 0 ? NONE : new int[count];
+            for (int i = 0; i < count; i++) {
+                node.top[i] = candidates.get(i);
+            }
+            node.terminals = null;
+        }
+
+        private static int commonPrefix(String label, String key, int from) {
+            int max = Math.min(label.length(), key.length() - from);
+            int i = 0;
+            while (i < max && label.charAt(i) == key.charAt(from + i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
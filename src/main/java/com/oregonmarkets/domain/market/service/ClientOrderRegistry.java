@@ -0,0 +1,149 @@
+package com.oregonmarkets.domain.market.service;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cross-node record of the client order IDs each user has submitted, kept in Redis for the
+ * configured window. An order with a client order ID first claims it; a retry that finds the
+ * ID taken gets the original order's response back once it is known. The engine shards keep
+ * their own table of recent client order IDs, so retries reaching the same node are caught
+ * even while Redis is unavailable, in which case claims are skipped rather than failing orders.
+ * The orders of a batch or mass quote claim their IDs together, each on its own, so a retried
+ * batch submits only the orders that did not go through the first time.
+ */
+@Slf4j
+@Component
+public class ClientOrderRegistry {
+
+    static final String KEY_PREFIX = "orders:client:";
+    static final String PENDING = "PENDING";
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final EngineProperties.Idempotency config;
+
+    /**
+     * Outcome of claiming one order's client order ID
+     *
+     * @param original  response of the order first submitted with the ID, if that order completed
+     * @param duplicate error to answer with if that order is still in flight
+     */
+    public record Claim(OrderResponse original, BusinessException duplicate) {
+
+        static final Claim NEW = new Claim(null, null);
+
+        /**
+         * Whether the order should go ahead
+         */
+        public boolean isNew() {
+            return original == null && duplicate == null;
+        }
+    }
+
+    public ClientOrderRegistry(ReactiveRedisTemplate<String, Object> redisTemplate, EngineProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.config = properties.getIdempotency();
+    }
+
+    /**
+     * Claim a client order ID for a new order
+     *
+     * @return empty if the order should go ahead, the original order's response if it is a
+     * retry of a completed order, or {@link ResponseCode#DUPLICATE_ORDER} if the original is
+     * still in flight
+     */
+    public Mono<OrderResponse> claim(UUID userId, String clientOrderId) {
+        if (!isEnabled(clientOrderId)) {
+            return Mono.empty();
+        }
+        String key = key(userId, clientOrderId);
+        return redisTemplate.opsForValue()
+                .setIfAbsent(key, PENDING, Duration.ofSeconds(config.getPendingSeconds()))
+                .flatMap(claimed -> claimed ? Mono.<OrderResponse>empty() : original(key, clientOrderId))
+                .onErrorResume(e -> !(e instanceof BusinessException), e -> {
+                    log.warn("Could not claim client order ID {} in Redis, relying on the engine: {}",
+                            clientOrderId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Claim the client order IDs of a batch's orders, issuing every SET NX at once
+     *
+     * @param clientOrderIds the orders' IDs in request order, null for an order without one
+     * @return one claim per order, in request order
+     */
+    public Mono<List<Claim>> claimAll(UUID userId, List<String> clientOrderIds) {
+        return Flux.range(0, clientOrderIds.size())
+                .flatMapSequential(i -> claim(userId, clientOrderIds.get(i))
+                        .map(original -> new Claim(original, null))
+                        .onErrorResume(BusinessException.class, e -> Mono.just(new Claim(null, e)))
+                        .defaultIfEmpty(Claim.NEW))
+                .collectList();
+    }
+
+    /**
+     * Record the response a claimed client order ID's order got, for retries to receive
+     */
+    public Mono<Void> complete(UUID userId, String clientOrderId, OrderResponse response) {
+        if (!isEnabled(clientOrderId)) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue()
+                .set(key(userId, clientOrderId), response, Duration.ofSeconds(config.getWindowSeconds()))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Could not record client order ID {} in Redis: {}", clientOrderId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Free a client order ID whose order was refused, so the client can retry it
+     */
+    public Mono<Void> release(UUID userId, String clientOrderId) {
+        if (!isEnabled(clientOrderId)) {
+            return Mono.empty();
+        }
+        return redisTemplate.delete(key(userId, clientOrderId))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Could not release client order ID {} in Redis: {}", clientOrderId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<OrderResponse> original(String key, String clientOrderId) {
+        return redisTemplate.opsForValue().get(key)
+                .flatMap(value -> {
+                    if (value instanceof OrderResponse response) {
+                        log.debug("Returning original order {} for client order ID {}", response.getOrderId(),
+                                clientOrderId);
+                        return Mono.just(response);
+                    }
+                    return Mono.<OrderResponse>error(new BusinessException(
+                            ResponseCode.DUPLICATE_ORDER,
+                            "An order with client order ID " + clientOrderId + " is already being processed"
+                    ));
+                });
+    }
+
+    private boolean isEnabled(String clientOrderId) {
+        return clientOrderId != null && config.isEnabled() && redisTemplate != null;
+    }
+
+    private static String key(UUID userId, String clientOrderId) {
+        return KEY_PREFIX + userId + ":" + clientOrderId;
+    }
+}
@@ -3,8 +3,11 @@ package com.oregonmarkets.domain.market.service;
 import com.oregonmarkets.domain.market.dto.request.CreateMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.ResolveMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.UpdateMarketRequest;
+import com.oregonmarkets.domain.market.dto.response.MarketPageResponse;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
 import com.oregonmarkets.domain.market.dto.response.OutcomeResponse;
+import com.oregonmarkets.domain.market.dto.response.SettlementResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -35,16 +38,33 @@ public interface MarketService {
      */
     Flux<MarketResponse> getAllMarkets();
 
+    /**
+     * Get one page of all markets
+     *
+     * @param cursor cursor of the page from the previous page, or null for the first page
+     */
+    Mono<MarketPageResponse> getAllMarkets(int limit, String cursor);
+
     /**
      * Get markets by category
      */
     Flux<MarketResponse> getMarketsByCategory(UUID categoryId);
 
+    /**
+     * Get one page of markets by category
+     */
+    Mono<MarketPageResponse> getMarketsByCategory(UUID categoryId, int limit, String cursor);
+
     /**
      * Get markets by status
      */
     Flux<MarketResponse> getMarketsByStatus(String status);
 
+    /**
+     * Get one page of markets by status
+     */
+    Mono<MarketPageResponse> getMarketsByStatus(String status, int limit, String cursor);
+
     /**
      * Get featured markets
      */
@@ -99,4 +119,14 @@ public interface MarketService {
      * Search markets by title or description
      */
     Flux<MarketResponse> searchMarkets(String query);
+
+    /**
+     * Type-ahead suggestions of market titles, category and subcategory names starting with the prefix
+     */
+    Flux<SuggestionResponse> suggest(String prefix, int limit);
+
+    /**
+     * Get the progress of a resolved market's payouts
+     */
+    Mono<SettlementResponse> getSettlement(UUID marketId);
 }
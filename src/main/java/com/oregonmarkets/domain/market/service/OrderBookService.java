@@ -0,0 +1,28 @@
+package com.oregonmarkets.domain.market.service;
+
+import com.oregonmarkets.domain.market.dto.response.OrderBookResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Service interface for order book market data
+ */
+public interface OrderBookService {
+
+    /**
+     * Aggregated price levels of an outcome's book, read from the matching engine
+     *
+     * @param depth maximum number of levels per side, or 0 for all of them
+     */
+    Mono<OrderBookResponse> getOrderBook(UUID marketId, UUID outcomeId, int depth);
+
+    /**
+     * Stream of changes to an outcome's book after the given sequence. Starts with a full snapshot
+     * unless the book is still at {@code afterSequence}, then emits one delta per change.
+     *
+     * @param afterSequence sequence of the snapshot the client already holds, or null for none
+     */
+    Flux<OrderBookResponse> streamOrderBook(UUID marketId, UUID outcomeId, Long afterSequence);
+}
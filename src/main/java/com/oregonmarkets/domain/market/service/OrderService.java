@@ -0,0 +1,57 @@
+package com.oregonmarkets.domain.market.service;
+
+import com.oregonmarkets.domain.market.dto.request.BatchOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.ModifyOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.PlaceOrderRequest;
+import com.oregonmarkets.domain.market.dto.response.BatchOrderResponse;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Service interface for order operations
+ */
+public interface OrderService {
+
+    /**
+     * Place an order and match it against the book
+     */
+    Mono<OrderResponse> placeOrder(PlaceOrderRequest request, UUID userId);
+
+    /**
+     * Change the price and/or quantity of a resting order
+     */
+    Mono<OrderResponse> modifyOrder(UUID orderId, ModifyOrderRequest request, UUID userId);
+
+    /**
+     * Cancel a resting order
+     */
+    Mono<OrderResponse> cancelOrder(UUID marketId, UUID orderId, UUID userId);
+
+    /**
+     * Cancel all of a user's resting orders in a market
+     */
+    Flux<OrderResponse> cancelAllOrders(UUID marketId, UUID userId);
+
+    /**
+     * Halt trading in a market on this node: close its engine books, cancelling every resting order in them
+     */
+    Flux<OrderResponse> haltMarket(UUID marketId);
+
+    /**
+     * List the user's open orders, in one market or in all of them when {@code marketId} is null
+     */
+    Flux<OrderResponse> getOpenOrders(UUID userId, UUID marketId);
+
+    /**
+     * Place several orders of one market in a single engine command, with a result per order
+     */
+    Mono<BatchOrderResponse> placeOrders(BatchOrderRequest request, UUID userId);
+
+    /**
+     * Atomically cancel all of the user's resting orders in the market and place the given quotes
+     */
+    Mono<BatchOrderResponse> replaceQuotes(BatchOrderRequest request, UUID userId);
+}
@@ -0,0 +1,17 @@
+package com.oregonmarkets.domain.market.service;
+
+import com.oregonmarkets.domain.market.dto.response.PositionResponse;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Service interface for position operations
+ */
+public interface PositionService {
+
+    /**
+     * List the user's positions, valued at the latest outcome prices
+     */
+    Flux<PositionResponse> getPositions(UUID userId);
+}
@@ -12,6 +12,7 @@ import com.oregonmarkets.domain.market.model.Category;
 import com.oregonmarkets.domain.market.model.Subcategory;
 import com.oregonmarkets.domain.market.repository.CategoryRepository;
 import com.oregonmarkets.domain.market.repository.SubcategoryRepository;
+import com.oregonmarkets.domain.market.search.MarketChangeFeed;
 import com.oregonmarkets.domain.market.service.CategoryService;
 import java.time.Instant;
 import java.time.Duration;
@@ -35,6 +36,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final SubcategoryRepository subcategoryRepository;
     private final CategoryMapper categoryMapper;
     private final SubcategoryMapper subcategoryMapper;
+    private final MarketChangeFeed marketChangeFeed;
 
     private boolean isClosedSession(Throwable t) {
         // Detect transient driver/session closed errors
@@ -119,6 +121,7 @@ public class CategoryServiceImpl implements CategoryService {
                     Category category = categoryMapper.toEntity(request);
 
                     return categoryRepository.save(category)
+                            .doOnNext(saved -> marketChangeFeed.categoriesChanged())
                             .doOnSuccess(saved ->
                                     log.info("Category created successfully: {}", saved.getCategoryId()))
                             .retryWhen(transientSessionRetry());
@@ -148,6 +151,7 @@ public class CategoryServiceImpl implements CategoryService {
                 })
                 .map(existing -> categoryMapper.updateEntity(existing, request))
                 .flatMap(categoryRepository::save)
+                .doOnNext(updated -> marketChangeFeed.categoriesChanged())
                 .doOnSuccess(updated ->
                         log.info("Category updated successfully: {}", updated.getCategoryId()))
                 .retryWhen(transientSessionRetry());
@@ -168,6 +172,7 @@ public class CategoryServiceImpl implements CategoryService {
                     category.setUpdatedAt(Instant.now());
                     return categoryRepository.save(category);
                 })
+                .doOnNext(deleted -> marketChangeFeed.categoriesChanged())
                 .doOnSuccess(deleted ->
                         log.info("Category disabled successfully: {}", categoryId))
                 .then()
@@ -196,6 +201,7 @@ public class CategoryServiceImpl implements CategoryService {
                             Subcategory subcategory = subcategoryMapper.toEntity(request);
 
                             return subcategoryRepository.save(subcategory)
+                                    .doOnNext(saved -> marketChangeFeed.categoriesChanged())
                                     .doOnSuccess(saved ->
                                             log.info("Subcategory created successfully: {}",
                                                     saved.getSubcategoryId()))
@@ -228,6 +234,7 @@ public class CategoryServiceImpl implements CategoryService {
                 })
                 .map(existing -> subcategoryMapper.updateEntity(existing, request))
                 .flatMap(subcategoryRepository::save)
+                .doOnNext(updated -> marketChangeFeed.categoriesChanged())
                 .doOnSuccess(updated ->
                         log.info("Subcategory updated successfully: {}", updated.getSubcategoryId()))
                 .retryWhen(transientSessionRetry());
@@ -248,6 +255,7 @@ public class CategoryServiceImpl implements CategoryService {
                     subcategory.setUpdatedAt(Instant.now());
                     return subcategoryRepository.save(subcategory);
                 })
+                .doOnNext(deleted -> marketChangeFeed.categoriesChanged())
                 .doOnSuccess(deleted ->
                         log.info("Subcategory disabled successfully: {}", subcategoryId))
                 .then()
@@ -6,21 +6,40 @@ import com.oregonmarkets.domain.market.dto.mapper.MarketMapper;
 import com.oregonmarkets.domain.market.dto.request.CreateMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.ResolveMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.UpdateMarketRequest;
+import com.oregonmarkets.domain.market.dto.response.MarketPageResponse;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
 import com.oregonmarkets.domain.market.dto.response.OutcomeResponse;
+import com.oregonmarkets.domain.market.dto.response.SettlementResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
+import com.oregonmarkets.domain.market.lifecycle.MarketCloseScheduler;
+import com.oregonmarkets.domain.market.listing.MarketListingTables;
 import com.oregonmarkets.domain.market.model.*;
 import com.oregonmarkets.domain.market.repository.CategoryRepository;
 import com.oregonmarkets.domain.market.repository.MarketRepository;
 import com.oregonmarkets.domain.market.repository.OutcomeRepository;
+import com.oregonmarkets.domain.market.search.MarketChangeFeed;
+import com.oregonmarkets.domain.market.search.MarketSearchIndex;
+import com.oregonmarkets.domain.market.search.MarketSuggester;
 import com.oregonmarkets.domain.market.service.MarketService;
+import com.oregonmarkets.domain.market.settlement.SettlementPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,10 +50,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MarketServiceImpl implements MarketService {
 
+    /** Outcome partitions read at once while enriching a listing of markets */
+    static final int OUTCOME_LOAD_CONCURRENCY = 16;
+
+    /** Largest page a listing may ask for */
+    static final int MAX_PAGE_SIZE = 500;
+
+    /** Best matches returned by a search */
+    static final int SEARCH_RESULT_LIMIT = 50;
+
     private final MarketRepository marketRepository;
     private final OutcomeRepository outcomeRepository;
     private final CategoryRepository categoryRepository;
     private final MarketMapper marketMapper;
+    private final SettlementPipeline settlementPipeline;
+    private final MarketCloseScheduler marketCloseScheduler;
+    private final MarketSearchIndex marketSearchIndex;
+    private final MarketChangeFeed marketChangeFeed;
+    private final MarketSuggester marketSuggester;
+    private final MarketListingTables marketListingTables;
 
     @Override
     public Mono<MarketResponse> createMarket(CreateMarketRequest request, UUID createdBy) {
@@ -47,10 +81,14 @@ public class MarketServiceImpl implements MarketService {
 
                     // Save market
                     return marketRepository.save(market)
+                            .doOnNext(savedMarket -> marketCloseScheduler.track(savedMarket, null))
+                            .doOnNext(marketChangeFeed::marketChanged)
+                            .flatMap(savedMarket -> marketListingTables.record(savedMarket, null).thenReturn(savedMarket))
                             .flatMap(savedMarket -> {
                                 // Create outcomes using mapper
                                 Flux<Outcome> outcomes = Flux.fromIterable(request.getOutcomes())
                                         .map(outcomeReq -> marketMapper.toOutcomeEntity(savedMarket.getMarketId(), outcomeReq))
+                                        .doOnNext(outcome -> applyOpeningPrice(savedMarket, outcome, request.getOutcomes().size()))
                                         .flatMap(outcomeRepository::save);
 
                                 return outcomes.collectList()
@@ -105,90 +143,58 @@ public class MarketServiceImpl implements MarketService {
     public Flux<MarketResponse> getAllMarkets() {
         log.debug("Fetching all markets");
 
-        return marketRepository.findAll()
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+        return withOutcomes(marketRepository.findAll());
+    }
+
+    @Override
+    public Mono<MarketPageResponse> getAllMarkets(int limit, String cursor) {
+        log.debug("Fetching page of all markets, limit: {}", limit);
+
+        return page(marketRepository::findAllBy, limit, cursor);
     }
 
     @Override
     public Flux<MarketResponse> getMarketsByCategory(UUID categoryId) {
         log.debug("Fetching markets by category: {}", categoryId);
 
-        return marketRepository.findByCategoryId(categoryId)
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+        return withOutcomes(hydrate(marketListingTables.findByCategory(categoryId)));
+    }
+
+    @Override
+    public Mono<MarketPageResponse> getMarketsByCategory(UUID categoryId, int limit, String cursor) {
+        log.debug("Fetching page of markets by category: {}, limit: {}", categoryId, limit);
+
+        return pageListings((size, position) -> marketListingTables.pageByCategory(categoryId, size, position),
+                limit, cursor);
     }
 
     @Override
     public Flux<MarketResponse> getMarketsByStatus(String status) {
         log.debug("Fetching markets by status: {}", status);
 
-        return marketRepository.findByStatus(status)
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+        return withOutcomes(hydrate(marketListingTables.findByStatus(status)));
+    }
+
+    @Override
+    public Mono<MarketPageResponse> getMarketsByStatus(String status, int limit, String cursor) {
+        log.debug("Fetching page of markets by status: {}, limit: {}", status, limit);
+
+        return pageListings((size, position) -> marketListingTables.pageByStatus(status, size, position),
+                limit, cursor);
     }
 
     @Override
     public Flux<MarketResponse> getFeaturedMarkets() {
         log.debug("Fetching featured markets");
 
-        return marketRepository.findByFeaturedTrue()
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+        return withOutcomes(marketRepository.findByFeaturedTrue());
     }
 
     @Override
     public Flux<MarketResponse> getTrendingMarkets() {
         log.debug("Fetching trending markets");
 
-        return marketRepository.findByTrendingTrue()
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+        return withOutcomes(marketRepository.findByTrendingTrue());
     }
 
     @Override
@@ -210,9 +216,14 @@ public class MarketServiceImpl implements MarketService {
                     }
 
                     // Apply updates
+                    Instant previousClose = market.getMarketClose();
+                    String previousStatus = market.getStatus();
                     applyUpdates(market, request, updatedBy);
 
-                    return marketRepository.save(market);
+                    return marketRepository.save(market)
+                            .doOnNext(saved -> marketCloseScheduler.track(saved, previousClose))
+                            .doOnNext(marketChangeFeed::marketChanged)
+                            .flatMap(saved -> marketListingTables.record(saved, previousStatus).thenReturn(saved));
                 })
                 .flatMap(updatedMarket ->
                     outcomeRepository.findByMarketId(updatedMarket.getMarketId())
@@ -262,6 +273,7 @@ public class MarketServiceImpl implements MarketService {
                             )))
                             .flatMap(winningOutcome -> {
                                 // Update market
+                                String previousStatus = market.getStatus();
                                 market.setStatus(MarketStatus.RESOLVED.name());
                                 market.setWinningOutcomeId(request.getWinningOutcomeId());
                                 market.setWinningOutcomeName(winningOutcome.getName());
@@ -276,7 +288,11 @@ public class MarketServiceImpl implements MarketService {
                                 winningOutcome.setUpdatedAt(Instant.now());
 
                                 return marketRepository.save(market)
+                                        .doOnNext(marketChangeFeed::marketChanged)
+                                        .flatMap(saved -> marketListingTables.record(saved, previousStatus))
                                         .then(outcomeRepository.save(winningOutcome))
+                                        // Payouts continue in the background; progress is at /settlement
+                                        .doOnSuccess(saved -> settlementPipeline.settle(marketId, request.getWinningOutcomeId()))
                                         .thenReturn(market);
                             });
                 })
@@ -299,7 +315,8 @@ public class MarketServiceImpl implements MarketService {
     public Mono<MarketResponse> closeMarket(UUID marketId, UUID closedBy) {
         log.info("Closing market: {} by user: {}", marketId, closedBy);
 
-        return updateMarketStatus(marketId, MarketStatus.CLOSED.name(), closedBy);
+        return updateMarketStatus(marketId, MarketStatus.CLOSED.name(), closedBy)
+                .doOnSuccess(response -> marketCloseScheduler.halt(marketId));
     }
 
     @Override
@@ -320,7 +337,8 @@ public class MarketServiceImpl implements MarketService {
     public Mono<MarketResponse> cancelMarket(UUID marketId, String reason, UUID cancelledBy) {
         log.info("Cancelling market: {} by user: {}", marketId, cancelledBy);
 
-        return updateMarketStatus(marketId, MarketStatus.CANCELLED.name(), cancelledBy);
+        return updateMarketStatus(marketId, MarketStatus.CANCELLED.name(), cancelledBy)
+                .doOnSuccess(response -> marketCloseScheduler.halt(marketId));
     }
 
     @Override
@@ -347,23 +365,39 @@ public class MarketServiceImpl implements MarketService {
     public Flux<MarketResponse> searchMarkets(String query) {
         log.debug("Searching markets with query: {}", query);
 
-        // Simple implementation - in production, use full-text search or Elasticsearch
-        return marketRepository.findAll()
+        if (marketSearchIndex.isReady()) {
+            // Ranked ids come from memory; only the matching rows are read back
+            return withOutcomes(Flux.defer(() -> Flux.fromIterable(marketSearchIndex.search(query, SEARCH_RESULT_LIMIT)))
+                    .flatMapSequential(marketRepository::findById, OUTCOME_LOAD_CONCURRENCY));
+        }
+
+        // Index still building at startup - scan instead
+        return withOutcomes(marketRepository.findAll()
                 .filter(market ->
                     market.getTitle().toLowerCase().contains(query.toLowerCase()) ||
                     (market.getDescription() != null && market.getDescription().toLowerCase().contains(query.toLowerCase()))
-                )
-                .flatMap(market ->
-                    outcomeRepository.findByMarketId(market.getMarketId())
-                            .collectList()
-                            .map(outcomes -> {
-                                MarketResponse response = marketMapper.toResponse(market);
-                                response.setOutcomes(outcomes.stream()
-                                        .map(marketMapper::toOutcomeResponse)
-                                        .collect(Collectors.toList()));
-                                return response;
-                            })
-                );
+                ));
+    }
+
+    @Override
+    public Flux<SuggestionResponse> suggest(String prefix, int limit) {
+        if (limit < 1) {
+            return Flux.error(new BusinessException(ResponseCode.INVALID_INPUT, "Limit must be at least 1"));
+        }
+        return Flux.defer(() -> Flux.fromIterable(marketSuggester.suggest(prefix, limit)))
+                .map(marketMapper::toSuggestionResponse);
+    }
+
+    @Override
+    public Mono<SettlementResponse> getSettlement(UUID marketId) {
+        log.debug("Fetching settlement progress for market: {}", marketId);
+
+        return settlementPipeline.getProgress(marketId)
+                .switchIfEmpty(Mono.error(new BusinessException(
+                        ResponseCode.NOT_FOUND,
+                        "No settlement found for market: " + marketId
+                )))
+                .map(marketMapper::toSettlementResponse);
     }
 
     // ==================== Private Helper Methods ====================
@@ -388,14 +422,119 @@ public class MarketServiceImpl implements MarketService {
     }
 
     /**
-     * Helper method to enrich multiple markets with outcomes and convert to response DTOs.
-     * Used in Flux-based methods.
+     * Helper method to read one page of a listing. The cursor is the driver's paging state of
+     * the page, so each request reads at most {@code limit} rows however large the table is.
      *
-     * @param market The market entity to enrich
-     * @return Mono containing the enriched MarketResponse with all outcomes
+     * @param query  The listing query, run with the page request
+     * @param limit  Maximum markets in the page
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @return Mono containing the page and the cursor of the next one
      */
-    private Mono<MarketResponse> flatMapWithOutcomes(Market market) {
-        return enrichMarketWithOutcomes(market);
+    private Mono<MarketPageResponse> page(Function<Pageable, Mono<Slice<Market>>> query, int limit, String cursor) {
+        return Mono.defer(() -> {
+            checkLimit(limit);
+            ByteBuffer pagingState = decodeCursor(cursor);
+            CassandraPageRequest first = CassandraPageRequest.first(limit);
+            return query.apply(pagingState != null ? CassandraPageRequest.of(first, pagingState) : first)
+                    .flatMap(slice -> toPage(Flux.fromIterable(slice.getContent()), limit,
+                            slice.hasNext() ? ((CassandraPageRequest) slice.nextPageable()).getPagingState() : null));
+        });
+    }
+
+    /**
+     * Helper method to read one page of a listing kept in a query table. The cursor is the
+     * table's position after the page; listed markets are read back by id, and any listed under a
+     * status they no longer have are left out until the table is repaired.
+     *
+     * @param query  The query table read, given the limit and the position decoded from the cursor
+     * @param limit  Maximum markets in the page
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @return Mono containing the page and the cursor of the next one
+     */
+    private Mono<MarketPageResponse> pageListings(BiFunction<Integer, ByteBuffer, Mono<MarketListingTables.Page>> query,
+                                                  int limit, String cursor) {
+        return Mono.defer(() -> {
+            checkLimit(limit);
+            return query.apply(limit, decodeCursor(cursor))
+                    .flatMap(page -> toPage(hydrate(Flux.fromIterable(page.listings())), limit, page.next()));
+        });
+    }
+
+    private Mono<MarketPageResponse> toPage(Flux<Market> markets, int limit, ByteBuffer next) {
+        return withOutcomes(markets)
+                .collectList()
+                .map(responses -> MarketPageResponse.builder()
+                        .markets(responses)
+                        .limit(limit)
+                        .hasMore(next != null)
+                        .nextCursor(encodeCursor(next))
+                        .build());
+    }
+
+    /**
+     * Read the markets of a query table listing by id, in listing order, dropping any whose
+     * status has changed since the row was written
+     */
+    private Flux<Market> hydrate(Flux<MarketListingTables.Listing> listings) {
+        return listings.flatMapSequential(listing -> marketRepository.findById(listing.marketId())
+                        .filter(market -> listing.status().equals(market.getStatus())),
+                OUTCOME_LOAD_CONCURRENCY);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessException(
+                    ResponseCode.INVALID_INPUT,
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE
+            );
+        }
+    }
+
+    private static ByteBuffer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ResponseCode.INVALID_INPUT, "Invalid cursor");
+        }
+    }
+
+    private static String encodeCursor(ByteBuffer next) {
+        if (next == null) {
+            return null;
+        }
+        byte[] bytes = new byte[next.remaining()];
+        next.duplicate().get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Helper method to enrich a listing of markets with outcomes and convert to response DTOs.
+     * Outcome partitions are read with at most {@link #OUTCOME_LOAD_CONCURRENCY} queries in
+     * flight instead of one per market all at once, each market's at most once per listing,
+     * and responses keep the order of the listing.
+     *
+     * @param markets The markets to enrich
+     * @return Flux of the enriched MarketResponses
+     */
+    private Flux<MarketResponse> withOutcomes(Flux<Market> markets) {
+        return Flux.defer(() -> {
+            // Scoped to this listing; markets arrive one at a time, so no locking is needed
+            Map<UUID, Mono<List<Outcome>>> loaded = new HashMap<>();
+            return markets.flatMapSequential(market -> loaded
+                            .computeIfAbsent(market.getMarketId(),
+                                    id -> outcomeRepository.findByMarketId(id).collectList().cache())
+                            .map(outcomes -> {
+                                MarketResponse response = marketMapper.toResponse(market);
+                                response.setOutcomes(outcomes.stream()
+                                        .map(marketMapper::toOutcomeResponse)
+                                        .collect(Collectors.toList()));
+                                return response;
+                            }),
+                    OUTCOME_LOAD_CONCURRENCY);
+        });
     }
 
     private Mono<Category> validateMarketCreation(CreateMarketRequest request) {
@@ -421,11 +560,30 @@ public class MarketServiceImpl implements MarketService {
                         ));
                     }
 
+                    // Validate LMSR markets have a liquidity parameter
+                    if (PricingMode.LMSR.name().equals(request.getPricingMode()) && request.getLmsrLiquidity() == null) {
+                        return Mono.error(new BusinessException(
+                                ResponseCode.VALIDATION_ERROR,
+                                "LMSR markets require an LMSR liquidity parameter"
+                        ));
+                    }
+
                     return Mono.just(category);
                 });
     }
 
 
+    /**
+     * An LMSR market maker opens with every outcome equally likely
+     */
+    private void applyOpeningPrice(Market market, Outcome outcome, int outcomeCount) {
+        if (PricingMode.LMSR.name().equals(market.getPricingMode())) {
+            long priceE4 = 10_000L / outcomeCount;
+            outcome.setCurrentPriceE4(priceE4);
+            outcome.setLastPriceE4(priceE4);
+        }
+    }
+
     private void applyUpdates(Market market, UpdateMarketRequest request, UUID updatedBy) {
         Instant now = Instant.now();
 
@@ -462,12 +620,16 @@ public class MarketServiceImpl implements MarketService {
                         "Market not found with ID: " + marketId
                 )))
                 .flatMap(market -> {
+                    String previousStatus = market.getStatus();
                     market.setStatus(newStatus);
                     market.setUpdatedAt(Instant.now());
                     market.setUpdatedBy(updatedBy);
                     market.setVersion(market.getVersion() + 1);
 
-                    return marketRepository.save(market);
+                    return marketRepository.save(market)
+                            .doOnNext(saved -> marketCloseScheduler.track(saved, saved.getMarketClose()))
+                            .doOnNext(marketChangeFeed::marketChanged)
+                            .flatMap(saved -> marketListingTables.record(saved, previousStatus).thenReturn(saved));
                 })
                 .flatMap(updatedMarket ->
                     outcomeRepository.findByMarketId(updatedMarket.getMarketId())
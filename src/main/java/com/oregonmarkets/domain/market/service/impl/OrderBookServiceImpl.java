@@ -0,0 +1,83 @@
+package com.oregonmarkets.domain.market.service.impl;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.dto.mapper.OrderBookMapper;
+import com.oregonmarkets.domain.market.dto.response.OrderBookResponse;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.OrderSequencer;
+import com.oregonmarkets.domain.market.engine.feed.BookFeed;
+import com.oregonmarkets.domain.market.repository.OutcomeRepository;
+import com.oregonmarkets.domain.market.service.OrderBookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Implementation of OrderBookService served from matching engine memory.
+ * Snapshots are read on the book's shard between commands; streams register with the
+ * {@link BookFeed} before reading their snapshot, so no change can fall between the two.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBookServiceImpl implements OrderBookService {
+
+    /** Upper bound on levels per side of a snapshot */
+    static final int MAX_DEPTH = 1000;
+
+    private final OrderSequencer sequencer;
+    private final BookFeed bookFeed;
+    private final OutcomeRepository outcomeRepository;
+    private final OrderBookMapper orderBookMapper;
+
+    @Override
+    public Mono<OrderBookResponse> getOrderBook(UUID marketId, UUID outcomeId, int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            return Mono.error(new BusinessException(
+                    ResponseCode.INVALID_INPUT,
+                    "Depth must be between 0 and " + MAX_DEPTH
+            ));
+        }
+        return sequencer.depth(marketId, outcomeId, depth == 0 ? MAX_DEPTH : depth)
+                .map(snapshot -> orderBookMapper.toResponse(snapshot, outcomeId))
+                .switchIfEmpty(Mono.defer(() -> notYetTraded(marketId, outcomeId)));
+    }
+
+    @Override
+    public Flux<OrderBookResponse> streamOrderBook(UUID marketId, UUID outcomeId, Long afterSequence) {
+        return Flux.using(
+                () -> bookFeed.register(new BookKey(marketId, outcomeId)),
+                registration -> sequencer.depth(marketId, outcomeId, Integer.MAX_VALUE)
+                        .map(snapshot -> orderBookMapper.toResponse(snapshot, outcomeId))
+                        .switchIfEmpty(Mono.defer(() -> notYetTraded(marketId, outcomeId)))
+                        .flatMapMany(snapshot -> {
+                            long from = snapshot.getSequence();
+                            Flux<OrderBookResponse> deltas = registration.deltas()
+                                    .filter(delta -> delta.sequence() > from)
+                                    .map(delta -> orderBookMapper.toResponse(delta, outcomeId));
+                            if (afterSequence != null && afterSequence == from) {
+                                return deltas;
+                            }
+                            return Flux.concat(Mono.just(snapshot), deltas);
+                        }),
+                BookFeed.Registration::close)
+                .doOnCancel(() -> log.debug("Order book stream of outcome {} closed", outcomeId));
+    }
+
+    /**
+     * A book is opened on first trade; until then a known outcome has an empty book
+     */
+    private Mono<OrderBookResponse> notYetTraded(UUID marketId, UUID outcomeId) {
+        return outcomeRepository.findByMarketIdAndOutcomeId(marketId, outcomeId)
+                .switchIfEmpty(Mono.error(new BusinessException(
+                        ResponseCode.NOT_FOUND,
+                        "Outcome not found with ID: " + outcomeId
+                )))
+                .map(outcome -> orderBookMapper.empty(marketId, outcomeId));
+    }
+}
@@ -0,0 +1,400 @@
+package com.oregonmarkets.domain.market.service.impl;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.dto.mapper.OrderMapper;
+import com.oregonmarkets.domain.market.dto.request.BatchOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.ModifyOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.PlaceOrderRequest;
+import com.oregonmarkets.domain.market.dto.response.BatchOrderResponse;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import com.oregonmarkets.domain.market.engine.BatchResult;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.OrderSequencer;
+import com.oregonmarkets.domain.market.engine.risk.RiskLedger;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.model.MarketType;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.Outcome;
+import com.oregonmarkets.domain.market.model.PricingMode;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import com.oregonmarkets.domain.market.repository.OpenOrderRepository;
+import com.oregonmarkets.domain.market.repository.OutcomeRepository;
+import com.oregonmarkets.domain.market.service.ClientOrderRegistry;
+import com.oregonmarkets.domain.market.service.OrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of OrderService backed by the in-process matching engine
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderServiceImpl implements OrderService {
+
+    /** Upper bound on orders in one batch or mass quote, keeping a single command's latency bounded */
+    static final int MAX_BATCH_ORDERS = 100;
+
+    private final OrderSequencer sequencer;
+    private final MarketRepository marketRepository;
+    private final OutcomeRepository outcomeRepository;
+    private final OpenOrderRepository openOrderRepository;
+    private final OrderMapper orderMapper;
+    private final RiskLedger riskLedger;
+    private final ClientOrderRegistry clientOrders;
+
+    /** Books already opened on the engine, with the names denormalized onto their orders */
+    private final Map<BookKey, BookContext> openBooks = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<OrderResponse> placeOrder(PlaceOrderRequest request, UUID userId) {
+        String clientOrderId = request.getClientOrderId();
+        return clientOrders.claim(userId, clientOrderId)
+                .switchIfEmpty(Mono.defer(() -> riskLedger.load(userId)
+                        .then(openBook(new BookKey(request.getMarketId(), request.getOutcomeId())))
+                        .map(context -> orderMapper.toEntity(request, userId, context.marketTitle(), context.outcomeName()))
+                        .flatMap(sequencer::place)
+                        .flatMap(this::toResponse)
+                        .flatMap(response -> clientOrders.complete(userId, clientOrderId, response).thenReturn(response))
+                        .onErrorResume(e -> clientOrders.release(userId, clientOrderId).then(Mono.error(e)))))
+                .doOnSuccess(response -> log.debug("Order {} {}", response.getOrderId(), response.getStatus()));
+    }
+
+    @Override
+    public Mono<OrderResponse> modifyOrder(UUID orderId, ModifyOrderRequest request, UUID userId) {
+        if (request.getPriceE4() == null && request.getQuantity() == null) {
+            return Mono.error(new BusinessException(
+                    ResponseCode.MISSING_REQUIRED_FIELD,
+                    "Either price or quantity must be provided"
+            ));
+        }
+        return sequencer.modify(request.getMarketId(), orderId, userId, request.getPriceE4(), request.getQuantity())
+                .flatMap(this::toResponse);
+    }
+
+    @Override
+    public Mono<OrderResponse> cancelOrder(UUID marketId, UUID orderId, UUID userId) {
+        return sequencer.cancel(marketId, orderId, userId)
+                .flatMap(this::toResponse);
+    }
+
+    @Override
+    public Flux<OrderResponse> cancelAllOrders(UUID marketId, UUID userId) {
+        return sequencer.cancelAll(marketId, userId)
+                .doOnNext(result -> log.info("Cancelled {} orders for user {} in market {}",
+                        result.getUpdatedOrders().size(), userId, marketId))
+                .flatMapIterable(MatchResult::getUpdatedOrders)
+                .map(orderMapper::toResponse);
+    }
+
+    @Override
+    public Flux<OrderResponse> haltMarket(UUID marketId) {
+        // A later order must look the market up again rather than trade on a remembered open book
+        openBooks.keySet().removeIf(key -> marketId.equals(key.marketId()));
+        return sequencer.closeMarket(marketId)
+                .doOnNext(result -> log.info("Halted market {}, cancelling {} resting orders",
+                        marketId, result.getUpdatedOrders().size()))
+                .flatMapIterable(MatchResult::getUpdatedOrders)
+                .map(orderMapper::toResponse);
+    }
+
+    @Override
+    public Flux<OrderResponse> getOpenOrders(UUID userId, UUID marketId) {
+        return (marketId == null
+                ? openOrderRepository.findByUserId(userId)
+                : openOrderRepository.findByUserIdAndMarketId(userId, marketId))
+                .map(orderMapper::toResponse);
+    }
+
+    @Override
+    public Mono<BatchOrderResponse> placeOrders(BatchOrderRequest request, UUID userId) {
+        if (request.getOrders() == null || request.getOrders().isEmpty()) {
+            return Mono.error(new BusinessException(
+                    ResponseCode.MISSING_REQUIRED_FIELD,
+                    "At least one order is required"
+            ));
+        }
+        return placeBatch(request, userId, false);
+    }
+
+    @Override
+    public Mono<BatchOrderResponse> replaceQuotes(BatchOrderRequest request, UUID userId) {
+        return placeBatch(request, userId, true);
+    }
+
+    // ==================== Helper Methods ====================
+
+    /**
+     * Validate the batch once, open every book it touches, claim its client order IDs and submit it to
+     * the engine as one command
+     */
+    private Mono<BatchOrderResponse> placeBatch(BatchOrderRequest request, UUID userId, boolean replace) {
+        UUID marketId = request.getMarketId();
+        List<PlaceOrderRequest> orders = request.getOrders() == null ? List.of() : request.getOrders();
+        if (marketId == null) {
+            return Mono.error(new BusinessException(ResponseCode.MISSING_REQUIRED_FIELD, "Market ID is required"));
+        }
+        if (orders.size() > MAX_BATCH_ORDERS) {
+            return Mono.error(new BusinessException(
+                    ResponseCode.INVALID_INPUT,
+                    "A batch cannot exceed " + MAX_BATCH_ORDERS + " orders"
+            ));
+        }
+        LinkedHashSet<UUID> outcomeIds = new LinkedHashSet<>();
+        for (PlaceOrderRequest order : orders) {
+            if (order.getMarketId() != null && !marketId.equals(order.getMarketId())) {
+                return Mono.error(new BusinessException(
+                        ResponseCode.INVALID_INPUT,
+                        "All orders in a batch must belong to market " + marketId
+                ));
+            }
+            if (order.getOutcomeId() == null) {
+                return Mono.error(new BusinessException(ResponseCode.MISSING_REQUIRED_FIELD, "Outcome ID is required"));
+            }
+            outcomeIds.add(order.getOutcomeId());
+        }
+
+        List<String> clientOrderIds = orders.stream().map(PlaceOrderRequest::getClientOrderId).toList();
+
+        return riskLedger.load(userId)
+                .thenMany(Flux.fromIterable(outcomeIds))
+                .concatMap(outcomeId -> openBook(new BookKey(marketId, outcomeId)))
+                .then(clientOrders.claimAll(userId, clientOrderIds))
+                .flatMap(claims -> Mono.defer(() -> submitBatch(marketId, userId, orders, claims, replace))
+                        .onErrorResume(e -> Flux.range(0, orders.size())
+                                .filter(i -> claims.get(i).isNew())
+                                .concatMap(i -> clientOrders.release(userId, orders.get(i).getClientOrderId()))
+                                .then(Mono.error(e))))
+                .doOnSuccess(response -> log.debug("Batch in market {}: {} placed, {} rejected",
+                        marketId, response.getPlaced(), response.getRejected()));
+    }
+
+    /**
+     * Submit the orders whose client order IDs were claimed and answer the others from their claims.
+     * A batch with any order already submitted is a retry and does not cancel again: the engine ran
+     * the first attempt's cancel and placements as one command.
+     */
+    private Mono<BatchOrderResponse> submitBatch(UUID marketId, UUID userId, List<PlaceOrderRequest> orders,
+                                                 List<ClientOrderRegistry.Claim> claims, boolean replace) {
+        List<Order> entities = new ArrayList<>(orders.size());
+        boolean retry = false;
+        for (int i = 0; i < orders.size(); i++) {
+            if (!claims.get(i).isNew()) {
+                retry = true;
+                continue;
+            }
+            PlaceOrderRequest order = orders.get(i);
+            BookContext context = openBooks.get(new BookKey(marketId, order.getOutcomeId()));
+            Order entity = orderMapper.toEntity(order, userId, context.marketTitle(), context.outcomeName());
+            entity.setMarketId(marketId);
+            entities.add(entity);
+        }
+        if (retry && entities.isEmpty()) {
+            return Mono.just(toBatchResponse(marketId, orders, claims, null));
+        }
+        return sequencer.placeBatch(marketId, userId, entities, replace && !retry)
+                .flatMap(batch -> {
+                    BatchOrderResponse response = toBatchResponse(marketId, orders, claims, batch);
+                    return recordClaims(userId, orders, claims, batch, response).thenReturn(response);
+                });
+    }
+
+    /**
+     * Keep each submitted order's response for retries of its client order ID, or free the ID of
+     * an order the engine refused
+     */
+    private Mono<Void> recordClaims(UUID userId, List<PlaceOrderRequest> orders, List<ClientOrderRegistry.Claim> claims,
+                                    BatchResult batch, BatchOrderResponse response) {
+        List<Mono<Void>> records = new ArrayList<>();
+        int submitted = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            if (!claims.get(i).isNew()) {
+                continue;
+            }
+            String clientOrderId = orders.get(i).getClientOrderId();
+            records.add(batch.getResults().get(submitted++).isRejected()
+                    ? clientOrders.release(userId, clientOrderId)
+                    : clientOrders.complete(userId, clientOrderId, response.getResults().get(i).getOrder()));
+        }
+        return Mono.when(records);
+    }
+
+    /**
+     * @param batch engine result of the submitted orders, in request order, or null if none were submitted
+     */
+    private BatchOrderResponse toBatchResponse(UUID marketId, List<PlaceOrderRequest> orders,
+                                               List<ClientOrderRegistry.Claim> claims, BatchResult batch) {
+        List<BatchOrderResponse.Result> results = new ArrayList<>(claims.size());
+        int rejected = 0;
+        int submitted = 0;
+        for (int i = 0; i < claims.size(); i++) {
+            ClientOrderRegistry.Claim claim = claims.get(i);
+            BatchOrderResponse.Result.ResultBuilder slot = BatchOrderResponse.Result.builder().index(i);
+            if (claim.original() != null) {
+                slot.code(ResponseCode.ORDER_PLACED.getCode())
+                        .message("Order already placed with client order ID " + orders.get(i).getClientOrderId())
+                        .order(claim.original());
+            } else if (claim.duplicate() != null) {
+                rejected++;
+                slot.code(claim.duplicate().getResponseCode().getCode())
+                        .message(claim.duplicate().getMessage());
+            } else {
+                MatchResult result = batch.getResults().get(submitted++);
+                Order order = result.getOrder();
+                if (result.isRejected()) {
+                    rejected++;
+                }
+                slot.code(result.getCode().getCode())
+                        .message(result.isRejected() && order.getStatusReason() != null
+                                ? order.getStatusReason()
+                                : result.getCode().getMessage())
+                        .order(orderMapper.toResponse(order));
+            }
+            results.add(slot.build());
+        }
+        return BatchOrderResponse.builder()
+                .marketId(marketId)
+                .cancelled(batch == null || batch.getCancelled() == null ? null
+                        : batch.getCancelled().getUpdatedOrders().stream().map(orderMapper::toResponse).toList())
+                .results(results)
+                .placed(results.size() - rejected)
+                .rejected(rejected)
+                .build();
+    }
+
+    /**
+     * Open the book on the engine the first time it is traded
+     */
+    private Mono<BookContext> openBook(BookKey key) {
+        BookContext cached = openBooks.get(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return marketRepository.findById(key.marketId())
+                .switchIfEmpty(Mono.error(new BusinessException(
+                        ResponseCode.MARKET_NOT_FOUND,
+                        "Market not found with ID: " + key.marketId()
+                )))
+                .flatMap(market -> {
+                    if (!MarketStatus.OPEN.name().equals(market.getStatus())) {
+                        return Mono.error(new BusinessException(
+                                ResponseCode.MARKET_CLOSED,
+                                "Market is not open for trading: " + market.getStatus()
+                        ));
+                    }
+                    riskLedger.setLimits(market);
+                    if (PricingMode.LMSR.name().equals(market.getPricingMode())) {
+                        return openMakerBooks(key, market);
+                    }
+                    if (MarketType.BINARY.name().equals(market.getMarketType())) {
+                        return openBinaryBook(key, market);
+                    }
+                    return outcomeRepository.findByMarketIdAndOutcomeId(key.marketId(), key.outcomeId())
+                            .switchIfEmpty(Mono.error(new BusinessException(
+                                    ResponseCode.NOT_FOUND,
+                                    "Outcome not found with ID: " + key.outcomeId()
+                            )))
+                            .flatMap(outcome -> openOnEngine(key, market, outcome.getName()));
+                });
+    }
+
+    /**
+     * Open both outcomes of a binary market as one unified book, so YES and NO orders cross each other
+     */
+    private Mono<BookContext> openBinaryBook(BookKey key, Market market) {
+        return outcomeRepository.findByMarketId(key.marketId())
+                .sort(Comparator.comparing(Outcome::getDisplayOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Outcome::getOutcomeId))
+                .collectList()
+                .flatMap(outcomes -> {
+                    Outcome requested = outcomes.stream()
+                            .filter(outcome -> key.outcomeId().equals(outcome.getOutcomeId()))
+                            .findFirst()
+                            .orElse(null);
+                    if (requested == null) {
+                        return Mono.error(new BusinessException(
+                                ResponseCode.NOT_FOUND,
+                                "Outcome not found with ID: " + key.outcomeId()
+                        ));
+                    }
+                    if (outcomes.size() != 2) {
+                        log.warn("Binary market {} has {} outcomes, trading them in separate books",
+                                market.getMarketId(), outcomes.size());
+                        return openOnEngine(key, market, requested.getName());
+                    }
+                    Outcome primary = outcomes.get(0);
+                    Outcome complement = outcomes.get(1);
+                    return sequencer.openBinaryBook(market, primary.getOutcomeId(), complement.getOutcomeId())
+                            .then(Mono.fromSupplier(() -> {
+                                cache(market, List.of(primary, complement));
+                                return openBooks.get(key);
+                            }));
+                });
+    }
+
+    /**
+     * Open every outcome of an LMSR market together, so its market maker quotes all of them from the first trade
+     */
+    private Mono<BookContext> openMakerBooks(BookKey key, Market market) {
+        return outcomeRepository.findByMarketId(key.marketId())
+                .sort(Comparator.comparing(Outcome::getDisplayOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(Outcome::getOutcomeId))
+                .concatMap(outcome -> sequencer.openBook(market, outcome.getOutcomeId()).thenReturn(outcome))
+                .collectList()
+                .flatMap(outcomes -> {
+                    cache(market, outcomes);
+                    BookContext context = openBooks.get(key);
+                    if (context == null) {
+                        return Mono.error(new BusinessException(
+                                ResponseCode.NOT_FOUND,
+                                "Outcome not found with ID: " + key.outcomeId()
+                        ));
+                    }
+                    return Mono.just(context);
+                });
+    }
+
+    private void cache(Market market, List<Outcome> outcomes) {
+        for (Outcome outcome : outcomes) {
+            openBooks.putIfAbsent(new BookKey(market.getMarketId(), outcome.getOutcomeId()),
+                    new BookContext(market.getTitle(), outcome.getName()));
+        }
+    }
+
+    private Mono<BookContext> openOnEngine(BookKey key, Market market, String outcomeName) {
+        BookContext context = new BookContext(market.getTitle(), outcomeName);
+        return sequencer.openBook(market, key.outcomeId())
+                .then(Mono.fromSupplier(() -> {
+                    openBooks.putIfAbsent(key, context);
+                    return context;
+                }));
+    }
+
+    private Mono<OrderResponse> toResponse(MatchResult result) {
+        if (result.isRejected()) {
+            Order order = result.getOrder();
+            String reason = order != null && order.getStatusReason() != null
+                    ? order.getStatusReason()
+                    : result.getCode().getMessage();
+            return Mono.error(new BusinessException(result.getCode(), reason));
+        }
+        return Mono.just(orderMapper.toResponse(result.getOrder()));
+    }
+
+    private record BookContext(String marketTitle, String outcomeName) {
+    }
+}
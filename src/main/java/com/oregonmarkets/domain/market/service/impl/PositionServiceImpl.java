@@ -0,0 +1,29 @@
+package com.oregonmarkets.domain.market.service.impl;
+
+import com.oregonmarkets.domain.market.dto.mapper.PositionMapper;
+import com.oregonmarkets.domain.market.dto.response.PositionResponse;
+import com.oregonmarkets.domain.market.engine.position.PositionAggregator;
+import com.oregonmarkets.domain.market.service.PositionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Implementation of PositionService serving portfolios from the position aggregator's memory
+ */
+@Service
+@RequiredArgsConstructor
+public class PositionServiceImpl implements PositionService {
+
+    private final PositionAggregator positionAggregator;
+    private final PositionMapper positionMapper;
+
+    @Override
+    public Flux<PositionResponse> getPositions(UUID userId) {
+        return positionAggregator.getPositions(userId)
+                .flatMapIterable(positions -> positions)
+                .map(positionMapper::toResponse);
+    }
+}
@@ -0,0 +1,556 @@
+package com.oregonmarkets.domain.market.settlement;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.Micros;
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.blnk.BlnkClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pays out the winning positions of resolved markets through the Blnk ledger.
+ * A market's positions are streamed from its positions_by_market partition one driver page at
+ * a time, the next page being fetched while the current one is paid. Each winning share pays
+ * one unit of the settlement currency: a page's payouts are posted as Blnk bulk transactions
+ * of up to {@code batchSize}, with a bounded number of requests in flight, after which every
+ * position of the page is marked in positions_by_user. Once a page is settled its paging state
+ * and the running totals are saved to market_settlements, so a settlement stopped by a failure
+ * or a restart resumes at the page it was on.
+ *
+ * <p>A settlement is run by one node at a time, the holder of its Redis lease. The lease is renewed
+ * before each page and before each checkpoint, and a node that finds it lapsed stops without
+ * writing anything more, leaving the settlement to whichever node claims it next.
+ *
+ * <p>A page interrupted part way is posted again when the settlement resumes. Every payout's
+ * transaction reference is derived from its position, so Blnk rejects the ones it already recorded;
+ * a batch rejected for that reason is posted again one payout at a time, and each payout Blnk
+ * already has is counted as paid.
+ */
+@Slf4j
+@Component
+public class SettlementPipeline {
+
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_COMPLETED = "COMPLETED";
+    static final String PAYOUT_PAID = "PAID";
+    static final String PAYOUT_FAILED = "FAILED";
+
+    static final String LEASE_PREFIX = "settlements:lease:";
+
+    static final String SELECT_POSITIONS = "SELECT user_id, outcome_id, shares FROM positions_by_market "
+            + "WHERE market_id = ?";
+
+    static final String MARK_POSITION = "UPDATE positions_by_user SET market_status = ?, is_winner = ?, "
+            + "payout_amount = ?, payout_status = ?, paid_at = ? WHERE user_id = ? AND market_id = ? AND outcome_id = ?";
+
+    static final String SELECT_SETTLEMENT = "SELECT market_id, winning_outcome_id, status, paging_state, pages, "
+            + "positions_scanned, payouts_posted, payouts_failed, total_paid, last_error, started_at, updated_at, "
+            + "completed_at FROM market_settlements WHERE market_id = ?";
+
+    static final String SELECT_SETTLEMENTS = "SELECT market_id, winning_outcome_id, status FROM market_settlements";
+
+    static final String SAVE_SETTLEMENT = "INSERT INTO market_settlements (market_id, winning_outcome_id, status, "
+            + "paging_state, pages, positions_scanned, payouts_posted, payouts_failed, total_paid, last_error, "
+            + "started_at, updated_at, completed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int WRITE_CONCURRENCY = 32;
+
+    private final CqlStatements cql;
+    private final UserRepository userRepository;
+    private final BlnkClient blnkClient;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final EngineProperties.Settlement config;
+
+    /** Identifies this node as the holder of the leases it claims */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /** Settlements in progress on this node */
+    private final Map<UUID, Run> running = new ConcurrentHashMap<>();
+    private final AtomicBoolean resuming = new AtomicBoolean();
+
+    private Scheduler scheduler;
+    private Disposable resumer;
+
+    public SettlementPipeline(CqlStatements cql, UserRepository userRepository, BlnkClient blnkClient,
+                              ReactiveRedisTemplate<String, Object> redisTemplate, EngineProperties properties) {
+        this.cql = cql;
+        this.userRepository = userRepository;
+        this.blnkClient = blnkClient;
+        this.redisTemplate = redisTemplate;
+        this.config = properties.getSettlement();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            log.warn("Settlement is disabled; resolved markets will not be paid out");
+            return;
+        }
+        scheduler = Schedulers.newSingle("settlement");
+        // First pass right away picks up settlements interrupted by the last shutdown
+        resumer = scheduler.schedulePeriodically(this::resumeUnfinished,
+                0, config.getResumeIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (resumer != null) {
+            resumer.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Start paying out a resolved market in the background, unless it is already settled or
+     * being settled by some node
+     */
+    public void settle(UUID marketId, UUID winningOutcomeId) {
+        run(marketId, winningOutcomeId)
+                .subscribe(null, error -> log.error("Settlement of market {} failed", marketId, error));
+    }
+
+    /**
+     * Progress of a market's settlement, live if it is running on this node
+     */
+    public Mono<SettlementProgress> getProgress(UUID marketId) {
+        Run run = running.get(marketId);
+        if (run != null) {
+            return Mono.just(run.progress());
+        }
+        return cql.execute(() -> cql.bound(SELECT_SETTLEMENT).setUuid(0, marketId).build())
+                .flatMap(result -> Mono.justOrEmpty(result.one()))
+                .map(SettlementPipeline::progress);
+    }
+
+    /**
+     * Settle a market from its last checkpoint
+     *
+     * @return the settlement's progress when it completed or stopped, or empty if it is already
+     * running on this node or another node holds its lease
+     */
+    Mono<SettlementProgress> run(UUID marketId, UUID winningOutcomeId) {
+        if (!config.isEnabled()) {
+            return Mono.empty();
+        }
+        Run run = new Run(marketId, winningOutcomeId);
+        if (running.putIfAbsent(marketId, run) != null) {
+            return Mono.empty();
+        }
+        return acquire(marketId)
+                .filter(Boolean::booleanValue)
+                .flatMap(held -> settleHeld(run).doFinally(signal -> release(marketId)))
+                .doFinally(signal -> running.remove(marketId, run));
+    }
+
+    /**
+     * Settle a market whose lease this node holds
+     */
+    private Mono<SettlementProgress> settleHeld(Run run) {
+        UUID marketId = run.marketId;
+        return cql.execute(() -> cql.bound(SELECT_SETTLEMENT).setUuid(0, marketId).build())
+                .flatMap(result -> {
+                    Row saved = result.one();
+                    if (saved != null && STATUS_COMPLETED.equals(saved.getString("status"))) {
+                        return Mono.just(progress(saved));
+                    }
+                    Mono<Void> begin;
+                    if (saved == null) {
+                        begin = checkpoint(run);
+                    } else {
+                        run.restore(saved);
+                        log.info("Resuming settlement of market {} after {} positions", marketId,
+                                run.positionsScanned.get());
+                        begin = Mono.empty();
+                    }
+                    return begin
+                            .thenMany(pages(run))
+                            .concatMap(page -> renew(run).then(settlePage(run, page)))
+                            .then(Mono.fromSupplier(run::progress));
+                })
+                .onErrorResume(LeaseLostException.class, error -> {
+                    // Whoever holds the lease now owns the checkpoint
+                    log.warn("Lost the lease on settlement of market {} after {} positions; stopping", marketId,
+                            run.positionsScanned.get());
+                    return Mono.fromSupplier(run::progress);
+                })
+                .onErrorResume(error -> {
+                    // Left RUNNING at its last checkpoint, to be resumed by the next pass
+                    log.error("Settlement of market {} stopped after {} positions; will resume", marketId,
+                            run.positionsScanned.get(), error);
+                    run.lastError = String.valueOf(error.getMessage());
+                    return renew(run).then(checkpoint(run))
+                            .onErrorResume(e -> Mono.empty())
+                            .then(Mono.fromSupplier(run::progress));
+                })
+                .doOnNext(progress -> {
+                    if (STATUS_COMPLETED.equals(progress.status()) && run.completedAt != null) {
+                        log.info("Settled market {}: {} payouts totalling {} over {} positions", marketId,
+                                progress.payoutsPosted(), progress.totalPaid(), progress.positionsScanned());
+                    }
+                });
+    }
+
+    /**
+     * The market's positions_by_market partition one page at a time, from the run's paging state
+     */
+    private Flux<AsyncResultSet> pages(Run run) {
+        return cql.pages(() -> cql.bound(SELECT_POSITIONS)
+                .setUuid(0, run.marketId)
+                .setPageSize(config.getPageSize())
+                .setPagingState(run.pagingState)
+                .build());
+    }
+
+    /**
+     * Pay a page's winning positions, mark all of its positions and checkpoint past it
+     */
+    private Mono<Void> settlePage(Run run, AsyncResultSet page) {
+        List<Holding> holdings = new ArrayList<>(page.remaining());
+        for (Row row : page.currentPage()) {
+            holdings.add(new Holding(row.getUuid("user_id"), row.getUuid("outcome_id"),
+                    row.getBigDecimal("shares"), run.winningOutcomeId));
+        }
+        ByteBuffer next = page.hasMorePages() ? page.getExecutionInfo().getPagingState() : null;
+        Set<UUID> winners = new LinkedHashSet<>();
+        for (Holding holding : holdings) {
+            if (holding.payoutMicros() > 0) {
+                winners.add(holding.userId());
+            }
+        }
+        // Counted into the run only once the page is checkpointed, so a retried page is not counted twice
+        AtomicLong posted = new AtomicLong();
+        AtomicLong paid = new AtomicLong();
+
+        return balances(winners)
+                .flatMap(balances -> Flux.fromIterable(holdings)
+                        .filter(holding -> holding.payoutMicros() > 0 && balances.containsKey(holding.userId()))
+                        .buffer(Math.max(1, config.getBatchSize()))
+                        .flatMap(batch -> pay(run, batch, balances, posted, paid), Math.max(1, config.getConcurrency()))
+                        .thenMany(Flux.fromIterable(holdings))
+                        .flatMap(holding -> mark(run, holding, balances.containsKey(holding.userId())), WRITE_CONCURRENCY)
+                        .then(renew(run))
+                        .then(Mono.defer(() -> {
+                            long failed = holdings.stream()
+                                    .filter(holding -> holding.payoutMicros() > 0 && !balances.containsKey(holding.userId()))
+                                    .count();
+                            run.advance(holdings.size(), posted.get(), failed, paid.get(), next);
+                            return checkpoint(run);
+                        })));
+    }
+
+    /**
+     * Blnk balance of each user that has one, in one read
+     */
+    private Mono<Map<UUID, String>> balances(Set<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return userRepository.findAllById(userIds)
+                .filter(user -> user.getBlnkBalanceId() != null)
+                .collectMap(User::getId, User::getBlnkBalanceId)
+                .retryWhen(Retry.backoff(CqlStatements.MAX_RETRIES, CqlStatements.RETRY_BACKOFF));
+    }
+
+    private Mono<Void> pay(Run run, List<Holding> batch, Map<UUID, String> balances, AtomicLong posted,
+                           AtomicLong paid) {
+        List<Map<String, Object>> transactions = new ArrayList<>(batch.size());
+        long micros = 0;
+        for (Holding holding : batch) {
+            micros = Micros.add(micros, holding.payoutMicros());
+            transactions.add(Map.of(
+                    "amount", Micros.toDecimal(holding.payoutMicros()),
+                    "precision", config.getPrecision(),
+                    "currency", config.getCurrency(),
+                    "reference", "payout:" + run.marketId + ":" + holding.userId() + ":" + holding.outcomeId(),
+                    "source", config.getSource(),
+                    "destination", balances.get(holding.userId()),
+                    "allow_overdraft", true,
+                    "description", "Payout of market " + run.marketId,
+                    "meta_data", Map.of(
+                            "type", "market_payout",
+                            "market_id", run.marketId.toString(),
+                            "outcome_id", holding.outcomeId().toString(),
+                            "user_id", holding.userId().toString())));
+        }
+        long amount = micros;
+        return blnkClient.recordBulkTransactions(transactions, false)
+                .then()
+                .onErrorResume(BlnkClient::isDuplicateReference, error -> {
+                    log.info("Blnk already has payouts of market {} in a batch of {}; posting them one by one",
+                            run.marketId, transactions.size());
+                    return payEach(transactions);
+                })
+                .then(Mono.fromRunnable(() -> {
+                    posted.addAndGet(transactions.size());
+                    paid.addAndGet(amount);
+                }));
+    }
+
+    /**
+     * Post payouts one at a time, taking a rejected duplicate reference as a payout already made
+     */
+    private Mono<Void> payEach(List<Map<String, Object>> transactions) {
+        return Flux.fromIterable(transactions)
+                .concatMap(transaction -> blnkClient.recordBulkTransactions(List.of(transaction), false)
+                        .then()
+                        .onErrorResume(BlnkClient::isDuplicateReference, error -> {
+                            log.debug("Payout {} was already recorded in Blnk", transaction.get("reference"));
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    /**
+     * Record the position's outcome in positions_by_user; a winner without a Blnk balance is
+     * marked as a failed payout
+     */
+    private Mono<Void> mark(Run run, Holding holding, boolean payable) {
+        boolean winner = holding.outcomeId().equals(run.winningOutcomeId);
+        long payout = holding.payoutMicros();
+        String status = payout == 0 ? null : payable ? PAYOUT_PAID : PAYOUT_FAILED;
+        Statement<?> statement = cql.bound(MARK_POSITION)
+                .setString(0, MarketStatus.RESOLVED.name())
+                .setBoolean(1, winner)
+                .setBigDecimal(2, Micros.toDecimal(payout))
+                .setString(3, status)
+                .setInstant(4, PAYOUT_PAID.equals(status) ? Instant.now() : null)
+                .setUuid(5, holding.userId())
+                .setUuid(6, run.marketId)
+                .setUuid(7, holding.outcomeId())
+                .build();
+        return cql.execute(statement).then();
+    }
+
+    private Mono<Void> checkpoint(Run run) {
+        run.updatedAt = Instant.now();
+        Statement<?> statement = cql.bound(SAVE_SETTLEMENT)
+                .setUuid(0, run.marketId)
+                .setUuid(1, run.winningOutcomeId)
+                .setString(2, run.status)
+                .setByteBuffer(3, run.pagingState)
+                .setLong(4, run.pages.get())
+                .setLong(5, run.positionsScanned.get())
+                .setLong(6, run.payoutsPosted.get())
+                .setLong(7, run.payoutsFailed.get())
+                .setBigDecimal(8, Micros.toDecimal(run.paidMicros.get()))
+                .setString(9, run.lastError)
+                .setInstant(10, run.startedAt)
+                .setInstant(11, run.updatedAt)
+                .setInstant(12, run.completedAt)
+                .build();
+        return cql.execute(statement).then();
+    }
+
+    // ==================== Lease ====================
+
+    /**
+     * Claim a market's settlement for this node. When Redis is unavailable the settlement is left
+     * to a later pass rather than risk two nodes paying it out at once.
+     */
+    private Mono<Boolean> acquire(UUID marketId) {
+        if (redisTemplate == null) {
+            return Mono.just(true);
+        }
+        return redisTemplate.opsForValue()
+                .setIfAbsent(LEASE_PREFIX + marketId, nodeId, Duration.ofSeconds(config.getLeaseSeconds()))
+                .onErrorResume(e -> {
+                    log.warn("Could not claim settlement of market {} in Redis: {}", marketId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * Extend this node's lease, failing with {@link LeaseLostException} if it has lapsed or cannot
+     * be confirmed, since another node may have claimed the settlement since
+     */
+    private Mono<Void> renew(Run run) {
+        if (redisTemplate == null) {
+            return Mono.empty();
+        }
+        String key = LEASE_PREFIX + run.marketId;
+        return Mono.defer(() -> redisTemplate.opsForValue().get(key))
+                .filter(nodeId::equals)
+                .flatMap(holder -> redisTemplate.expire(key, Duration.ofSeconds(config.getLeaseSeconds())))
+                .onErrorResume(e -> {
+                    log.warn("Could not renew lease on settlement of market {}: {}", run.marketId, e.getMessage());
+                    return Mono.empty();
+                })
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new LeaseLostException(run.marketId)))
+                .then();
+    }
+
+    /**
+     * Give up this node's lease in the background, if it still holds it
+     */
+    private void release(UUID marketId) {
+        if (redisTemplate == null) {
+            return;
+        }
+        String key = LEASE_PREFIX + marketId;
+        redisTemplate.opsForValue().get(key)
+                .filter(nodeId::equals)
+                .flatMap(holder -> redisTemplate.opsForValue().delete(key))
+                .subscribe(null, error -> log.debug("Could not release lease on settlement of market {}: {}",
+                        marketId, error.getMessage()));
+    }
+
+    /**
+     * Resume every settlement left RUNNING that is not already running here
+     */
+    private void resumeUnfinished() {
+        if (!resuming.compareAndSet(false, true)) {
+            return;
+        }
+        cql.rows(() -> cql.bound(SELECT_SETTLEMENTS).setPageSize(config.getPageSize()).build())
+                .filter(row -> STATUS_RUNNING.equals(row.getString("status"))
+                        && !running.containsKey(row.getUuid("market_id")))
+                .concatMap(row -> run(row.getUuid("market_id"), row.getUuid("winning_outcome_id")))
+                .doFinally(signal -> resuming.set(false))
+                .subscribe(null, error -> log.error("Failed to look for unfinished settlements", error));
+    }
+
+    private static SettlementProgress progress(Row row) {
+        BigDecimal totalPaid = row.getBigDecimal("total_paid");
+        return new SettlementProgress(
+                row.getUuid("market_id"),
+                row.getUuid("winning_outcome_id"),
+                row.getString("status"),
+                row.getLong("pages"),
+                row.getLong("positions_scanned"),
+                row.getLong("payouts_posted"),
+                row.getLong("payouts_failed"),
+                totalPaid == null ? BigDecimal.ZERO : totalPaid,
+                0.0,
+                0.0,
+                row.getString("last_error"),
+                row.getInstant("started_at"),
+                row.getInstant("updated_at"),
+                row.getInstant("completed_at"));
+    }
+
+    private static final class LeaseLostException extends IllegalStateException {
+
+        LeaseLostException(UUID marketId) {
+            super("Lease on settlement of market " + marketId + " lapsed");
+        }
+    }
+
+    /**
+     * One row of positions_by_market
+     */
+    private record Holding(UUID userId, UUID outcomeId, BigDecimal shares, UUID winningOutcomeId) {
+
+        /**
+         * One unit per winning share held; nothing for losing, flat or short positions
+         */
+        long payoutMicros() {
+            if (!outcomeId.equals(winningOutcomeId) || shares == null || shares.signum() <= 0) {
+                return 0L;
+            }
+            return Quantities.toMicros(shares);
+        }
+    }
+
+    /**
+     * A market's settlement in progress on this node
+     */
+    private static final class Run {
+
+        final UUID marketId;
+        final UUID winningOutcomeId;
+        final AtomicLong pages = new AtomicLong();
+        final AtomicLong positionsScanned = new AtomicLong();
+        final AtomicLong payoutsPosted = new AtomicLong();
+        final AtomicLong payoutsFailed = new AtomicLong();
+        final AtomicLong paidMicros = new AtomicLong();
+        /** When this node took the settlement up, and how far it had got, for throughput */
+        final long runningSince = System.nanoTime();
+        long scannedBefore;
+        long postedBefore;
+
+        volatile String status = STATUS_RUNNING;
+        volatile ByteBuffer pagingState;
+        volatile String lastError;
+        volatile Instant startedAt = Instant.now();
+        volatile Instant updatedAt;
+        volatile Instant completedAt;
+
+        Run(UUID marketId, UUID winningOutcomeId) {
+            this.marketId = marketId;
+            this.winningOutcomeId = winningOutcomeId;
+        }
+
+        void restore(Row saved) {
+            pagingState = saved.getByteBuffer("paging_state");
+            pages.set(saved.getLong("pages"));
+            positionsScanned.set(saved.getLong("positions_scanned"));
+            payoutsPosted.set(saved.getLong("payouts_posted"));
+            payoutsFailed.set(saved.getLong("payouts_failed"));
+            BigDecimal totalPaid = saved.getBigDecimal("total_paid");
+            paidMicros.set(totalPaid == null ? 0L : Quantities.toMicros(totalPaid));
+            if (saved.getInstant("started_at") != null) {
+                startedAt = saved.getInstant("started_at");
+            }
+            scannedBefore = positionsScanned.get();
+            postedBefore = payoutsPosted.get();
+        }
+
+        /**
+         * Move past a settled page; the last page completes the settlement
+         */
+        void advance(int positions, long posted, long failed, long paid, ByteBuffer next) {
+            pages.incrementAndGet();
+            positionsScanned.addAndGet(positions);
+            payoutsPosted.addAndGet(posted);
+            payoutsFailed.addAndGet(failed);
+            paidMicros.addAndGet(paid);
+            pagingState = next;
+            lastError = null;
+            if (next == null) {
+                status = STATUS_COMPLETED;
+                completedAt = Instant.now();
+            }
+        }
+
+        SettlementProgress progress() {
+            double seconds = Math.max(1e-9, (System.nanoTime() - runningSince) / 1e9);
+            return new SettlementProgress(marketId, winningOutcomeId, status, pages.get(), positionsScanned.get(),
+                    payoutsPosted.get(), payoutsFailed.get(), Micros.toDecimal(paidMicros.get()),
+                    (positionsScanned.get() - scannedBefore) / seconds,
+                    (payoutsPosted.get() - postedBefore) / seconds,
+                    lastError, startedAt, updatedAt, completedAt);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.oregonmarkets.domain.market.settlement;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Snapshot of a market's settlement
+ *
+ * @param positionsPerSecond positions settled per second by the run in progress on this node, 0 otherwise
+ * @param payoutsPerSecond   payouts posted per second by the run in progress on this node, 0 otherwise
+ */
+public record SettlementProgress(
+        UUID marketId,
+        UUID winningOutcomeId,
+        String status,
+        long pages,
+        long positionsScanned,
+        long payoutsPosted,
+        long payoutsFailed,
+        BigDecimal totalPaid,
+        double positionsPerSecond,
+        double payoutsPerSecond,
+        String lastError,
+        Instant startedAt,
+        Instant updatedAt,
+        Instant completedAt) {
+}
@@ -0,0 +1,66 @@
+package com.oregonmarkets.domain.user.service;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.magic.MagicDIDValidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Platform user ID of the Magic user authenticated on a request. The mapping never changes once a
+ * user is registered, so the most recently seen users are kept in memory, up to a fixed number.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserResolver {
+
+    /** Users whose ID is kept in memory */
+    static final int MAX_CACHED_USERS = 100_000;
+
+    private final UserRepository userRepository;
+
+    private final Map<String, UUID> userIds = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+            return size() > MAX_CACHED_USERS;
+        }
+    };
+
+    /**
+     * Fails with {@link ResponseCode#UNAUTHORIZED} if the request is not authenticated, or with
+     * {@link ResponseCode#USER_NOT_FOUND} if the Magic user has not registered
+     */
+    public Mono<UUID> resolve(ServerRequest request) {
+        MagicDIDValidator.MagicUserInfo magicUser = request.exchange().getAttribute("magicUser");
+        if (magicUser == null) {
+            return Mono.error(new BusinessException(ResponseCode.UNAUTHORIZED, "Authentication required"));
+        }
+        String magicUserId = magicUser.getUserId();
+        UUID cached;
+        synchronized (userIds) {
+            cached = userIds.get(magicUserId);
+        }
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return userRepository.findByMagicUserId(magicUserId)
+                .switchIfEmpty(Mono.error(new BusinessException(
+                        ResponseCode.USER_NOT_FOUND,
+                        "User profile not found. Please register first to create your account."
+                )))
+                .map(User::getId)
+                .doOnNext(userId -> {
+                    synchronized (userIds) {
+                        userIds.put(magicUserId, userId);
+                    }
+                });
+    }
+}
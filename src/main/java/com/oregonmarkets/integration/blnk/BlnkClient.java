@@ -3,6 +3,7 @@ package com.oregonmarkets.integration.blnk;
 import com.oregonmarkets.common.exception.BlnkApiException;
 import com.oregonmarkets.config.BlnkProperties;
 import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -229,4 +230,121 @@ public class BlnkClient {
             balances -> log.info("Found {} balances for identity {}", balances.size(), identityId))
         .onErrorReturn(java.util.Collections.<Map<String, Object>>emptyList());
   }
+
+  /**
+   * Record several transactions in one request. With {@code atomic} false, each transaction is
+   * applied independently. A transaction whose reference Blnk has already recorded is rejected
+   * rather than applied again, which may stop the rest of the request; see {@link
+   * #isDuplicateReference(Throwable)}.
+   *
+   * @return the batch ID Blnk assigned
+   */
+  public Mono<String> recordBulkTransactions(
+      java.util.List<Map<String, Object>> transactions, boolean atomic) {
+    if (transactions == null || transactions.isEmpty()) {
+      return Mono.error(new BlnkApiException("At least one transaction is required"));
+    }
+
+    Map<String, Object> requestBody =
+        Map.of(
+            "atomic", atomic,
+            "inflight", false,
+            "run_async", false,
+            "transactions", transactions);
+
+    return webClient
+        .post()
+        .uri("/transactions/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(requestBody)
+        .retrieve()
+        .onStatus(
+            status -> !status.is2xxSuccessful(),
+            clientResponse ->
+                clientResponse
+                    .bodyToMono(String.class)
+                    .flatMap(
+                        body -> {
+                          log.error(
+                              "Blnk recordBulkTransactions failed - Status: {}, Response: {}",
+                              clientResponse.statusCode(),
+                              body);
+                          return Mono.error(
+                              new BlnkApiException(
+                                  "Failed to record transactions: "
+                                      + clientResponse.statusCode()
+                                      + " - "
+                                      + body));
+                        }))
+        .bodyToMono(Map.class)
+        .map(
+            response -> {
+              Object idObj = response.get("batch_id");
+              if (idObj == null) {
+                throw new BlnkApiException("Batch ID not found in Blnk response: " + response);
+              }
+              return (String) idObj;
+            })
+        .retryWhen(
+            createRetrySpec("recordBulkTransactions", transactions.size() + " transactions"))
+        .doOnSuccess(
+            batchId ->
+                log.debug(
+                    "Recorded {} Blnk transactions in batch {}", transactions.size(), batchId))
+        .onErrorMap(
+            error ->
+                error instanceof BlnkApiException
+                    ? error
+                    : new BlnkApiException("Failed to record transactions", error));
+  }
+
+  /**
+   * Whether Blnk rejected a transaction because its reference is already recorded, meaning an
+   * earlier request for the same transaction went through
+   */
+  public static boolean isDuplicateReference(Throwable error) {
+    if (!(error instanceof BlnkApiException) || error.getMessage() == null) {
+      return false;
+    }
+    String message = error.getMessage().toLowerCase(Locale.ROOT);
+    return message.contains("reference")
+        && (message.contains("already") || message.contains("duplicate") || message.contains("exists"));
+  }
+
+  @SuppressWarnings("unchecked")
+  public Mono<Map<String, Object>> getBalance(String balanceId) {
+    if (balanceId == null || balanceId.isEmpty()) {
+      return Mono.error(new BlnkApiException("Balance ID is required"));
+    }
+
+    return webClient
+        .get()
+        .uri("/balances/{balanceId}", balanceId)
+        .retrieve()
+        .onStatus(
+            status -> !status.is2xxSuccessful(),
+            clientResponse ->
+                clientResponse
+                    .bodyToMono(String.class)
+                    .flatMap(
+                        body -> {
+                          log.error(
+                              "Blnk getBalance failed - Status: {}, Response: {}",
+                              clientResponse.statusCode(),
+                              body);
+                          return Mono.error(
+                              new BlnkApiException(
+                                  "Failed to get balance: "
+                                      + clientResponse.statusCode()
+                                      + " - "
+                                      + body));
+                        }))
+        .bodyToMono(Map.class)
+        .map(response -> (Map<String, Object>) response)
+        .onErrorMap(
+            error ->
+                error instanceof BlnkApiException
+                    ? error
+                    : new BlnkApiException("Failed to get balance", error));
+  }
 }
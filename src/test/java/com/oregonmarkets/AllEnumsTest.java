@@ -6,7 +6,9 @@ import com.oregonmarkets.domain.enclave.model.EnclaveChainAddress;
 import com.oregonmarkets.domain.market.model.MarketType;
 import com.oregonmarkets.domain.market.model.OrderSide;
 import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.OrderType;
 import com.oregonmarkets.domain.market.model.ResolutionSource;
+import com.oregonmarkets.domain.market.model.TimeInForce;
 import com.oregonmarkets.domain.payment.model.Deposit;
 import com.oregonmarkets.domain.user.model.User;
 import org.junit.jupiter.api.Test;
@@ -101,6 +103,22 @@ class AllEnumsTest {
     }
   }
 
+  @Test
+  void orderTypeEnum() {
+    for (OrderType type : OrderType.values()) {
+      assertNotNull(type.name());
+      assertNotNull(OrderType.valueOf(type.name()));
+    }
+  }
+
+  @Test
+  void timeInForceEnum() {
+    for (TimeInForce tif : TimeInForce.values()) {
+      assertNotNull(tif.name());
+      assertNotNull(TimeInForce.valueOf(tif.name()));
+    }
+  }
+
   @Test
   void resolutionSourceEnum() {
     for (ResolutionSource source : ResolutionSource.values()) {
@@ -0,0 +1,93 @@
+package com.oregonmarkets.common.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class CqlStatementsTest {
+
+  private CqlSession session;
+  private CqlStatements cql;
+
+  @BeforeEach
+  void setUp() {
+    session = mock(CqlSession.class);
+    cql = new CqlStatements(session);
+  }
+
+  @Test
+  void prepare_SameQuery_ShouldPrepareOnce() {
+    PreparedStatement prepared = mock(PreparedStatement.class);
+    when(session.prepare("SELECT 1")).thenReturn(prepared);
+
+    assertThat(cql.prepare("SELECT 1")).isSameAs(prepared);
+    assertThat(cql.prepare("SELECT 1")).isSameAs(prepared);
+
+    verify(session, times(1)).prepare("SELECT 1");
+  }
+
+  @Test
+  void execute_TransientFailure_ShouldRetry() {
+    AsyncResultSet result = mock(AsyncResultSet.class);
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(CompletableFuture.failedFuture(mock(WriteTimeoutException.class)))
+        .thenReturn(CompletableFuture.completedFuture(result));
+
+    StepVerifier.create(cql.execute(mock(Statement.class)))
+        .expectNext(result)
+        .verifyComplete();
+
+    verify(session, times(2)).executeAsync(any(Statement.class));
+  }
+
+  @Test
+  void execute_PersistentFailure_ShouldFailAfterRetries() {
+    when(session.executeAsync(any(Statement.class)))
+        .thenReturn(CompletableFuture.failedFuture(mock(WriteTimeoutException.class)));
+
+    StepVerifier.create(cql.execute(mock(Statement.class)))
+        .expectError()
+        .verify(Duration.ofSeconds(5));
+
+    verify(session, times(CqlStatements.MAX_RETRIES + 1)).executeAsync(any(Statement.class));
+  }
+
+  @Test
+  void rows_SeveralPages_ShouldFetchEachInTurn() {
+    Row first = mock(Row.class);
+    Row second = mock(Row.class);
+    AsyncResultSet last = page(List.of(second), null);
+    AsyncResultSet page = page(List.of(first), last);
+    when(session.executeAsync(any(Statement.class))).thenReturn(CompletableFuture.completedFuture(page));
+
+    StepVerifier.create(cql.rows(() -> mock(Statement.class)))
+        .expectNext(first, second)
+        .verifyComplete();
+  }
+
+  private static AsyncResultSet page(List<Row> rows, AsyncResultSet next) {
+    AsyncResultSet page = mock(AsyncResultSet.class);
+    when(page.currentPage()).thenReturn(rows);
+    when(page.hasMorePages()).thenReturn(next != null);
+    if (next != null) {
+      when(page.fetchNextPage()).thenReturn(CompletableFuture.completedFuture(next));
+    }
+    return page;
+  }
+}
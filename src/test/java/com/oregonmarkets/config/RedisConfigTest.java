@@ -3,9 +3,14 @@ package com.oregonmarkets.config;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 
 class RedisConfigTest {
 
@@ -18,4 +23,35 @@ class RedisConfigTest {
 
     assertNotNull(template);
   }
+
+  @Test
+  void valueSerializer_OrderResponse_RoundTripsWithTimestamps() {
+    GenericJackson2JsonRedisSerializer serializer = RedisConfig.valueSerializer();
+    OrderResponse response =
+        OrderResponse.builder()
+            .orderId(UUID.randomUUID())
+            .side("BUY")
+            .priceE4(5000L)
+            .quantity(new BigDecimal("10"))
+            .filledQuantity(new BigDecimal("4"))
+            .status("PARTIALLY_FILLED")
+            .clientOrderId("client-1")
+            .createdAt(Instant.parse("2025-01-01T00:00:00Z"))
+            .updatedAt(Instant.parse("2025-01-01T00:00:01Z"))
+            .expiresAt(Instant.parse("2025-01-02T00:00:00Z"))
+            .filledAt(Instant.parse("2025-01-01T00:00:01Z"))
+            .build();
+
+    Object read = serializer.deserialize(serializer.serialize(response));
+
+    OrderResponse original = assertInstanceOf(OrderResponse.class, read);
+    assertEquals(response, original);
+  }
+
+  @Test
+  void valueSerializer_String_RoundTripsAsString() {
+    GenericJackson2JsonRedisSerializer serializer = RedisConfig.valueSerializer();
+
+    assertEquals("PENDING", serializer.deserialize(serializer.serialize("PENDING")));
+  }
 }
@@ -158,6 +158,11 @@ public class TestDatabaseConfig {
         return Mockito.mock(OrderRepository.class);
     }
 
+    @Bean
+    public OpenOrderRepository openOrderRepository() {
+        return Mockito.mock(OpenOrderRepository.class);
+    }
+
     @Bean
     public TradeRepository tradeRepository() {
         return Mockito.mock(TradeRepository.class);
@@ -0,0 +1,58 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientOrderIndexTest {
+
+    @Test
+    void record_ThenFind_ShouldReturnResultOnlyForSameUser() {
+        ClientOrderIndex index = new ClientOrderIndex(16);
+        UUID userId = UUID.randomUUID();
+        MatchResult result = result();
+
+        index.record(userId, "abc", result);
+
+        assertThat(index.find(userId, "abc")).isSameAs(result);
+        assertThat(index.find(userId, "abd")).isNull();
+        assertThat(index.find(UUID.randomUUID(), "abc")).isNull();
+    }
+
+    @Test
+    void record_NullClientOrderId_ShouldBeIgnored() {
+        ClientOrderIndex index = new ClientOrderIndex(16);
+        UUID userId = UUID.randomUUID();
+
+        index.record(userId, null, result());
+
+        assertThat(index.size()).isZero();
+        assertThat(index.find(userId, null)).isNull();
+    }
+
+    @Test
+    void record_BeyondCapacity_ShouldEvictOldestButKeepRecentAcrossFilterGenerations() {
+        ClientOrderIndex index = new ClientOrderIndex(100);
+        UUID userId = UUID.randomUUID();
+        MatchResult[] results = new MatchResult[250];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = result();
+            index.record(userId, "order-" + i, results[i]);
+        }
+
+        assertThat(index.size()).isEqualTo(100);
+        assertThat(index.find(userId, "order-0")).isNull();
+        assertThat(index.find(userId, "order-149")).isNull();
+        for (int i = 150; i < results.length; i++) {
+            assertThat(index.find(userId, "order-" + i)).isSameAs(results[i]);
+        }
+    }
+
+    private static MatchResult result() {
+        return MatchResult.of(Order.builder().orderId(UUID.randomUUID()).build(), ResponseCode.ORDER_PLACED);
+    }
+}
@@ -0,0 +1,47 @@
+package com.oregonmarkets.domain.market.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineClockTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void tick_SourceNotMoved_ShouldStillAdvanceOneMicrosecond() {
+        EngineClock clock = new EngineClock(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        Instant first = clock.tick();
+        Instant second = clock.tick();
+
+        assertThat(first).isEqualTo(NOW.plusNanos(1_000));
+        assertThat(second).isEqualTo(NOW.plusNanos(2_000));
+        assertThat(clock.hasAdvanced()).isFalse();
+    }
+
+    @Test
+    void tick_SourceAhead_ShouldFollowSource() {
+        EngineClock clock = new EngineClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        clock.set(NOW.minusSeconds(1));
+
+        assertThat(clock.hasAdvanced()).isTrue();
+        assertThat(clock.tick()).isEqualTo(NOW);
+    }
+
+    @Test
+    void withZone_ShouldFollowTicks() {
+        EngineClock clock = new EngineClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        Clock paris = clock.withZone(ZoneId.of("Europe/Paris"));
+
+        Instant ticked = clock.tick();
+
+        assertThat(paris.instant()).isEqualTo(ticked);
+        assertThat(paris.getZone()).isEqualTo(ZoneId.of("Europe/Paris"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.journal.CommandJournal;
+import com.oregonmarkets.domain.market.engine.journal.SnapshotStore;
+import com.oregonmarkets.domain.market.engine.risk.RiskLedger;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.Position;
+import com.oregonmarkets.domain.market.repository.PositionRepository;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.blnk.BlnkClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EngineShardTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PositionRepository positionRepository;
+
+    @Mock
+    private BlnkClient blnkClient;
+
+    @Mock
+    private CommandJournal journal;
+
+    @Mock
+    private SnapshotStore snapshots;
+
+    private RiskLedger risk;
+    private MatchingEngine engine;
+    private EngineShard shard;
+    private UUID marketId;
+    private UUID outcomeId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        risk = new RiskLedger(userRepository, positionRepository, blnkClient, new EngineProperties());
+        EngineClock clock = new EngineClock(Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+        engine = new MatchingEngine(0, clock);
+        shard = new EngineShard(0, engine, clock, new CommandRingBuffer(16), List.of(), risk, 0);
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        engine.openBook(Market.builder().marketId(marketId).tickSizeE4(100L).build(), outcomeId);
+        shard.recover(journal, snapshots);
+        shard.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shard.stop();
+    }
+
+    @Test
+    void place_JournalWriteFails_ShouldReleaseReservation() {
+        UUID buyer = loadAccount();
+        when(journal.appendPlace(any(), anyLong()))
+                .thenThrow(new IllegalStateException("Journal segment is full"))
+                .thenReturn(1L);
+
+        StepVerifier.create(place(limit(buyer, 5000, "150")))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+
+        // 150 shares at 0.50 need 75 of the 100 USDC, so the retry only fits if the first reservation is gone
+        StepVerifier.create(place(limit(buyer, 5000, "150")))
+                .assertNext(result -> assertThat(result.isRejected()).isFalse())
+                .verifyComplete();
+        assertThat(engine.getRestingOrderCount()).isEqualTo(1);
+    }
+
+    private Mono<MatchResult> place(Order order) {
+        return Mono.create(sink -> {
+            CommandRingBuffer ring = shard.ring();
+            long sequence = ring.tryClaim();
+            EngineCommand command = ring.slot(sequence);
+            command.type = EngineCommand.Type.PLACE;
+            command.order = order;
+            command.sink = sink;
+            ring.publish(sequence);
+            shard.signal();
+        });
+    }
+
+    private UUID loadAccount() {
+        UUID userId = UUID.randomUUID();
+        String balanceId = "balance-" + userId;
+        when(userRepository.findById(userId))
+                .thenReturn(Mono.just(User.builder().id(userId).blnkBalanceId(balanceId).build()));
+        when(blnkClient.getBalance(balanceId))
+                .thenReturn(Mono.just(Map.<String, Object>of("balance", 10000, "precision", 100)));
+        when(positionRepository.findByUserId(userId)).thenReturn(Flux.<Position>empty());
+        StepVerifier.create(risk.load(userId)).verifyComplete();
+        return userId;
+    }
+
+    private Order limit(UUID userId, long priceE4, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .side("BUY")
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.oregonmarkets.domain.market.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LmsrMarketMakerTest {
+
+    /** b = 100 shares */
+    private static final long LIQUIDITY = 100_000_000L;
+
+    @Test
+    void addOutcome_ShouldQuoteEveryOutcomeEqually() {
+        LmsrMarketMaker maker = maker(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(maker.price(i)).isCloseTo(0.25, within(1e-15));
+            assertThat(maker.priceE4(i)).isEqualTo(2500L);
+        }
+    }
+
+    @Test
+    void cost_ShouldEqualCostFunctionDifference() {
+        LmsrMarketMaker maker = maker(3);
+        maker.apply(0, 40_000_000L);
+        maker.apply(2, -15_000_000L);
+
+        long[] inventory = {40_000_000L, 0L, -15_000_000L};
+        double before = costFunction(inventory);
+        inventory[1] += 25_000_000L;
+        double after = costFunction(inventory);
+
+        assertThat(maker.cost(1, 25_000_000L)).isCloseTo((long) Math.ceil(after - before), within(1L));
+    }
+
+    @Test
+    void cost_SellingBack_ShouldReturnWhatBuyingCost() {
+        LmsrMarketMaker maker = maker(2);
+        long paid = maker.cost(0, 10_000_000L);
+        maker.apply(0, 10_000_000L);
+
+        long received = -maker.cost(0, -10_000_000L);
+
+        assertThat(received).isBetween(paid - 2, paid);
+    }
+
+    @Test
+    void maxBuy_ShouldStopAtLimitPrice() {
+        LmsrMarketMaker maker = maker(2);
+
+        long quantity = maker.maxBuy(0, 7000);
+        maker.apply(0, quantity);
+
+        assertThat(maker.price(0)).isLessThanOrEqualTo(0.7).isCloseTo(0.7, within(1e-6));
+        assertThat(maker.maxBuy(0, 7000)).isZero();
+        assertThat(maker.maxSell(0, 5000)).isCloseTo(quantity, within(1L));
+    }
+
+    @Test
+    void apply_ManyTrades_ShouldTrackFullRebuild() {
+        LmsrMarketMaker maker = maker(50);
+        Random random = new Random(42);
+        for (int i = 0; i < 3 * LmsrMarketMaker.REBUILD_INTERVAL + 17; i++) {
+            maker.apply(random.nextInt(50), (random.nextInt(25) - 5) * 1_000_000L);
+        }
+
+        LmsrMarketMaker rebuilt = maker(50);
+        for (int i = 0; i < 50; i++) {
+            rebuilt.restore(i, maker.inventory(i));
+        }
+        double total = 0.0;
+        for (int i = 0; i < 50; i++) {
+            assertThat(maker.price(i)).isCloseTo(rebuilt.price(i), within(1e-12));
+            total += maker.price(i);
+        }
+        assertThat(total).isCloseTo(1.0, within(1e-12));
+    }
+
+    @Test
+    void price_ExtremeInventory_ShouldStayFinite() {
+        LmsrMarketMaker maker = maker(50);
+
+        maker.apply(0, 1_000 * LIQUIDITY);
+
+        assertThat(maker.price(0)).isCloseTo(1.0, within(1e-12));
+        assertThat(maker.price(1)).isGreaterThanOrEqualTo(0.0).isLessThan(1e-12);
+        assertThat(maker.priceE4(1)).isEqualTo(1L);
+        assertThat(maker.cost(1, 1_000_000L)).isPositive();
+        assertThat(maker.cost(1, 1L)).isEqualTo(1L);
+        assertThat(maker.cost(0, -1_000_000L)).isNegative();
+    }
+
+    @Test
+    void restore_InAnyOutcomeOrder_ShouldPriceIdentically() {
+        long[] inventory = {3_000_000L, 250_000_000L, -7_000_000L, 42_000_000L};
+        LmsrMarketMaker forward = maker(4);
+        LmsrMarketMaker backward = maker(4);
+        for (int i = 0; i < 4; i++) {
+            forward.restore(i, inventory[i]);
+            backward.restore(i, inventory[3 - i]);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(forward.price(i)).isEqualTo(backward.price(3 - i));
+        }
+    }
+
+    private static LmsrMarketMaker maker(int outcomes) {
+        LmsrMarketMaker maker = new LmsrMarketMaker(LIQUIDITY);
+        for (int i = 0; i < outcomes; i++) {
+            maker.addOutcome(UUID.randomUUID());
+        }
+        return maker;
+    }
+
+    /**
+     * C(q) = b ln Σ exp(q_i / b) in micro-USDC, computed directly
+     */
+    private static double costFunction(long[] inventory) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (long q : inventory) {
+            max = Math.max(max, (double) q / LIQUIDITY);
+        }
+        double sum = 0.0;
+        for (long q : inventory) {
+            sum += Math.exp((double) q / LIQUIDITY - max);
+        }
+        return LIQUIDITY * (max + Math.log(sum));
+    }
+}
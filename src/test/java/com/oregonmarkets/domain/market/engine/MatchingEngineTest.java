@@ -0,0 +1,571 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchingEngineTest {
+
+    private MatchingEngine engine;
+    private UUID marketId;
+    private UUID outcomeId;
+    private UUID buyer;
+    private UUID seller;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MatchingEngine(1, Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        buyer = UUID.randomUUID();
+        seller = UUID.randomUUID();
+
+        Market market = Market.builder()
+                .marketId(marketId)
+                .tickSizeE4(100L)
+                .makerFeeE4(10L)
+                .takerFeeE4(20L)
+                .build();
+        engine.openBook(market, outcomeId);
+    }
+
+    @Test
+    void place_NoCrossingLiquidity_ShouldRestOnBook() {
+        MatchResult result = engine.place(limit(buyer, "BUY", 5000, "10"));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_PLACED);
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(result.getOrder().getStatus()).isEqualTo(OrderStatus.OPEN.name());
+
+        OrderBook book = engine.getBook(marketId, outcomeId);
+        assertThat(book.getBestBidE4()).isEqualTo(5000L);
+        assertThat(book.getBestAskE4()).isNull();
+        assertThat(book.getDepth(OrderSide.BUY, 5000)).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void place_CrossingOrder_ShouldTradeAtMakerPrice() {
+        engine.place(limit(seller, "SELL", 4800, "10"));
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 5000, "10"));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+        assertThat(result.getTrades()).hasSize(1);
+        Trade trade = result.getTrades().get(0);
+        assertThat(trade.getPriceE4()).isEqualTo(4800L);
+        assertThat(trade.getQuantity()).isEqualByComparingTo("10");
+        assertThat(trade.getTotalValue()).isEqualByComparingTo("4.8");
+        assertThat(trade.getBuyerUserId()).isEqualTo(buyer);
+        assertThat(trade.getSellerUserId()).isEqualTo(seller);
+        assertThat(trade.getTakerSide()).isEqualTo("BUY");
+        assertThat(trade.getBuyerFee()).isEqualByComparingTo("0.0096");
+        assertThat(trade.getSellerFee()).isEqualByComparingTo("0.0048");
+
+        assertThat(result.getUpdatedOrders()).hasSize(1);
+        assertThat(result.getUpdatedOrders().get(0).getStatus()).isEqualTo(OrderStatus.FILLED.name());
+        assertThat(engine.getRestingOrderCount()).isZero();
+    }
+
+    @Test
+    void place_SamePrice_ShouldFillInTimePriority() {
+        Order first = limit(seller, "SELL", 5000, "5");
+        Order second = limit(UUID.randomUUID(), "SELL", 5000, "5");
+        engine.place(first);
+        engine.place(second);
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 5000, "7"));
+
+        assertThat(result.getTrades()).hasSize(2);
+        assertThat(result.getTrades().get(0).getSellerOrderId()).isEqualTo(first.getOrderId());
+        assertThat(result.getTrades().get(1).getSellerOrderId()).isEqualTo(second.getOrderId());
+        assertThat(second.getStatus()).isEqualTo(OrderStatus.PARTIALLY_FILLED.name());
+        assertThat(second.getRemainingQuantity()).isEqualByComparingTo("3");
+    }
+
+    @Test
+    void place_SweepsLevels_ShouldFillBestPriceFirstAndRestRemainder() {
+        engine.place(limit(seller, "SELL", 5200, "5"));
+        engine.place(limit(seller, "SELL", 5100, "5"));
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 5200, "12"));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_PARTIALLY_FILLED);
+        assertThat(result.getTrades()).extracting(Trade::getPriceE4).containsExactly(5100L, 5200L);
+        assertThat(result.getOrder().getRemainingQuantity()).isEqualByComparingTo("2");
+        assertThat(result.getOrder().getAverageFillPriceE4()).isEqualTo(5150L);
+        assertThat(engine.getBook(marketId, outcomeId).getBestBidE4()).isEqualTo(5200L);
+    }
+
+    @Test
+    void place_ImmediateOrCancel_ShouldCancelRemainder() {
+        engine.place(limit(seller, "SELL", 5000, "4"));
+        Order order = limit(buyer, "BUY", 5000, "10");
+        order.setTimeInForce("IOC");
+
+        MatchResult result = engine.place(order);
+
+        assertThat(result.getTrades()).hasSize(1);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(order.getFilledQuantity()).isEqualByComparingTo("4");
+        assertThat(engine.getBook(marketId, outcomeId).getBestBidE4()).isNull();
+    }
+
+    @Test
+    void place_FillOrKillWithoutEnoughLiquidity_ShouldNotTrade() {
+        engine.place(limit(seller, "SELL", 5000, "4"));
+        Order order = limit(buyer, "BUY", 5000, "10");
+        order.setTimeInForce("FOK");
+
+        MatchResult result = engine.place(order);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(engine.getBook(marketId, outcomeId).getDepth(OrderSide.SELL, 5000)).isEqualTo(4_000_000L);
+    }
+
+    @Test
+    void place_FillOrKillAgainstOwnLiquidity_ShouldNotCountOwnOrders() {
+        Order own = limit(buyer, "SELL", 5000, "6");
+        engine.place(own);
+        engine.place(limit(seller, "SELL", 5000, "4"));
+        Order order = limit(buyer, "BUY", 5000, "10");
+        order.setTimeInForce("FOK");
+
+        MatchResult result = engine.place(order);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(own.getStatus()).isEqualTo(OrderStatus.OPEN.name());
+        assertThat(engine.getBook(marketId, outcomeId).getDepth(OrderSide.SELL, 5000)).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void place_MarketOrder_ShouldNeverRest() {
+        engine.place(limit(seller, "SELL", 6000, "3"));
+        Order order = limit(buyer, "BUY", 0, "5");
+        order.setOrderType("MARKET");
+        order.setPriceE4(null);
+
+        MatchResult result = engine.place(order);
+
+        assertThat(result.getTrades()).hasSize(1);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(engine.getRestingOrderCount()).isZero();
+    }
+
+    @Test
+    void place_OffTickPrice_ShouldReject() {
+        MatchResult result = engine.place(limit(buyer, "BUY", 5050, "1"));
+
+        assertThat(result.isRejected()).isTrue();
+        assertThat(result.getCode()).isEqualTo(ResponseCode.INVALID_PRICE);
+        assertThat(result.getOrder().getStatus()).isEqualTo(OrderStatus.REJECTED.name());
+    }
+
+    @Test
+    void place_UnknownBook_ShouldReject() {
+        Order order = limit(buyer, "BUY", 5000, "1");
+        order.setOutcomeId(UUID.randomUUID());
+
+        assertThat(engine.place(order).getCode()).isEqualTo(ResponseCode.MARKET_CLOSED);
+    }
+
+    @Test
+    void place_SelfCross_ShouldCancelRestingOrder() {
+        Order resting = limit(buyer, "SELL", 5000, "5");
+        engine.place(resting);
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 5000, "5"));
+
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(resting.getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(result.getOrder().getStatus()).isEqualTo(OrderStatus.OPEN.name());
+    }
+
+    @Test
+    void cancel_RestingOrder_ShouldRemoveFromBook() {
+        Order order = limit(buyer, "BUY", 5000, "5");
+        engine.place(order);
+
+        MatchResult result = engine.cancel(order.getOrderId(), buyer);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(engine.getBook(marketId, outcomeId).getBestBidE4()).isNull();
+    }
+
+    @Test
+    void cancel_OtherUsersOrder_ShouldReturnNotFound() {
+        Order order = limit(buyer, "BUY", 5000, "5");
+        engine.place(order);
+
+        assertThat(engine.cancel(order.getOrderId(), seller).getCode()).isEqualTo(ResponseCode.ORDER_NOT_FOUND);
+        assertThat(engine.getRestingOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelAll_ShouldCancelOnlyUsersOrdersInMarket() {
+        UUID otherOutcome = UUID.randomUUID();
+        Market other = Market.builder().marketId(UUID.randomUUID()).tickSizeE4(100L).build();
+        engine.openBook(Market.builder().marketId(marketId).tickSizeE4(100L).build(), otherOutcome);
+        engine.openBook(other, outcomeId);
+
+        engine.place(limit(buyer, "BUY", 4000, "1"));
+        engine.place(limit(buyer, "SELL", 6000, "1"));
+        Order secondOutcome = limit(buyer, "BUY", 3000, "1");
+        secondOutcome.setOutcomeId(otherOutcome);
+        engine.place(secondOutcome);
+        Order otherMarket = limit(buyer, "BUY", 3000, "1");
+        otherMarket.setMarketId(other.getMarketId());
+        engine.place(otherMarket);
+        Order someoneElse = limit(seller, "BUY", 4000, "1");
+        engine.place(someoneElse);
+
+        MatchResult result = engine.cancelAll(buyer, marketId);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(result.getUpdatedOrders()).hasSize(3);
+        assertThat(engine.getRestingOrderCount()).isEqualTo(2);
+        assertThat(engine.cancel(otherMarket.getOrderId(), buyer).getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(engine.cancel(someoneElse.getOrderId(), seller).getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+    }
+
+    @Test
+    void cancelAll_AfterFills_ShouldSkipOrdersNoLongerResting() {
+        Order filled = limit(buyer, "SELL", 5000, "1");
+        engine.place(filled);
+        engine.place(limit(buyer, "SELL", 5100, "1"));
+        engine.place(limit(seller, "BUY", 5000, "1"));
+
+        MatchResult result = engine.cancelAll(buyer, marketId);
+
+        assertThat(result.getUpdatedOrders()).extracting(Order::getPriceE4).containsExactly(5100L);
+        assertThat(filled.getStatus()).isEqualTo(OrderStatus.FILLED.name());
+        assertThat(engine.getRestingOrderCount()).isZero();
+    }
+
+    @Test
+    void closeMarket_ShouldCancelEveryOrderAndRejectNewOnes() {
+        UUID otherOutcome = UUID.randomUUID();
+        Market other = Market.builder().marketId(UUID.randomUUID()).tickSizeE4(100L).build();
+        engine.openBook(Market.builder().marketId(marketId).tickSizeE4(100L).build(), otherOutcome);
+        engine.openBook(other, outcomeId);
+
+        engine.place(limit(buyer, "BUY", 4000, "1"));
+        engine.place(limit(seller, "SELL", 6000, "1"));
+        Order secondOutcome = limit(seller, "BUY", 3000, "1");
+        secondOutcome.setOutcomeId(otherOutcome);
+        engine.place(secondOutcome);
+        Order otherMarket = limit(buyer, "BUY", 3000, "1");
+        otherMarket.setMarketId(other.getMarketId());
+        engine.place(otherMarket);
+
+        MatchResult result = engine.closeMarket(marketId);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(result.getUpdatedOrders()).hasSize(3)
+                .allSatisfy(order -> assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED.name()));
+        assertThat(result.getBookDeltas()).hasSize(2);
+        assertThat(engine.getRestingOrderCount()).isEqualTo(1);
+        assertThat(engine.getBook(marketId, outcomeId)).isNull();
+        assertThat(engine.place(limit(buyer, "BUY", 4000, "1")).getCode()).isEqualTo(ResponseCode.MARKET_CLOSED);
+        assertThat(engine.cancel(otherMarket.getOrderId(), buyer).getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+    }
+
+    @Test
+    void modify_NewPriceCrossing_ShouldMatch() {
+        engine.place(limit(seller, "SELL", 5500, "5"));
+        Order order = limit(buyer, "BUY", 5000, "5");
+        engine.place(order);
+
+        MatchResult result = engine.modify(order.getOrderId(), buyer, 5500L, null);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+        assertThat(result.getTrades()).hasSize(1);
+        assertThat(engine.getRestingOrderCount()).isZero();
+    }
+
+    @Test
+    void expire_GoodTillDateOrder_ShouldLeaveBookAtItsExpiry() {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        Order order = limit(buyer, "BUY", 5000, "5");
+        order.setTimeInForce("GTD");
+        order.setExpiresAt(start.plusSeconds(3600));
+        engine.place(order);
+
+        assertThat(engine.expire(start.plusSeconds(3599))).isNull();
+        MatchResult result = engine.expire(start.plusSeconds(3600));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_EXPIRED);
+        assertThat(result.getUpdatedOrders()).containsExactly(order);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.EXPIRED.name());
+        assertThat(engine.getRestingOrderCount()).isZero();
+        assertThat(engine.getPendingExpiryCount()).isZero();
+    }
+
+    @Test
+    void place_DayOrder_ShouldExpireAtNextMidnightUtc() {
+        Order order = limit(buyer, "BUY", 5000, "5");
+        order.setTimeInForce("DAY");
+
+        engine.place(order);
+
+        assertThat(order.getExpiresAt()).isEqualTo(Instant.parse("2025-01-02T00:00:00Z"));
+        assertThat(engine.getPendingExpiryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void place_InvalidExpiry_ShouldReject() {
+        Order missing = limit(buyer, "BUY", 5000, "5");
+        missing.setTimeInForce("GTD");
+        Order past = limit(buyer, "BUY", 5000, "5");
+        past.setExpiresAt(Instant.parse("2024-12-31T23:59:59Z"));
+
+        assertThat(engine.place(missing).getCode()).isEqualTo(ResponseCode.MISSING_REQUIRED_FIELD);
+        assertThat(engine.place(past).getCode()).isEqualTo(ResponseCode.INVALID_INPUT);
+    }
+
+    @Test
+    void cancel_OrderWithExpiry_ShouldDisarmItsTimer() {
+        Order order = limit(buyer, "BUY", 5000, "5");
+        order.setTimeInForce("DAY");
+        engine.place(order);
+
+        engine.cancel(order.getOrderId(), buyer);
+
+        assertThat(engine.getPendingExpiryCount()).isZero();
+        assertThat(engine.expire(Instant.parse("2025-01-03T00:00:00Z"))).isNull();
+    }
+
+    @Test
+    void place_BinaryBuysOfBothOutcomes_ShouldMintSharePair() {
+        UUID yes = UUID.randomUUID();
+        UUID no = UUID.randomUUID();
+        openBinary(yes, no);
+        Order buyNo = limit(seller, "BUY", 4500, "10");
+        buyNo.setOutcomeId(no);
+        engine.place(buyNo);
+
+        Order buyYes = limit(buyer, "BUY", 6000, "10");
+        buyYes.setOutcomeId(yes);
+        MatchResult result = engine.place(buyYes);
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+        assertThat(result.getTrades()).hasSize(2);
+        Trade yesLeg = result.getTrades().get(0);
+        Trade noLeg = result.getTrades().get(1);
+        assertThat(yesLeg.getOutcomeId()).isEqualTo(yes);
+        assertThat(yesLeg.getPriceE4()).isEqualTo(5500L);
+        assertThat(yesLeg.getBuyerOrderId()).isEqualTo(buyYes.getOrderId());
+        assertThat(yesLeg.getSellerOrderId()).isNull();
+        assertThat(noLeg.getOutcomeId()).isEqualTo(no);
+        assertThat(noLeg.getPriceE4()).isEqualTo(4500L);
+        assertThat(noLeg.getBuyerOrderId()).isEqualTo(buyNo.getOrderId());
+        assertThat(yesLeg.getTotalValue().add(noLeg.getTotalValue())).isEqualByComparingTo("10");
+        assertThat(buyYes.getAverageFillPriceE4()).isEqualTo(5500L);
+        assertThat(buyNo.getAverageFillPriceE4()).isEqualTo(4500L);
+        assertThat(buyNo.getStatus()).isEqualTo(OrderStatus.FILLED.name());
+    }
+
+    @Test
+    void place_BinarySellsOfBothOutcomes_ShouldMergeSharePair() {
+        UUID yes = UUID.randomUUID();
+        UUID no = UUID.randomUUID();
+        openBinary(yes, no);
+        Order sellNo = limit(seller, "SELL", 4500, "10");
+        sellNo.setOutcomeId(no);
+        engine.place(sellNo);
+
+        Order sellYes = limit(buyer, "SELL", 5000, "4");
+        sellYes.setOutcomeId(yes);
+        MatchResult result = engine.place(sellYes);
+
+        assertThat(result.getTrades()).extracting(Trade::getPriceE4).containsExactly(5500L, 4500L);
+        assertThat(result.getTrades()).extracting(Trade::getBuyerOrderId).containsOnlyNulls();
+        assertThat(result.getTrades()).extracting(Trade::getSellerOrderId)
+                .containsExactly(sellYes.getOrderId(), sellNo.getOrderId());
+        assertThat(sellNo.getRemainingQuantity()).isEqualByComparingTo("6");
+    }
+
+    @Test
+    void place_BinarySameOutcome_ShouldTradeAtThatOutcomesPrice() {
+        UUID yes = UUID.randomUUID();
+        UUID no = UUID.randomUUID();
+        OrderBook book = openBinary(yes, no);
+        Order sellNo = limit(seller, "SELL", 3000, "5");
+        sellNo.setOutcomeId(no);
+        engine.place(sellNo);
+
+        assertThat(book.getBestBidE4()).isEqualTo(7000L);
+        assertThat(engine.getBook(marketId, no)).isSameAs(book);
+
+        Order buyNo = limit(buyer, "BUY", 3200, "5");
+        buyNo.setOutcomeId(no);
+        MatchResult result = engine.place(buyNo);
+
+        assertThat(result.getTrades()).hasSize(1);
+        Trade trade = result.getTrades().get(0);
+        assertThat(trade.getOutcomeId()).isEqualTo(no);
+        assertThat(trade.getPriceE4()).isEqualTo(3000L);
+        assertThat(trade.getBuyerOrderId()).isEqualTo(buyNo.getOrderId());
+        assertThat(trade.getSellerOrderId()).isEqualTo(sellNo.getOrderId());
+        assertThat(trade.getTakerSide()).isEqualTo("BUY");
+    }
+
+    @Test
+    void modify_ComplementOrder_ShouldRepriceInItsOwnTerms() {
+        UUID yes = UUID.randomUUID();
+        UUID no = UUID.randomUUID();
+        OrderBook book = openBinary(yes, no);
+        Order buyNo = limit(seller, "BUY", 3000, "5");
+        buyNo.setOutcomeId(no);
+        engine.place(buyNo);
+
+        engine.modify(buyNo.getOrderId(), seller, 3500L, null);
+
+        assertThat(buyNo.getPriceE4()).isEqualTo(3500L);
+        assertThat(book.getBestAskE4()).isEqualTo(6500L);
+    }
+
+    @Test
+    void place_ChangingLevels_ShouldCarryOneDeltaPerCommand() {
+        MatchResult resting = engine.place(limit(seller, "SELL", 5100, "5"));
+
+        assertThat(resting.getBookDeltas()).singleElement().satisfies(delta -> {
+            assertThat(delta.sequence()).isEqualTo(1L);
+            assertThat(delta.bids()).isEmpty();
+            assertThat(delta.asks()).containsExactly(new BookLevel(5100, 5_000_000L));
+        });
+
+        MatchResult crossing = engine.place(limit(buyer, "BUY", 5100, "8"));
+
+        assertThat(crossing.getBookDeltas()).singleElement().satisfies(delta -> {
+            assertThat(delta.sequence()).isEqualTo(2L);
+            assertThat(delta.asks()).containsExactly(new BookLevel(5100, 0L));
+            assertThat(delta.bids()).containsExactly(new BookLevel(5100, 3_000_000L));
+        });
+        assertThat(engine.getBook(marketId, outcomeId).getSequence()).isEqualTo(2L);
+    }
+
+    @Test
+    void place_Rejected_ShouldNotAdvanceBookSequence() {
+        MatchResult result = engine.place(limit(buyer, "BUY", 5050, "1"));
+
+        assertThat(result.isRejected()).isTrue();
+        assertThat(result.getBookDeltas()).isEmpty();
+        assertThat(engine.getBook(marketId, outcomeId).getSequence()).isZero();
+    }
+
+    @Test
+    void snapshot_ShouldAggregateLevelsBestFirst() {
+        engine.place(limit(buyer, "BUY", 4800, "1"));
+        engine.place(limit(UUID.randomUUID(), "BUY", 4900, "2"));
+        engine.place(limit(UUID.randomUUID(), "BUY", 4900, "3"));
+        engine.place(limit(seller, "SELL", 5200, "4"));
+        engine.place(limit(seller, "SELL", 5300, "5"));
+
+        BookSnapshot snapshot = engine.getBook(marketId, outcomeId).snapshot(1);
+
+        assertThat(snapshot.sequence()).isEqualTo(5L);
+        assertThat(snapshot.bids()).containsExactly(new BookLevel(4900, 5_000_000L));
+        assertThat(snapshot.asks()).containsExactly(new BookLevel(5200, 4_000_000L));
+    }
+
+    @Test
+    void cancelAll_AcrossBooks_ShouldCarryDeltaForEachBook() {
+        UUID otherOutcome = UUID.randomUUID();
+        engine.openBook(Market.builder().marketId(marketId).tickSizeE4(100L).build(), otherOutcome);
+        engine.place(limit(buyer, "BUY", 4000, "1"));
+        Order other = limit(buyer, "BUY", 3000, "1");
+        other.setOutcomeId(otherOutcome);
+        engine.place(other);
+
+        MatchResult result = engine.cancelAll(buyer, marketId);
+
+        assertThat(result.getBookDeltas()).hasSize(2);
+        assertThat(result.getBookDeltas()).extracting(BookDelta::sequence).containsOnly(2L);
+    }
+
+    @Test
+    void place_LmsrMarket_ShouldFillAgainstMakerAndQuoteEveryOutcome() {
+        UUID other = UUID.randomUUID();
+        openLmsr(other);
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 9000, "10"));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+        assertThat(result.getTrades()).hasSize(1);
+        Trade trade = result.getTrades().get(0);
+        assertThat(trade.getBuyerUserId()).isEqualTo(buyer);
+        assertThat(trade.getSellerUserId()).isNull();
+        assertThat(trade.getQuantity()).isEqualByComparingTo("10");
+        // Average price sits between the opening 0.50 and the new marginal price
+        assertThat(trade.getPriceE4()).isBetween(5001L, 5499L);
+        assertThat(result.getQuotes()).extracting(OutcomeQuote::outcomeId).containsExactly(outcomeId, other);
+        assertThat(result.getQuotes().get(0).priceE4() + result.getQuotes().get(1).priceE4()).isEqualTo(10000L);
+        assertThat(result.getQuotes().get(0).priceE4()).isGreaterThan(5000L);
+        assertThat(engine.getBook(marketId, outcomeId).getMakerInventory()).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void place_LmsrLimitBelowMakerPrice_ShouldCancelRemainderInsteadOfResting() {
+        openLmsr(UUID.randomUUID());
+
+        MatchResult result = engine.place(limit(buyer, "BUY", 5500, "1000"));
+
+        assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_PARTIALLY_FILLED);
+        assertThat(result.getOrder().getStatus()).isEqualTo(OrderStatus.CANCELLED.name());
+        assertThat(result.getQuotes().get(0).priceE4()).isEqualTo(5500L);
+        assertThat(engine.getBook(marketId, outcomeId).getBestBidE4()).isNull();
+
+        MatchResult rejected = engine.place(limit(buyer, "BUY", 5000, "1"));
+
+        assertThat(rejected.getCode()).isEqualTo(ResponseCode.ORDER_CANCELLED);
+        assertThat(rejected.getTrades()).isEmpty();
+    }
+
+    private void openLmsr(UUID other) {
+        marketId = UUID.randomUUID();
+        Market market = Market.builder()
+                .marketId(marketId)
+                .tickSizeE4(100L)
+                .takerFeeE4(20L)
+                .pricingMode("LMSR")
+                .lmsrLiquidity(new BigDecimal("100"))
+                .build();
+        engine.openBook(market, outcomeId);
+        engine.openBook(market, other);
+    }
+
+    private OrderBook openBinary(UUID yes, UUID no) {
+        Market market = Market.builder().marketId(marketId).tickSizeE4(100L).build();
+        return engine.openBinaryBook(market, yes, no);
+    }
+
+    private Order limit(UUID userId, String side, long priceE4, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
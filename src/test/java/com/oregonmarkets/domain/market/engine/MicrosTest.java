@@ -0,0 +1,60 @@
+package com.oregonmarkets.domain.market.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicrosTest {
+
+    @Test
+    void value_ShouldMatchDecimalArithmetic() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            long quantity = random.nextLong(1L, 1_000_000_000_000_000L);
+            long priceE4 = random.nextLong(1L, 10_000L);
+
+            assertThat(Micros.value(quantity, priceE4)).isEqualTo(decimal(quantity, priceE4, 10_000L));
+        }
+    }
+
+    @Test
+    void fee_ShouldRoundHalfUp() {
+        // 0.000125 USDC at 20 bps is 0.00000025, rounded to zero
+        assertThat(Micros.fee(125L, 20L)).isZero();
+        // 0.00025 USDC at 20 bps is exactly half a micro-USDC
+        assertThat(Micros.fee(250L, 20L)).isEqualTo(1L);
+        assertThat(Micros.fee(-250L, 20L)).isEqualTo(-1L);
+        assertThat(Micros.fee(1_000_000L, 0L)).isZero();
+    }
+
+    @Test
+    void averagePriceE4_ShouldMatchDecimalArithmetic() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            long quantity = random.nextLong(1L, 4_000_000_000_000_000_000L);
+            long value = Micros.value(quantity, random.nextLong(1L, 10_000L));
+
+            assertThat(Micros.averagePriceE4(value, quantity))
+                    .isEqualTo(BigDecimal.valueOf(value).multiply(BigDecimal.valueOf(10_000L))
+                            .divide(BigDecimal.valueOf(quantity), 0, RoundingMode.HALF_UP).longValueExact());
+        }
+    }
+
+    @Test
+    void arithmetic_OnOverflow_ShouldThrowInsteadOfWrapping() {
+        assertThatThrownBy(() -> Micros.add(Long.MAX_VALUE, 1L)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Micros.subtract(Long.MIN_VALUE, 1L)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Micros.value(Long.MAX_VALUE, 20_000L)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Micros.averagePriceE4(1L, 0L)).isInstanceOf(ArithmeticException.class);
+    }
+
+    private static long decimal(long micros, long rate, long divisor) {
+        return BigDecimal.valueOf(micros).multiply(BigDecimal.valueOf(rate))
+                .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,83 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderIndexTest {
+
+    @Test
+    void put_ThenGet_ShouldReturnSameNode() {
+        OrderIndex index = new OrderIndex(16);
+        RestingOrder order = node(UUID.randomUUID());
+
+        index.put(order);
+
+        assertThat(index.get(order.orderId)).isSameAs(order);
+        assertThat(index.get(order.orderId.getMostSignificantBits(), order.orderId.getLeastSignificantBits()))
+                .isSameAs(order);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void remove_ShouldKeepOtherEntriesOfProbeChainReachable() {
+        OrderIndex index = new OrderIndex(16);
+        List<RestingOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            RestingOrder order = node(new UUID(0L, i));
+            orders.add(order);
+            index.put(order);
+        }
+
+        index.remove(orders.get(3).orderId);
+        index.remove(orders.get(7).orderId);
+
+        assertThat(index.get(orders.get(3).orderId)).isNull();
+        assertThat(index.get(orders.get(7).orderId)).isNull();
+        for (int i = 0; i < 12; i++) {
+            if (i != 3 && i != 7) {
+                assertThat(index.get(orders.get(i).orderId)).isSameAs(orders.get(i));
+            }
+        }
+        assertThat(index.size()).isEqualTo(10);
+    }
+
+    @Test
+    void randomOperations_ShouldMatchHashMap() {
+        OrderIndex index = new OrderIndex(16);
+        Map<UUID, RestingOrder> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 20_000; step++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                UUID id = new UUID(random.nextInt(64), random.nextLong());
+                RestingOrder order = node(id);
+                index.put(order);
+                expected.put(id, order);
+                ids.add(id);
+            } else {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                assertThat(index.remove(id)).isSameAs(expected.remove(id));
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(expected.size());
+        expected.forEach((id, order) -> assertThat(index.get(id)).isSameAs(order));
+        assertThat(index.get(UUID.randomUUID())).isNull();
+    }
+
+    private static RestingOrder node(UUID orderId) {
+        Order order = Order.builder().orderId(orderId).userId(UUID.randomUUID()).build();
+        return new RestingOrder(order, OrderSide.BUY, false, 50, 5000L, 1L);
+    }
+}
@@ -0,0 +1,444 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSequencerTest {
+
+    private OrderSequencer sequencer;
+    private Market market;
+    private UUID outcomeId;
+
+    @BeforeEach
+    void setUp() {
+        sequencer = new OrderSequencer(4, 1024, Clock.systemUTC(), List.of());
+        sequencer.start();
+        market = Market.builder().marketId(UUID.randomUUID()).tickSizeE4(100L).build();
+        outcomeId = UUID.randomUUID();
+        sequencer.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequencer.stop();
+    }
+
+    @Test
+    void place_CrossingOrders_ShouldMatchOnOwningShard() {
+        UUID seller = UUID.randomUUID();
+        sequencer.place(order(seller, "SELL", 5000, "10")).block(Duration.ofSeconds(5));
+
+        StepVerifier.create(sequencer.place(order(UUID.randomUUID(), "BUY", 5000, "4")))
+                .assertNext(result -> {
+                    assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+                    assertThat(result.getTrades()).hasSize(1);
+                    assertThat(result.getUpdatedOrders().get(0).getUserId()).isEqualTo(seller);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void place_ConcurrentProducers_ShouldApplyEveryCommandExactlyOnce() {
+        List<MatchResult> results = Flux.range(0, 400)
+                .flatMap(i -> sequencer.place(order(UUID.randomUUID(), i % 2 == 0 ? "BUY" : "SELL", 5000, "1")), 64)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        long trades = results.stream().mapToLong(result -> result.getTrades().size()).sum();
+        assertThat(results).hasSize(400);
+        assertThat(trades).isEqualTo(200);
+    }
+
+    @Test
+    void place_Result_ShouldNotAliasLiveEngineState() {
+        Order resting = order(UUID.randomUUID(), "SELL", 5000, "10");
+        MatchResult placed = sequencer.place(resting).block(Duration.ofSeconds(5));
+
+        sequencer.place(order(UUID.randomUUID(), "BUY", 5000, "10")).block(Duration.ofSeconds(5));
+
+        assertThat(placed.getOrder().getStatus()).isEqualTo(OrderStatus.OPEN.name());
+    }
+
+    @Test
+    void place_RepeatedClientOrderId_ShouldReturnOriginalResultWithoutTradingAgain() {
+        UUID seller = UUID.randomUUID();
+        sequencer.place(order(seller, "SELL", 5000, "10")).block(Duration.ofSeconds(5));
+        UUID buyer = UUID.randomUUID();
+        Order first = order(buyer, "BUY", 5000, "4");
+        first.setClientOrderId("client-1");
+        MatchResult original = sequencer.place(first).block(Duration.ofSeconds(5));
+
+        Order retry = order(buyer, "BUY", 5000, "4");
+        retry.setClientOrderId("client-1");
+        StepVerifier.create(sequencer.place(retry))
+                .assertNext(result -> {
+                    assertThat(result.getOrder().getOrderId()).isEqualTo(first.getOrderId());
+                    assertThat(result.getTrades()).hasSize(1);
+                    assertThat(result.getTrades().get(0).getTradeId())
+                            .isEqualTo(original.getTrades().get(0).getTradeId());
+                })
+                .verifyComplete();
+
+        // Only the first buy took liquidity, so 6 of the 10 are still offered
+        StepVerifier.create(sequencer.place(order(UUID.randomUUID(), "BUY", 5000, "10")))
+                .assertNext(result -> assertThat(result.getOrder().getFilledQuantity()).isEqualByComparingTo("6"))
+                .verifyComplete();
+    }
+
+    @Test
+    void cancel_UnknownOrder_ShouldReturnNotFound() {
+        StepVerifier.create(sequencer.cancel(market.getMarketId(), UUID.randomUUID(), UUID.randomUUID()))
+                .assertNext(result -> assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_NOT_FOUND))
+                .verifyComplete();
+    }
+
+    @Test
+    void place_AfterStop_ShouldFailFast() {
+        sequencer.stop();
+
+        StepVerifier.create(sequencer.place(order(UUID.randomUUID(), "BUY", 5000, "1")))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.SERVICE_UNAVAILABLE)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void place_ListenerBackedUp_ShouldRefuseNewOrdersButAllowCancels() {
+        OrderSequencer backedUp = new OrderSequencer(1, 16, Clock.systemUTC(), List.of(new MatchResultListener() {
+            @Override
+            public void onResult(MatchResult result) {
+            }
+
+            @Override
+            public boolean isBackedUp() {
+                return true;
+            }
+        }));
+        backedUp.start();
+        try {
+            StepVerifier.create(backedUp.place(order(UUID.randomUUID(), "BUY", 5000, "1")))
+                    .expectErrorMatches(error -> error instanceof BusinessException
+                            && ((BusinessException) error).getResponseCode() == ResponseCode.SERVICE_UNAVAILABLE)
+                    .verify(Duration.ofSeconds(5));
+            StepVerifier.create(backedUp.cancel(market.getMarketId(), UUID.randomUUID(), UUID.randomUUID()))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        } finally {
+            backedUp.stop();
+        }
+    }
+
+    @Test
+    void placeBatch_ShouldReturnOneResultPerOrderInSubmissionOrder() {
+        UUID maker = UUID.randomUUID();
+        List<Order> orders = List.of(
+                order(maker, "SELL", 5000, "3"),
+                order(UUID.randomUUID(), "BUY", 5000, "2"),
+                order(maker, "SELL", 5050, "1"));
+
+        StepVerifier.create(sequencer.placeBatch(market.getMarketId(), maker, orders, false))
+                .assertNext(batch -> {
+                    assertThat(batch.getCancelled()).isNull();
+                    assertThat(batch.getResults()).extracting(MatchResult::getCode)
+                            .containsExactly(ResponseCode.ORDER_PLACED, ResponseCode.ORDER_FILLED, ResponseCode.INVALID_PRICE);
+                    assertThat(batch.getResults().get(1).getTrades()).hasSize(1);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void placeBatch_Replace_ShouldCancelRestingQuotesBeforePlacingNewOnes() {
+        UUID maker = UUID.randomUUID();
+        sequencer.placeBatch(market.getMarketId(), maker,
+                List.of(order(maker, "BUY", 4800, "5"), order(maker, "SELL", 5200, "5")), false)
+                .block(Duration.ofSeconds(5));
+
+        BatchResult replaced = sequencer.placeBatch(market.getMarketId(), maker,
+                List.of(order(maker, "BUY", 4900, "5"), order(maker, "SELL", 5100, "5")), true)
+                .block(Duration.ofSeconds(5));
+        MatchResult taker = sequencer.place(order(UUID.randomUUID(), "BUY", 5200, "10")).block(Duration.ofSeconds(5));
+
+        assertThat(replaced.getCancelled().getUpdatedOrders()).hasSize(2)
+                .allSatisfy(cancelled -> assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED.name()));
+        assertThat(replaced.getResults()).extracting(MatchResult::getCode)
+                .containsOnly(ResponseCode.ORDER_PLACED);
+        assertThat(taker.getTrades()).extracting(Trade::getPriceE4).containsExactly(5100L);
+    }
+
+    @Test
+    void shardOf_SameMarket_ShouldAlwaysPickSameShard() {
+        UUID marketId = UUID.randomUUID();
+        assertThat(sequencer.shardOf(marketId)).isEqualTo(sequencer.shardOf(marketId));
+        assertThat(sequencer.shardOf(marketId)).isBetween(0, sequencer.getShardCount() - 1);
+    }
+
+    @Test
+    void ringBuffer_WhenFull_ShouldRefuseClaims() {
+        CommandRingBuffer ring = new CommandRingBuffer(2);
+        ring.publish(ring.tryClaim());
+        ring.publish(ring.tryClaim());
+
+        assertThat(ring.tryClaim()).isEqualTo(-1L);
+        assertThat(ring.peek()).isNotNull();
+        ring.advance();
+        assertThat(ring.tryClaim()).isEqualTo(2L);
+        assertThatThrownBy(() -> new CommandRingBuffer(3)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void expiry_ShouldPublishExpiredOrderWithoutAnyCommand() throws InterruptedException {
+        BlockingQueue<MatchResult> published = new LinkedBlockingQueue<>();
+        OrderSequencer expiring = new OrderSequencer(1, 16, Clock.systemUTC(), List.of(published::add));
+        expiring.start();
+        try {
+            expiring.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+            Order order = order(UUID.randomUUID(), "BUY", 5000, "1");
+            order.setTimeInForce("GTD");
+            order.setExpiresAt(Instant.now().plusMillis(50));
+            expiring.place(order).block(Duration.ofSeconds(5));
+            published.poll(5, TimeUnit.SECONDS);
+
+            MatchResult expired = published.poll(5, TimeUnit.SECONDS);
+
+            assertThat(expired).isNotNull();
+            assertThat(expired.getCode()).isEqualTo(ResponseCode.ORDER_EXPIRED);
+            assertThat(expired.getUpdatedOrders()).extracting(Order::getOrderId).containsExactly(order.getOrderId());
+            assertThat(expired.getUpdatedOrders().get(0).getUpdatedAt()).isAfterOrEqualTo(order.getExpiresAt());
+        } finally {
+            expiring.stop();
+        }
+    }
+
+    @Test
+    void start_WithJournalOnly_ShouldRebuildBooksAndContinueTradeIds(@TempDir Path directory) throws IOException {
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+        Order resting = order(UUID.randomUUID(), "SELL", 5000, "10");
+        first.place(resting).block(Duration.ofSeconds(5));
+        first.place(order(UUID.randomUUID(), "SELL", 5200, "5")).block(Duration.ofSeconds(5));
+        UUID firstTrade = first.place(order(UUID.randomUUID(), "BUY", 5000, "4")).block(Duration.ofSeconds(5))
+                .getTrades().get(0).getTradeId();
+        first.stop();
+        deleteSnapshots(directory, 0);
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "BUY", 5200, "8")).block(Duration.ofSeconds(5));
+
+            assertThat(result.getTrades()).extracting(trade -> trade.getQuantity().stripTrailingZeros().toPlainString())
+                    .containsExactly("6", "2");
+            assertThat(result.getTrades().get(0).getSellerOrderId()).isEqualTo(resting.getOrderId());
+            assertThat(result.getTrades()).extracting(trade -> trade.getTradeId().getMostSignificantBits())
+                    .containsOnly(firstTrade.getMostSignificantBits());
+            assertThat(result.getTrades()).extracting(trade -> trade.getTradeId().getLeastSignificantBits())
+                    .containsExactly(firstTrade.getLeastSignificantBits() + 1, firstTrade.getLeastSignificantBits() + 2);
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_WithSnapshotAndJournalTail_ShouldRestoreRestingOrders(@TempDir Path directory) throws IOException {
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+        Order snapshotted = order(UUID.randomUUID(), "SELL", 5000, "3");
+        snapshotted.setClientOrderId("client-1");
+        first.place(snapshotted).block(Duration.ofSeconds(5));
+        first.snapshot().block(Duration.ofSeconds(5));
+        Order journaled = order(UUID.randomUUID(), "SELL", 5000, "2");
+        first.place(journaled).block(Duration.ofSeconds(5));
+        first.stop();
+        deleteSnapshots(directory, 1);
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "BUY", 5000, "5")).block(Duration.ofSeconds(5));
+
+            assertThat(result.getCode()).isEqualTo(ResponseCode.ORDER_FILLED);
+            assertThat(result.getUpdatedOrders()).extracting(Order::getOrderId)
+                    .containsExactly(snapshotted.getOrderId(), journaled.getOrderId());
+            assertThat(result.getUpdatedOrders().get(0).getClientOrderId()).isEqualTo("client-1");
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_AfterJournaledExpiry_ShouldNotRestoreExpiredOrder(@TempDir Path directory) throws IOException {
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+        Order order = order(UUID.randomUUID(), "BUY", 5000, "1");
+        order.setTimeInForce("GTD");
+        order.setExpiresAt(Instant.now().plusMillis(20));
+        first.place(order).block(Duration.ofSeconds(5));
+        first.place(order(UUID.randomUUID(), "BUY", 4000, "1")).delaySubscription(Duration.ofMillis(100))
+                .block(Duration.ofSeconds(5));
+        first.stop();
+        deleteSnapshots(directory, 0);
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "SELL", 4000, "1")).block(Duration.ofSeconds(5));
+
+            assertThat(result.getTrades()).hasSize(1);
+            assertThat(result.getTrades().get(0).getPriceE4()).isEqualTo(4000L);
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_AfterJournaledMarketClose_ShouldNotRestoreClosedBooks(@TempDir Path directory) throws IOException {
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+        first.place(order(UUID.randomUUID(), "SELL", 5000, "3")).block(Duration.ofSeconds(5));
+        MatchResult closed = first.closeMarket(market.getMarketId()).block(Duration.ofSeconds(5));
+        first.stop();
+        deleteSnapshots(directory, 0);
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "BUY", 5000, "3")).block(Duration.ofSeconds(5));
+
+            assertThat(closed.getUpdatedOrders()).hasSize(1);
+            assertThat(result.getCode()).isEqualTo(ResponseCode.MARKET_CLOSED);
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_AfterJournaledMassQuote_ShouldRestoreOnlyReplacementQuotes(@TempDir Path directory) throws IOException {
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(market, outcomeId).block(Duration.ofSeconds(5));
+        UUID maker = UUID.randomUUID();
+        first.placeBatch(market.getMarketId(), maker, List.of(order(maker, "SELL", 5000, "5")), false)
+                .block(Duration.ofSeconds(5));
+        Order quote = order(maker, "SELL", 5300, "5");
+        first.placeBatch(market.getMarketId(), maker, List.of(quote), true).block(Duration.ofSeconds(5));
+        first.stop();
+        deleteSnapshots(directory, 0);
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "BUY", 5300, "5")).block(Duration.ofSeconds(5));
+
+            assertThat(result.getUpdatedOrders()).extracting(Order::getOrderId).containsExactly(quote.getOrderId());
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void start_LmsrMarket_ShouldRestoreMakerInventoryFromSnapshotAndJournal(@TempDir Path directory) throws IOException {
+        Market lmsr = Market.builder().marketId(market.getMarketId()).tickSizeE4(100L)
+                .pricingMode("LMSR").lmsrLiquidity(new BigDecimal("50")).build();
+        UUID other = UUID.randomUUID();
+        OrderSequencer first = journaled(directory);
+        first.start();
+        first.openBook(lmsr, outcomeId).block(Duration.ofSeconds(5));
+        first.openBook(lmsr, other).block(Duration.ofSeconds(5));
+        first.place(order(UUID.randomUUID(), "BUY", 9000, "10")).block(Duration.ofSeconds(5));
+        first.snapshot().block(Duration.ofSeconds(5));
+        first.place(order(UUID.randomUUID(), "SELL", 1000, "4")).block(Duration.ofSeconds(5));
+        first.stop();
+        deleteSnapshots(directory, 1);
+
+        MatchingEngine reference = new MatchingEngine(0, Clock.systemUTC());
+        reference.openBook(lmsr, outcomeId);
+        reference.openBook(lmsr, other);
+        reference.place(order(UUID.randomUUID(), "BUY", 9000, "10"));
+        // The snapshot recomputes the maker's sums before writing them
+        reference.rebuildMarketMakers();
+        reference.place(order(UUID.randomUUID(), "SELL", 1000, "4"));
+        MatchResult expected = reference.place(order(UUID.randomUUID(), "BUY", 9000, "3"));
+
+        OrderSequencer second = journaled(directory);
+        second.start();
+        try {
+            MatchResult result = second.place(order(UUID.randomUUID(), "BUY", 9000, "3")).block(Duration.ofSeconds(5));
+
+            assertThat(result.getTrades()).hasSize(1);
+            assertThat(result.getTrades().get(0).getTotalValue())
+                    .isEqualByComparingTo(expected.getTrades().get(0).getTotalValue());
+            assertThat(result.getQuotes()).extracting(quote -> quote.outcomeId() + "@" + quote.priceE4())
+                    .containsExactlyInAnyOrderElementsOf(expected.getQuotes().stream()
+                            .map(quote -> quote.outcomeId() + "@" + quote.priceE4()).toList());
+        } finally {
+            second.stop();
+        }
+    }
+
+    private static OrderSequencer journaled(Path directory) {
+        EngineProperties.Journal journal = new EngineProperties.Journal();
+        journal.setEnabled(true);
+        journal.setDirectory(directory.toString());
+        journal.setSegmentSizeMb(1);
+        journal.setSnapshotIntervalSeconds(0);
+        return new OrderSequencer(1, 1024, Clock.systemUTC(), List.of(), journal, null);
+    }
+
+    /**
+     * Simulate a crash after the given number of snapshots by deleting the newer ones
+     */
+    private static void deleteSnapshots(Path directory, int keep) throws IOException {
+        List<Path> snapshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshots = files.filter(path -> path.toString().endsWith(".snapshot")).sorted().toList();
+        }
+        for (int i = keep; i < snapshots.size(); i++) {
+            Files.delete(snapshots.get(i));
+        }
+    }
+
+    private Order order(UUID userId, String side, long priceE4, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(market.getMarketId())
+                .outcomeId(outcomeId)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.oregonmarkets.domain.market.engine;
+
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel wheel = new TimingWheel(START);
+    private final List<Long> fired = new ArrayList<>();
+
+    @Test
+    void advance_ShouldFireEachTimerAtItsDeadlineAcrossLevels() {
+        long[] deadlines = {START + 1, START + 255, START + 256, START + 70_000, START + 20_000_000,
+                START + 5_000_000_000L};
+        for (long deadline : deadlines) {
+            wheel.schedule(timer(), deadline);
+        }
+
+        for (long deadline : deadlines) {
+            wheel.advance(deadline - 1, this::record);
+            assertThat(fired).doesNotContain(deadline);
+            wheel.advance(deadline, this::record);
+            assertThat(fired).endsWith(deadline);
+        }
+        assertThat(fired).containsExactly(deadlines[0], deadlines[1], deadlines[2], deadlines[3], deadlines[4],
+                deadlines[5]);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancel_ShouldDisarmTimer() {
+        RestingOrder kept = timer();
+        RestingOrder cancelled = timer();
+        wheel.schedule(kept, START + 300);
+        wheel.schedule(cancelled, START + 300);
+
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        wheel.advance(START + 1_000, this::record);
+
+        assertThat(fired).hasSize(1);
+        assertThat(cancelled.timerSlot).isEqualTo(TimingWheel.UNSCHEDULED);
+    }
+
+    @Test
+    void advance_Backwards_ShouldFireOnlyOverdueTimersUpToThatTime() {
+        wheel.schedule(timer(), START - 500);
+        wheel.schedule(timer(), START - 100);
+
+        wheel.advance(START - 300, this::record);
+
+        assertThat(fired).containsExactly(START - 500);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    private void record(RestingOrder order) {
+        fired.add(order.expiresAtMillis);
+    }
+
+    private static RestingOrder timer() {
+        Order order = Order.builder().orderId(UUID.randomUUID()).userId(UUID.randomUUID()).build();
+        return new RestingOrder(order, OrderSide.BUY, false, 50, 5000L, 1L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.oregonmarkets.domain.market.engine.feed;
+
+import com.oregonmarkets.domain.market.engine.BookDelta;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookFeedTest {
+
+    private final BookFeed feed = new BookFeed();
+    private final BookKey yes = new BookKey(UUID.randomUUID(), UUID.randomUUID());
+
+    @Test
+    void onResult_RegisteredBeforeDelta_ShouldBufferUntilConsumed() {
+        BookFeed.Registration registration = feed.register(yes);
+
+        feed.onResult(result(delta(yes, null, 1)));
+        feed.onResult(result(delta(yes, null, 2)));
+
+        StepVerifier.create(registration.deltas().take(2))
+                .assertNext(delta -> assertThat(delta.sequence()).isEqualTo(1L))
+                .assertNext(delta -> assertThat(delta.sequence()).isEqualTo(2L))
+                .verifyComplete();
+    }
+
+    @Test
+    void onResult_UnifiedBook_ShouldReachSubscribersOfComplement() {
+        UUID no = UUID.randomUUID();
+        BookFeed.Registration registration = feed.register(new BookKey(yes.marketId(), no));
+
+        feed.onResult(result(delta(yes, no, 1)));
+
+        StepVerifier.create(registration.deltas().take(1))
+                .assertNext(delta -> assertThat(delta.key()).isEqualTo(yes))
+                .verifyComplete();
+    }
+
+    @Test
+    void onResult_SubscriberTooFarBehind_ShouldBeDropped() {
+        BookFeed.Registration registration = feed.register(yes);
+
+        for (int i = 1; i <= BookFeed.SUBSCRIBER_BUFFER + 1; i++) {
+            feed.onResult(result(delta(yes, null, i)));
+        }
+
+        assertThat(feed.getSubscriberCount(yes)).isZero();
+        StepVerifier.create(registration.deltas())
+                .expectNextCount(BookFeed.SUBSCRIBER_BUFFER)
+                .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void close_ShouldStopDelivery() {
+        BookFeed.Registration registration = feed.register(yes);
+
+        registration.close();
+
+        assertThat(feed.getSubscriberCount(yes)).isZero();
+    }
+
+    @Test
+    void register_WhileLastSubscriberCloses_ShouldStillReceiveDeltas() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                BookFeed.Registration leaving = feed.register(yes);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> closed = executor.submit(() -> {
+                    start.await();
+                    leaving.close();
+                    return null;
+                });
+                Future<BookFeed.Registration> joined = executor.submit(() -> {
+                    start.await();
+                    return feed.register(yes);
+                });
+                closed.get();
+                BookFeed.Registration registration = joined.get();
+
+                assertThat(feed.getSubscriberCount(yes)).isEqualTo(1);
+                registration.close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static BookDelta delta(BookKey key, UUID complementOutcomeId, long sequence) {
+        return new BookDelta(key, complementOutcomeId, sequence, List.of(), List.of());
+    }
+
+    private static MatchResult result(BookDelta delta) {
+        MatchResult result = mock(MatchResult.class);
+        when(result.getBookDeltas()).thenReturn(new ArrayList<>(List.of(delta)));
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import com.oregonmarkets.domain.market.model.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandJournalTest {
+
+    private static final int SEGMENT_BYTES = JournalFormat.HEADER_SIZE + 4 * JournalFormat.RECORD_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_ShouldReturnAppendedRecordsInOrder() throws IOException {
+        Order order = order();
+        UUID complement = UUID.randomUUID();
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 42L)) {
+            journal.appendOpenBook(order.getMarketId(), order.getOutcomeId(), complement, 100L, 10L, 20L, 0L, 1_000L);
+            journal.appendPlace(order, 2_000L);
+            journal.appendModify(order.getOrderId(), order.getUserId(), null, 3_000_000L, 3_000L);
+            journal.appendCancel(order.getOrderId(), order.getUserId(), 4_000L);
+        }
+
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 7L)) {
+            List<JournalRecord> records = replayAll(journal, 1);
+
+            assertThat(journal.getTradeIdPrefix()).isEqualTo(42L);
+            assertThat(journal.getLastSequence()).isEqualTo(4);
+            assertThat(records).extracting(JournalRecord::getType).containsExactly(JournalRecord.Type.OPEN_BOOK,
+                    JournalRecord.Type.PLACE, JournalRecord.Type.MODIFY, JournalRecord.Type.CANCEL);
+            assertThat(records.get(0).getTickSizeE4()).isEqualTo(100L);
+            assertThat(records.get(0).getComplementOutcomeId()).isEqualTo(complement);
+            assertThat(records.get(1).getComplementOutcomeId()).isNull();
+            JournalRecord place = records.get(1);
+            assertThat(place.getOrderId()).isEqualTo(order.getOrderId());
+            assertThat(place.getSide()).isEqualTo("BUY");
+            assertThat(place.getTimeInForce()).isEqualTo("GTC");
+            assertThat(place.getPriceE4()).isEqualTo(5000L);
+            assertThat(place.getQuantityMicros()).isEqualTo(2_500_000L);
+            assertThat(place.getTimestampMicros()).isEqualTo(2_000L);
+            assertThat(records.get(2).getPriceE4()).isNull();
+        }
+    }
+
+    @Test
+    void open_ShouldContinueSequenceAcrossSegments() throws IOException {
+        Order order = order();
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 1L)) {
+            for (int i = 0; i < 6; i++) {
+                journal.appendPlace(order, i);
+            }
+            assertThat(journal.getSegmentCount()).isEqualTo(2);
+        }
+
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 1L)) {
+            assertThat(journal.appendCancel(order.getOrderId(), order.getUserId(), 7L)).isEqualTo(7);
+            assertThat(replayAll(journal, 5)).extracting(JournalRecord::getSequence).containsExactly(5L, 6L, 7L);
+        }
+    }
+
+    @Test
+    void open_TornLastRecord_ShouldStopBeforeIt() throws IOException {
+        Order order = order();
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 1L)) {
+            journal.appendPlace(order, 1L);
+            journal.appendPlace(order, 2L);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(JournalFormat.HEADER_SIZE + JournalFormat.RECORD_SIZE + 40);
+            file.write(0x7F);
+        }
+
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 1L)) {
+            assertThat(journal.getLastSequence()).isEqualTo(1);
+            assertThat(journal.appendCancel(order.getOrderId(), order.getUserId(), 3L)).isEqualTo(2);
+            assertThat(replayAll(journal, 1)).extracting(JournalRecord::getType)
+                    .containsExactly(JournalRecord.Type.PLACE, JournalRecord.Type.CANCEL);
+        }
+    }
+
+    @Test
+    void truncateBefore_ShouldDeleteOnlyCoveredSegments() throws IOException {
+        Order order = order();
+        try (CommandJournal journal = CommandJournal.open(directory, 0, SEGMENT_BYTES, 1L)) {
+            for (int i = 0; i < 10; i++) {
+                journal.appendPlace(order, i);
+            }
+
+            journal.truncateBefore(6);
+
+            assertThat(journal.getSegmentCount()).isEqualTo(2);
+            assertThat(segments()).hasSize(2);
+            assertThat(replayAll(journal, 1)).extracting(JournalRecord::getSequence)
+                    .containsExactly(5L, 6L, 7L, 8L, 9L, 10L);
+        }
+    }
+
+    private static List<JournalRecord> replayAll(CommandJournal journal, long from) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(from, record -> {
+            JournalRecord copy = new JournalRecord();
+            copy.type = record.type;
+            copy.sequence = record.sequence;
+            copy.timestampMicros = record.timestampMicros;
+            copy.orderId = record.orderId;
+            copy.side = record.side;
+            copy.timeInForce = record.timeInForce;
+            copy.priceE4 = record.priceE4;
+            copy.quantityMicros = record.quantityMicros;
+            copy.tickSizeE4 = record.tickSizeE4;
+            copy.complementOutcomeId = record.complementOutcomeId;
+            records.add(copy);
+        });
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static Order order() {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .marketId(UUID.randomUUID())
+                .outcomeId(UUID.randomUUID())
+                .side("BUY")
+                .orderType("LIMIT")
+                .timeInForce("GTC")
+                .priceE4(5000L)
+                .quantity(new BigDecimal("2.5"))
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.oregonmarkets.domain.market.engine.journal;
+
+import com.oregonmarkets.domain.market.engine.MatchingEngine;
+import com.oregonmarkets.domain.market.engine.OrderBook;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderSide;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotStoreTest {
+
+    private static final int MAGIC = 0x4F4D5353;
+
+    @TempDir
+    Path directory;
+
+    private final UUID marketId = UUID.randomUUID();
+    private final UUID outcomeId = UUID.randomUUID();
+
+    @Test
+    void restoreLatest_Version1_ShouldReadPlainBookLayout() throws IOException {
+        write(1, out -> {
+            writeUuid(out, marketId);
+            writeUuid(out, outcomeId);
+            out.writeLong(100L);
+            out.writeLong(10L);
+            out.writeLong(20L);
+            out.writeInt(1);
+            writeUuid(out, UUID.randomUUID());
+            writeUuid(out, UUID.randomUUID());
+            writeOrderTail(out, "BUY", 5000L, 4_000_000L);
+        });
+
+        MatchingEngine engine = engine();
+        assertThat(new SnapshotStore(directory, 0).restoreLatest(engine)).isEqualTo(7L);
+
+        OrderBook book = engine.getBook(marketId, outcomeId);
+        assertThat(book.isUnified()).isFalse();
+        assertThat(book.getTakerFeeE4()).isEqualTo(20L);
+        assertThat(book.getBestBidE4()).isEqualTo(5000L);
+        assertThat(book.getDepth(OrderSide.BUY, 5000L)).isEqualTo(4_000_000L);
+        assertThat(engine.getRestingOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void restoreLatest_Version2_ShouldReadUnifiedBookWithoutMarketMaker() throws IOException {
+        UUID complementId = UUID.randomUUID();
+        write(2, out -> {
+            writeUuid(out, marketId);
+            writeUuid(out, outcomeId);
+            out.writeBoolean(true);
+            writeUuid(out, complementId);
+            out.writeLong(100L);
+            out.writeLong(10L);
+            out.writeLong(20L);
+            out.writeInt(1);
+            writeUuid(out, UUID.randomUUID());
+            writeUuid(out, UUID.randomUUID());
+            writeUuid(out, complementId);
+            writeOrderTail(out, "BUY", 4000L, 4_000_000L);
+        });
+
+        MatchingEngine engine = engine();
+        new SnapshotStore(directory, 0).restoreLatest(engine);
+
+        OrderBook book = engine.getBook(marketId, complementId);
+        assertThat(book.isUnified()).isTrue();
+        assertThat(book.getOutcomeId()).isEqualTo(outcomeId);
+        assertThat(book.getMakerLiquidity()).isZero();
+        // BUY NO at 40% rests as an ask at 60% in the book's terms
+        assertThat(book.getDepth(OrderSide.SELL, 6000L)).isEqualTo(4_000_000L);
+    }
+
+    @Test
+    void write_ShouldRoundTripUnifiedBook() throws IOException {
+        UUID complementId = UUID.randomUUID();
+        MatchingEngine engine = engine();
+        engine.openBinaryBook(Market.builder().marketId(marketId).tickSizeE4(100L).makerFeeE4(10L).takerFeeE4(20L)
+                .build(), outcomeId, complementId);
+        engine.place(Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .marketId(marketId)
+                .outcomeId(complementId)
+                .side("BUY")
+                .orderType("LIMIT")
+                .timeInForce("GTC")
+                .priceE4(4000L)
+                .quantity(new BigDecimal("4"))
+                .build());
+        SnapshotStore store = new SnapshotStore(directory, 0);
+        store.write(engine, 7L);
+
+        MatchingEngine restored = engine();
+        assertThat(store.restoreLatest(restored)).isEqualTo(7L);
+
+        OrderBook book = restored.getBook(marketId, outcomeId);
+        assertThat(book.getComplementOutcomeId()).isEqualTo(complementId);
+        assertThat(book.getDepth(OrderSide.SELL, 6000L)).isEqualTo(4_000_000L);
+        assertThat(restored.getRestingOrderCount()).isEqualTo(1);
+    }
+
+    /**
+     * Snapshot of shard 0 at journal sequence 7 holding one book, with a valid trailer
+     */
+    private void write(int version, Body book) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(version);
+        out.writeInt(0);
+        out.writeLong(7L);
+        out.writeLong(1L);
+        out.writeLong(0L);
+        out.writeInt(1);
+        book.write(out);
+        out.flush();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        Files.write(directory.resolve(String.format("shard-0-%020d.snapshot", 7L)), bytes.toByteArray());
+    }
+
+    /**
+     * The fields of an order after its IDs, the same in every version
+     */
+    private static void writeOrderTail(DataOutputStream out, String side, long priceE4, long remaining)
+            throws IOException {
+        out.writeUTF(side);
+        out.writeUTF("LIMIT");
+        out.writeUTF("GTC");
+        out.writeUTF("OPEN");
+        out.writeLong(priceE4);
+        out.writeLong(remaining);
+        out.writeBoolean(true);
+        out.writeUTF("4");
+        // filled, remaining, cost, fees, average price, created, updated, expires, client ID, titles
+        for (int i = 0; i < 11; i++) {
+            out.writeBoolean(false);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static MatchingEngine engine() {
+        return new MatchingEngine(0, Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,197 @@
+package com.oregonmarkets.domain.market.engine.persistence;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.MatchingEngine;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class WriteBehindWriterTest {
+
+    private CqlSession session;
+    private BoundStatementBuilder builder;
+    private EngineProperties properties;
+    private MatchingEngine engine;
+    private UUID marketId;
+    private UUID outcomeId;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(CqlSession.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        builder = mock(BoundStatementBuilder.class, RETURNS_SELF);
+        when(session.prepare(anyString())).thenReturn(prepared);
+        when(prepared.boundStatementBuilder()).thenReturn(builder);
+        when(builder.build()).thenAnswer(invocation -> mock(BoundStatement.class));
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(AsyncResultSet.class)));
+
+        properties = new EngineProperties();
+        engine = new MatchingEngine(1, steppingClock());
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        engine.openBook(Market.builder().marketId(marketId).tickSizeE4(100L).build(), outcomeId);
+    }
+
+    @Test
+    void flush_ShouldCoalesceOrdersAndBatchByPartition() {
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+        writer.onResult(engine.place(order(UUID.randomUUID(), "SELL", "10")));
+        writer.onResult(engine.place(order(UUID.randomUUID(), "BUY", "4")));
+
+        writer.flush().block();
+
+        // Two orders x three tables, the maker's open order deleted and one trade x three rows; the maker's
+        // two states collapse into one and the taker, filled as it was placed, never had an open order row
+        verify(builder, times(10)).build();
+        ArgumentCaptor<Statement<?>> statements = ArgumentCaptor.forClass(Statement.class);
+        verify(session, times(9)).executeAsync(statements.capture());
+        List<BatchStatement> batches = statements.getAllValues().stream()
+                .filter(BatchStatement.class::isInstance)
+                .map(BatchStatement.class::cast)
+                .toList();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).getBatchType()).isEqualTo(DefaultBatchType.UNLOGGED);
+        assertThat(batches.get(0).size()).isEqualTo(2);
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    @Test
+    void flush_LargePartition_ShouldSplitIntoBoundedBatches() {
+        properties.getWriteBehind().setMaxBatchStatements(2);
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            writer.onResult(engine.place(order(userId, "BUY", "1")));
+        }
+
+        writer.flush().block();
+
+        // orders_by_user, orders_by_market and open_orders_by_user: 3 chunks each; orders_by_id: 5 single rows
+        verify(session, times(14)).executeAsync(any(Statement.class));
+    }
+
+    @Test
+    void flush_ShouldKeepRestingOrderOpenAndCloseOnlyFilledOneThatRested() {
+        PreparedStatement open = mock(PreparedStatement.class);
+        PreparedStatement close = mock(PreparedStatement.class);
+        when(session.prepare(WriteBehindStatements.OPEN_ORDERS_BY_USER)).thenReturn(open);
+        when(session.prepare(WriteBehindStatements.CLOSE_OPEN_ORDER)).thenReturn(close);
+        when(open.boundStatementBuilder()).thenReturn(builder);
+        when(close.boundStatementBuilder()).thenReturn(builder);
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+        writer.onResult(engine.place(order(UUID.randomUUID(), "SELL", "10")));
+        writer.onResult(engine.place(order(UUID.randomUUID(), "BUY", "10")));
+        writer.onResult(engine.place(order(UUID.randomUUID(), "SELL", "5")));
+
+        writer.flush().block();
+
+        // The second order filled the resting first one as it was placed, so only the first is deleted
+        verify(open, times(1)).boundStatementBuilder();
+        verify(close, times(1)).boundStatementBuilder();
+    }
+
+    @Test
+    void onResult_BeyondMaxPending_ShouldReportBackedUpUntilFlushed() {
+        properties.getWriteBehind().setMaxPending(2);
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+
+        writer.onResult(engine.place(order(UUID.randomUUID(), "BUY", "1")));
+        assertThat(writer.isBackedUp()).isFalse();
+        writer.onResult(engine.place(order(UUID.randomUUID(), "BUY", "1")));
+        assertThat(writer.isBackedUp()).isTrue();
+
+        writer.flush().block();
+        assertThat(writer.isBackedUp()).isFalse();
+    }
+
+    @Test
+    void onResult_RejectedOrder_ShouldNotBeWritten() {
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+        Order offTick = order(UUID.randomUUID(), "BUY", "1");
+        offTick.setPriceE4(5050L);
+
+        writer.onResult(engine.place(offTick));
+        writer.flush().block();
+
+        verify(session, never()).executeAsync(any(Statement.class));
+    }
+
+    @Test
+    void flush_FailingWrites_ShouldRetryThenDrop() {
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("timeout")));
+        WriteBehindWriter writer = new WriteBehindWriter(new CqlStatements(session), properties);
+        writer.onResult(engine.place(order(UUID.randomUUID(), "BUY", "1")));
+
+        writer.flush().block();
+
+        assertThat(writer.getFailedStatementCount()).isEqualTo(3);
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    private Order order(UUID userId, String side, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(marketId)
+                .marketTitle("Will it rain?")
+                .outcomeId(outcomeId)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(5000L)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+
+    /**
+     * Moves one microsecond on at every reading, so each engine command has its own instant as on a shard
+     */
+    private static Clock steppingClock() {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        AtomicLong readings = new AtomicLong();
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return start.plus(readings.getAndIncrement(), ChronoUnit.MICROS);
+            }
+        };
+    }
+}
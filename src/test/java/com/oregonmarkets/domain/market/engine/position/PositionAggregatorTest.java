@@ -0,0 +1,197 @@
+package com.oregonmarkets.domain.market.engine.position;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.MatchingEngine;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.Position;
+import com.oregonmarkets.domain.market.repository.PositionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PositionAggregatorTest {
+
+    private CqlSession session;
+    private PositionRepository positionRepository;
+    private EngineProperties properties;
+    private MatchingEngine engine;
+    private UUID marketId;
+    private UUID outcomeId;
+    private UUID otherOutcomeId;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(CqlSession.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        BoundStatementBuilder builder = mock(BoundStatementBuilder.class, RETURNS_SELF);
+        when(session.prepare(anyString())).thenReturn(prepared);
+        when(prepared.boundStatementBuilder()).thenReturn(builder);
+        when(builder.build()).thenAnswer(invocation -> mock(BoundStatement.class));
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(AsyncResultSet.class)));
+        positionRepository = mock(PositionRepository.class);
+        when(positionRepository.findByUserIdAndMarketIdAndOutcomeId(any(), any(), any())).thenReturn(Mono.empty());
+        when(positionRepository.findByUserId(any())).thenReturn(Flux.empty());
+
+        properties = new EngineProperties();
+        engine = new MatchingEngine(1, Clock.systemUTC());
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        otherOutcomeId = UUID.randomUUID();
+        Market market = Market.builder().marketId(marketId).tickSizeE4(100L).build();
+        engine.openBook(market, outcomeId);
+        engine.openBook(market, otherOutcomeId);
+    }
+
+    @Test
+    void flush_ManyFills_ShouldWriteEachChangedPositionOnce() {
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+        UUID maker = UUID.randomUUID();
+        UUID taker = UUID.randomUUID();
+        aggregator.onResult(engine.place(order(maker, "SELL", "1000")));
+        for (int i = 0; i < 1000; i++) {
+            aggregator.onResult(engine.place(order(taker, "BUY", "1")));
+        }
+        assertThat(aggregator.getPendingCount()).isEqualTo(2000);
+
+        aggregator.flush().block();
+
+        // Two positions, each one row in positions_by_user and one in positions_by_market
+        verify(session, times(4)).executeAsync(any(Statement.class));
+        verify(positionRepository, times(2)).findByUserIdAndMarketIdAndOutcomeId(any(), eq(marketId), eq(outcomeId));
+        assertThat(aggregator.getPendingCount()).isZero();
+        assertThat(aggregator.getPositionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void flush_PositionAlreadyInMemory_ShouldNotReloadIt() {
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+        UUID maker = UUID.randomUUID();
+        UUID taker = UUID.randomUUID();
+        aggregator.onResult(engine.place(order(maker, "SELL", "10")));
+        aggregator.onResult(engine.place(order(taker, "BUY", "4")));
+        aggregator.flush().block();
+
+        aggregator.onResult(engine.place(order(taker, "BUY", "6")));
+        aggregator.flush().block();
+
+        verify(positionRepository, times(2)).findByUserIdAndMarketIdAndOutcomeId(any(), any(), any());
+        verify(session, times(8)).executeAsync(any(Statement.class));
+    }
+
+    @Test
+    void flush_FailedWrite_ShouldWritePositionAgainNextFlush() {
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("timeout")));
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), "SELL", "10")));
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), "BUY", "10")));
+        aggregator.flush().block();
+        assertThat(aggregator.getFailedStatementCount()).isEqualTo(4);
+
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(AsyncResultSet.class)));
+        aggregator.flush().block();
+
+        assertThat(aggregator.getFailedStatementCount()).isEqualTo(4);
+        verify(session, atLeast(4 * 4 + 4)).executeAsync(any(Statement.class));
+    }
+
+    @Test
+    void flush_PriceMove_ShouldRevalueOnlyHoldersOfThatOutcome() {
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+        UUID holder = UUID.randomUUID();
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), outcomeId, "SELL", 5000L, "10")));
+        aggregator.onResult(engine.place(order(holder, outcomeId, "BUY", 5000L, "10")));
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), otherOutcomeId, "SELL", 5000L, "10")));
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), otherOutcomeId, "BUY", 5000L, "10")));
+        aggregator.flush().block();
+        verify(session, times(8)).executeAsync(any(Statement.class));
+
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), outcomeId, "SELL", 6000L, "1")));
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), outcomeId, "BUY", 6000L, "1")));
+        aggregator.flush().block();
+
+        // The new trade's two positions and the two earlier holders of the outcome; the other outcome is untouched
+        verify(session, times(16)).executeAsync(any(Statement.class));
+        Position position = aggregator.getPositions(holder).block().get(0);
+        assertThat(position.getCurrentPriceE4()).isEqualTo(6000L);
+        assertThat(position.getCurrentValue()).isEqualByComparingTo("6");
+        assertThat(position.getUnrealizedPnl()).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void getPositions_AfterFirstRead_ShouldServeFromMemory() {
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+        UUID user = UUID.randomUUID();
+        UUID heldOutcome = UUID.randomUUID();
+        when(positionRepository.findByUserId(user)).thenReturn(Flux.just(Position.builder()
+                .userId(user)
+                .marketId(marketId)
+                .outcomeId(heldOutcome)
+                .quantity(new BigDecimal("3"))
+                .totalCost(new BigDecimal("1.5"))
+                .build()));
+        assertThat(aggregator.getPositions(user).block()).hasSize(1);
+        aggregator.flush().block();
+
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), outcomeId, "SELL", 5000L, "2")));
+        aggregator.onResult(engine.place(order(user, outcomeId, "BUY", 5000L, "2")));
+        aggregator.flush().block();
+        List<Position> positions = aggregator.getPositions(user).block();
+
+        assertThat(positions).hasSize(2);
+        verify(positionRepository, times(1)).findByUserId(user);
+        // Every position of the user is already known, so the new one is not looked up either
+        verify(positionRepository, never()).findByUserIdAndMarketIdAndOutcomeId(eq(user), any(), any());
+    }
+
+    @Test
+    void onResult_Disabled_ShouldIgnoreTrades() {
+        properties.getPositions().setEnabled(false);
+        PositionAggregator aggregator = new PositionAggregator(new CqlStatements(session), positionRepository, properties);
+
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), "SELL", "1")));
+        aggregator.onResult(engine.place(order(UUID.randomUUID(), "BUY", "1")));
+
+        assertThat(aggregator.getPendingCount()).isZero();
+    }
+
+    private Order order(UUID userId, String side, String quantity) {
+        return order(userId, outcomeId, side, 5000L, quantity);
+    }
+
+    private Order order(UUID userId, UUID outcome, String side, long priceE4, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(marketId)
+                .marketTitle("Will it rain?")
+                .outcomeId(outcome)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
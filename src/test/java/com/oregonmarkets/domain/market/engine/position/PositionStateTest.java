@@ -0,0 +1,148 @@
+package com.oregonmarkets.domain.market.engine.position;
+
+import com.oregonmarkets.domain.market.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PositionStateTest {
+
+    private static final long SHARE = 1_000_000L;
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void apply_Buys_ShouldAverageEntryPrice() {
+        PositionState state = state();
+
+        state.apply(true, 10 * SHARE, 4 * SHARE, 0L, NOW);
+        state.apply(true, 10 * SHARE, 6 * SHARE, 0L, NOW);
+
+        assertThat(state.quantity).isEqualTo(20 * SHARE);
+        assertThat(state.costBasis).isEqualTo(10 * SHARE);
+        assertThat(state.averageEntryPriceE4()).isEqualTo(5000L);
+        assertThat(state.bought).isEqualTo(20 * SHARE);
+        assertThat(state.trades).isEqualTo(2);
+    }
+
+    @Test
+    void apply_PartialSell_ShouldRealizeAgainstAverageCost() {
+        PositionState state = state();
+        state.apply(true, 20 * SHARE, 10 * SHARE, 0L, NOW);
+
+        state.apply(false, 5 * SHARE, 4 * SHARE, 20_000L, NOW.plusSeconds(1));
+
+        assertThat(state.quantity).isEqualTo(15 * SHARE);
+        assertThat(state.costBasis).isEqualTo(7_500_000L);
+        assertThat(state.realizedPnl).isEqualTo(1_500_000L);
+        assertThat(state.averageEntryPriceE4()).isEqualTo(5000L);
+        assertThat(state.fees).isEqualTo(20_000L);
+        assertThat(state.lastTradeAt).isEqualTo(NOW.plusSeconds(1));
+        assertThat(state.firstTradeAt).isEqualTo(NOW);
+    }
+
+    @Test
+    void apply_SellThroughFlat_ShouldOpenShortAtFillPrice() {
+        PositionState state = state();
+        state.apply(true, 10 * SHARE, 4 * SHARE, 0L, NOW);
+
+        state.apply(false, 15 * SHARE, 7_500_000L, 0L, NOW);
+
+        assertThat(state.quantity).isEqualTo(-5 * SHARE);
+        assertThat(state.costBasis).isEqualTo(2_500_000L);
+        assertThat(state.realizedPnl).isEqualTo(SHARE);
+        assertThat(state.averageEntryPriceE4()).isEqualTo(5000L);
+    }
+
+    @Test
+    void apply_CloseShort_ShouldRealizeGainWhenBoughtBackCheaper() {
+        PositionState state = state();
+        state.apply(false, 10 * SHARE, 6 * SHARE, 0L, NOW);
+
+        state.apply(true, 10 * SHARE, 4 * SHARE, 0L, NOW);
+
+        assertThat(state.quantity).isZero();
+        assertThat(state.costBasis).isZero();
+        assertThat(state.realizedPnl).isEqualTo(2 * SHARE);
+        assertThat(state.averageEntryPriceE4()).isNull();
+    }
+
+    @Test
+    void mark_Long_ShouldValueAgainstCostBasis() {
+        PositionState state = state();
+        state.apply(true, 10 * SHARE, 5 * SHARE, 0L, NOW);
+        state.dirty = false;
+
+        assertThat(state.mark(6000L)).isTrue();
+        assertThat(state.mark(6000L)).isFalse();
+
+        assertThat(state.dirty).isTrue();
+        assertThat(state.currentValue()).isEqualTo(6 * SHARE);
+        assertThat(state.unrealizedPnl()).isEqualTo(SHARE);
+        Position position = state.toPosition();
+        assertThat(position.getCurrentPriceE4()).isEqualTo(6000L);
+        assertThat(position.getUnrealizedPnl()).isEqualByComparingTo("1");
+    }
+
+    @Test
+    void mark_Short_ShouldLoseWhenPriceRises() {
+        PositionState state = state();
+        state.apply(false, 5 * SHARE, 2_500_000L, 0L, NOW);
+
+        state.mark(6000L);
+
+        assertThat(state.currentValue()).isEqualTo(-3 * SHARE);
+        assertThat(state.unrealizedPnl()).isEqualTo(-500_000L);
+    }
+
+    @Test
+    void from_PersistedPosition_ShouldContinueTotals() {
+        Position persisted = Position.builder()
+                .userId(UUID.randomUUID())
+                .marketId(UUID.randomUUID())
+                .outcomeId(UUID.randomUUID())
+                .quantity(new BigDecimal("10"))
+                .totalCost(new BigDecimal("4"))
+                .realizedPnl(new BigDecimal("1.25"))
+                .totalTrades(3L)
+                .lastTradeAt(NOW)
+                .build();
+
+        PositionState state = PositionState.from(persisted, NOW);
+        state.apply(true, 10 * SHARE, 6 * SHARE, 0L, NOW);
+
+        Position position = state.toPosition();
+        assertThat(position.getQuantity()).isEqualByComparingTo("20");
+        assertThat(position.getAverageEntryPriceE4()).isEqualTo(5000L);
+        assertThat(position.getRealizedPnl()).isEqualByComparingTo("1.25");
+        assertThat(position.getTotalTrades()).isEqualTo(4L);
+        // The fill shares the persisted row's time, so the write must still sort after it
+        assertThat(state.nextWriteTimestamp()).isEqualTo(NOW.getEpochSecond() * 1_000_000L + 1);
+    }
+
+    @Test
+    void from_AfterRevaluations_ShouldWriteAfterLoadTime() {
+        Position persisted = Position.builder()
+                .userId(UUID.randomUUID())
+                .marketId(UUID.randomUUID())
+                .outcomeId(UUID.randomUUID())
+                .quantity(new BigDecimal("10"))
+                .totalCost(new BigDecimal("4"))
+                .lastTradeAt(NOW)
+                .build();
+        Instant loadedAt = NOW.plusSeconds(3600);
+
+        PositionState state = PositionState.from(persisted, loadedAt);
+        state.mark(6000L);
+
+        // Revaluations written before the restart carry timestamps past the last trade
+        assertThat(state.nextWriteTimestamp()).isEqualTo(loadedAt.getEpochSecond() * 1_000_000L + 1);
+    }
+
+    private static PositionState state() {
+        return new PositionState(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+    }
+}
@@ -0,0 +1,45 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EngineReplayTest {
+
+    private final OrderTape tape = OrderTape.synthetic(7L, 20, 5_000);
+
+    @Test
+    void synthetic_SameSeed_ShouldGenerateSameTape() {
+        OrderTape again = OrderTape.synthetic(7L, 20, 5_000);
+
+        assertThat(again.getEntries()).extracting(TapeEntry::orderId)
+                .containsExactlyElementsOf(tape.getEntries().stream().map(TapeEntry::orderId).toList());
+        assertThat(tape.getEntries()).extracting(TapeEntry::type).contains(TapeEntry.Type.CANCEL);
+    }
+
+    @Test
+    void runSingleThreaded_Twice_ShouldProduceIdenticalTrades() {
+        StringWriter csv = new StringWriter();
+        ReplayReport first = EngineReplay.runSingleThreaded(tape, csv);
+        ReplayReport second = EngineReplay.runSingleThreaded(tape, null);
+
+        assertThat(first.commands()).isEqualTo(5_000L);
+        assertThat(first.trades()).isPositive();
+        assertThat(first.latency().getTotalCount()).isEqualTo(5_000L);
+        assertThat(second.digest()).isEqualTo(first.digest());
+        assertThat(csv.toString().lines()).hasSize((int) first.trades() + 1).first().isEqualTo(TradeDigest.HEADER);
+    }
+
+    @Test
+    void runSharded_Twice_ShouldProduceIdenticalTrades() {
+        ReplayReport first = EngineReplay.runSharded(tape, 4, 1024, 256, null);
+        ReplayReport second = EngineReplay.runSharded(tape, 4, 1024, 256, null);
+
+        assertThat(first.commands()).isEqualTo(5_000L);
+        assertThat(first.trades()).isEqualTo(EngineReplay.runSingleThreaded(tape, null).trades());
+        assertThat(second.digest()).isEqualTo(first.digest());
+        assertThat(first.summary()).contains("4 shards", first.digest());
+    }
+}
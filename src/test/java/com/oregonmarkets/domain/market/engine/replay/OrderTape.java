@@ -0,0 +1,136 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Books to open and the commands to replay against them, in tape order
+ */
+public final class OrderTape {
+
+    /**
+     * One outcome book to open before the tape starts
+     */
+    public record Book(Market market, UUID outcomeId) {
+    }
+
+    private final List<Book> books;
+    private final List<TapeEntry> entries;
+
+    public OrderTape(List<Book> books, List<TapeEntry> entries) {
+        this.books = List.copyOf(books);
+        this.entries = List.copyOf(entries);
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<TapeEntry> getEntries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Entries with untouched orders for one replay, created before timing starts
+     */
+    List<TapeEntry> freshEntries() {
+        List<TapeEntry> fresh = new ArrayList<>(entries.size());
+        for (TapeEntry entry : entries) {
+            fresh.add(entry.fresh());
+        }
+        return fresh;
+    }
+
+    /**
+     * Generate a reproducible tape of binary markets with two outcome books each.
+     * Flow is skewed towards a few hot markets. Each book's mid price wanders, and orders land a
+     * few ticks either side of it, so most rest and some cross. About one command in ten
+     * cancels a recent order and one in twenty is an IOC or market order.
+     *
+     * @param seed the same seed always produces the same tape
+     */
+    public static OrderTape synthetic(long seed, int marketCount, int orderCount) {
+        Random random = new Random(seed);
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        List<Book> books = new ArrayList<>(marketCount * 2);
+        for (int i = 0; i < marketCount; i++) {
+            Market market = Market.builder()
+                    .marketId(uuid(random))
+                    .tickSizeE4(100L)
+                    .makerFeeE4(10L)
+                    .takerFeeE4(20L)
+                    .build();
+            books.add(new Book(market, uuid(random)));
+            books.add(new Book(market, uuid(random)));
+        }
+        UUID[] users = new UUID[Math.max(2, orderCount / 50)];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = uuid(random);
+        }
+        long[] midE4 = new long[books.size()];
+        for (int i = 0; i < midE4.length; i++) {
+            midE4[i] = 1000L + 100L * random.nextInt(81);
+        }
+
+        List<TapeEntry> entries = new ArrayList<>(orderCount);
+        List<TapeEntry> recent = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 10 && !recent.isEmpty()) {
+                TapeEntry target = recent.remove(random.nextInt(recent.size()));
+                entries.add(TapeEntry.cancel(target.marketId(), target.orderId(), target.userId()));
+                continue;
+            }
+            // Squaring a uniform draw sends most flow to the first few markets
+            double skew = random.nextDouble();
+            int bookIndex = (int) (skew * skew * books.size());
+            Book book = books.get(bookIndex);
+            midE4[bookIndex] = Math.max(500L, Math.min(9500L, midE4[bookIndex] + 100L * (random.nextInt(3) - 1)));
+            boolean buy = random.nextBoolean();
+            long offset = 100L * (random.nextInt(8) - 2);
+            long priceE4 = Math.max(100L, Math.min(9900L, buy ? midE4[bookIndex] - offset : midE4[bookIndex] + offset));
+            String orderType = roll < 12 ? "MARKET" : "LIMIT";
+            String timeInForce = roll < 15 ? "IOC" : "GTC";
+            BigDecimal quantity = roll % 4 == 0
+                    ? BigDecimal.valueOf(1 + random.nextInt(10_000), 2)
+                    : BigDecimal.valueOf(1 + random.nextInt(100));
+
+            Order order = Order.builder()
+                    .orderId(uuid(random))
+                    .userId(users[random.nextInt(users.length)])
+                    .marketId(book.market().getMarketId())
+                    .outcomeId(book.outcomeId())
+                    .side(buy ? "BUY" : "SELL")
+                    .orderType(orderType)
+                    .timeInForce(timeInForce)
+                    .priceE4("MARKET".equals(orderType) ? null : priceE4)
+                    .quantity(quantity)
+                    .createdAt(start.plusMillis(i))
+                    .build();
+            TapeEntry entry = TapeEntry.place(order);
+            entries.add(entry);
+            if ("GTC".equals(timeInForce)) {
+                recent.add(entry);
+                if (recent.size() > 1_000) {
+                    recent.remove(0);
+                }
+            }
+        }
+        return new OrderTape(books, entries);
+    }
+
+    private static UUID uuid(Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,112 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import com.oregonmarkets.domain.market.engine.Quantities;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds an order tape from the QuestDB {@code orders} analytics table.
+ * Each order is placed at its creation time and, if it ended cancelled, cancelled by its owner
+ * at its cancellation time. Where the table holds several rows for an order, the latest one
+ * decides whether and when it was cancelled.
+ */
+public final class QuestDbTapeReader {
+
+    private static final String SELECT_ORDERS = "SELECT order_id, user_id, market_id, outcome_id, side, order_type, "
+            + "price_e4, quantity, time_in_force, status, created_at, cancelled_at, updated_at FROM orders "
+            + "WHERE created_at >= $1 AND created_at < $2 ORDER BY created_at, updated_at";
+
+    private final DatabaseClient questdb;
+
+    public QuestDbTapeReader(DatabaseClient questdb) {
+        this.questdb = questdb;
+    }
+
+    /**
+     * @param tickSizeE4 tick of every book opened; the table does not record markets' ticks, so
+     *                   1 accepts any historical price
+     */
+    public Mono<OrderTape> read(Instant from, Instant to, long tickSizeE4) {
+        return questdb.sql(SELECT_ORDERS)
+                .bind(0, LocalDateTime.ofInstant(from, ZoneOffset.UTC))
+                .bind(1, LocalDateTime.ofInstant(to, ZoneOffset.UTC))
+                .map(QuestDbTapeReader::order)
+                .all()
+                .collect(LinkedHashMap<UUID, Order>::new, (orders, order) -> orders.put(order.getOrderId(), order))
+                .map(orders -> tape(orders, tickSizeE4));
+    }
+
+    private static OrderTape tape(Map<UUID, Order> orders, long tickSizeE4) {
+        Map<UUID, Market> markets = new LinkedHashMap<>();
+        Set<OrderTape.Book> books = new LinkedHashSet<>();
+        List<Timed> timed = new ArrayList<>(orders.size());
+        long position = 0;
+        for (Order order : orders.values()) {
+            Market market = markets.computeIfAbsent(order.getMarketId(),
+                    id -> Market.builder().marketId(id).tickSizeE4(tickSizeE4).build());
+            books.add(new OrderTape.Book(market, order.getOutcomeId()));
+            Instant cancelledAt = order.getCancelledAt();
+            boolean cancelled = OrderStatus.CANCELLED.name().equals(order.getStatus()) && cancelledAt != null;
+            Order placed = order.toBuilder().status(null).cancelledAt(null).updatedAt(null).build();
+            timed.add(new Timed(order.getCreatedAt(), position++, TapeEntry.place(placed)));
+            if (cancelled) {
+                timed.add(new Timed(cancelledAt, position++,
+                        TapeEntry.cancel(order.getMarketId(), order.getOrderId(), order.getUserId())));
+            }
+        }
+        // Stable by tape position, so an order is always placed before it is cancelled
+        timed.sort(Comparator.comparing(Timed::at).thenComparingLong(Timed::position));
+        List<TapeEntry> entries = new ArrayList<>(timed.size());
+        for (Timed entry : timed) {
+            entries.add(entry.entry());
+        }
+        return new OrderTape(new ArrayList<>(books), entries);
+    }
+
+    private static Order order(Readable row) {
+        Long priceE4 = row.get("price_e4", Long.class);
+        Double quantity = row.get("quantity", Double.class);
+        return Order.builder()
+                .orderId(row.get("order_id", UUID.class))
+                .userId(row.get("user_id", UUID.class))
+                .marketId(row.get("market_id", UUID.class))
+                .outcomeId(row.get("outcome_id", UUID.class))
+                .side(row.get("side", String.class))
+                .orderType(row.get("order_type", String.class))
+                .priceE4(priceE4)
+                .quantity(quantity == null ? null
+                        : BigDecimal.valueOf(quantity).setScale(Quantities.SCALE, RoundingMode.HALF_UP))
+                .timeInForce(row.get("time_in_force", String.class))
+                .status(row.get("status", String.class))
+                .createdAt(instant(row, "created_at"))
+                .cancelledAt(instant(row, "cancelled_at"))
+                .updatedAt(instant(row, "updated_at"))
+                .build();
+    }
+
+    private static Instant instant(Readable row, String column) {
+        LocalDateTime value = row.get(column, LocalDateTime.class);
+        return value == null ? null : value.toInstant(ZoneOffset.UTC);
+    }
+
+    private record Timed(Instant at, long position, TapeEntry entry) {
+    }
+}
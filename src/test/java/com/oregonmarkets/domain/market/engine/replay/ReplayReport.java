@@ -0,0 +1,40 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Outcome of one replay of a tape
+ *
+ * @param mode           how the engine was driven, e.g. "single-threaded" or "4 shards"
+ * @param commands       tape entries replayed
+ * @param elapsedNanos   wall time from the first submission to the last result
+ * @param latency        nanoseconds from submitting each command to receiving its result
+ * @param allocatedBytes heap allocated while replaying, or -1 where the JVM cannot tell
+ * @param digest         hash of the trades produced, see {@link TradeDigest}
+ */
+public record ReplayReport(String mode, long commands, long trades, long elapsedNanos, Histogram latency,
+                           long allocatedBytes, String digest) {
+
+    public double commandsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : commands * 1e9 / elapsedNanos;
+    }
+
+    public double allocatedBytesPerCommand() {
+        return allocatedBytes < 0 || commands == 0 ? -1.0 : (double) allocatedBytes / commands;
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "%s: %d commands, %d trades in %.1f ms, %.0f commands/s; latency us p50 %.1f p90 %.1f p99 %.1f "
+                        + "p99.9 %.1f max %.1f; %.0f bytes allocated/command; trades sha256 %s",
+                mode, commands, trades, elapsedNanos / 1e6, commandsPerSecond(),
+                micros(50.0), micros(90.0), micros(99.0), micros(99.9), latency.getMaxValue() / 1e3,
+                allocatedBytesPerCommand(), digest);
+    }
+
+    private double micros(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1e3;
+    }
+}
@@ -0,0 +1,33 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import com.oregonmarkets.domain.market.model.Order;
+
+import java.util.UUID;
+
+/**
+ * One command of an order tape: a new order, or a user cancelling one of theirs
+ *
+ * @param order order to place, or null for a cancel
+ */
+public record TapeEntry(Type type, Order order, UUID marketId, UUID orderId, UUID userId) {
+
+    public enum Type {
+        PLACE,
+        CANCEL
+    }
+
+    public static TapeEntry place(Order order) {
+        return new TapeEntry(Type.PLACE, order, order.getMarketId(), order.getOrderId(), order.getUserId());
+    }
+
+    public static TapeEntry cancel(UUID marketId, UUID orderId, UUID userId) {
+        return new TapeEntry(Type.CANCEL, null, marketId, orderId, userId);
+    }
+
+    /**
+     * Copy with an untouched order, since the engine updates the orders it is given
+     */
+    TapeEntry fresh() {
+        return order == null ? this : new TapeEntry(type, order.toBuilder().build(), marketId, orderId, userId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.oregonmarkets.domain.market.engine.replay;
+
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.model.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over a canonical CSV rendering of every trade a replay produced, in tape order.
+ * Two replays of a tape agree byte for byte exactly when their digests match.
+ */
+public final class TradeDigest {
+
+    static final String HEADER = "trade_id,market_id,outcome_id,buyer_order_id,seller_order_id,price_e4,"
+            + "quantity,total_value,buyer_fee,seller_fee,maker_side,taker_side,executed_at";
+
+    private final MessageDigest sha256;
+    private final Writer output;
+    private final StringBuilder line = new StringBuilder(256);
+    private long trades;
+
+    /**
+     * @param output also receives the CSV, or null to only hash it
+     */
+    public TradeDigest(Writer output) {
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        this.output = output;
+        write(HEADER);
+    }
+
+    public void accept(MatchResult result) {
+        for (Trade trade : result.getTrades()) {
+            line.setLength(0);
+            line.append(trade.getTradeId()).append(',')
+                    .append(trade.getMarketId()).append(',')
+                    .append(trade.getOutcomeId()).append(',')
+                    .append(trade.getBuyerOrderId()).append(',')
+                    .append(trade.getSellerOrderId()).append(',')
+                    .append(trade.getPriceE4()).append(',')
+                    .append(plain(trade.getQuantity())).append(',')
+                    .append(plain(trade.getTotalValue())).append(',')
+                    .append(plain(trade.getBuyerFee())).append(',')
+                    .append(plain(trade.getSellerFee())).append(',')
+                    .append(trade.getMakerSide()).append(',')
+                    .append(trade.getTakerSide()).append(',')
+                    .append(trade.getExecutedAt());
+            write(line.toString());
+            trades++;
+        }
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public String hex() {
+        try {
+            return HexFormat.of().formatHex(((MessageDigest) sha256.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    private void write(String text) {
+        byte[] bytes = (text + '\n').getBytes(StandardCharsets.UTF_8);
+        sha256.update(bytes);
+        if (output != null) {
+            try {
+                output.write(text);
+                output.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+}
@@ -0,0 +1,230 @@
+package com.oregonmarkets.domain.market.engine.risk;
+
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.engine.BookKey;
+import com.oregonmarkets.domain.market.engine.MatchResult;
+import com.oregonmarkets.domain.market.engine.MatchingEngine;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.Order;
+import com.oregonmarkets.domain.market.model.Position;
+import com.oregonmarkets.domain.market.repository.PositionRepository;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.blnk.BlnkClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RiskLedgerTest {
+
+    /** 100 USDC held in Blnk as 10000 cents */
+    private static final long BALANCE = 100_000_000L;
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PositionRepository positionRepository;
+
+    @Mock
+    private BlnkClient blnkClient;
+
+    private RiskLedger ledger;
+    private MatchingEngine engine;
+    private UUID marketId;
+    private UUID outcomeId;
+    private BookKey outcome;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new RiskLedger(userRepository, positionRepository, blnkClient, new EngineProperties());
+        engine = new MatchingEngine(1, Clock.fixed(NOW, ZoneOffset.UTC));
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        outcome = new BookKey(marketId, outcomeId);
+        engine.openBook(Market.builder()
+                .marketId(marketId)
+                .tickSizeE4(100L)
+                .makerFeeE4(10L)
+                .takerFeeE4(20L)
+                .build(), outcomeId);
+    }
+
+    @Test
+    void reserve_BuyWithinBalance_ShouldHoldLimitCostPlusFee() {
+        UUID buyer = loadAccount("0");
+
+        assertThat(submit(limit(buyer, "BUY", 5000, "10"))).isNull();
+
+        // 10 shares at 0.50 plus the 0.2% taker fee
+        assertThat(ledger.getAccount(buyer).availableCash()).isEqualTo(BALANCE - 5_010_000L);
+    }
+
+    @Test
+    void reserve_BuyBeyondAvailableBalance_ShouldRefuseWithoutReserving() {
+        UUID buyer = loadAccount("0");
+        submit(limit(buyer, "BUY", 5000, "100"));
+        long available = ledger.getAccount(buyer).availableCash();
+
+        RiskRejection rejection = submit(limit(buyer, "BUY", 5000, "100"));
+
+        assertThat(rejection.code()).isEqualTo(ResponseCode.INSUFFICIENT_BALANCE);
+        assertThat(ledger.getAccount(buyer).availableCash()).isEqualTo(available);
+        assertThat(engine.getRestingOrderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_SellBeyondHeldShares_ShouldRefuse() {
+        UUID seller = loadAccount("10");
+
+        assertThat(submit(limit(seller, "SELL", 6000, "10"))).isNull();
+        RiskRejection rejection = submit(limit(seller, "SELL", 6000, "1"));
+
+        assertThat(rejection.code()).isEqualTo(ResponseCode.INSUFFICIENT_POSITION);
+        assertThat(ledger.getAccount(seller).availableShares(outcome)).isZero();
+    }
+
+    @Test
+    void reserve_AccountNotLoaded_ShouldRefuseAsUnavailable() {
+        RiskRejection rejection = submit(limit(UUID.randomUUID(), "BUY", 5000, "1"));
+
+        assertThat(rejection.code()).isEqualTo(ResponseCode.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void apply_Trade_ShouldMoveCashAndSharesAndReleaseReservations() {
+        UUID seller = loadAccount("10");
+        UUID buyer = loadAccount("0");
+        submit(limit(seller, "SELL", 5000, "10"));
+
+        submit(limit(buyer, "BUY", 6000, "10"));
+
+        // Filled at the maker's 0.50: buyer pays 5 plus the taker fee, seller receives 5 less the maker fee
+        assertThat(ledger.getAccount(buyer).availableCash()).isEqualTo(BALANCE - 5_000_000L - 10_000L);
+        assertThat(ledger.getAccount(buyer).availableShares(outcome)).isEqualTo(10_000_000L);
+        assertThat(ledger.getAccount(seller).availableCash()).isEqualTo(BALANCE + 5_000_000L - 5_000L);
+        assertThat(ledger.getAccount(seller).availableShares(outcome)).isZero();
+    }
+
+    @Test
+    void apply_Cancel_ShouldReleaseReservation() {
+        UUID buyer = loadAccount("0");
+        Order order = limit(buyer, "BUY", 5000, "10");
+        submit(order);
+
+        ledger.apply(engine.cancel(order.getOrderId(), buyer));
+
+        assertThat(ledger.getAccount(buyer).availableCash()).isEqualTo(BALANCE);
+    }
+
+    @Test
+    void apply_ReplayedOrderOfUnloadedUser_ShouldBeReservedOnceLoaded() {
+        UUID buyer = UUID.randomUUID();
+        ledger.apply(engine.place(limit(buyer, "BUY", 5000, "10")));
+
+        stubAccount(buyer, "0");
+        StepVerifier.create(ledger.load(buyer)).verifyComplete();
+
+        assertThat(ledger.getAccount(buyer).availableCash()).isEqualTo(BALANCE - 5_010_000L);
+    }
+
+    @Test
+    void reconcile_AfterFillIsFlushed_ShouldNotCountItTwice() {
+        UUID seller = loadAccount("10");
+        UUID buyer = loadAccount("0");
+        submit(limit(seller, "SELL", 5000, "10"));
+        submit(limit(buyer, "BUY", 5000, "10"));
+        stubPosition(buyer, "10", NOW);
+
+        StepVerifier.create(ledger.reconcile()).verifyComplete();
+
+        assertThat(ledger.getAccount(buyer).availableShares(outcome)).isEqualTo(10_000_000L);
+        assertThat(submit(limit(buyer, "SELL", 6000, "20")).code()).isEqualTo(ResponseCode.INSUFFICIENT_POSITION);
+    }
+
+    @Test
+    void reconcile_BeforeFillIsFlushed_ShouldKeepItPending() {
+        UUID seller = loadAccount("10");
+        UUID buyer = loadAccount("0");
+        submit(limit(seller, "SELL", 5000, "10"));
+        submit(limit(buyer, "BUY", 5000, "10"));
+        stubPosition(buyer, "0", NOW.minusSeconds(60));
+
+        StepVerifier.create(ledger.reconcile()).verifyComplete();
+
+        assertThat(ledger.getAccount(buyer).availableShares(outcome)).isEqualTo(10_000_000L);
+    }
+
+    @Test
+    void cost_ShouldRoundUp() {
+        assertThat(RiskLedger.cost(1, 1, 0)).isEqualTo(1L);
+        assertThat(RiskLedger.cost(10_000, 5000, 20)).isEqualTo(5_010L);
+        assertThat(RiskLedger.cost(Long.MAX_VALUE, 5000, 0)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    private RiskRejection submit(Order order) {
+        RiskRejection rejection = ledger.reserve(order, engine.getBook(marketId, outcomeId));
+        if (rejection == null) {
+            MatchResult result = engine.place(order);
+            ledger.apply(result);
+        }
+        return rejection;
+    }
+
+    private UUID loadAccount(String shares) {
+        UUID userId = UUID.randomUUID();
+        stubAccount(userId, shares);
+        StepVerifier.create(ledger.load(userId)).verifyComplete();
+        return userId;
+    }
+
+    private void stubAccount(UUID userId, String shares) {
+        String balanceId = "balance-" + userId;
+        when(userRepository.findById(userId))
+                .thenReturn(Mono.just(User.builder().id(userId).blnkBalanceId(balanceId).build()));
+        when(blnkClient.getBalance(balanceId))
+                .thenReturn(Mono.just(Map.<String, Object>of("balance", 10000, "precision", 100)));
+        stubPosition(userId, shares, null);
+    }
+
+    private void stubPosition(UUID userId, String shares, Instant lastTradeAt) {
+        when(positionRepository.findByUserId(userId)).thenReturn(Flux.just(Position.builder()
+                .userId(userId)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .quantity(new BigDecimal(shares))
+                .lastTradeAt(lastTradeAt)
+                .build()));
+    }
+
+    private Order limit(UUID userId, String side, long priceE4, String quantity) {
+        return Order.builder()
+                .orderId(UUID.randomUUID())
+                .userId(userId)
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
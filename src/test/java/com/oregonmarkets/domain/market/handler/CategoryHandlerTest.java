@@ -19,12 +19,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -45,6 +47,9 @@ class CategoryHandlerTest {
     @Mock
     private ServerRequest serverRequest;
 
+    @Mock
+    private ServerRequest.Headers headers;
+
     @InjectMocks
     private CategoryHandler categoryHandler;
 
@@ -54,6 +59,7 @@ class CategoryHandlerTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(serverRequest.headers()).thenReturn(headers);
         categoryId = UUID.randomUUID();
 
         testCategory = new Category();
@@ -85,6 +91,25 @@ class CategoryHandlerTest {
         verify(categoryMapper).toResponse(testCategory);
     }
 
+    @Test
+    void getAllCategories_EventStreamAccepted_ShouldStreamCategories() {
+        // Given
+        when(headers.accept()).thenReturn(List.of(MediaType.TEXT_EVENT_STREAM));
+        when(categoryService.getAllCategories()).thenReturn(Flux.just(testCategory));
+
+        // When
+        Mono<ServerResponse> response = categoryHandler.getAllCategories(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 200
+                        && MediaType.TEXT_EVENT_STREAM.equals(serverResponse.headers().getContentType()))
+                .verifyComplete();
+
+        // Elements are mapped as the client reads them, not while building the response
+        verifyNoInteractions(categoryMapper);
+    }
+
     @Test
     void getCategoryById_ValidId_ShouldReturnCategory() {
         // Given
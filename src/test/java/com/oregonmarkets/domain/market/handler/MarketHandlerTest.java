@@ -4,7 +4,9 @@ import com.oregonmarkets.common.exception.BusinessException;
 import com.oregonmarkets.common.response.ResponseCode;
 import com.oregonmarkets.domain.market.dto.request.CreateMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.UpdateMarketRequest;
+import com.oregonmarkets.domain.market.dto.response.MarketPageResponse;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
 import com.oregonmarkets.domain.market.service.MarketService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,16 +14,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,18 +38,28 @@ class MarketHandlerTest {
     @Mock
     private ServerRequest serverRequest;
 
+    @Mock
+    private ServerRequest.Headers headers;
+
     @InjectMocks
     private MarketHandler marketHandler;
 
     private UUID testMarketId;
     private MarketResponse testMarketResponse;
+    private MarketPageResponse testPage;
 
     @BeforeEach
     void setUp() {
+        lenient().when(serverRequest.headers()).thenReturn(headers);
         testMarketId = UUID.randomUUID();
         testMarketResponse = new MarketResponse();
         testMarketResponse.setMarketId(testMarketId);
         testMarketResponse.setTitle("Test Market");
+        testPage = MarketPageResponse.builder()
+                .markets(List.of(testMarketResponse))
+                .limit(MarketHandler.DEFAULT_PAGE_SIZE)
+                .hasMore(false)
+                .build();
     }
 
     @Test
@@ -127,9 +142,9 @@ class MarketHandlerTest {
     }
 
     @Test
-    void getAllMarkets_ShouldReturnListOfMarkets() {
+    void getAllMarkets_ShouldReturnFirstPageOfMarkets() {
         // Given
-        when(marketService.getAllMarkets()).thenReturn(Flux.just(testMarketResponse));
+        when(marketService.getAllMarkets(MarketHandler.DEFAULT_PAGE_SIZE, null)).thenReturn(Mono.just(testPage));
 
         // When
         Mono<ServerResponse> response = marketHandler.getAllMarkets(serverRequest);
@@ -145,7 +160,9 @@ class MarketHandlerTest {
         // Given
         UUID categoryId = UUID.randomUUID();
         when(serverRequest.queryParam("category")).thenReturn(Optional.of(categoryId.toString()));
-        when(marketService.getMarketsByCategory(categoryId)).thenReturn(Flux.just(testMarketResponse));
+        when(serverRequest.queryParam("limit")).thenReturn(Optional.of("20"));
+        when(serverRequest.queryParam("cursor")).thenReturn(Optional.of("AQID"));
+        when(marketService.getMarketsByCategory(categoryId, 20, "AQID")).thenReturn(Mono.just(testPage));
 
         // When
         Mono<ServerResponse> response = marketHandler.getMarketsByCategory(serverRequest);
@@ -160,7 +177,7 @@ class MarketHandlerTest {
     void getMarketsByCategory_NoParameter_ShouldReturnAllMarkets() {
         // Given
         when(serverRequest.queryParam("category")).thenReturn(Optional.empty());
-        when(marketService.getAllMarkets()).thenReturn(Flux.just(testMarketResponse));
+        when(marketService.getAllMarkets(MarketHandler.DEFAULT_PAGE_SIZE, null)).thenReturn(Mono.just(testPage));
 
         // When
         Mono<ServerResponse> response = marketHandler.getMarketsByCategory(serverRequest);
@@ -175,7 +192,8 @@ class MarketHandlerTest {
     void getMarketsByStatus_ValidStatus_ShouldReturnMarkets() {
         // Given
         when(serverRequest.queryParam("status")).thenReturn(Optional.of("OPEN"));
-        when(marketService.getMarketsByStatus("OPEN")).thenReturn(Flux.just(testMarketResponse));
+        when(marketService.getMarketsByStatus("OPEN", MarketHandler.DEFAULT_PAGE_SIZE, null))
+                .thenReturn(Mono.just(testPage));
 
         // When
         Mono<ServerResponse> response = marketHandler.getMarketsByStatus(serverRequest);
@@ -186,6 +204,56 @@ class MarketHandlerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAllMarkets_InvalidLimit_ShouldReturnBadRequest() {
+        // Given
+        when(serverRequest.queryParam("limit")).thenReturn(Optional.of("many"));
+
+        // When
+        Mono<ServerResponse> response = marketHandler.getAllMarkets(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 400)
+                .verifyComplete();
+
+        verifyNoInteractions(marketService);
+    }
+
+    @Test
+    void getAllMarkets_NdjsonAccepted_ShouldStreamWholeListing() {
+        // Given
+        when(headers.accept()).thenReturn(List.of(MediaType.APPLICATION_NDJSON));
+        when(marketService.getAllMarkets()).thenReturn(Flux.just(testMarketResponse));
+
+        // When
+        Mono<ServerResponse> response = marketHandler.getAllMarkets(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 200
+                        && MediaType.APPLICATION_NDJSON.equals(serverResponse.headers().getContentType()))
+                .verifyComplete();
+
+        verify(marketService, never()).getAllMarkets(anyInt(), any());
+    }
+
+    @Test
+    void getFeaturedMarkets_WildcardAccepted_ShouldReturnEnvelope() {
+        // Given
+        when(headers.accept()).thenReturn(List.of(MediaType.TEXT_HTML, MediaType.ALL));
+        when(marketService.getFeaturedMarkets()).thenReturn(Flux.just(testMarketResponse));
+
+        // When
+        Mono<ServerResponse> response = marketHandler.getFeaturedMarkets(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 200
+                        && serverResponse.headers().getContentType() == null)
+                .verifyComplete();
+    }
+
     @Test
     void getFeaturedMarkets_ShouldReturnFeaturedMarkets() {
         // Given
@@ -261,6 +329,35 @@ class MarketHandlerTest {
                 .verifyComplete();
     }
 
+    @Test
+    void suggest_WithPrefix_ShouldReturnSuggestions() {
+        // Given
+        when(serverRequest.queryParam("q")).thenReturn(Optional.of("te"));
+        when(marketService.suggest("te", MarketHandler.DEFAULT_SUGGESTIONS))
+                .thenReturn(Flux.just(SuggestionResponse.builder().text("Test Market").build()));
+
+        // When
+        Mono<ServerResponse> response = marketHandler.suggest(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 200)
+                .verifyComplete();
+    }
+
+    @Test
+    void suggest_WithoutPrefix_ShouldReturnBadRequest() {
+        // When
+        Mono<ServerResponse> response = marketHandler.suggest(serverRequest);
+
+        // Then
+        StepVerifier.create(response)
+                .expectNextMatches(serverResponse -> serverResponse.statusCode().value() == 400)
+                .verifyComplete();
+
+        verifyNoInteractions(marketService);
+    }
+
     @Test
     void searchMarkets_WithoutQuery_ShouldReturnBadRequest() {
         // Given
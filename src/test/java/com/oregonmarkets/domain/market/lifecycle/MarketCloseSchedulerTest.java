@@ -0,0 +1,134 @@
+package com.oregonmarkets.domain.market.lifecycle;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import com.oregonmarkets.domain.market.listing.MarketListingTables;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import com.oregonmarkets.domain.market.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MarketCloseSchedulerTest {
+
+    private final Map<String, BoundStatementBuilder> builders = new HashMap<>();
+
+    private CqlSession session;
+    private MarketRepository marketRepository;
+    private OrderService orderService;
+    private MarketListingTables listingTables;
+    private ReactiveValueOperations<String, Object> leases;
+    private MarketCloseScheduler scheduler;
+    private UUID marketId;
+    private Market market;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        session = mock(CqlSession.class);
+        when(session.prepare(anyString())).thenAnswer(invocation -> prepare(invocation.getArgument(0)));
+        when(session.executeAsync(any(Statement.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(AsyncResultSet.class)));
+
+        marketId = UUID.randomUUID();
+        market = Market.builder()
+                .marketId(marketId)
+                .title("Will it rain?")
+                .status(MarketStatus.OPEN.name())
+                .marketClose(Instant.now().minusSeconds(1).truncatedTo(ChronoUnit.MILLIS))
+                .version(1L)
+                .build();
+        marketRepository = mock(MarketRepository.class);
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(market));
+        when(marketRepository.save(any(Market.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        orderService = mock(OrderService.class);
+        when(orderService.haltMarket(marketId)).thenReturn(Flux.just(new OrderResponse(), new OrderResponse()));
+
+        listingTables = mock(MarketListingTables.class);
+        when(listingTables.record(any(), any())).thenReturn(Mono.empty());
+
+        ReactiveRedisTemplate<String, Object> redisTemplate = mock(ReactiveRedisTemplate.class);
+        leases = mock(ReactiveValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(leases);
+
+        scheduler = new MarketCloseScheduler(new CqlStatements(session), marketRepository, orderService, listingTables,
+                redisTemplate, new EngineProperties());
+    }
+
+    @Test
+    void close_LeaseAcquired_ShouldCloseMarketAndHaltBooks() {
+        when(leases.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(scheduler.close(marketId))
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(market.getStatus()).isEqualTo(MarketStatus.CLOSED.name());
+        verify(leases).setIfAbsent(eq(MarketCloseScheduler.LEASE_PREFIX + marketId + ":"
+                + market.getMarketClose().toEpochMilli()), any(), any(Duration.class));
+        verify(marketRepository).save(market);
+        verify(builders.get(MarketCloseScheduler.SAVE_CLOSE)).setString(4, MarketStatus.CLOSED.name());
+        verify(listingTables).record(market, MarketStatus.OPEN.name());
+        verify(orderService).haltMarket(marketId);
+    }
+
+    @Test
+    void close_LeaseHeldByAnotherNode_ShouldOnlyHaltBooks() {
+        when(leases.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(false));
+
+        StepVerifier.create(scheduler.close(marketId))
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(market.getStatus()).isEqualTo(MarketStatus.OPEN.name());
+        verify(marketRepository, never()).save(any());
+        verify(orderService).haltMarket(marketId);
+    }
+
+    @Test
+    void close_CloseMovedLater_ShouldLeaveMarketTrading() {
+        market.setMarketClose(Instant.now().plus(1, ChronoUnit.HOURS));
+
+        StepVerifier.create(scheduler.close(marketId))
+                .verifyComplete();
+
+        verify(leases, never()).setIfAbsent(anyString(), any(), any(Duration.class));
+        verify(orderService, never()).haltMarket(any());
+    }
+
+    private PreparedStatement prepare(String query) {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        BoundStatementBuilder builder = mock(BoundStatementBuilder.class, RETURNS_SELF);
+        when(prepared.boundStatementBuilder()).thenReturn(builder);
+        when(builder.build()).thenReturn(mock(BoundStatement.class));
+        builders.put(query, builder);
+        return prepared;
+    }
+}
@@ -0,0 +1,172 @@
+package com.oregonmarkets.domain.market.listing;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MarketListingTablesTest {
+
+    private final Map<String, BoundStatementBuilder> builders = new HashMap<>();
+
+    private CqlSession session;
+    private MarketRepository marketRepository;
+    private MarketListingTables tables;
+    private UUID categoryId;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(CqlSession.class);
+        when(session.prepare(anyString())).thenAnswer(invocation -> prepare(invocation.getArgument(0)));
+        marketRepository = mock(MarketRepository.class);
+        categoryId = UUID.randomUUID();
+        tables = new MarketListingTables(new CqlStatements(session), marketRepository, null, new EngineProperties());
+    }
+
+    @Test
+    void record_StatusChanged_ShouldMoveRowsInOneBatch() {
+        when(session.executeAsync(any(Statement.class))).thenReturn(CompletableFuture.completedFuture(page(List.of(), null)));
+        Market market = Market.builder()
+                .marketId(UUID.randomUUID())
+                .title("Will it rain?")
+                .categoryId(categoryId)
+                .status(MarketStatus.CLOSED.name())
+                .createdAt(Instant.now())
+                .build();
+
+        StepVerifier.create(tables.record(market, MarketStatus.OPEN.name()))
+                .verifyComplete();
+
+        ArgumentCaptor<Statement> executed = ArgumentCaptor.forClass(Statement.class);
+        verify(session).executeAsync(executed.capture());
+        assertThat(executed.getValue()).isInstanceOf(BatchStatement.class);
+        assertThat(((BatchStatement) executed.getValue()).size()).isEqualTo(4);
+        verify(builders.get(MarketListingTables.DELETE_BY_STATUS)).setString(0, MarketStatus.OPEN.name());
+        verify(builders.get(MarketListingTables.DELETE_BY_CATEGORY)).setString(1, MarketStatus.OPEN.name());
+        verify(builders.get(MarketListingTables.SAVE_BY_STATUS)).setString(0, MarketStatus.CLOSED.name());
+        verify(builders.get(MarketListingTables.SAVE_BY_CATEGORY)).setString(1, MarketStatus.CLOSED.name());
+    }
+
+    @Test
+    void pageByCategory_ShouldContinueIntoNextStatusPartition() {
+        UUID open = UUID.randomUUID();
+        UUID suspended = UUID.randomUUID();
+        when(session.executeAsync(any(Statement.class))).thenReturn(
+                CompletableFuture.completedFuture(page(List.of(row(open)), null)),
+                CompletableFuture.completedFuture(page(List.of(row(suspended)), ByteBuffer.wrap(new byte[]{9}))));
+
+        StepVerifier.create(tables.pageByCategory(categoryId, 2, null))
+                .assertNext(page -> {
+                    assertThat(page.listings()).containsExactly(
+                            new MarketListingTables.Listing(open, MarketStatus.OPEN.name()),
+                            new MarketListingTables.Listing(suspended, MarketStatus.SUSPENDED.name()));
+                    assertThat(page.next()).isEqualTo(ByteBuffer.wrap(new byte[]{1, 9}));
+                })
+                .verifyComplete();
+
+        BoundStatementBuilder select = builders.get(MarketListingTables.SELECT_BY_CATEGORY);
+        verify(select).setPageSize(2);
+        verify(select).setPageSize(1);
+        verify(select).setString(1, MarketStatus.SUSPENDED.name());
+    }
+
+    @Test
+    void pageByStatus_PositionOutsidePartitions_ShouldThrowInvalidInput() {
+        StepVerifier.create(tables.pageByStatus(MarketStatus.OPEN.name(), 10, ByteBuffer.wrap(new byte[]{3})))
+                .expectErrorMatches(throwable -> throwable instanceof BusinessException
+                        && ((BusinessException) throwable).getResponseCode() == ResponseCode.INVALID_INPUT)
+                .verify();
+
+        verifyNoInteractions(session);
+    }
+
+    @Test
+    void repair_ShouldRemoveRowsOfMarketsThatChangedStatus() {
+        UUID moved = UUID.randomUUID();
+        UUID current = UUID.randomUUID();
+        when(marketRepository.findAllBy(any(Pageable.class))).thenReturn(Mono.just(
+                new SliceImpl<>(List.of(), CassandraPageRequest.first(MarketListingTables.REPAIR_PAGE_SIZE), false)));
+        when(marketRepository.findById(moved)).thenReturn(Mono.just(
+                Market.builder().marketId(moved).status(MarketStatus.CLOSED.name()).build()));
+        when(marketRepository.findById(current)).thenReturn(Mono.just(
+                Market.builder().marketId(current).status(MarketStatus.OPEN.name()).build()));
+
+        Queue<AsyncResultSet> selects = new ArrayDeque<>();
+        selects.add(page(List.of(row(moved), row(current)), null));
+        for (int i = 1; i < MarketListingTables.STATUSES.size(); i++) {
+            selects.add(page(List.of(), null));
+        }
+        when(session.executeAsync(any(Statement.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                invocation.getArgument(0) instanceof BatchStatement ? page(List.of(), null) : selects.poll()));
+
+        StepVerifier.create(tables.repair())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(builders.get(MarketListingTables.DELETE_BY_STATUS)).setUuid(2, moved);
+        verify(builders.get(MarketListingTables.DELETE_BY_CATEGORY)).setUuid(3, moved);
+        verify(builders.get(MarketListingTables.DELETE_BY_STATUS), never()).setUuid(2, current);
+    }
+
+    private Row row(UUID marketId) {
+        Row row = mock(Row.class);
+        when(row.getUuid("market_id")).thenReturn(marketId);
+        when(row.getUuid("category_id")).thenReturn(categoryId);
+        when(row.getInstant("created_at")).thenReturn(Instant.now());
+        return row;
+    }
+
+    private static AsyncResultSet page(List<Row> rows, ByteBuffer pagingState) {
+        AsyncResultSet page = mock(AsyncResultSet.class);
+        when(page.currentPage()).thenReturn(rows);
+        when(page.hasMorePages()).thenReturn(pagingState != null);
+        ExecutionInfo info = mock(ExecutionInfo.class);
+        when(info.getPagingState()).thenReturn(pagingState);
+        when(page.getExecutionInfo()).thenReturn(info);
+        return page;
+    }
+
+    private PreparedStatement prepare(String query) {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        BoundStatementBuilder builder = mock(BoundStatementBuilder.class, RETURNS_SELF);
+        when(prepared.boundStatementBuilder()).thenReturn(builder);
+        when(builder.build()).thenReturn(mock(BoundStatement.class));
+        builders.put(query, builder);
+        return prepared;
+    }
+}
@@ -0,0 +1,121 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.cassandra.core.query.CassandraPageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MarketChangeFeedTest {
+
+    private MarketRepository marketRepository;
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+    private MarketSearchIndex index;
+    private MarketSuggester suggester;
+    private MarketChangeFeed feed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        marketRepository = mock(MarketRepository.class);
+        redisTemplate = mock(ReactiveRedisTemplate.class);
+        index = new MarketSearchIndex();
+        suggester = mock(MarketSuggester.class);
+        feed = new MarketChangeFeed(marketRepository, redisTemplate, index, suggester);
+    }
+
+    @Test
+    void scan_ShouldPassEveryPageToIndexAndSuggesterAndMakeThemReady() {
+        Market first = market("Fed cuts rates in March", 1L);
+        Market second = market("Fed holds rates in June", 1L);
+        CassandraPageRequest firstPage = CassandraPageRequest.first(MarketChangeFeed.SCAN_PAGE_SIZE);
+        CassandraPageRequest nextPage = CassandraPageRequest.of(firstPage, ByteBuffer.wrap(new byte[]{1}));
+        when(marketRepository.findAllBy(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            return ((CassandraPageRequest) pageable).getPagingState() == null
+                    ? Mono.just(new SliceImpl<>(List.of(first), nextPage, true))
+                    : Mono.just(new SliceImpl<>(List.of(second), pageable, false));
+        });
+        when(suggester.reloadCategories()).thenReturn(Mono.empty());
+
+        assertThat(index.isReady()).isFalse();
+        feed.scan();
+
+        assertThat(index.isReady()).isTrue();
+        verify(suggester).update(first);
+        verify(suggester).update(second);
+        verify(suggester).markReady();
+        assertThat(index.search("fed", 10)).containsExactlyInAnyOrder(first.getMarketId(), second.getMarketId());
+        assertThat(index.search("june", 10)).containsExactly(second.getMarketId());
+    }
+
+    @Test
+    void marketChanged_ShouldIndexRightAwayAndAnnounceToOtherNodes() {
+        when(redisTemplate.convertAndSend(eq(MarketChangeFeed.CHANNEL), any())).thenReturn(Mono.just(1L));
+        Market market = market("ECB raises rates", 1L);
+
+        feed.marketChanged(market);
+
+        assertThat(index.search("ecb", 10)).containsExactly(market.getMarketId());
+        verify(suggester).update(market);
+        ArgumentCaptor<Object> announcement = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(MarketChangeFeed.CHANNEL), announcement.capture());
+        assertThat((String) announcement.getValue()).endsWith(" " + market.getMarketId());
+
+        // This node's own announcement comes back over the channel and is not read again
+        StepVerifier.create(feed.receive((String) announcement.getValue())).verifyComplete();
+        verify(marketRepository, never()).findById(market.getMarketId());
+    }
+
+    @Test
+    void receive_OtherNodesEdit_ShouldReadOnlyThatMarket() {
+        Market indexed = market("Fed cuts rates in March", 1L);
+        index.index(indexed);
+        Market edited = market("Fed cuts rates in April", 2L);
+        edited.setMarketId(indexed.getMarketId());
+        when(marketRepository.findById(indexed.getMarketId())).thenReturn(Mono.just(edited));
+
+        StepVerifier.create(feed.receive("other-node " + indexed.getMarketId())).verifyComplete();
+
+        assertThat(index.search("april", 10)).containsExactly(indexed.getMarketId());
+        assertThat(index.search("march", 10)).isEmpty();
+        verify(suggester).update(edited);
+        verify(marketRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    void receive_OtherNodesCategoryChange_ShouldRereadCategories() {
+        when(suggester.reloadCategories()).thenReturn(Mono.empty());
+
+        StepVerifier.create(feed.receive("other-node " + MarketChangeFeed.CATEGORIES)).verifyComplete();
+
+        verify(suggester).reloadCategories();
+        verify(marketRepository, never()).findById(any(UUID.class));
+    }
+
+    private static Market market(String title, long version) {
+        Market market = new Market();
+        market.setMarketId(UUID.randomUUID());
+        market.setTitle(title);
+        market.setVersion(version);
+        return market;
+    }
+}
@@ -0,0 +1,68 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.domain.market.model.Market;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarketSearchIndexTest {
+
+    private MarketSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MarketSearchIndex();
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesAboveDescriptionMatches() {
+        Market inDescription = market("Who wins the league?", "Decided on the final election day", 1L);
+        Market inTitle = market("Election winner 2028", "Presidential race", 1L);
+        index.index(inDescription);
+        index.index(inTitle);
+        index.index(market("Will it rain in Paris?", null, 1L));
+
+        assertThat(index.search("ELECTION", 10))
+                .containsExactly(inTitle.getMarketId(), inDescription.getMarketId());
+    }
+
+    @Test
+    void search_ShouldMatchLastTermAsPrefixAndFoldAccents() {
+        Market market = market("Café prices in Zürich", null, 1L);
+        market.setTags(List.of("economy"));
+        index.index(market);
+
+        assertThat(index.search("zur", 10)).containsExactly(market.getMarketId());
+        assertThat(index.search("cafe econ", 10)).containsExactly(market.getMarketId());
+        assertThat(index.search("zur prices", 10)).containsExactly(market.getMarketId());
+        assertThat(index.search("econ zurich", 10)).containsExactly(market.getMarketId());
+        assertThat(index.search("geneva", 10)).isEmpty();
+    }
+
+    @Test
+    void index_ShouldReplaceTermsAndIgnoreOlderVersions() {
+        Market original = market("Bitcoin above 100k", null, 1L);
+        index.index(original);
+
+        Market renamed = market("Ethereum above 10k", null, 2L);
+        renamed.setMarketId(original.getMarketId());
+        index.index(renamed);
+        index.index(original);
+
+        assertThat(index.search("bitcoin", 10)).isEmpty();
+        assertThat(index.search("ethereum", 10)).containsExactly(original.getMarketId());
+    }
+
+    private static Market market(String title, String description, long version) {
+        Market market = new Market();
+        market.setMarketId(UUID.randomUUID());
+        market.setTitle(title);
+        market.setDescription(description);
+        market.setVersion(version);
+        return market;
+    }
+}
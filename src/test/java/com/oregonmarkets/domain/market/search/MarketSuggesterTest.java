@@ -0,0 +1,109 @@
+package com.oregonmarkets.domain.market.search;
+
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.model.Category;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.model.Subcategory;
+import com.oregonmarkets.domain.market.repository.CategoryRepository;
+import com.oregonmarkets.domain.market.repository.SubcategoryRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MarketSuggesterTest {
+
+    @Test
+    void build_ShouldWeighMarketsByVolumeAndPriorityAndCategoriesByTheirMarkets() {
+        UUID politicsId = UUID.randomUUID();
+        UUID pollingId = UUID.randomUUID();
+
+        Category politics = new Category();
+        politics.setCategoryId(politicsId);
+        politics.setName("Politics");
+        politics.setSlug("politics");
+        Subcategory polling = new Subcategory();
+        polling.setCategoryId(politicsId);
+        polling.setSubcategoryId(pollingId);
+        polling.setName("Polling");
+        polling.setSlug("polling");
+
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(Flux.just(politics));
+        SubcategoryRepository subcategoryRepository = mock(SubcategoryRepository.class);
+        when(subcategoryRepository.findAll()).thenReturn(Flux.just(polling));
+
+        MarketSuggester suggester = new MarketSuggester(categoryRepository, subcategoryRepository,
+                new EngineProperties());
+        suggester.update(market("Polymarket volume record?", politicsId, null, "5000", 0, MarketStatus.OPEN));
+        suggester.update(market("Polls close early?", politicsId, pollingId, "10", 10, MarketStatus.OPEN));
+        suggester.update(market("Pole vault record?", null, null, "1000000", 0, MarketStatus.CANCELLED));
+        StepVerifier.create(suggester.reloadCategories()).verifyComplete();
+
+        assertThat(suggester.build().complete("pol", 10))
+                .extracting(SuggestionTrie.Entry::text)
+                .containsExactly("Polls close early?", "Politics", "Polymarket volume record?", "Polling");
+    }
+
+    @Test
+    void update_ShouldSuggestNewMarketsAndDropResolvedOnesWithoutRescanning() {
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        SubcategoryRepository subcategoryRepository = mock(SubcategoryRepository.class);
+        EngineProperties properties = new EngineProperties();
+        properties.getSuggest().setRebuildDelayMillis(0);
+        MarketSuggester suggester = new MarketSuggester(categoryRepository, subcategoryRepository, properties);
+        suggester.start();
+        try {
+            suggester.markReady();
+            Market market = market("ECB raises rates", null, null, "100", 0, MarketStatus.OPEN);
+
+            suggester.update(market);
+            StepVerifier.create(suggestions(suggester, "ecb", 1))
+                    .assertNext(text -> assertThat(text).isEqualTo("ECB raises rates"))
+                    .verifyComplete();
+
+            market.setStatus(MarketStatus.RESOLVED.name());
+            suggester.update(market);
+            StepVerifier.create(suggestions(suggester, "ecb", 0))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        } finally {
+            suggester.stop();
+        }
+    }
+
+    /**
+     * Poll until the suggestions for {@code prefix} reach {@code count}, emitting the first one's text
+     * or an empty string
+     */
+    private static Mono<String> suggestions(MarketSuggester suggester, String prefix, int count) {
+        return Flux.interval(Duration.ofMillis(10))
+                .map(tick -> suggester.suggest(prefix, 10))
+                .filter(entries -> entries.size() == count)
+                .next()
+                .map(entries -> entries.isEmpty() ? "" : entries.get(0).text())
+                .timeout(Duration.ofSeconds(5));
+    }
+
+    private static Market market(String title, UUID categoryId, UUID subcategoryId, String volume24h, int priority,
+                                 MarketStatus status) {
+        Market market = new Market();
+        market.setMarketId(UUID.randomUUID());
+        market.setTitle(title);
+        market.setCategoryId(categoryId);
+        market.setSubcategoryId(subcategoryId);
+        market.setVolume24h(new BigDecimal(volume24h));
+        market.setDisplayPriority(priority);
+        market.setStatus(status.name());
+        return market;
+    }
+}
@@ -0,0 +1,54 @@
+package com.oregonmarkets.domain.market.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    @Test
+    void complete_ShouldReturnHeaviestCompletionsOfPrefix() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(2)
+                .add("Will it rain in Paris?", MarketSuggester.MARKET, UUID.randomUUID(), "rain", 5)
+                .add("Will it snow?", MarketSuggester.MARKET, UUID.randomUUID(), "snow", 9)
+                .add("Will Biden run?", MarketSuggester.MARKET, UUID.randomUUID(), "biden", 1)
+                .add("Politics", MarketSuggester.CATEGORY, UUID.randomUUID(), "politics", 3)
+                .build();
+
+        assertThat(texts(trie.complete("wi", 10))).containsExactly("Will it snow?", "Will it rain in Paris?");
+        assertThat(texts(trie.complete("will b", 10))).containsExactly("Will Biden run?");
+        assertThat(texts(trie.complete("will it", 1))).containsExactly("Will it snow?");
+    }
+
+    @Test
+    void complete_ShouldFoldCaseAccentsAndPunctuation() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(5)
+                .add("Zürich: CPI above 2%?", MarketSuggester.MARKET, UUID.randomUUID(), "cpi", 1)
+                .build();
+
+        assertThat(texts(trie.complete("ZURICH  cpi", 5))).containsExactly("Zürich: CPI above 2%?");
+        assertThat(trie.complete("zurich cpx", 5)).isEmpty();
+        assertThat(SuggestionTrie.EMPTY.complete("z", 5)).isEmpty();
+    }
+
+    @Test
+    void complete_KeysSharingEdges_ShouldSplitAndKeepEveryEntry() {
+        SuggestionTrie trie = new SuggestionTrie.Builder(5)
+                .add("Polling", MarketSuggester.SUBCATEGORY, UUID.randomUUID(), "polling", 4)
+                .add("Politics", MarketSuggester.CATEGORY, UUID.randomUUID(), "politics", 3)
+                .add("Pol", MarketSuggester.MARKET, UUID.randomUUID(), "pol", 1)
+                .add("Pol", MarketSuggester.MARKET, UUID.randomUUID(), "pol-2", 2)
+                .build();
+
+        assertThat(trie.size()).isEqualTo(4);
+        assertThat(texts(trie.complete("pol", 5))).containsExactly("Polling", "Politics", "Pol", "Pol");
+        assertThat(texts(trie.complete("poli", 5))).containsExactly("Politics");
+    }
+
+    private static List<String> texts(List<SuggestionTrie.Entry> entries) {
+        return entries.stream().map(SuggestionTrie.Entry::text).toList();
+    }
+}
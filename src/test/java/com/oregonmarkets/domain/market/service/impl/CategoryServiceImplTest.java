@@ -12,6 +12,7 @@ import com.oregonmarkets.domain.market.model.Category;
 import com.oregonmarkets.domain.market.model.Subcategory;
 import com.oregonmarkets.domain.market.repository.CategoryRepository;
 import com.oregonmarkets.domain.market.repository.SubcategoryRepository;
+import com.oregonmarkets.domain.market.search.MarketChangeFeed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -44,6 +45,9 @@ class CategoryServiceImplTest {
     @Mock
     private SubcategoryMapper subcategoryMapper;
 
+    @Mock
+    private MarketChangeFeed marketChangeFeed;
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -228,6 +232,7 @@ class CategoryServiceImplTest {
         verify(categoryRepository).findBySlug(request.getSlug());
         verify(categoryMapper).toEntity(request);
         verify(categoryRepository).save(testCategory);
+        verify(marketChangeFeed).categoriesChanged();
     }
 
     @Test
@@ -294,6 +299,7 @@ class CategoryServiceImplTest {
 
         verify(categoryRepository).findById(categoryId);
         verify(categoryRepository, never()).save(any());
+        verifyNoInteractions(marketChangeFeed);
     }
 
     @Test
@@ -351,6 +357,7 @@ class CategoryServiceImplTest {
 
         verify(categoryRepository).findById(categoryId);
         verify(categoryRepository).save(argThat(category -> !category.getEnabled()));
+        verify(marketChangeFeed).categoriesChanged();
     }
 
     @Test
@@ -8,10 +8,18 @@ import com.oregonmarkets.domain.market.dto.request.ResolveMarketRequest;
 import com.oregonmarkets.domain.market.dto.request.UpdateMarketRequest;
 import com.oregonmarkets.domain.market.dto.response.MarketResponse;
 import com.oregonmarkets.domain.market.dto.response.OutcomeResponse;
+import com.oregonmarkets.domain.market.dto.response.SuggestionResponse;
+import com.oregonmarkets.domain.market.lifecycle.MarketCloseScheduler;
+import com.oregonmarkets.domain.market.listing.MarketListingTables;
 import com.oregonmarkets.domain.market.model.*;
 import com.oregonmarkets.domain.market.repository.CategoryRepository;
 import com.oregonmarkets.domain.market.repository.MarketRepository;
 import com.oregonmarkets.domain.market.repository.OutcomeRepository;
+import com.oregonmarkets.domain.market.search.MarketChangeFeed;
+import com.oregonmarkets.domain.market.search.MarketSearchIndex;
+import com.oregonmarkets.domain.market.search.MarketSuggester;
+import com.oregonmarkets.domain.market.search.SuggestionTrie;
+import com.oregonmarkets.domain.market.settlement.SettlementPipeline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +30,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
@@ -48,6 +57,24 @@ class MarketServiceImplTest {
     @Mock
     private MarketMapper marketMapper;
 
+    @Mock
+    private SettlementPipeline settlementPipeline;
+
+    @Mock
+    private MarketCloseScheduler marketCloseScheduler;
+
+    @Mock
+    private MarketSearchIndex marketSearchIndex;
+
+    @Mock
+    private MarketChangeFeed marketChangeFeed;
+
+    @Mock
+    private MarketSuggester marketSuggester;
+
+    @Mock
+    private MarketListingTables marketListingTables;
+
     @InjectMocks
     private MarketServiceImpl marketService;
 
@@ -112,6 +139,8 @@ class MarketServiceImplTest {
         testOutcomeResponse2 = new OutcomeResponse();
         testOutcomeResponse2.setOutcomeId(outcomeId2);
         testOutcomeResponse2.setName("No");
+
+        lenient().when(marketListingTables.record(any(), any())).thenReturn(Mono.empty());
     }
 
     // ==================== Create Market Tests ====================
@@ -296,10 +325,34 @@ class MarketServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAllMarkets_RepeatedMarket_ShouldLoadOutcomesOnceAndKeepOrder() {
+        // Given
+        UUID otherMarketId = UUID.randomUUID();
+        Market otherMarket = new Market();
+        otherMarket.setMarketId(otherMarketId);
+        MarketResponse otherResponse = new MarketResponse();
+        otherResponse.setMarketId(otherMarketId);
+        when(marketRepository.findAll()).thenReturn(Flux.just(testMarket, otherMarket, testMarket));
+        when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(testOutcome1, testOutcome2));
+        when(outcomeRepository.findByMarketId(otherMarketId)).thenReturn(Flux.empty());
+        when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
+        when(marketMapper.toResponse(otherMarket)).thenReturn(otherResponse);
+
+        // When & Then
+        StepVerifier.create(marketService.getAllMarkets().map(MarketResponse::getMarketId))
+                .expectNext(marketId, otherMarketId, marketId)
+                .verifyComplete();
+
+        verify(outcomeRepository, times(1)).findByMarketId(marketId);
+    }
+
     @Test
     void getMarketsByCategory_ShouldReturnFilteredMarkets() {
         // Given
-        when(marketRepository.findByCategoryId(categoryId)).thenReturn(Flux.just(testMarket));
+        when(marketListingTables.findByCategory(categoryId))
+                .thenReturn(Flux.just(new MarketListingTables.Listing(marketId, "OPEN")));
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
         when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(testOutcome1, testOutcome2));
         when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
         when(marketMapper.toOutcomeResponse(any())).thenReturn(testOutcomeResponse1, testOutcomeResponse2);
@@ -310,11 +363,93 @@ class MarketServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getMarketsByStatusPage_MorePages_ShouldReturnCursorOfNextPage() {
+        // Given
+        String status = "OPEN";
+        when(marketListingTables.pageByStatus(status, 1, null))
+                .thenReturn(Mono.just(new MarketListingTables.Page(
+                        List.of(new MarketListingTables.Listing(marketId, status)),
+                        ByteBuffer.wrap(new byte[]{1, 2, 3}))));
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+        when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(testOutcome1, testOutcome2));
+        when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
+        when(marketMapper.toOutcomeResponse(any())).thenReturn(testOutcomeResponse1, testOutcomeResponse2);
+
+        // When & Then
+        StepVerifier.create(marketService.getMarketsByStatus(status, 1, null))
+                .assertNext(page -> {
+                    assertThat(page.getMarkets()).extracting(MarketResponse::getMarketId).containsExactly(marketId);
+                    assertThat(page.getHasMore()).isTrue();
+                    assertThat(page.getNextCursor()).isEqualTo("AQID");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getMarketsByStatusPage_WithCursor_ShouldResumeFromPosition() {
+        // Given
+        when(marketListingTables.pageByStatus("OPEN", 10, ByteBuffer.wrap(new byte[]{1, 2, 3})))
+                .thenReturn(Mono.just(new MarketListingTables.Page(List.of(), null)));
+
+        // When & Then
+        StepVerifier.create(marketService.getMarketsByStatus("OPEN", 10, "AQID"))
+                .assertNext(page -> {
+                    assertThat(page.getMarkets()).isEmpty();
+                    assertThat(page.getHasMore()).isFalse();
+                    assertThat(page.getNextCursor()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getMarketsByCategoryPage_StaleListing_ShouldSkipMarketWithChangedStatus() {
+        // Given
+        UUID closedId = UUID.randomUUID();
+        Market closed = new Market();
+        closed.setMarketId(closedId);
+        closed.setStatus(MarketStatus.CLOSED.name());
+        when(marketListingTables.pageByCategory(categoryId, 2, null))
+                .thenReturn(Mono.just(new MarketListingTables.Page(List.of(
+                        new MarketListingTables.Listing(closedId, "OPEN"),
+                        new MarketListingTables.Listing(marketId, "OPEN")), null)));
+        when(marketRepository.findById(closedId)).thenReturn(Mono.just(closed));
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+        when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.empty());
+        when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
+
+        // When & Then
+        StepVerifier.create(marketService.getMarketsByCategory(categoryId, 2, null))
+                .assertNext(page -> {
+                    assertThat(page.getMarkets()).extracting(MarketResponse::getMarketId).containsExactly(marketId);
+                    assertThat(page.getHasMore()).isFalse();
+                })
+                .verifyComplete();
+
+        verify(outcomeRepository, never()).findByMarketId(closedId);
+    }
+
+    @Test
+    void getAllMarketsPage_InvalidCursorOrLimit_ShouldThrowInvalidInput() {
+        StepVerifier.create(marketService.getAllMarkets(10, "not a cursor!"))
+                .expectErrorMatches(throwable -> throwable instanceof BusinessException
+                        && ((BusinessException) throwable).getResponseCode() == ResponseCode.INVALID_INPUT)
+                .verify();
+        StepVerifier.create(marketService.getAllMarkets(MarketServiceImpl.MAX_PAGE_SIZE + 1, null))
+                .expectErrorMatches(throwable -> throwable instanceof BusinessException
+                        && ((BusinessException) throwable).getResponseCode() == ResponseCode.INVALID_INPUT)
+                .verify();
+
+        verifyNoInteractions(marketRepository);
+    }
+
     @Test
     void getMarketsByStatus_ShouldReturnFilteredMarkets() {
         // Given
         String status = "OPEN";
-        when(marketRepository.findByStatus(status)).thenReturn(Flux.just(testMarket));
+        when(marketListingTables.findByStatus(status))
+                .thenReturn(Flux.just(new MarketListingTables.Listing(marketId, status)));
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
         when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(testOutcome1, testOutcome2));
         when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
         when(marketMapper.toOutcomeResponse(any())).thenReturn(testOutcomeResponse1, testOutcomeResponse2);
@@ -377,6 +512,7 @@ class MarketServiceImplTest {
                 .verifyComplete();
 
         verify(marketRepository).save(testMarket);
+        verify(marketChangeFeed).marketChanged(testMarket);
     }
 
     @Test
@@ -453,6 +589,9 @@ class MarketServiceImplTest {
 
         verify(marketRepository).save(testMarket);
         verify(outcomeRepository).save(testOutcome1);
+        verify(settlementPipeline).settle(marketId, outcomeId1);
+        verify(marketListingTables).record(testMarket, MarketStatus.CLOSED.name());
+        verify(marketChangeFeed).marketChanged(testMarket);
     }
 
     @Test
@@ -526,6 +665,9 @@ class MarketServiceImplTest {
                 .verifyComplete();
 
         assertThat(testMarket.getStatus()).isEqualTo(MarketStatus.CLOSED.name());
+        verify(marketCloseScheduler).track(testMarket, testMarket.getMarketClose());
+        verify(marketCloseScheduler).halt(marketId);
+        verify(marketListingTables).record(testMarket, MarketStatus.OPEN.name());
     }
 
     @Test
@@ -640,6 +782,52 @@ class MarketServiceImplTest {
                 .verifyComplete();
     }
 
+    @Test
+    void searchMarkets_IndexReady_ShouldReadOnlyRankedMatches() {
+        // Given
+        when(marketSearchIndex.isReady()).thenReturn(true);
+        when(marketSearchIndex.search("test", MarketServiceImpl.SEARCH_RESULT_LIMIT)).thenReturn(List.of(marketId));
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+        when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(testOutcome1));
+        when(marketMapper.toResponse(testMarket)).thenReturn(testMarketResponse);
+        when(marketMapper.toOutcomeResponse(testOutcome1)).thenReturn(testOutcomeResponse1);
+
+        // When & Then
+        StepVerifier.create(marketService.searchMarkets("test"))
+                .assertNext(response -> assertThat(response.getMarketId()).isEqualTo(marketId))
+                .verifyComplete();
+
+        verify(marketRepository, never()).findAll();
+    }
+
+    @Test
+    void suggest_ShouldMapCompletionsInRankOrder() {
+        // Given
+        SuggestionTrie.Entry market = new SuggestionTrie.Entry("Test Market", MarketSuggester.MARKET, marketId, "test-market", 2);
+        SuggestionTrie.Entry category = new SuggestionTrie.Entry("Testing", MarketSuggester.CATEGORY, categoryId, "testing", 1);
+        when(marketSuggester.suggest("te", 5)).thenReturn(List.of(market, category));
+        when(marketMapper.toSuggestionResponse(any())).thenAnswer(invocation -> {
+            SuggestionTrie.Entry entry = invocation.getArgument(0);
+            return SuggestionResponse.builder().text(entry.text()).type(entry.type()).id(entry.id()).build();
+        });
+
+        // When & Then
+        StepVerifier.create(marketService.suggest("te", 5))
+                .assertNext(response -> assertThat(response.getId()).isEqualTo(marketId))
+                .assertNext(response -> assertThat(response.getType()).isEqualTo(MarketSuggester.CATEGORY))
+                .verifyComplete();
+    }
+
+    @Test
+    void suggest_InvalidLimit_ShouldThrowException() {
+        StepVerifier.create(marketService.suggest("te", 0))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.INVALID_INPUT)
+                .verify();
+
+        verifyNoInteractions(marketSuggester);
+    }
+
     @Test
     void searchMarkets_NoMatch_ShouldReturnEmpty() {
         // Given
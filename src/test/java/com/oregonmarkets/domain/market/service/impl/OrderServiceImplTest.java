@@ -0,0 +1,421 @@
+package com.oregonmarkets.domain.market.service.impl;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.market.dto.mapper.OrderMapper;
+import com.oregonmarkets.domain.market.dto.request.BatchOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.ModifyOrderRequest;
+import com.oregonmarkets.domain.market.dto.request.PlaceOrderRequest;
+import com.oregonmarkets.domain.market.dto.response.BatchOrderResponse;
+import com.oregonmarkets.domain.market.dto.response.OrderResponse;
+import com.oregonmarkets.domain.market.engine.OrderSequencer;
+import com.oregonmarkets.domain.market.engine.risk.RiskLedger;
+import com.oregonmarkets.domain.market.model.Market;
+import com.oregonmarkets.domain.market.model.OpenOrder;
+import com.oregonmarkets.domain.market.model.MarketStatus;
+import com.oregonmarkets.domain.market.model.OrderStatus;
+import com.oregonmarkets.domain.market.model.Outcome;
+import com.oregonmarkets.domain.market.repository.MarketRepository;
+import com.oregonmarkets.domain.market.repository.OpenOrderRepository;
+import com.oregonmarkets.domain.market.repository.OutcomeRepository;
+import com.oregonmarkets.domain.market.service.ClientOrderRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    @Mock
+    private MarketRepository marketRepository;
+
+    @Mock
+    private OutcomeRepository outcomeRepository;
+
+    @Mock
+    private OpenOrderRepository openOrderRepository;
+
+    private RiskLedger riskLedger;
+    private OrderSequencer sequencer;
+    private OrderServiceImpl orderService;
+
+    private UUID marketId;
+    private UUID outcomeId;
+    private UUID userId;
+    private Market testMarket;
+
+    @BeforeEach
+    void setUp() {
+        EngineProperties properties = new EngineProperties();
+        properties.setShards(1);
+        properties.setRingBufferSize(1024);
+        properties.getRisk().setEnabled(false);
+        riskLedger = new RiskLedger(null, null, null, properties);
+        sequencer = new OrderSequencer(properties, List.of(), riskLedger);
+        sequencer.start();
+        orderService = new OrderServiceImpl(sequencer, marketRepository, outcomeRepository, openOrderRepository,
+                new OrderMapper(),
+                riskLedger, new ClientOrderRegistry(null, properties));
+
+        marketId = UUID.randomUUID();
+        outcomeId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+
+        testMarket = Market.builder()
+                .marketId(marketId)
+                .title("Will it rain?")
+                .status(MarketStatus.OPEN.name())
+                .tickSizeE4(100L)
+                .makerFeeE4(10L)
+                .takerFeeE4(20L)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequencer.stop();
+    }
+
+    @Test
+    void placeOrder_OpenMarket_ShouldRestAndDenormalizeNames() {
+        stubOpenBook();
+
+        StepVerifier.create(orderService.placeOrder(request("BUY", 5000L, "10"), userId))
+                .assertNext(response -> {
+                    assertThat(response.getStatus()).isEqualTo(OrderStatus.OPEN.name());
+                    assertThat(response.getMarketTitle()).isEqualTo("Will it rain?");
+                    assertThat(response.getOutcomeName()).isEqualTo("Yes");
+                    assertThat(response.getPrice()).isEqualTo(50.0);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void placeOrder_SecondOrder_ShouldNotReloadMarket() {
+        stubOpenBook();
+
+        orderService.placeOrder(request("BUY", 5000L, "10"), userId).block();
+        StepVerifier.create(orderService.placeOrder(request("SELL", 5000L, "10"), UUID.randomUUID()))
+                .assertNext(response -> assertThat(response.getStatus()).isEqualTo(OrderStatus.FILLED.name()))
+                .verifyComplete();
+
+        verify(marketRepository, times(1)).findById(marketId);
+    }
+
+    @Test
+    void placeOrder_RetriedClientOrderId_ShouldReturnOriginalOrder() {
+        stubOpenBook();
+        PlaceOrderRequest request = request("BUY", 5000L, "10");
+        request.setClientOrderId("retry-1");
+
+        OrderResponse original = orderService.placeOrder(request, userId).block();
+        StepVerifier.create(orderService.placeOrder(request, userId))
+                .assertNext(response -> {
+                    assertThat(response.getOrderId()).isEqualTo(original.getOrderId());
+                    assertThat(response.getClientOrderId()).isEqualTo("retry-1");
+                })
+                .verifyComplete();
+
+        StepVerifier.create(orderService.placeOrder(request("SELL", 5000L, "20"), UUID.randomUUID()))
+                .assertNext(response -> assertThat(response.getFilledQuantity()).isEqualByComparingTo("10"))
+                .verifyComplete();
+    }
+
+    @Test
+    void getOpenOrders_WithMarket_ShouldReadOnlyThatMarketsLiveRows() {
+        OpenOrder open = OpenOrder.builder()
+                .userId(userId)
+                .marketId(marketId)
+                .orderId(UUID.randomUUID())
+                .priceE4(5000L)
+                .status(OrderStatus.PARTIALLY_FILLED.name())
+                .build();
+        when(openOrderRepository.findByUserIdAndMarketId(userId, marketId)).thenReturn(Flux.just(open));
+
+        StepVerifier.create(orderService.getOpenOrders(userId, marketId))
+                .assertNext(response -> {
+                    assertThat(response.getOrderId()).isEqualTo(open.getOrderId());
+                    assertThat(response.getPrice()).isEqualTo(50.0);
+                })
+                .verifyComplete();
+
+        verify(openOrderRepository, never()).findByUserId(any());
+    }
+
+    @Test
+    void placeOrder_ClosedMarket_ShouldThrowMarketClosed() {
+        testMarket.setStatus(MarketStatus.CLOSED.name());
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+
+        StepVerifier.create(orderService.placeOrder(request("BUY", 5000L, "10"), userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.MARKET_CLOSED)
+                .verify();
+    }
+
+    @Test
+    void placeOrder_OffTickPrice_ShouldThrowInvalidPrice() {
+        stubOpenBook();
+
+        StepVerifier.create(orderService.placeOrder(request("BUY", 5050L, "10"), userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.INVALID_PRICE)
+                .verify();
+    }
+
+    @Test
+    void cancelOrder_OwnOrder_ShouldCancel() {
+        stubOpenBook();
+        UUID orderId = orderService.placeOrder(request("BUY", 5000L, "10"), userId).block().getOrderId();
+
+        StepVerifier.create(orderService.cancelOrder(marketId, orderId, userId))
+                .assertNext(response -> assertThat(response.getStatus()).isEqualTo(OrderStatus.CANCELLED.name()))
+                .verifyComplete();
+    }
+
+    @Test
+    void cancelOrder_UnknownOrder_ShouldThrowOrderNotFound() {
+        StepVerifier.create(orderService.cancelOrder(marketId, UUID.randomUUID(), userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.ORDER_NOT_FOUND)
+                .verify();
+    }
+
+    @Test
+    void cancelAllOrders_ShouldReturnEveryCancelledOrder() {
+        stubOpenBook();
+        orderService.placeOrder(request("BUY", 4000L, "10"), userId).block();
+        orderService.placeOrder(request("SELL", 6000L, "10"), userId).block();
+
+        StepVerifier.create(orderService.cancelAllOrders(marketId, userId))
+                .expectNextCount(2)
+                .verifyComplete();
+        StepVerifier.create(orderService.cancelAllOrders(marketId, userId))
+                .verifyComplete();
+    }
+
+    @Test
+    void haltMarket_ShouldCancelEveryOrderAndRecheckMarketOnNextOrder() {
+        stubOpenBook();
+        orderService.placeOrder(request("BUY", 4000L, "10"), userId).block();
+        orderService.placeOrder(request("SELL", 6000L, "10"), UUID.randomUUID()).block();
+
+        StepVerifier.create(orderService.haltMarket(marketId))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        testMarket.setStatus(MarketStatus.CLOSED.name());
+        StepVerifier.create(orderService.placeOrder(request("BUY", 4000L, "10"), userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.MARKET_CLOSED)
+                .verify();
+    }
+
+    @Test
+    void modifyOrder_NoChanges_ShouldThrowMissingField() {
+        ModifyOrderRequest request = ModifyOrderRequest.builder().marketId(marketId).build();
+
+        StepVerifier.create(orderService.modifyOrder(UUID.randomUUID(), request, userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.MISSING_REQUIRED_FIELD)
+                .verify();
+    }
+
+    @Test
+    void modifyOrder_NewPrice_ShouldReprice() {
+        stubOpenBook();
+        UUID orderId = orderService.placeOrder(request("BUY", 5000L, "10"), userId).block().getOrderId();
+        ModifyOrderRequest request = ModifyOrderRequest.builder().marketId(marketId).priceE4(5200L).build();
+
+        StepVerifier.create(orderService.modifyOrder(orderId, request, userId))
+                .assertNext(response -> assertThat(response.getPriceE4()).isEqualTo(5200L))
+                .verifyComplete();
+    }
+
+    @Test
+    void placeOrder_BinaryMarket_ShouldCrossYesAndNoInOneBook() {
+        UUID noOutcomeId = UUID.randomUUID();
+        testMarket.setMarketType("BINARY");
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+        when(outcomeRepository.findByMarketId(marketId)).thenReturn(Flux.just(
+                Outcome.builder().marketId(marketId).outcomeId(noOutcomeId).name("No").displayOrder(2).build(),
+                Outcome.builder().marketId(marketId).outcomeId(outcomeId).name("Yes").displayOrder(1).build()));
+        PlaceOrderRequest buyNo = request("BUY", 4000L, "10");
+        buyNo.setOutcomeId(noOutcomeId);
+        orderService.placeOrder(buyNo, UUID.randomUUID()).block();
+
+        StepVerifier.create(orderService.placeOrder(request("BUY", 6000L, "10"), userId))
+                .assertNext(response -> {
+                    assertThat(response.getStatus()).isEqualTo(OrderStatus.FILLED.name());
+                    assertThat(response.getOutcomeName()).isEqualTo("Yes");
+                })
+                .verifyComplete();
+        verify(marketRepository, times(1)).findById(marketId);
+    }
+
+    @Test
+    void placeOrders_ShouldReportEachOrderWithoutFailingTheBatch() {
+        stubOpenBook();
+        PlaceOrderRequest offMarket = request("SELL", 6000L, "10");
+        offMarket.setMarketId(null);
+        BatchOrderRequest batch = BatchOrderRequest.builder()
+                .marketId(marketId)
+                .orders(List.of(request("BUY", 4000L, "10"), request("BUY", 4050L, "10"), offMarket))
+                .build();
+
+        StepVerifier.create(orderService.placeOrders(batch, userId))
+                .assertNext(response -> {
+                    assertThat(response.getPlaced()).isEqualTo(2);
+                    assertThat(response.getRejected()).isEqualTo(1);
+                    assertThat(response.getResults()).extracting(BatchOrderResponse.Result::getCode)
+                            .containsExactly(ResponseCode.ORDER_PLACED.getCode(), ResponseCode.INVALID_PRICE.getCode(),
+                                    ResponseCode.ORDER_PLACED.getCode());
+                    assertThat(response.getResults().get(2).getOrder().getMarketId()).isEqualTo(marketId);
+                    assertThat(response.getResults().get(0).getOrder().getOutcomeName()).isEqualTo("Yes");
+                })
+                .verifyComplete();
+        verify(marketRepository, times(1)).findById(marketId);
+    }
+
+    @Test
+    void placeOrders_OrderForAnotherMarket_ShouldRejectWholeBatch() {
+        PlaceOrderRequest other = request("BUY", 4000L, "10");
+        other.setMarketId(UUID.randomUUID());
+        BatchOrderRequest batch = BatchOrderRequest.builder().marketId(marketId).orders(List.of(other)).build();
+
+        StepVerifier.create(orderService.placeOrders(batch, userId))
+                .expectErrorMatches(error -> error instanceof BusinessException
+                        && ((BusinessException) error).getResponseCode() == ResponseCode.INVALID_INPUT)
+                .verify();
+    }
+
+    @Test
+    void replaceQuotes_ShouldCancelExistingOrdersAndPlaceNewQuotes() {
+        stubOpenBook();
+        UUID existing = orderService.placeOrder(request("BUY", 4000L, "10"), userId).block().getOrderId();
+        BatchOrderRequest quotes = BatchOrderRequest.builder()
+                .marketId(marketId)
+                .orders(List.of(request("BUY", 4500L, "10"), request("SELL", 5500L, "10")))
+                .build();
+
+        StepVerifier.create(orderService.replaceQuotes(quotes, userId))
+                .assertNext(response -> {
+                    assertThat(response.getCancelled()).extracting(OrderResponse::getOrderId).containsExactly(existing);
+                    assertThat(response.getPlaced()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void replaceQuotes_Retried_ShouldReturnOriginalQuotesWithoutCancellingThem() {
+        stubOpenBook();
+        useRegistry(new ClientOrderRegistry(inMemoryRedis(), new EngineProperties()));
+        PlaceOrderRequest quote = request("BUY", 5000L, "10");
+        quote.setClientOrderId("quote-1");
+        BatchOrderRequest quotes = BatchOrderRequest.builder().marketId(marketId).orders(List.of(quote)).build();
+
+        BatchOrderResponse original = orderService.replaceQuotes(quotes, userId).block();
+        StepVerifier.create(orderService.replaceQuotes(quotes, userId))
+                .assertNext(response -> {
+                    assertThat(response.getCancelled()).isNull();
+                    assertThat(response.getPlaced()).isEqualTo(1);
+                    assertThat(response.getResults().get(0).getOrder().getOrderId())
+                            .isEqualTo(original.getResults().get(0).getOrder().getOrderId());
+                })
+                .verifyComplete();
+
+        // The original quote still rests, and only once
+        StepVerifier.create(orderService.placeOrder(request("SELL", 5000L, "20"), UUID.randomUUID()))
+                .assertNext(response -> assertThat(response.getFilledQuantity()).isEqualByComparingTo("10"))
+                .verifyComplete();
+    }
+
+    @Test
+    void placeOrders_RetriedAfterRejection_ShouldSubmitOnlyTheRejectedOrderAgain() {
+        stubOpenBook();
+        useRegistry(new ClientOrderRegistry(inMemoryRedis(), new EngineProperties()));
+        PlaceOrderRequest placed = request("BUY", 4000L, "10");
+        placed.setClientOrderId("batch-1");
+        PlaceOrderRequest offTick = request("BUY", 4050L, "10");
+        offTick.setClientOrderId("batch-2");
+        BatchOrderRequest batch = BatchOrderRequest.builder().marketId(marketId).orders(List.of(placed, offTick)).build();
+
+        BatchOrderResponse original = orderService.placeOrders(batch, userId).block();
+        offTick.setPriceE4(4100L);
+        StepVerifier.create(orderService.placeOrders(batch, userId))
+                .assertNext(response -> {
+                    assertThat(response.getPlaced()).isEqualTo(2);
+                    assertThat(response.getResults().get(0).getOrder().getOrderId())
+                            .isEqualTo(original.getResults().get(0).getOrder().getOrderId());
+                    assertThat(response.getResults().get(1).getOrder().getPrice()).isEqualTo(41.0);
+                })
+                .verifyComplete();
+
+        StepVerifier.create(orderService.placeOrder(request("SELL", 4000L, "30"), UUID.randomUUID()))
+                .assertNext(response -> assertThat(response.getFilledQuantity()).isEqualByComparingTo("20"))
+                .verifyComplete();
+    }
+
+    private void useRegistry(ClientOrderRegistry registry) {
+        orderService = new OrderServiceImpl(sequencer, marketRepository, outcomeRepository, openOrderRepository,
+                new OrderMapper(), riskLedger, registry);
+    }
+
+    /**
+     * Redis values kept in a map, enough for client order ID claims
+     */
+    @SuppressWarnings("unchecked")
+    private static ReactiveRedisTemplate<String, Object> inMemoryRedis() {
+        Map<String, Object> values = new ConcurrentHashMap<>();
+        ReactiveRedisTemplate<String, Object> redisTemplate = mock(ReactiveRedisTemplate.class);
+        ReactiveValueOperations<String, Object> operations = mock(ReactiveValueOperations.class);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(operations);
+        lenient().when(operations.setIfAbsent(anyString(), any(), any(Duration.class))).thenAnswer(invocation ->
+                Mono.just(values.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null));
+        lenient().when(operations.set(anyString(), any(), any(Duration.class))).thenAnswer(invocation -> {
+            values.put(invocation.getArgument(0), invocation.getArgument(1));
+            return Mono.just(true);
+        });
+        lenient().when(operations.get(anyString())).thenAnswer(invocation ->
+                Mono.justOrEmpty(values.get((String) invocation.getArgument(0))));
+        lenient().when(redisTemplate.delete(anyString())).thenAnswer(invocation ->
+                Mono.just(values.remove((String) invocation.getArgument(0)) == null ? 0L : 1L));
+        return redisTemplate;
+    }
+
+    private void stubOpenBook() {
+        Outcome outcome = Outcome.builder().marketId(marketId).outcomeId(outcomeId).name("Yes").build();
+        when(marketRepository.findById(marketId)).thenReturn(Mono.just(testMarket));
+        when(outcomeRepository.findByMarketIdAndOutcomeId(marketId, outcomeId)).thenReturn(Mono.just(outcome));
+    }
+
+    private PlaceOrderRequest request(String side, Long priceE4, String quantity) {
+        return PlaceOrderRequest.builder()
+                .marketId(marketId)
+                .outcomeId(outcomeId)
+                .side(side)
+                .orderType("LIMIT")
+                .priceE4(priceE4)
+                .quantity(new BigDecimal(quantity))
+                .build();
+    }
+}
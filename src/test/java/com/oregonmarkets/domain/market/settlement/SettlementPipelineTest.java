@@ -0,0 +1,272 @@
+package com.oregonmarkets.domain.market.settlement;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatementBuilder;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.oregonmarkets.common.cassandra.CqlStatements;
+import com.oregonmarkets.common.exception.BlnkApiException;
+import com.oregonmarkets.config.EngineProperties;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.blnk.BlnkClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SettlementPipelineTest {
+
+    private final Map<String, BoundStatementBuilder> builders = new HashMap<>();
+    private final Map<String, BoundStatement> statements = new HashMap<>();
+    private final ByteBuffer secondPage = ByteBuffer.wrap(new byte[]{1, 2, 3});
+    private final Map<String, Object> leases = new ConcurrentHashMap<>();
+
+    private CqlSession session;
+    private UserRepository userRepository;
+    private BlnkClient blnkClient;
+    private SettlementPipeline pipeline;
+    private UUID marketId;
+    private UUID winningOutcomeId;
+    private UUID losingOutcomeId;
+    private AsyncResultSet page1;
+    private AsyncResultSet page2;
+    private Row saved;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(CqlSession.class);
+        when(session.prepare(anyString())).thenAnswer(invocation -> prepare(invocation.getArgument(0)));
+        when(session.executeAsync(any(Statement.class))).thenAnswer(invocation -> {
+            Statement<?> statement = invocation.getArgument(0);
+            AsyncResultSet result = mock(AsyncResultSet.class);
+            if (statement == statements.get(SettlementPipeline.SELECT_SETTLEMENT)) {
+                when(result.one()).thenReturn(saved);
+            } else if (statement == statements.get(SettlementPipeline.SELECT_POSITIONS)) {
+                result = saved == null ? page1 : page2;
+            }
+            return CompletableFuture.completedFuture(result);
+        });
+
+        marketId = UUID.randomUUID();
+        winningOutcomeId = UUID.randomUUID();
+        losingOutcomeId = UUID.randomUUID();
+        UUID paid = UUID.randomUUID();
+        UUID unregistered = UUID.randomUUID();
+        UUID loser = UUID.randomUUID();
+        UUID alsoPaid = UUID.randomUUID();
+        UUID shortSeller = UUID.randomUUID();
+        page2 = page(null, row(alsoPaid, winningOutcomeId, "2.5"), row(shortSeller, winningOutcomeId, "-3"));
+        page1 = page(page2, row(paid, winningOutcomeId, "10"), row(unregistered, winningOutcomeId, "5"),
+                row(loser, losingOutcomeId, "7"));
+
+        userRepository = mock(UserRepository.class);
+        Map<UUID, User> users = Map.of(
+                paid, User.builder().id(paid).blnkBalanceId("balance-paid").build(),
+                unregistered, User.builder().id(unregistered).build(),
+                alsoPaid, User.builder().id(alsoPaid).blnkBalanceId("balance-also-paid").build());
+        when(userRepository.findAllById(any(Iterable.class))).thenAnswer(invocation -> {
+            Iterable<UUID> ids = invocation.getArgument(0);
+            return Flux.fromIterable(ids).filter(users::containsKey).map(users::get);
+        });
+        blnkClient = mock(BlnkClient.class);
+        when(blnkClient.recordBulkTransactions(anyList(), eq(false))).thenReturn(Mono.just("batch-1"));
+
+        pipeline = new SettlementPipeline(new CqlStatements(session), userRepository, blnkClient, redis(),
+                new EngineProperties());
+    }
+
+    @Test
+    void run_NewSettlement_ShouldPayWinnersPageByPage() {
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_COMPLETED);
+        assertThat(progress.pages()).isEqualTo(2);
+        assertThat(progress.positionsScanned()).isEqualTo(5);
+        assertThat(progress.payoutsPosted()).isEqualTo(2);
+        assertThat(progress.payoutsFailed()).isEqualTo(1);
+        assertThat(progress.totalPaid()).isEqualByComparingTo("12.5");
+        verify(blnkClient, times(2)).recordBulkTransactions(anyList(), eq(false));
+        verify(session, times(5)).executeAsync(statements.get(SettlementPipeline.MARK_POSITION));
+        // Started, then one checkpoint per page
+        verify(session, times(3)).executeAsync(statements.get(SettlementPipeline.SAVE_SETTLEMENT));
+        assertThat(leases).isEmpty();
+    }
+
+    @Test
+    void run_InterruptedSettlement_ShouldResumeFromCheckpoint() {
+        saved = checkpoint(SettlementPipeline.STATUS_RUNNING, secondPage);
+
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        verify(builders.get(SettlementPipeline.SELECT_POSITIONS)).setPagingState(secondPage);
+        verify(blnkClient, times(1)).recordBulkTransactions(anyList(), eq(false));
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_COMPLETED);
+        assertThat(progress.pages()).isEqualTo(2);
+        assertThat(progress.positionsScanned()).isEqualTo(5);
+        assertThat(progress.payoutsPosted()).isEqualTo(2);
+        assertThat(progress.totalPaid()).isEqualByComparingTo("12.5");
+    }
+
+    @Test
+    void run_ResumedPageAlreadyPartlyPosted_ShouldCountRecordedPayoutsAsPaid() {
+        saved = checkpoint(SettlementPipeline.STATUS_RUNNING, secondPage);
+        // The crashed attempt posted the page's payout before it could checkpoint
+        when(blnkClient.recordBulkTransactions(anyList(), eq(false))).thenReturn(Mono.error(new BlnkApiException(
+                "Failed to record transactions: 400 BAD_REQUEST - {\"error\":\"reference payout:" + marketId
+                        + " has already been used\"}")));
+
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_COMPLETED);
+        assertThat(progress.pages()).isEqualTo(2);
+        assertThat(progress.payoutsPosted()).isEqualTo(2);
+        assertThat(progress.totalPaid()).isEqualByComparingTo("12.5");
+        // The batch, then its one payout on its own
+        verify(blnkClient, times(2)).recordBulkTransactions(anyList(), eq(false));
+        verify(session, times(2)).executeAsync(statements.get(SettlementPipeline.MARK_POSITION));
+    }
+
+    @Test
+    void run_SettlementClaimedByAnotherNode_ShouldLeaveItAlone() {
+        leases.put(SettlementPipeline.LEASE_PREFIX + marketId, "other-node");
+
+        assertThat(pipeline.run(marketId, winningOutcomeId).block()).isNull();
+
+        verify(blnkClient, never()).recordBulkTransactions(anyList(), anyBoolean());
+        assertThat(statements).doesNotContainKey(SettlementPipeline.SELECT_SETTLEMENT);
+        assertThat(leases).containsEntry(SettlementPipeline.LEASE_PREFIX + marketId, "other-node");
+    }
+
+    @Test
+    void run_LeaseTakenOverMidPage_ShouldStopWithoutCheckpointing() {
+        when(blnkClient.recordBulkTransactions(anyList(), eq(false))).thenAnswer(invocation -> {
+            // The lease lapsed while the page was being paid and another node claimed it
+            leases.put(SettlementPipeline.LEASE_PREFIX + marketId, "other-node");
+            return Mono.just("batch-1");
+        });
+
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_RUNNING);
+        assertThat(progress.pages()).isZero();
+        // Only the checkpoint written when the settlement started
+        verify(session, times(1)).executeAsync(statements.get(SettlementPipeline.SAVE_SETTLEMENT));
+        assertThat(leases).containsEntry(SettlementPipeline.LEASE_PREFIX + marketId, "other-node");
+    }
+
+    @Test
+    void run_LedgerUnavailable_ShouldStopAtLastCheckpoint() {
+        when(blnkClient.recordBulkTransactions(anyList(), eq(false)))
+                .thenReturn(Mono.error(new BlnkApiException("ledger unavailable")));
+
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_RUNNING);
+        assertThat(progress.pages()).isZero();
+        assertThat(progress.payoutsPosted()).isZero();
+        assertThat(progress.lastError()).contains("ledger unavailable");
+        assertThat(statements).doesNotContainKey(SettlementPipeline.MARK_POSITION);
+    }
+
+    @Test
+    void run_CompletedSettlement_ShouldNotPayAgain() {
+        saved = checkpoint(SettlementPipeline.STATUS_COMPLETED, null);
+
+        SettlementProgress progress = pipeline.run(marketId, winningOutcomeId).block();
+
+        assertThat(progress.status()).isEqualTo(SettlementPipeline.STATUS_COMPLETED);
+        verify(blnkClient, never()).recordBulkTransactions(anyList(), anyBoolean());
+        assertThat(statements).doesNotContainKey(SettlementPipeline.SELECT_POSITIONS);
+    }
+
+    /**
+     * Redis leases kept in {@link #leases}
+     */
+    @SuppressWarnings("unchecked")
+    private ReactiveRedisTemplate<String, Object> redis() {
+        ReactiveRedisTemplate<String, Object> redisTemplate = mock(ReactiveRedisTemplate.class);
+        ReactiveValueOperations<String, Object> values = mock(ReactiveValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), any(), any(Duration.class))).thenAnswer(invocation ->
+                Mono.just(leases.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null));
+        when(values.get(anyString())).thenAnswer(invocation -> Mono.justOrEmpty(leases.get(invocation.getArgument(0))));
+        when(values.delete(anyString())).thenAnswer(invocation ->
+                Mono.just(leases.remove(invocation.getArgument(0)) != null));
+        when(redisTemplate.expire(anyString(), any(Duration.class))).thenAnswer(invocation ->
+                Mono.just(leases.containsKey(invocation.getArgument(0))));
+        return redisTemplate;
+    }
+
+    private PreparedStatement prepare(String query) {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        BoundStatementBuilder builder = mock(BoundStatementBuilder.class, RETURNS_SELF);
+        BoundStatement statement = mock(BoundStatement.class);
+        when(prepared.boundStatementBuilder()).thenReturn(builder);
+        when(builder.build()).thenReturn(statement);
+        builders.put(query, builder);
+        statements.put(query, statement);
+        return prepared;
+    }
+
+    private AsyncResultSet page(AsyncResultSet next, Row... rows) {
+        AsyncResultSet page = mock(AsyncResultSet.class);
+        when(page.currentPage()).thenReturn(List.of(rows));
+        when(page.remaining()).thenReturn(rows.length);
+        when(page.hasMorePages()).thenReturn(next != null);
+        if (next != null) {
+            ExecutionInfo info = mock(ExecutionInfo.class);
+            when(info.getPagingState()).thenReturn(secondPage);
+            when(page.getExecutionInfo()).thenReturn(info);
+            when(page.fetchNextPage()).thenAnswer(invocation -> CompletableFuture.completedFuture(next));
+        }
+        return page;
+    }
+
+    private Row row(UUID userId, UUID outcomeId, String shares) {
+        Row row = mock(Row.class);
+        when(row.getUuid("user_id")).thenReturn(userId);
+        when(row.getUuid("outcome_id")).thenReturn(outcomeId);
+        when(row.getBigDecimal("shares")).thenReturn(new BigDecimal(shares));
+        return row;
+    }
+
+    /**
+     * Checkpoint taken after the first page
+     */
+    private Row checkpoint(String status, ByteBuffer pagingState) {
+        Row row = mock(Row.class);
+        when(row.getUuid("market_id")).thenReturn(marketId);
+        when(row.getUuid("winning_outcome_id")).thenReturn(winningOutcomeId);
+        when(row.getString("status")).thenReturn(status);
+        when(row.getByteBuffer("paging_state")).thenReturn(pagingState);
+        when(row.getLong("pages")).thenReturn(1L);
+        when(row.getLong("positions_scanned")).thenReturn(3L);
+        when(row.getLong("payouts_posted")).thenReturn(1L);
+        when(row.getLong("payouts_failed")).thenReturn(1L);
+        when(row.getBigDecimal("total_paid")).thenReturn(new BigDecimal("10"));
+        return row;
+    }
+}
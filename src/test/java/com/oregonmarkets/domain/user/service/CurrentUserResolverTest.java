@@ -0,0 +1,73 @@
+package com.oregonmarkets.domain.user.service;
+
+import com.oregonmarkets.common.exception.BusinessException;
+import com.oregonmarkets.common.response.ResponseCode;
+import com.oregonmarkets.domain.user.model.User;
+import com.oregonmarkets.domain.user.repository.UserRepository;
+import com.oregonmarkets.integration.magic.MagicDIDValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserResolverTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CurrentUserResolver resolver;
+
+    @Test
+    void resolve_RegisteredUser_ShouldLookUpOnlyOnce() {
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findByMagicUserId("magic-1")).thenReturn(Mono.just(User.builder().id(userId).build()));
+
+        StepVerifier.create(resolver.resolve(request("magic-1"))).expectNext(userId).verifyComplete();
+        StepVerifier.create(resolver.resolve(request("magic-1"))).expectNext(userId).verifyComplete();
+
+        verify(userRepository, times(1)).findByMagicUserId("magic-1");
+    }
+
+    @Test
+    void resolve_UnregisteredUser_ShouldFailWithUserNotFound() {
+        when(userRepository.findByMagicUserId("magic-2")).thenReturn(Mono.empty());
+
+        StepVerifier.create(resolver.resolve(request("magic-2")))
+                .expectErrorSatisfies(error -> assertThat(((BusinessException) error).getResponseCode())
+                        .isEqualTo(ResponseCode.USER_NOT_FOUND))
+                .verify();
+    }
+
+    @Test
+    void resolve_Unauthenticated_ShouldFailWithUnauthorized() {
+        StepVerifier.create(resolver.resolve(request(null)))
+                .expectErrorSatisfies(error -> assertThat(((BusinessException) error).getResponseCode())
+                        .isEqualTo(ResponseCode.UNAUTHORIZED))
+                .verify();
+    }
+
+    private static ServerRequest request(String magicUserId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/positions"));
+        if (magicUserId != null) {
+            exchange.getAttributes().put("magicUser",
+                    new MagicDIDValidator.MagicUserInfo("issuer", "user@example.com", "0x0", null, magicUserId));
+        }
+        return ServerRequest.create(exchange, HandlerStrategies.withDefaults().messageReaders());
+    }
+}
@@ -1,7 +1,10 @@
 package com.oregonmarkets.integration.blnk;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.oregonmarkets.config.BlnkProperties;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -68,4 +71,36 @@ class BlnkClientTest {
             list -> !list.isEmpty() && "USDC".equals(list.get(0).get("currency")))
         .verifyComplete();
   }
+
+  @Test
+  void recordBulkTransactions_ReturnsBatchId() throws InterruptedException {
+    server.enqueue(
+        new MockResponse()
+            .setBody("{\"batch_id\":\"batch-789\",\"status\":\"applied\"}")
+            .setHeader("Content-Type", "application/json"));
+
+    StepVerifier.create(
+            blnkClient.recordBulkTransactions(
+                List.of(Map.of("reference", "payout-1", "amount", 10)), false))
+        .expectNext("batch-789")
+        .verifyComplete();
+    assertThat(server.takeRequest().getPath())
+        .isEqualTo("/transactions/bulk");
+  }
+
+  @Test
+  void recordBulkTransactions_DuplicateReference_ShouldBeRecognised() {
+    server.enqueue(
+        new MockResponse()
+            .setResponseCode(400)
+            .setBody("{\"error\":\"reference payout:m:u:o has already been used\"}")
+            .setHeader("Content-Type", "application/json"));
+
+    StepVerifier.create(
+            blnkClient.recordBulkTransactions(List.of(Map.of("reference", "payout:m:u:o")), false))
+        .expectErrorSatisfies(error -> assertThat(BlnkClient.isDuplicateReference(error)).isTrue())
+        .verify();
+    assertThat(BlnkClient.isDuplicateReference(new IllegalStateException("reference exists")))
+        .isFalse();
+  }
 }